@@ -0,0 +1,51 @@
+package org.apache.maven.plugins.benchmark;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks jar, accepting the JMH command line options : the GC profiler is always enabled,
+ * so the allocation rates are reported along with the timings.
+ *
+ * Usage : java -jar target/benchmarks.jar [JMH options], e.g. -p fileCount=10000 to skip the largest repositories.
+ *
+ * @author sgu, pef, lab...
+ */
+public final class BenchmarkRunner {
+
+	/**
+	 * Utility class
+	 */
+	private BenchmarkRunner() {
+	}
+
+
+	/**
+	 * @param args the JMH command line options
+	 * @throws RunnerException
+	 * @throws CommandLineOptionException
+	 */
+	public static void main(final String[] args) throws RunnerException, CommandLineOptionException {
+
+		new Runner(new OptionsBuilder().parent(new CommandLineOptions(args)).addProfiler(GCProfiler.class).build()).run();
+	}
+}
@@ -0,0 +1,122 @@
+package org.apache.maven.plugins.benchmark;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.maven.plugins.engine.DeletionEngine;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the deletion throughput (@see DeletionEngine) : a fresh repository is generated before each
+ * iteration, then deleted as a whole by a single shot. The freed files and folders are reported as counters.
+ *
+ * @author sgu, pef, lab...
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class DeletionBenchmark {
+
+	/**
+	 * Approximate number of files of the repository
+	 */
+	@Param({ "10000", "100000", "1000000" })
+	public int fileCount;
+
+	/**
+	 * Value of the deleteThreads option
+	 */
+	@Param({ "1", "4" })
+	public int deleteThreads;
+
+	/**
+	 * Repository generated for the current iteration
+	 */
+	private Path root;
+
+
+	/**
+	 * Files and folders freed by the deletions
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class FreedInodes {
+
+		public long freedInodes;
+	}
+
+
+	/**
+	 * @throws IOException
+	 */
+	@Setup(Level.Iteration)
+	public void generateRepository() throws IOException {
+
+		root = Files.createTempDirectory("deletion-benchmark");
+
+		RepositoryGenerator.forFileCount(fileCount, 1024).generate(root);
+	}
+
+
+	/**
+	 * Remove the remainder of a failed deletion.
+	 *
+	 * @throws IOException
+	 */
+	@TearDown(Level.Iteration)
+	public void deleteRepository() throws IOException {
+
+		if (Files.exists(root)) {
+			new DeletionEngine(1, new SystemStreamLog()).deleteTree(root);
+		}
+	}
+
+
+	/**
+	 * @param counters
+	 */
+	@Benchmark
+	public void deleteTree(final FreedInodes counters) {
+
+		final DeletionEngine deletionEngine = new DeletionEngine(deleteThreads, new SystemStreamLog());
+
+		deletionEngine.deleteTree(root);
+		deletionEngine.close();
+
+		counters.freedInodes += deletionEngine.getFreedInodes();
+	}
+}
@@ -0,0 +1,95 @@
+package org.apache.maven.plugins.benchmark;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.net.MalformedURLException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.ListLocalRepositoryMojo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the repository wide rules, evaluated by the list goal so the repository is left unchanged
+ * between the invocations : the cost measured is the walk and the evaluation of each entry, not the deletion.
+ *
+ * @author sgu, pef, lab...
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MojoBenchmark {
+
+	/**
+	 * Regular expression matching the poms of the snapshot builds
+	 */
+	private static final String SNAPSHOT_POMS = ".*-SNAPSHOT/.*\\.pom";
+
+	/**
+	 * Value of the scanThreads option
+	 */
+	@Param({ "1", "4" })
+	public int scanThreads;
+
+
+	/**
+	 * @param repository
+	 * @throws MojoExecutionException
+	 * @throws MojoFailureException
+	 * @throws MalformedURLException
+	 */
+	@Benchmark
+	public void deleteFromRegularExpression(final RepositoryState repository) throws MojoExecutionException, MojoFailureException, MalformedURLException {
+
+		final ListLocalRepositoryMojo mojo = Mojos.prepare(new ListLocalRepositoryMojo(), repository.root);
+
+		Mojos.set(mojo, "deleteFromRegularExpression", SNAPSHOT_POMS);
+		Mojos.set(mojo, "scanThreads", scanThreads);
+
+		mojo.execute();
+	}
+
+
+	/**
+	 * @param repository
+	 * @throws MojoExecutionException
+	 * @throws MojoFailureException
+	 * @throws MalformedURLException
+	 */
+	@Benchmark
+	public void deleteEmptyFolders(final RepositoryState repository) throws MojoExecutionException, MojoFailureException, MalformedURLException {
+
+		final ListLocalRepositoryMojo mojo = Mojos.prepare(new ListLocalRepositoryMojo(), repository.root);
+
+		Mojos.set(mojo, "deleteEmptyFolders", true);
+		Mojos.set(mojo, "scanThreads", scanThreads);
+
+		mojo.execute();
+	}
+}
@@ -0,0 +1,137 @@
+package org.apache.maven.plugins.benchmark;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.lang.reflect.Field;
+import java.net.MalformedURLException;
+import java.nio.file.Path;
+
+import org.apache.maven.artifact.repository.DefaultArtifactRepository;
+import org.apache.maven.artifact.repository.layout.DefaultRepositoryLayout;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Configuration of the plugin MOJOs outside of a Maven build, the way the plugin testing harness does it : the
+ * parameters are injected in their private fields. The MOJOs log nothing, so the console output is not measured.
+ *
+ * @author sgu, pef, lab...
+ */
+public final class Mojos {
+
+	/**
+	 * Log discarding every message
+	 */
+	private static final Log SILENT_LOG = new Log() {
+
+		public boolean isDebugEnabled() { return false; }
+
+		public void debug(final CharSequence content) { }
+
+		public void debug(final CharSequence content, final Throwable error) { }
+
+		public void debug(final Throwable error) { }
+
+		public boolean isInfoEnabled() { return false; }
+
+		public void info(final CharSequence content) { }
+
+		public void info(final CharSequence content, final Throwable error) { }
+
+		public void info(final Throwable error) { }
+
+		public boolean isWarnEnabled() { return false; }
+
+		public void warn(final CharSequence content) { }
+
+		public void warn(final CharSequence content, final Throwable error) { }
+
+		public void warn(final Throwable error) { }
+
+		public boolean isErrorEnabled() { return false; }
+
+		public void error(final CharSequence content) { }
+
+		public void error(final CharSequence content, final Throwable error) { }
+
+		public void error(final Throwable error) { }
+	};
+
+
+	/**
+	 * Utility class
+	 */
+	private Mojos() {
+	}
+
+
+	/**
+	 * Prepare a MOJO for the given local repository, executed as the root of a build.
+	 *
+	 * @param mojo
+	 * @param root the root of the local repository
+	 * @return the MOJO
+	 * @throws MalformedURLException
+	 */
+	public static <T extends AbstractMojo> T prepare(final T mojo, final Path root) throws MalformedURLException {
+
+		final MavenProject project = new MavenProject();
+
+		project.setGroupId("org.bench");
+		project.setArtifactId("benchmark");
+		project.setVersion("1.0");
+		project.setExecutionRoot(true);
+
+		set(mojo, "localMavenRepository", new DefaultArtifactRepository("benchmark", root.toUri().toURL().toString(), new DefaultRepositoryLayout(), true));
+		set(mojo, "project", project);
+
+		mojo.setLog(SILENT_LOG);
+
+		return mojo;
+	}
+
+
+	/**
+	 * Set a parameter of a MOJO.
+	 *
+	 * @param mojo
+	 * @param name the name of the parameter field, declared by the MOJO class or one of its parents
+	 * @param value
+	 */
+	public static void set(final AbstractMojo mojo, final String name, final Object value) {
+
+		for (Class<?> type = mojo.getClass(); type != null; type = type.getSuperclass()) {
+
+			try {
+				final Field field = type.getDeclaredField(name);
+
+				field.setAccessible(true);
+				field.set(mojo, value);
+
+				return;
+			}
+			catch (NoSuchFieldException e) {
+				// Declared by a parent class
+			}
+			catch (IllegalAccessException e) {
+				throw new IllegalStateException(name, e);
+			}
+		}
+
+		throw new IllegalArgumentException(name);
+	}
+}
@@ -0,0 +1,279 @@
+package org.apache.maven.plugins.benchmark;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deterministic generator of synthetic local repositories, following the Maven layout :
+ * groupId/artifactId/version/artifactId-version.(jar|pom).
+ *
+ * Each artifact holds release versions (a jar and a pom) and snapshot versions, made of timestamped builds
+ * (a jar and a pom each) and a maven-metadata-local.xml file. An artifact may also hold an empty version folder,
+ * left by an interrupted download. The modification dates are spread over the last year, drawn from the seed, so
+ * two repositories generated with the same shape are identical but for their root.
+ *
+ * @author sgu, pef, lab...
+ */
+public class RepositoryGenerator {
+
+	/**
+	 * Default number of artifacts per group
+	 */
+	private static final int ARTIFACTS_PER_GROUP = 10;
+
+	/**
+	 * Default number of release versions per artifact
+	 */
+	private static final int RELEASES = 5;
+
+	/**
+	 * Default number of snapshot versions per artifact
+	 */
+	private static final int SNAPSHOTS = 3;
+
+	/**
+	 * Default number of timestamped builds per snapshot version
+	 */
+	private static final int SNAPSHOT_BUILDS = 3;
+
+	/**
+	 * Name of the file written once the generation is completed
+	 */
+	private static final String COMPLETED_MARKER = ".generated";
+
+	/**
+	 * Spread of the modification dates
+	 */
+	private static final long DATE_SPREAD = TimeUnit.DAYS.toMillis(365);
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final int groups;
+
+	private final int artifactsPerGroup;
+
+	private final int releases;
+
+	private final int snapshots;
+
+	private final int snapshotBuilds;
+
+	private final int fileSize;
+
+	/**
+	 * One artifact out of emptyFolderPeriod holds an empty version folder, none for 0
+	 */
+	private final int emptyFolderPeriod;
+
+	private final long seed;
+
+
+	/**
+	 * @param groups the number of groups
+	 * @param artifactsPerGroup the number of artifacts per group
+	 * @param releases the number of release versions per artifact
+	 * @param snapshots the number of snapshot versions per artifact
+	 * @param snapshotBuilds the number of timestamped builds per snapshot version
+	 * @param fileSize the size of the jar files, in bytes
+	 * @param emptyFolderPeriod one artifact out of emptyFolderPeriod holds an empty version folder, none for 0
+	 * @param seed the seed of the modification dates
+	 */
+	public RepositoryGenerator(final int groups, final int artifactsPerGroup, final int releases, final int snapshots,
+							   final int snapshotBuilds, final int fileSize, final int emptyFolderPeriod, final long seed) {
+
+		this.groups = groups;
+		this.artifactsPerGroup = artifactsPerGroup;
+		this.releases = releases;
+		this.snapshots = snapshots;
+		this.snapshotBuilds = snapshotBuilds;
+		this.fileSize = fileSize;
+		this.emptyFolderPeriod = emptyFolderPeriod;
+		this.seed = seed;
+	}
+
+
+	/**
+	 * Create a generator of the default shape, whose number of groups is computed to reach the given number of files.
+	 *
+	 * @param fileCount the approximate number of files of the repository
+	 * @param fileSize the size of the jar files, in bytes
+	 * @return the generator
+	 */
+	public static RepositoryGenerator forFileCount(final int fileCount, final int fileSize) {
+
+		final int filesPerGroup = ARTIFACTS_PER_GROUP * (RELEASES * 2 + SNAPSHOTS * (SNAPSHOT_BUILDS * 2 + 1));
+
+		return new RepositoryGenerator(Math.max(1, (fileCount + filesPerGroup - 1) / filesPerGroup), ARTIFACTS_PER_GROUP,
+									   RELEASES, SNAPSHOTS, SNAPSHOT_BUILDS, fileSize, 4, 42L);
+	}
+
+
+	/**
+	 * @return the number of files of a generated repository
+	 */
+	public long getFileCount() {
+
+		return (long) groups * artifactsPerGroup * (releases * 2 + snapshots * (snapshotBuilds * 2 + 1));
+	}
+
+
+	/**
+	 * Generate a repository under the given root, unless a completed generation is already there : generating a large
+	 * repository takes much longer than the benchmarks reading it, so it is reused between the runs.
+	 *
+	 * @param root
+	 * @return the root
+	 * @throws IOException
+	 */
+	public Path generateOnce(final Path root) throws IOException {
+
+		if (!Files.exists(root.resolve(COMPLETED_MARKER))) {
+
+			generate(root);
+
+			Files.createFile(root.resolve(COMPLETED_MARKER));
+		}
+
+		return root;
+	}
+
+
+	/**
+	 * Generate a repository under the given root.
+	 *
+	 * @param root
+	 * @throws IOException
+	 */
+	public void generate(final Path root) throws IOException {
+
+		final Random random = new Random(seed);
+
+		final long now = System.currentTimeMillis();
+
+		final byte[] content = new byte[fileSize];
+
+		random.nextBytes(content);
+
+		for (int g = 0; g < groups; g++) {
+
+			final Path group = root.resolve("org").resolve("bench").resolve("group" + g);
+
+			for (int a = 0; a < artifactsPerGroup; a++) {
+
+				final String artifactId = "artifact" + a;
+
+				final Path artifact = group.resolve(artifactId);
+
+				for (int r = 0; r < releases; r++) {
+
+					final String version = "1." + r;
+
+					final Path versionFolder = Files.createDirectories(artifact.resolve(version));
+
+					final long date = now - (long) (random.nextDouble() * DATE_SPREAD);
+
+					write(versionFolder.resolve(artifactId + "-" + version + ".jar"), content, date);
+					write(versionFolder.resolve(artifactId + "-" + version + ".pom"), pom(group, artifactId, version), date);
+				}
+
+				for (int s = 0; s < snapshots; s++) {
+
+					final String version = "2." + s + "-SNAPSHOT";
+
+					final Path versionFolder = Files.createDirectories(artifact.resolve(version));
+
+					long date = now - (long) (random.nextDouble() * DATE_SPREAD);
+
+					for (int b = 1; b <= snapshotBuilds; b++) {
+
+						final String build = "2." + s + "-" + String.format("%1$tY%1$tm%1$td.%1$tH%1$tM%1$tS", date) + "-" + b;
+
+						write(versionFolder.resolve(artifactId + "-" + build + ".jar"), content, date);
+						write(versionFolder.resolve(artifactId + "-" + build + ".pom"), pom(group, artifactId, version), date);
+
+						date += TimeUnit.HOURS.toMillis(1);
+					}
+
+					write(versionFolder.resolve("maven-metadata-local.xml"), metadata(group, artifactId, version), date);
+				}
+
+				if (emptyFolderPeriod > 0 && (g * artifactsPerGroup + a) % emptyFolderPeriod == 0) {
+
+					Files.createDirectories(artifact.resolve("0.0-interrupted"));
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Write a file with the given content and modification date.
+	 *
+	 * @param file
+	 * @param content
+	 * @param date
+	 * @throws IOException
+	 */
+	private static void write(final Path file, final byte[] content, final long date) throws IOException {
+
+		final OutputStream output = Files.newOutputStream(file);
+
+		try {
+			output.write(content);
+		}
+		finally {
+			output.close();
+		}
+
+		Files.setLastModifiedTime(file, FileTime.fromMillis(date));
+	}
+
+
+	/**
+	 * @param group
+	 * @param artifactId
+	 * @param version
+	 * @return the content of a minimal pom
+	 */
+	private static byte[] pom(final Path group, final String artifactId, final String version) {
+
+		return ("<project><modelVersion>4.0.0</modelVersion><groupId>org.bench." + group.getFileName() + "</groupId><artifactId>"
+				+ artifactId + "</artifactId><version>" + version + "</version></project>").getBytes(UTF8);
+	}
+
+
+	/**
+	 * @param group
+	 * @param artifactId
+	 * @param version
+	 * @return the content of a minimal local metadata file
+	 */
+	private static byte[] metadata(final Path group, final String artifactId, final String version) {
+
+		return ("<metadata><groupId>org.bench." + group.getFileName() + "</groupId><artifactId>" + artifactId
+				+ "</artifactId><version>" + version + "</version><versioning><snapshot><localCopy>true</localCopy>"
+				+ "</snapshot></versioning></metadata>").getBytes(UTF8);
+	}
+}
@@ -0,0 +1,66 @@
+package org.apache.maven.plugins.benchmark;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Synthetic local repository read by the benchmarks, generated once per shape (@see RepositoryGenerator#generateOnce)
+ * under the folder given by the benchmark.repositories system property, target/repositories by default.
+ *
+ * @author sgu, pef, lab...
+ */
+@State(Scope.Benchmark)
+public class RepositoryState {
+
+	/**
+	 * Approximate number of files of the repository
+	 */
+	@Param({ "10000", "100000", "1000000" })
+	public int fileCount;
+
+	/**
+	 * Size of the jar files, in bytes
+	 */
+	@Param({ "1024" })
+	public int fileSize;
+
+	/**
+	 * Root of the generated repository
+	 */
+	public Path root;
+
+
+	/**
+	 * Generate the repository, unless it has been generated by a previous run.
+	 *
+	 * @throws IOException
+	 */
+	@Setup
+	public void generateRepository() throws IOException {
+
+		final Path repositories = Paths.get(System.getProperty("benchmark.repositories", "target/repositories"));
+
+		root = RepositoryGenerator.forFileCount(fileCount, fileSize).generateOnce(repositories.resolve(fileCount + "-" + fileSize));
+	}
+}
@@ -0,0 +1,102 @@
+package org.apache.maven.plugins.benchmark;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugins.utils.ArtifactFolderComparator;
+import org.apache.maven.plugins.utils.Tools;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the listings of the local repository (@see Tools).
+ *
+ * @author sgu, pef, lab...
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ToolsBenchmark {
+
+	/**
+	 * Folders of the repository, in the listing order
+	 */
+	private List<Path> folders;
+
+
+	/**
+	 * @param repository
+	 */
+	@Setup
+	public void listFolders(final RepositoryState repository) {
+
+		folders = Tools.listFolders(repository.root);
+	}
+
+
+	/**
+	 * @param repository
+	 * @return the files of the repository
+	 */
+	@Benchmark
+	public List<Path> listFiles(final RepositoryState repository) {
+
+		return Tools.listFiles(repository.root);
+	}
+
+
+	/**
+	 * @param repository
+	 * @return the folders of the repository, ordered on their modification date
+	 */
+	@Benchmark
+	public List<Path> listSubFoldersOrdered(final RepositoryState repository) {
+
+		return Tools.listSubFoldersOrdered(repository.root);
+	}
+
+
+	/**
+	 * Sort the folders of the repository already listed, to isolate the cost of the comparator.
+	 *
+	 * @return the folders of the repository, ordered on their modification date
+	 */
+	@Benchmark
+	public List<Path> sortWithArtifactFolderComparator() {
+
+		final List<Path> sortedFolders = new ArrayList<Path>(folders);
+
+		Collections.sort(sortedFolders, new ArtifactFolderComparator());
+
+		return sortedFolders;
+	}
+}
@@ -17,21 +17,82 @@ package org.apache.maven.plugins;
  */
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.ArtifactUtils;
+import org.apache.maven.artifact.factory.ArtifactFactory;
+import org.apache.maven.artifact.metadata.ArtifactMetadataSource;
 import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.resolver.ArtifactCollector;
+import org.apache.maven.artifact.resolver.ArtifactResolutionException;
+import org.apache.maven.artifact.resolver.ArtifactResolutionResult;
+import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
+import org.apache.maven.artifact.versioning.InvalidVersionSpecificationException;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Plugin;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.engine.ArtifactLocks;
+import org.apache.maven.plugins.engine.CandidateReport;
+import org.apache.maven.plugins.engine.CandidateSummary;
+import org.apache.maven.plugins.engine.DeletionEngine;
+import org.apache.maven.plugins.engine.DeletionJournal;
+import org.apache.maven.plugins.engine.DeletionReaper;
+import org.apache.maven.plugins.engine.DiskBudget;
+import org.apache.maven.plugins.engine.DiskUsage;
+import org.apache.maven.plugins.engine.IoThrottle;
+import org.apache.maven.plugins.engine.LeastRecentlyUsedVersions;
+import org.apache.maven.plugins.engine.ParallelRepositoryWalker;
+import org.apache.maven.plugins.engine.PathPattern;
+import org.apache.maven.plugins.engine.PathPatternSet;
+import org.apache.maven.plugins.engine.ProtectedVersions;
+import org.apache.maven.plugins.engine.ReactorModules;
+import org.apache.maven.plugins.engine.RepositoryFolder;
+import org.apache.maven.plugins.engine.RepositoryIndex;
+import org.apache.maven.plugins.engine.RepositoryIndexWriter;
+import org.apache.maven.plugins.engine.RepositoryTrash;
+import org.apache.maven.plugins.engine.RepositoryVisitor;
+import org.apache.maven.plugins.engine.RepositoryWalker;
+import org.apache.maven.plugins.engine.RunMetrics;
+import org.apache.maven.plugins.engine.ScanCache;
+import org.apache.maven.plugins.engine.SnapshotBuilds;
+import org.apache.maven.plugins.engine.WalkCursor;
+import org.apache.maven.plugins.engine.WatchLoop;
+import org.apache.maven.plugins.utils.ArtifactFolderComparator;
 import org.apache.maven.plugins.utils.Enumeres;
 import org.apache.maven.plugins.utils.MavenUtils;
 import org.apache.maven.plugins.utils.Tools;
+import org.apache.maven.plugins.utils.VersionFolderComparator;
 import org.apache.maven.project.MavenProject;
 
 /**
@@ -47,6 +108,26 @@ import org.apache.maven.project.MavenProject;
 public abstract class AbstractLocalRepositoryMojo extends AbstractMojo
 {
 
+	/**
+	 * Number of the heaviest groups and artifacts logged by the list goal
+	 */
+	private static final int HEAVIEST_USAGES_LOGGED = 10;
+
+	/**
+	 * Number of the examples logged by rule in the summary log mode
+	 */
+	private static final int SUMMARY_EXAMPLES_LOGGED = 3;
+
+	/**
+	 * Number of the groups holding the most candidates logged in the summary log mode
+	 */
+	private static final int SUMMARY_GROUPS_LOGGED = 10;
+
+	/**
+	 * Suffix of the snapshot versions, removed to get their release version
+	 */
+	private static final String SNAPSHOT_VERSION_SUFFIX = "-SNAPSHOT";
+
 	/**
 	 * Controls whether the plugin tries to delete the current project snapshot versions from
 	 * the local repository regarding to the snapshotRetentionDelay and
@@ -95,6 +176,34 @@ public abstract class AbstractLocalRepositoryMojo extends AbstractMojo
 	 */
 	private int snapshotVersionsRetention;
 
+	/**
+	 * Controls the number of timestamped builds to keep, for each classifier and extension, inside the snapshot
+	 * versions left by the snapshotRetentionDelay and snapshotVersionsRetention options. The builds resolved by 
+	 * the metadata of the snapshot version are always kept.
+	 * 
+	 * @parameter expression="${clean-local-repository.snapshotBuildsRetention}" default-value="-1"
+	 * @since 1.1
+	 */
+	private int snapshotBuildsRetention;
+
+	/**
+	 * Controls whether the plugin deletes the snapshot versions whose release is in the local repository, 
+	 * e.g. 1.0-SNAPSHOT once 1.0 is there, along with the deleteCurrentSnapshot and deleteAllSnapshots options.
+	 * 
+	 * @parameter expression="${clean-local-repository.deleteSupersededSnapshots}" default-value="false"
+	 * @since 1.1
+	 */
+	private boolean deleteSupersededSnapshots;
+
+	/**
+	 * Controls whether the snapshotVersionsRetention and releaseVersionsRetention options keep the highest versions, 
+	 * following the Maven version ordering, rather than the most recently modified ones.
+	 * 
+	 * @parameter expression="${clean-local-repository.useVersionOrder}" default-value="false"
+	 * @since 1.1
+	 */
+	private boolean useVersionOrder;
+
 	/**
 	 * Controls the expiration delay (in days) before deleting a release
 	 * version.
@@ -116,17 +225,43 @@ public abstract class AbstractLocalRepositoryMojo extends AbstractMojo
 	 * Delete all files from the local repository which match with the given
 	 * regular expression (@see Pattern definition).
 	 * 
-	 * The selection pattern is applied on the file system path from the root
+	 * The selection pattern is applied, ignoring case, on the file system path from the root
 	 * of the maven local repository.
 	 * 
 	 * e.g. DeleteFromRegularExpression = ^com.* will delete all artifacts and
 	 * metadata published on the ${localMavenRepository}/com path.
 	 * 
+	 * When the pattern starts with a literal path (e.g. ^com/acme/.*) and the deleteAllSnapshots option is disabled,
+	 * only the matching sub tree of the repository is walked : the deleteEmptyFolders option then only applies on it.
+	 * 
 	 * @parameter expression="${clean-local-repository.deleteFromRegularExpression}"
 	 * @since 1.0
 	 */
 	private String deleteFromRegularExpression;
 	
+	/**
+	 * Delete all files from the local repository which match with at least one of the given patterns, 
+	 * and with none of the excludePatterns ones. All the patterns are evaluated during a single walk of 
+	 * the local repository, together with the deleteFromRegularExpression option.
+	 * 
+	 * A pattern is either a regular expression applied as the deleteFromRegularExpression one, or a GAV glob
+	 * groupId:artifactId[:version] selecting whole artifacts or versions, e.g. com.acme:*:*-SNAPSHOT.
+	 * 
+	 * @parameter expression="${clean-local-repository.includePatterns}"
+	 * @since 1.1
+	 */
+	private String[] includePatterns;
+	
+	/**
+	 * Keep in the local repository the files matching with at least one of the given patterns, 
+	 * among the ones selected by the includePatterns and deleteFromRegularExpression options.
+	 * Patterns are regular expressions or GAV globs, as the includePatterns ones.
+	 * 
+	 * @parameter expression="${clean-local-repository.excludePatterns}"
+	 * @since 1.1
+	 */
+	private String[] excludePatterns;
+	
 	/**
 	 * Controls the number of different snapshot versions to keep without deletion.
 	 * 
@@ -144,13 +279,241 @@ public abstract class AbstractLocalRepositoryMojo extends AbstractMojo
 	private boolean deleteWholeLocalRepository;
 
 	/**
-	 * Controls whether delete command will be attempted only for normal termination of the virtual machine.
+	 * Controls whether the deletions are deferred : they are then appended to a journal stored under the root of the 
+	 * local maven repository, and processed by a detached reaper process once the plugin execution is completed.
+	 * A journal whose processing has been interrupted is resumed by the next execution. The reaper is only started
+	 * when deletions are journaled or trash batches are expired, and the deletions of a repository which is not on the
+	 * default file system are executed immediately, out of the reach of a separate process.
 	 * 
-	 * @parameter expression="${clean-local-repository.executeDeleteOnExit}" default-value="true"
+	 * @parameter expression="${clean-local-repository.executeDeleteOnExit}" default-value="false"
 	 * @since 1.0
 	 */
 	private boolean executeDeleteOnExit;
 
+	/**
+	 * Controls the number of threads walking the local maven repository for the deleteFromRegularExpression,
+	 * deleteAllSnapshots and deleteEmptyFolders options. The groupId sub trees are then walked concurrently.
+	 * A value of 1 (or less) walks the repository serially.
+	 * 
+	 * @parameter expression="${clean-local-repository.scanThreads}" default-value="1"
+	 * @since 1.1
+	 */
+	private int scanThreads;
+
+	/**
+	 * Controls whether the walks of the local maven repository are recorded in an index file stored under its root.
+	 * The folders unchanged since the previous walk are then replayed from the index instead of being listed again.
+	 * With the maxRepositorySize or freeSpaceLowWatermark options, or for the disk usage of the list goal, the attributes
+	 * of the replayed files are still read for their current access dates and file keys.
+	 * 
+	 * @parameter expression="${clean-local-repository.useRepositoryIndex}" default-value="false"
+	 * @since 1.1
+	 */
+	private boolean useRepositoryIndex;
+
+	/**
+	 * Controls the number of threads deleting the expired folders, when executeDeleteOnExit is disabled.
+	 * Independent folders are then deleted in parallel. A value of 1 (or less) deletes the folders serially.
+	 * 
+	 * @parameter expression="${clean-local-repository.deleteThreads}" default-value="1"
+	 * @since 1.1
+	 */
+	private int deleteThreads;
+
+	/**
+	 * Controls whether the expired folders (versions, or the whole repository content) are moved to a trash stored 
+	 * under the root of the local maven repository, each one by a single atomic rename, instead of being deleted.
+	 * The trash is purged by a detached reaper process, once the trashRetentionDelay is expired.
+	 * A folder which cannot be renamed is deleted as usual.
+	 * 
+	 * @parameter expression="${clean-local-repository.useTrash}" default-value="false"
+	 * @since 1.1
+	 */
+	private boolean useTrash;
+
+	/**
+	 * Controls the delay (in days) before purging the folders moved to the trash, during which they can be restored.
+	 * With 0, the trash is purged as soon as the plugin execution is completed.
+	 * 
+	 * @parameter expression="${clean-local-repository.trashRetentionDelay}" default-value="0"
+	 * @since 1.1
+	 */
+	private int trashRetentionDelay;
+
+	/**
+	 * Controls the maximum size (in megabytes) of the local maven repository. Once exceeded, the least recently used 
+	 * version folders are deleted until the repository fits. The last use of a version is the newest access date of 
+	 * its files, read from the file system even for the folders replayed from the repository index. 
+	 * A value of 0 disables the limit.
+	 * 
+	 * @parameter expression="${clean-local-repository.maxRepositorySize}" default-value="0"
+	 * @since 1.1
+	 */
+	private long maxRepositorySize;
+
+	/**
+	 * Controls the minimum free space (in megabytes) of the file system holding the local maven repository. 
+	 * When the free space is under this low watermark, the least recently used version folders are deleted until 
+	 * the freeSpaceHighWatermark is reached. Otherwise the repository is not walked for this option.
+	 * A value of 0 disables the watermarks.
+	 * 
+	 * @parameter expression="${clean-local-repository.freeSpaceLowWatermark}" default-value="0"
+	 * @since 1.1
+	 */
+	private long freeSpaceLowWatermark;
+
+	/**
+	 * Controls the free space (in megabytes) to reach when the freeSpaceLowWatermark is crossed.
+	 * A value lower than the freeSpaceLowWatermark one (e.g. 0) is replaced by the freeSpaceLowWatermark.
+	 * 
+	 * @parameter expression="${clean-local-repository.freeSpaceHighWatermark}" default-value="0"
+	 * @since 1.1
+	 */
+	private long freeSpaceHighWatermark;
+
+	/**
+	 * Controls whether the versions of the dependencies and plugins of the reactor projects, with their transitive 
+	 * dependencies, are protected from the deletion rules (except deleteWholeLocalRepository). The dependency graph 
+	 * of the whole reactor is resolved once per build, by a single batched resolution.
+	 * 
+	 * @parameter expression="${clean-local-repository.protectReactorDependencies}" default-value="false"
+	 * @since 1.1
+	 */
+	private boolean protectReactorDependencies;
+
+	/**
+	 * Controls whether the artifacts of the reactor modules are gathered by their executions, then processed by the deleteCurrentSnapshot 
+	 * and deleteCurrentRelease options in a single batch at the end of the reactor, in parallel according to the scanThreads option.
+	 * The repository wide options are then applied by the same last execution instead of the execution root one.
+	 * The options of the last execution apply to the whole batch. The batch gathers the modules executing the goal,
+	 * all of them when it is invoked from the command line, the ones binding it to their lifecycle otherwise : a module
+	 * not binding the goal is processed by its own execution. A batch whose last module is not executed (e.g. skipped after 
+	 * a failure) is never processed.
+	 * 
+	 * @parameter expression="${clean-local-repository.aggregateReactor}" default-value="false"
+	 * @since 1.1
+	 */
+	private boolean aggregateReactor;
+
+	/**
+	 * Controls the delay (in seconds) an artifact must stay unchanged, in watch mode, before the retention rules are applied 
+	 * on its versions, so an artifact being installed or downloaded is cleaned once.
+	 * 
+	 * @parameter expression="${clean-local-repository.watchDebounceDelay}" default-value="10"
+	 * @since 1.1
+	 */
+	private int watchDebounceDelay;
+
+	/**
+	 * Controls the duration (in minutes) of the watch mode, 0 to watch the local repository until the build is interrupted.
+	 * 
+	 * @parameter expression="${clean-local-repository.watchDuration}" default-value="0"
+	 * @since 1.1
+	 */
+	private int watchDuration;
+
+	/**
+	 * Path of the JSON report of the run metrics : time spent in each phase (scan, sort, match, delete, empty folders), 
+	 * directories and files visited, versions evaluated and deleted, bytes freed, errors and throughputs. No report if unvalued.
+	 * 
+	 * @parameter expression="${clean-local-repository.metricsReportFile}"
+	 * @since 1.1
+	 */
+	private File metricsReportFile;
+
+	/**
+	 * Path of the Prometheus textfile of the run metrics, e.g. in the folder of the node_exporter textfile collector. 
+	 * The file name must end with .prom to be collected. No textfile if unvalued.
+	 * 
+	 * @parameter expression="${clean-local-repository.metricsTextfile}"
+	 * @since 1.1
+	 */
+	private File metricsTextfile;
+
+	/**
+	 * Log a summary of the candidates once the rules are applied, instead of a line per candidate : the number of
+	 * candidates of each rule with a few examples, and the groups holding the most candidates.
+	 * 
+	 * @parameter expression="${clean-local-repository.summaryLog}" default-value="false"
+	 * @since 1.1
+	 */
+	private boolean summaryLog;
+
+	/**
+	 * Path of the report of all the candidates of the rules, written in the background as newline delimited JSON 
+	 * (one {"goal", "rule", "path"} object per line). No report if unvalued.
+	 * 
+	 * @parameter expression="${clean-local-repository.candidatesReportFile}"
+	 * @since 1.1
+	 */
+	private File candidatesReportFile;
+
+	/**
+	 * Controls the time budget (in seconds) of an execution. Once spent, the walk of the local maven repository and the
+	 * least recently used versions eviction stop cleanly, and the position of the walk is saved under the root of the 
+	 * repository : the next execution continues from there, so the whole repository is covered over several builds.
+	 * A walk resumed or stopped does not record the repository index, nor enforce the maxRepositorySize option, since 
+	 * it does not see the whole repository. A value of 0 disables the budget.
+	 * 
+	 * @parameter expression="${clean-local-repository.maxDuration}" default-value="0"
+	 * @since 1.1
+	 */
+	private int maxDuration;
+
+	/**
+	 * Controls the maximum number of directories listed per second by the walks of the local maven repository and by
+	 * the deletions, so a large cleanup does not saturate the disk shared with the other builds of the host.
+	 * The limits apply to the detached reaper processing the deferred deletions too. A value of 0 disables the limit.
+	 * 
+	 * @parameter expression="${clean-local-repository.maxDirectoryReadsPerSecond}" default-value="0"
+	 * @since 1.1
+	 */
+	private long maxDirectoryReadsPerSecond;
+
+	/**
+	 * Controls the maximum number of files and folders deleted (or moved to the trash) per second. 
+	 * A value of 0 disables the limit.
+	 * 
+	 * @parameter expression="${clean-local-repository.maxUnlinksPerSecond}" default-value="0"
+	 * @since 1.1
+	 */
+	private long maxUnlinksPerSecond;
+
+	/**
+	 * Controls the maximum number of bytes deleted per second. A value of 0 disables the limit.
+	 * 
+	 * @parameter expression="${clean-local-repository.maxDeletedBytesPerSecond}" default-value="0"
+	 * @since 1.1
+	 */
+	private long maxDeletedBytesPerSecond;
+
+	/**
+	 * Deletes each version folder under an advisory lock of its artifact, the artifacts being striped by 
+	 * groupId:artifactId over a fixed set of lock files in the plugin folder of the local repository, unless the 
+	 * version is in use by a build. The deletion of a version in use is skipped rather than waited for, the version 
+	 * being selected again by the next execution. A version is in use when its artifact is locked by a concurrent 
+	 * execution of this plugin, when its resolver named lock (.locks/artifact~groupId~artifactId~version.lock) or its 
+	 * _remote.repositories file is locked, when it holds a *.part or *.lastUpdated file, or when one of its files has 
+	 * been modified within the artifactInUseDelay option.
+	 * Not covered : the processes only reading the files without locking them once the delay is over (e.g. a running
+	 * JVM with a jar on its classpath), the resolver locks named by hashes (file-hgav), stored outside the repository 
+	 * or held in memory only (rwlock-local, semaphore-local, resolvers older than 1.8), the hosts sharing the 
+	 * repository on a file system not propagating the locks, and a build starting while the version is deleted.
+	 * 
+	 * @parameter expression="${clean-local-repository.useArtifactLocks}" default-value="false"
+	 * @since 1.1
+	 */
+	private boolean useArtifactLocks;
+
+	/**
+	 * Controls the delay (in minutes) since the last modification of a version during which it is considered as in use 
+	 * by a build, and its deletion skipped, when the useArtifactLocks option is enabled.
+	 * 
+	 * @parameter expression="${clean-local-repository.artifactInUseDelay}" default-value="10"
+	 * @since 1.1
+	 */
+	private int artifactInUseDelay;
+
 	/**
 	 * Root location of the local maven repository.
 	 * 
@@ -169,7 +532,117 @@ public abstract class AbstractLocalRepositoryMojo extends AbstractMojo
 	 */ 
 	private MavenProject project; 
 	
+	/** 
+	 * Projects of the current reactor build
+	 * 
+	 * @parameter expression="${reactorProjects}" 
+	 * @readonly 
+	 */ 
+	private List<MavenProject> reactorProjects; 
+	
+	/** 
+	 * Current Maven session, scoping the listings cache
+	 * 
+	 * @parameter expression="${session}" 
+	 * @readonly 
+	 */ 
+	private MavenSession session; 
+	
+	/**
+	 * @component
+	 */
+	private ArtifactFactory artifactFactory;
+	
+	/**
+	 * @component
+	 */
+	private ArtifactCollector artifactCollector;
+	
+	/**
+	 * @component
+	 */
+	private ArtifactMetadataSource artifactMetadataSource;
+	
+	
+	/**
+	 * Deletion engine of the current execution
+	 */
+	private DeletionEngine deletionEngine;
+	
+	/**
+	 * Deletion journal of the current execution, opened on the first deferred deletion
+	 */
+	private DeletionJournal deletionJournal;
+	
+	/**
+	 * Trash batch of the current execution, opened on the first trashed folder
+	 */
+	private RepositoryTrash repositoryTrash;
+	
+	/**
+	 * Number of folders moved to the trash by the current execution
+	 */
+	private int trashedFolders;
+	
+	/**
+	 * Disk usage of the local repository accounted by the list goal, null for the clean goal
+	 */
+	private DiskUsage diskUsage;
+	
+	/**
+	 * True if the walk of the current execution visited the whole local repository
+	 */
+	private boolean wholeRepositoryWalked;
+	
+	/**
+	 * File system of the local maven repository, the default one unless the MOJO runs against another provider, e.g. in memory
+	 */
+	private FileSystem fileSystem = FileSystems.getDefault();
+
+	/**
+	 * Versions protected from the deletion rules by the protectReactorDependencies option
+	 */
+	private ProtectedVersions protectedVersions = ProtectedVersions.NONE;
 	
+	/**
+	 * Listings of the artifact folders shared by the executions of the current Maven session
+	 */
+	private ScanCache scanCache;
+
+	/**
+	 * Metrics of the current execution
+	 */
+	private RunMetrics metrics;
+
+	/**
+	 * Summary of the candidates, null if the summary log mode is not activated
+	 */
+	private CandidateSummary candidateSummary;
+
+	/**
+	 * Report of the candidates, null if no report is requested
+	 */
+	private CandidateReport candidateReport;
+
+	/**
+	 * Deadline of the current execution according to the maxDuration option, as a System.nanoTime() value
+	 */
+	private long deadline;
+
+	/**
+	 * Rate limits of the directory reads and unlinks of the current execution
+	 */
+	private IoThrottle throttle = IoThrottle.NONE;
+
+	/**
+	 * Locks of the artifacts whose versions are deleted by the current execution
+	 */
+	private ArtifactLocks artifactLocks = ArtifactLocks.NONE;
+
+	/**
+	 * Disk budget of the maxRepositorySize and free space watermarks options
+	 */
+	private DiskBudget diskBudget;
 	
 	
     /**
@@ -182,78 +655,682 @@ public abstract class AbstractLocalRepositoryMojo extends AbstractMojo
 	protected void executeCleanLocalRepositoryGoals() throws MojoExecutionException, MojoFailureException {
 		
 		
-		final File localRepository = initializeAndCheckMojoContext();
+		deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(maxDuration);
 		
-		// First, controls whether the plugin have to purge the whole local maven repository. 
-
-		if(deleteWholeLocalRepository){
-			
-			deleteAll(localRepository);
-			
-			return;
-		}
+		final Path localRepository = initializeAndCheckMojoContext();
 		
+		throttle = new IoThrottle(maxDirectoryReadsPerSecond, maxUnlinksPerSecond, maxDeletedBytesPerSecond);
 		
-		final String artefactPath = getLocalRepositoryPathForCurrentArtefact(localRepository);
-
-		final List<File> folderList = Tools.listSubFoldersOrdered(new File(artefactPath));
-
+		artifactLocks = useArtifactLocks ? new ArtifactLocks(localRepository, TimeUnit.MINUTES.toMillis(artifactInUseDelay)) : ArtifactLocks.NONE;
 		
-		// Controls whether the plugin try to delete the "Snapshot" version from the local repository
-		// Then list content and delete expired artifacts (based on snapshotRetentionVersion or snapshotRetentionDelay) 
+		deletionEngine = new DeletionEngine(deleteThreads, getLog(), throttle, artifactLocks);
 		
-		if(deleteCurrentSnapshot){
-			
-			final List<File> snapshotFoldersList = MavenUtils.getSnapshots(folderList);
-
-			deleteArtifactOnVersionExpiration(snapshotFoldersList, snapshotVersionsRetention); 
-			
-			deleteArtifactOnDelayExpiration(snapshotFoldersList, snapshotRetentionDelay); 
-		}
+		diskBudget = new DiskBudget(maxRepositorySize, freeSpaceLowWatermark, freeSpaceHighWatermark, getLog());
 		
-		// As describe before, controls whether the plugin try to delete the "Release" version from the local repository
-		// Then list content and delete expired artifacts (based on releaseRetentionVersion or releaseRetentionDelay) 
+		diskUsage = isDeleteModeActivated() ? null : new DiskUsage(localRepository);
 		
-		if(deleteCurrentRelease){
-
-			final List<File> releaseFoldersList = MavenUtils.getReleases(folderList);
+		scanCache = ScanCache.get(session);
+		
+		metrics = new RunMetrics(getGoal());
+		
+		candidateSummary = summaryLog ? new CandidateSummary(localRepository, SUMMARY_EXAMPLES_LOGGED) : null;
+		
+		candidateReport = openCandidateReport();
+		
+		if(protectReactorDependencies && !deleteWholeLocalRepository){
 			
-			deleteArtifactOnVersionExpiration(releaseFoldersList, releaseVersionsRetention); 
+			protectedVersions = getReactorProtectedVersions();
 			
-			deleteArtifactOnDelayExpiration(releaseFoldersList, releaseRetentionDelay); 
+			getLog().info(protectedVersions.size() + Enumeres.LOG.PROTECTED_VERSIONS);
 		}
 		
-		
-		if(project.isExecutionRoot()){
- 
-			final List<File> filesList = Tools.listFiles(localRepository);
+		try {
+			executeCleanLocalRepositoryRules(localRepository);
+		}
+		finally {
+			deletionEngine.close();
 			
-			// Delete all files from the local repository which match with the given regular expression.
-			// The selection pattern is applied on the file system path from the root of the maven local repository.
-	
-			if(deleteFromRegularExpression != null){
-				
-				deleteFromRegularExpression(deleteFromRegularExpression, filesList);	
-			}
+			closeCandidateReport();
 			
+			metrics.complete(deletionEngine);
 			
-			// Controls whether the plugin try to delete all the "Snapshot" version from the local repository
-			// Then list content and delete expired artifacts (based on snapshotRetentionVersion or snapshotRetentionDelay) 
+			if(isDeleteModeActivated() && !isDeletionDeferred()){
+				
+				getLog().info(Enumeres.LOG.DELETION_SUMMARY + deletionEngine.getFreedBytes() + Enumeres.LOG.FREED_BYTES 
+															+ deletionEngine.getFreedInodes() + Enumeres.LOG.FREED_INODES);
+			}
 			
-			if(deleteAllSnapshots){
-					
-				deleteAllSnapshots(filesList);
+			if(deletionEngine.getBusySkips() > 0){
+				
+				getLog().info(deletionEngine.getBusySkips() + Enumeres.LOG.ARTIFACTS_IN_USE);
 			}
-	
-		
-			// Delete all the empty folders from the local repository.
-	
-			if(deleteEmptyFolders){
+			
+			if(isDeleteModeActivated()){
 				
-				deleteEmptyFolders(localRepository); 
+				completeDeferredDeletions(localRepository);
 			}
-		}
+			else {
+				logDiskUsage();
+			}
+			
+			artifactLocks.close();
+			
+			if(candidateSummary != null){ logCandidateSummary(); }
+			
+			writeRunMetrics();
+		}
+	}
+	
+	
+	/**
+	 * Log a selected candidate, or add it to the summary in the summary log mode, and report it.
+	 * 
+	 * @param message the log message, followed by the candidate location
+	 * @param rule the name of the option defining the rule
+	 * @param path the version folder, file or empty folder selected
+	 * @param isFile true if the candidate is a file, false if it is a folder
+	 */
+	private void logCandidate(final String message, final String rule, final Path path, final boolean isFile) {
+		
+		if(candidateSummary != null){
+			candidateSummary.add(rule, path, isFile);
+		}
+		else {
+			getLog().info(message + path.toAbsolutePath());
+		}
+		
+		if(candidateReport != null){ candidateReport.add(rule, path); }
+	}
+	
+	
+	/**
+	 * Log the summary of the candidates : the number of candidates of each rule with a few examples, then the groups
+	 * holding the most candidates.
+	 */
+	private void logCandidateSummary() {
+		
+		for (final Map.Entry<String, Long> rule : candidateSummary.getCandidatesByRule().entrySet()) {
+			
+			getLog().info(Enumeres.LOG.CANDIDATES_OF + rule.getKey() + " : " + rule.getValue() + Enumeres.LOG.CANDIDATE_EXAMPLES 
+							+ candidateSummary.getExamples(rule.getKey()));
+		}
+		
+		for (final Map.Entry<String, Long> group : candidateSummary.getTopGroups(SUMMARY_GROUPS_LOGGED)) {
+			
+			getLog().info(Enumeres.LOG.CANDIDATES_IN_GROUP + group.getKey() + " : " + group.getValue());
+		}
+	}
+	
+	
+	/**
+	 * Open the report of the candidates according to the candidatesReportFile option. Failures are only reported.
+	 * 
+	 * @return the report, null if no report is requested or if it cannot be created
+	 */
+	private CandidateReport openCandidateReport() {
+		
+		if(candidatesReportFile == null){ return null; }
+		
+		try {
+			return CandidateReport.open(candidatesReportFile.toPath(), getGoal());
+		}
+		catch(IOException e)
+		{
+			metrics.addError();
+			
+			getLog().warn( Enumeres.EXCEPTION.CANDIDATES_REPORT_FAILURE + e.getMessage(), e );
+			
+			return null;
+		}
+	}
+	
+	
+	/**
+	 * Close the report of the candidates, once its pending lines are written. Failures are only reported.
+	 */
+	private void closeCandidateReport() {
+		
+		if(candidateReport == null){ return; }
+		
+		try {
+			candidateReport.close();
+		}
+		catch(IOException e)
+		{
+			metrics.addError();
+			
+			getLog().warn( Enumeres.EXCEPTION.CANDIDATES_REPORT_FAILURE + e.getMessage(), e );
+		}
+	}
+	
+	
+	/**
+	 * Write the metrics of the current execution to the report and the textfile, according to the metricsReportFile and
+	 * metricsTextfile options. Failures are only reported.
+	 */
+	private void writeRunMetrics() {
+		
+		try {
+			if(metricsReportFile != null){ metrics.writeJson(metricsReportFile.toPath()); }
+			
+			if(metricsTextfile != null){ metrics.writePrometheus(metricsTextfile.toPath()); }
+		}
+		catch(IOException e)
+		{
+			getLog().warn( Enumeres.EXCEPTION.METRICS_FAILURE + e.getMessage(), e );
+		}
+	}
+	
+	
+	/**
+	 * @return the name of the current goal
+	 */
+	private String getGoal() {
+		
+		if(isWatchModeActivated()){
+			return Enumeres.MVN_GOAL.WATCH;
+		}
+		
+		return isDeleteModeActivated() ? Enumeres.MVN_GOAL.CLEAN : Enumeres.MVN_GOAL.LIST;
+	}
+	
+	
+	/**
+	 * Log the disk usage of the local repository and its heaviest groups and artifacts, when the whole repository 
+	 * has been walked, then the bytes reclaimable by each rule and by all the rules.
+	 */
+	private void logDiskUsage() {
+		
+		if(wholeRepositoryWalked){
+			
+			getLog().info(Enumeres.LOG.DISK_USAGE + diskUsage.getTotalBytes() + Enumeres.LOG.USAGE_BYTES_IN + diskUsage.getVersionCount() 
+							+ Enumeres.LOG.USAGE_VERSIONS_OF + diskUsage.getArtifactCount() + Enumeres.LOG.USAGE_ARTIFACTS
+							+ diskUsage.getGroupCount() + Enumeres.LOG.USAGE_GROUPS);
+			
+			for (final Map.Entry<String, Long> group : diskUsage.getHeaviestGroups(HEAVIEST_USAGES_LOGGED)) {
+				
+				getLog().info(Enumeres.LOG.HEAVY_GROUP + group.getKey() + " : " + group.getValue() + Enumeres.LOG.BYTES);
+			}
+			
+			for (final Map.Entry<String, Long> artifact : diskUsage.getHeaviestArtifacts(HEAVIEST_USAGES_LOGGED)) {
+				
+				getLog().info(Enumeres.LOG.HEAVY_ARTIFACT + artifact.getKey() + " : " + artifact.getValue() + Enumeres.LOG.BYTES);
+			}
+		}
+		
+		for (final Map.Entry<String, Long> rule : diskUsage.getReclaimableByRule().entrySet()) {
+			
+			getLog().info(Enumeres.LOG.RECLAIMABLE_BY + rule.getKey() + " : " + rule.getValue() + Enumeres.LOG.BYTES);
+		}
+		
+		getLog().info(Enumeres.LOG.RECLAIMABLE_TOTAL + diskUsage.getReclaimableBytes() + Enumeres.LOG.BYTES);
+	}
+	
+	
+	/**
+	 * Account a folder (or file) listed by a rule as reclaimable, for the list goal.
+	 * 
+	 * @param rule the name of the option defining the rule
+	 * @param path
+	 */
+	private void addReclaimable(final String rule, final Path path) {
+		
+		if(diskUsage != null){ diskUsage.addReclaimable(rule, path); }
+	}
+	
+	
+	/**
+	 * Close the deletion journal of the current execution, then start a detached reaper process if journaled 
+	 * deletions or trashed folders remain, including the ones of the previous executions. Failures are only 
+	 * reported, the journal and the trash being resumed by the next execution.
+	 * 
+	 * @param root
+	 */
+	private void completeDeferredDeletions(final Path root) {
+		
+		if(repositoryTrash != null){
+			
+			try {
+				repositoryTrash.close();
+			}
+			catch(IOException e)
+			{
+				getLog().warn( Enumeres.EXCEPTION.TRASH_CLOSE_FAILURE + root, e );
+			}
+			
+			getLog().info(trashedFolders + Enumeres.LOG.FOLDERS_TRASHED + RepositoryTrash.getFolder(root));
+		}
+		
+		if(deletionJournal != null){
+			
+			try {
+				deletionJournal.close();
+			}
+			catch(IOException e)
+			{
+				getLog().warn( Enumeres.EXCEPTION.DELETION_JOURNAL_FAILURE + root, e );
+			}
+			
+			getLog().info(deletionJournal.getEntries() + Enumeres.LOG.DELETIONS_JOURNALED);
+		}
+		
+		final long trashRetention = TimeUnit.DAYS.toMillis(trashRetentionDelay);
+		
+		if(!DeletionJournal.hasSegments(root) && !RepositoryTrash.hasExpiredBatches(root, trashRetention)){ return; }
+		
+		try {
+			if(isDefaultFileSystem()){
+				DeletionReaper.start(root, trashRetention, throttle, useArtifactLocks ? TimeUnit.MINUTES.toMillis(artifactInUseDelay) : -1);
+			}
+			else {
+				// Only the expired trash batches remain, purged in place since a detached reaper cannot reach them
+				
+				DeletionReaper.drain(root, trashRetention, throttle, artifactLocks);
+			}
+		}
+		catch(IOException e)
+		{
+			getLog().warn( Enumeres.EXCEPTION.DELETION_REAPER_FAILURE + root, e );
+		}
+	}
+	
+	
+    /**
+     * Execute clean local repository sub routine according to the given mojo options.
+     * 
+     * @param localRepository
+     * @throws MojoExecutionException
+     */
+	private void executeCleanLocalRepositoryRules(final Path localRepository) throws MojoExecutionException {
+		
+		// First, controls whether the plugin have to purge the whole local maven repository. 
+
+		if(deleteWholeLocalRepository){
+			
+			deleteAll(localRepository);
+			
+			return;
+		}
+		
+		if(isWatchModeActivated()){
+			
+			watchLocalRepository(localRepository);
+			
+			return;
+		}
+		
+		
+		// With the aggregateReactor option, the modules are gathered until the end of the reactor, then processed in a single
+		// batch by the last execution, which also applies the repository wide rules.
+		
+		final ReactorModules reactorModules = ReactorModules.register(aggregateReactor ? session : null, reactorProjects, project, getGoal());
+		
+		if(!reactorModules.isGoalBound()){
+			
+			getLog().warn(Enumeres.LOG.MODULE_NOT_AGGREGATED + project.getGroupId() + ":" + project.getArtifactId());
+		}
+		
+		if(reactorModules.getModules().isEmpty()){
+			
+			getLog().info(Enumeres.LOG.MODULE_AGGREGATED + project.getGroupId() + ":" + project.getArtifactId());
+			
+			return;
+		}
+		
+		final boolean repositoryWideExecution = reactorModules.isRepositoryWide();
+		
+		if(deleteCurrentSnapshot || deleteCurrentRelease){
+			
+			applyCurrentArtifactRules(localRepository, reactorModules.getModules());
+		}
+		
+		
+		// The repository wide rules (regular expression, all snapshots, empty folders and disk budget) are applied during
+		// a single streaming walk of the local repository, each entry being evaluated as soon as it is visited.
+		
+		final long bytesToFree = repositoryWideExecution ? getBytesToFreeBeforeWalk(localRepository) : -1;
+		
+		if(repositoryWideExecution && (hasPathPatterns() || deleteAllSnapshots || deleteEmptyFolders || bytesToFree >= 0)){
+ 
+			walkLocalRepository(localRepository, bytesToFree);
+		}
+		
+	}
+
+	
+	/**
+	 * Apply the deleteCurrentSnapshot and deleteCurrentRelease options on the artifacts of the given modules, in parallel 
+	 * according to the scanThreads option.
+	 * 
+	 * @param localRepository
+	 * @param modules
+	 * @throws MojoExecutionException
+	 */
+	private void applyCurrentArtifactRules(final Path localRepository, final List<MavenProject> modules) throws MojoExecutionException {
+		
+		if(scanThreads <= 1 || modules.size() == 1){
+			
+			for (final MavenProject module : modules) {
+				applyCurrentArtifactRules(localRepository, module);
+			}
+			
+			return;
+		}
+		
+		final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(modules.size());
+		
+		for (final MavenProject module : modules) {
+			
+			tasks.add(new Callable<Void>() {
+				
+				public Void call() {
+					
+					applyCurrentArtifactRules(localRepository, module);
+					
+					return null;
+				}
+			});
+		}
+		
+		final ExecutorService executor = Executors.newFixedThreadPool(Math.min(scanThreads, modules.size()));
+		
+		try {
+			for (final Future<Void> future : executor.invokeAll(tasks)) {
+				future.get();
+			}
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			
+			throw new MojoExecutionException( Enumeres.EXCEPTION.LOCAL_MAVEN_REPOSITORY_WALK_FAILURE + localRepository, e );
+		}
+		catch(ExecutionException e)
+		{
+			throw new MojoExecutionException( Enumeres.EXCEPTION.LOCAL_MAVEN_REPOSITORY_WALK_FAILURE + localRepository, e.getCause() );
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+	
+	
+	/**
+	 * Apply the deleteCurrentSnapshot and deleteCurrentRelease options on the artifact of a module.
+	 * 
+	 * @param localRepository
+	 * @param module
+	 */
+	private void applyCurrentArtifactRules(final Path localRepository, final MavenProject module) {
+		
+		final Path artefactPath = getLocalRepositoryPathForArtefact(localRepository, module);
+
+		applyCurrentArtifactRules(listVersionFoldersOrdered(artefactPath), deleteCurrentSnapshot);
+	}
+	
+	
+	/**
+	 * Apply the deleteCurrentSnapshot (or deleteAllSnapshots) and deleteCurrentRelease options on the versions of an artifact.
+	 * 
+	 * @param folderList the version folders of the artifact, ordered on their modification date (the most recent first)
+	 * @param deleteSnapshots true if the snapshot retention applies to the artifact
+	 */
+	private void applyCurrentArtifactRules(final List<Path> folderList, final boolean deleteSnapshots) {
+		
+		final Map<Path, Future<Boolean>> deletions = new LinkedHashMap<Path, Future<Boolean>>();
+		
+		// Controls whether the plugin try to delete the "Snapshot" version from the local repository
+		// Then list content and delete expired artifacts (based on snapshotRetentionVersion or snapshotRetentionDelay) 
+		
+		if(deleteSnapshots){
+			
+			final List<Path> snapshotFoldersList = MavenUtils.getSnapshots(folderList);
+			
+			if(deleteSupersededSnapshots){
+				deleteArtifactOnRelease(snapshotFoldersList, folderList, null, deletions);
+				
+				snapshotFoldersList.removeAll(deletions.keySet());
+			}
+
+			deleteArtifactOnVersionExpiration(snapshotFoldersList, snapshotVersionsRetention, Enumeres.MOJO_OPTION.DELETE_SNAPSHOT, deletions); 
+			
+			snapshotFoldersList.removeAll(deletions.keySet());
+			
+			deleteArtifactOnDelayExpiration(snapshotFoldersList, snapshotRetentionDelay, Enumeres.MOJO_OPTION.DELETE_SNAPSHOT, null, deletions); 
+			
+			snapshotFoldersList.removeAll(deletions.keySet());
+			
+			deleteSnapshotBuildsOnVersionExpiration(snapshotFoldersList);
+		}
+		
+		// As describe before, controls whether the plugin try to delete the "Release" version from the local repository
+		// Then list content and delete expired artifacts (based on releaseRetentionVersion or releaseRetentionDelay) 
+		
+		if(deleteCurrentRelease){
+
+			final List<Path> releaseFoldersList = MavenUtils.getReleases(folderList);
+			
+			deleteArtifactOnVersionExpiration(releaseFoldersList, releaseVersionsRetention, Enumeres.MOJO_OPTION.DELETE_RELEASE, deletions); 
+			
+			releaseFoldersList.removeAll(deletions.keySet());
+			
+			deleteArtifactOnDelayExpiration(releaseFoldersList, releaseRetentionDelay, Enumeres.MOJO_OPTION.DELETE_RELEASE, null, deletions); 
+		}
+		
+		awaitVersionDeletions(deletions);
+	}
+
+	
+	/**
+	 * Watch the local repository until the watchDuration option expires, or until the build is interrupted, applying the 
+	 * snapshot and release retention rules on the artifacts installed or downloaded meanwhile, once they are quiet for the 
+	 * watchDebounceDelay option. The cleanup cost is so proportional to the churn of the repository rather than to its size.
+	 * When the system cannot watch every folder of the repository, the watch falls back to a periodic pass over the tree.
+	 * 
+	 * @param localRepository
+	 * @throws MojoExecutionException
+	 */
+	private void watchLocalRepository(final Path localRepository) throws MojoExecutionException {
+		
+		final WatchLoop watchLoop = new WatchLoop(useVersionOrder ? new VersionFolderComparator() : new ArtifactFolderComparator(), metrics, getLog());
+		
+		try {
+			watchLoop.watch(localRepository, TimeUnit.SECONDS.toMillis(watchDebounceDelay), TimeUnit.MINUTES.toMillis(watchDuration), new WatchLoop.Cleaner() {
+				
+				public void clean(final List<Path> versionFolders) {
+					
+					applyCurrentArtifactRules(versionFolders, deleteCurrentSnapshot || deleteAllSnapshots);
+				}
+			});
+		}
+		catch(IOException e)
+		{
+			throw new MojoExecutionException( Enumeres.EXCEPTION.REPOSITORY_WATCH_FAILURE + localRepository, e );
+		}
+	}
+
+	
+	/**
+	 * Walk the whole local repository once, serially or in parallel according to the scanThreads option, applying the deleteFromRegularExpression, deleteAllSnapshots 
+	 * and deleteEmptyFolders rules on each visited entry, then evict the least recently used versions according to the disk budget options.
+	 * 
+	 * @param localRepository
+	 * @param bytesToFree the number of bytes to free according to the free space watermarks, -1 if the disk budget options are disabled
+	 * @throws MojoExecutionException
+	 */
+	private void walkLocalRepository(final Path localRepository, final long bytesToFree) throws MojoExecutionException {
+		
+		final Path root = localRepository;
+		
+		final PathPatternSet pattern = hasPathPatterns() ? compilePathPatterns(root) : null;
+		
+		final LeastRecentlyUsedVersions versions = bytesToFree >= 0 ? new LeastRecentlyUsedVersions(root) : null;
+		
+		wholeRepositoryWalked = pattern == null || deleteAllSnapshots || versions != null;
+		
+		final RepositoryIndexWriter indexWriter = useRepositoryIndex ? openRepositoryIndex(root) : null;
+		
+		final WalkCursor cursor = maxDuration > 0 ? WalkCursor.open(root, getGoal(), deadline) : null;
+		
+		if(cursor != null && cursor.isResumed()){ getLog().info(Enumeres.LOG.WALK_RESUMED); }
+		
+		final RepositoryWalker walker = new RepositoryWalker(root, new CleaningVisitor(pattern, versions), 
+				useRepositoryIndex ? RepositoryIndex.load(root) : RepositoryIndex.EMPTY, indexWriter, cursor, throttle, versions != null || diskUsage != null);
+		
+		final long scanStart = System.nanoTime();
+		
+		try {
+			if(scanThreads > 1){
+				ParallelRepositoryWalker.walk(walker, scanThreads);
+			}
+			else {
+				walker.walk();
+			}
+		}
+		catch(IOException e)
+		{
+			metrics.addError();
+			
+			if(indexWriter != null){ indexWriter.abort(); }
+			
+			throw new MojoExecutionException( Enumeres.EXCEPTION.LOCAL_MAVEN_REPOSITORY_WALK_FAILURE + localRepository, e );
+		}
+		
+		metrics.addPhaseTime(RunMetrics.SCAN, scanStart);
+		
+		final boolean partialWalk = cursor != null && (cursor.isResumed() || cursor.isStopped());
+		
+		if(cursor != null){ saveWalkCursor(cursor, root); }
+		
+		wholeRepositoryWalked &= !partialWalk;
+		
+		if(indexWriter != null && partialWalk){ indexWriter.abort(); }
+		
+		else if(indexWriter != null){ commitRepositoryIndex(indexWriter, root); }
+		
+		if(versions != null){ deleteLeastRecentlyUsedVersions(versions, bytesToFree, !partialWalk); }
+	}
+	
+	
+	/**
+	 * Save the position the next time budgeted walk resumes from, a failure being only reported.
+	 * 
+	 * @param cursor
+	 * @param root
+	 */
+	private void saveWalkCursor(final WalkCursor cursor, final Path root) {
+		
+		if(cursor.isStopped()){ getLog().info(Enumeres.LOG.WALK_STOPPED + cursor.getPosition()); }
+		
+		try {
+			cursor.save();
+		}
+		catch(IOException e)
+		{
+			metrics.addError();
+			
+			getLog().warn( Enumeres.EXCEPTION.WALK_CURSOR_FAILURE + root, e );
+		}
+	}
+	
+	
+	/**
+	 * @return true if the time budget of the maxDuration option is spent, false otherwise or if the option is disabled.
+	 */
+	private boolean isTimeBudgetSpent() {
+		
+		return maxDuration > 0 && System.nanoTime() - deadline >= 0;
+	}
+
+	
+	/**
+	 * Get the number of bytes to free before walking the local repository, according to the free space watermarks.
+	 * 
+	 * @param localRepository
+	 * @return the number of bytes to free (0 if the size of the repository has to be measured for the maxRepositorySize option),
+	 * -1 if the disk budget options are disabled or if the free space is over the low watermark
+	 * @throws MojoExecutionException if the free space cannot be read
+	 */
+	private long getBytesToFreeBeforeWalk(final Path localRepository) throws MojoExecutionException {
+		
+		try {
+			return diskBudget.getBytesToFree(localRepository);
+		}
+		catch(IOException e)
+		{
+			throw new MojoExecutionException( Enumeres.EXCEPTION.FREE_SPACE_UNAVAILABLE + localRepository, e );
+		}
+	}
+	
+	
+	/**
+	 * Execute delete sub-routine according to the disk budget options : the least recently used versions are deleted 
+	 * until the repository fits in the maxRepositorySize and the bytes to free for the watermarks are freed.
+	 * 
+	 * The eviction stops once the time budget of the maxDuration option is spent.
+	 * 
+	 * @param versions the versions collected by the walk
+	 * @param bytesToFree the number of bytes to free according to the free space watermarks
+	 * @param wholeRepository true if the walk has collected the whole repository, false if the size of the repository is unknown
+	 */
+	private void deleteLeastRecentlyUsedVersions(final LeastRecentlyUsedVersions versions, final long bytesToFree, final boolean wholeRepository) {
+		
+		final Map<Path, Future<Boolean>> deletions = new LinkedHashMap<Path, Future<Boolean>>();
+		
+		final String rule = diskBudget.getRule();
+		
+		for (final Path version : diskBudget.selectEvictions(versions, bytesToFree, wholeRepository)) {
+			
+			if(isTimeBudgetSpent()){ break; }
+			
+			logCandidate(isDeleteModeActivated() ? Enumeres.LOG.DELETE : Enumeres.LOG.LIST, rule, version, false);
+			
+			metrics.addVersionEvaluated();
+			
+			if(isDeleteModeActivated()){ deletions.put(version, deleteFolder(version)); }
+			
+			addReclaimable(rule, version);
+		}
+		
+		awaitVersionDeletions(deletions);
+	}
+	
+	
+	/**
+	 * Start the index of the local repository walk, the walk being not recorded if the index cannot be created.
+	 * 
+	 * @param root
+	 * @return the index writer, null if the index cannot be created
+	 */
+	private RepositoryIndexWriter openRepositoryIndex(final Path root) {
+		
+		try {
+			return RepositoryIndexWriter.open(root);
+		}
+		catch(IOException e)
+		{
+			getLog().warn( Enumeres.EXCEPTION.REPOSITORY_INDEX_FAILURE + root, e );
+			
+			return null;
+		}
+	}
+
+	
+	/**
+	 * Make the index of the completed walk the index of the next one, a failure being only reported.
+	 * 
+	 * @param indexWriter
+	 * @param root
+	 */
+	private void commitRepositoryIndex(final RepositoryIndexWriter indexWriter, final Path root) {
 		
+		try {
+			indexWriter.commit();
+		}
+		catch(IOException e)
+		{
+			getLog().warn( Enumeres.EXCEPTION.REPOSITORY_INDEX_FAILURE + root, e );
+		}
 	}
 
 	
@@ -263,18 +1340,26 @@ public abstract class AbstractLocalRepositoryMojo extends AbstractMojo
 	 * 
 	 * @param foldersList
 	 * @param retentionDelay
+	 * @param rule the name of the option defining the rule, for the reclaimable bytes
+	 * @param walkedArtifact the state of the artifact folder gathered by the repository walk, null outside of the walk
+	 * @param deletions the deletions started, by version folder
 	 */
-	private void deleteArtifactOnDelayExpiration(final List<File> foldersList, final int retentionDelay) {
+	private void deleteArtifactOnDelayExpiration(final List<Path> foldersList, final int retentionDelay, final String rule, 
+												 final RepositoryFolder walkedArtifact, final Map<Path, Future<Boolean>> deletions) {
 		
 		for (int i = 0; retentionDelay >= 0 && i < foldersList.size(); i++) {
 
-			final File artifactFolder = foldersList.get(i);
+			final Path artifactFolder = foldersList.get(i);
 
-			if (getArtifactElapsedDays(artifactFolder) > retentionDelay) {
+			metrics.addVersionEvaluated();
 
-				getLog().info((isDeleteModeActivated() ? Enumeres.LOG.DELETE : Enumeres.LOG.LIST) + artifactFolder.getAbsolutePath());
+			if (getArtifactElapsedDays(artifactFolder, walkedArtifact) > retentionDelay && !protectedVersions.contains(artifactFolder)) {
 
-				if (isDeleteModeActivated()) { Tools.deleteFolderQuietly(artifactFolder, executeDeleteOnExit, getLog()); }
+				logCandidate(isDeleteModeActivated() ? Enumeres.LOG.DELETE : Enumeres.LOG.LIST, rule, artifactFolder, false);
+
+				if (isDeleteModeActivated()) { deletions.put(artifactFolder, deleteFolder(artifactFolder)); }
+				
+				addReclaimable(rule, artifactFolder);
 			}
 		}
 	}
@@ -286,17 +1371,124 @@ public abstract class AbstractLocalRepositoryMojo extends AbstractMojo
 	 * 
 	 * @param foldersList
 	 * @param retentionVersion
+	 * @param rule the name of the option defining the rule, for the reclaimable bytes
+	 * @param deletions the deletions started, by version folder
 	 */
-	private void deleteArtifactOnVersionExpiration(final List<File> foldersList, final int retentionVersion) {
+	private void deleteArtifactOnVersionExpiration(final List<Path> foldersList, final int retentionVersion, final String rule, final Map<Path, Future<Boolean>> deletions) {
 		
 		for (int i = retentionVersion; retentionVersion >= 0 && i < foldersList.size(); i++) {
 			
-			final File artifactFolder = foldersList.get(i);
+			final Path artifactFolder = foldersList.get(i);
+			
+			metrics.addVersionEvaluated();
+			
+			if(protectedVersions.contains(artifactFolder)){ continue; }
+
+			logCandidate(isDeleteModeActivated() ? Enumeres.LOG.DELETE : Enumeres.LOG.LIST, rule, artifactFolder, false);
+			
+			if(isDeleteModeActivated()){ deletions.put(artifactFolder, deleteFolder(artifactFolder)); }
+			
+			addReclaimable(rule, artifactFolder);
+		}
+	}
 
-			getLog().info( (isDeleteModeActivated() ? Enumeres.LOG.DELETE : Enumeres.LOG.LIST) + artifactFolder.getAbsolutePath());	 
+	
+	/**
+	 * Execute delete sub-routine according to the deleteSupersededSnapshots option : the snapshot versions whose release
+	 * version is in the artifact folder, with some content, are deleted.
+	 * 
+	 * @param snapshotFoldersList
+	 * @param versionFoldersList all the version folders of the artifact
+	 * @param walkedArtifact the state of the artifact folder gathered by the repository walk, null outside of the walk
+	 * @param deletions the deletions started, by version folder
+	 */
+	private void deleteArtifactOnRelease(final List<Path> snapshotFoldersList, final List<Path> versionFoldersList, 
+										 final RepositoryFolder walkedArtifact, final Map<Path, Future<Boolean>> deletions) {
+		
+		final Set<Path> versionFolders = new HashSet<Path>(versionFoldersList);
+		
+		for (final Path artifactFolder : snapshotFoldersList) {
+			
+			final String version = artifactFolder.getFileName().toString();
+			
+			if(!version.endsWith(SNAPSHOT_VERSION_SUFFIX) || protectedVersions.contains(artifactFolder)){ continue; }
+			
+			metrics.addVersionEvaluated();
+			
+			final Path releaseFolder = artifactFolder.resolveSibling(version.substring(0, version.length() - SNAPSHOT_VERSION_SUFFIX.length()));
+			
+			if(!versionFolders.contains(releaseFolder) || isVersionEmpty(releaseFolder, walkedArtifact)){ continue; }
+			
+			logCandidate(isDeleteModeActivated() ? Enumeres.LOG.DELETE : Enumeres.LOG.LIST, Enumeres.MOJO_OPTION.DELETE_SUPERSEDED_SNAPSHOTS, artifactFolder, false);
+			
+			if(isDeleteModeActivated()){ deletions.put(artifactFolder, deleteFolder(artifactFolder)); }
+			
+			addReclaimable(Enumeres.MOJO_OPTION.DELETE_SUPERSEDED_SNAPSHOTS, artifactFolder);
+		}
+	}
+	
+	
+	/**
+	 * Define if a version folder does not contain any file, from the state gathered by the repository walk when 
+	 * the version has been listed, from the file system otherwise.
+	 * 
+	 * @param versionFolder
+	 * @param walkedArtifact the state of the artifact folder gathered by the repository walk, null outside of the walk
+	 * @return true if the version folder is empty, false otherwise.
+	 */
+	private static boolean isVersionEmpty(final Path versionFolder, final RepositoryFolder walkedArtifact) {
+		
+		final RepositoryFolder walkedVersion = walkedArtifact != null ? walkedArtifact.getSubFolder(versionFolder) : null;
+		
+		return walkedVersion != null && walkedVersion.isListed() ? walkedVersion.isEmpty() : Tools.listFiles(versionFolder).isEmpty();
+	}
+	
+	
+	/**
+	 * List the version folders of an artifact, the newest first : the most recently modified, or the highest version 
+	 * according to the useVersionOrder option.
+	 * 
+	 * @param artifactFolder
+	 * @return the ordered version folders
+	 */
+	private List<Path> listVersionFoldersOrdered(final Path artifactFolder) {
+		
+		final long sortStart = System.nanoTime();
+		
+		List<Path> folderList = scanCache.listSubFoldersOrdered(artifactFolder, throttle);
+		
+		if(useVersionOrder){
 			
-			if(isDeleteModeActivated()){ Tools.deleteFolderQuietly(artifactFolder, executeDeleteOnExit, getLog()); }
+			folderList = new ArrayList<Path>(folderList);
+			
+			Collections.sort(folderList, new VersionFolderComparator());
 		}
+		
+		metrics.addPhaseTime(RunMetrics.SORT, sortStart);
+		
+		return folderList;
+	}
+	
+	
+	/**
+	 * List the version folders of an artifact visited by the repository walk, the newest first : the most recently modified, 
+	 * or the highest version according to the useVersionOrder option. The folders and their dates are the ones gathered by 
+	 * the walk, so the artifact folder is not read again.
+	 * 
+	 * @param artifactFolder the state of the artifact folder, still opened by the walk
+	 * @return the ordered version folders remaining in the artifact folder
+	 */
+	private List<Path> listVersionFoldersOrdered(final RepositoryFolder artifactFolder) {
+		
+		final long sortStart = System.nanoTime();
+		
+		final List<Path> folderList = artifactFolder.getRemainingSubFolders();
+		
+		Collections.sort(folderList, useVersionOrder ? new VersionFolderComparator() : new ArtifactFolderComparator(artifactFolder.getSubFolderDates()));
+		
+		metrics.addPhaseTime(RunMetrics.SORT, sortStart);
+		
+		return folderList;
 	}
 	
 	
@@ -305,106 +1497,456 @@ public abstract class AbstractLocalRepositoryMojo extends AbstractMojo
      * have to purge all the snapshots version from the whole local maven repository.
      * 
      * This implementation handle the snapshotVersionsRetention and snapshotVersionsRetention options.
+     * It is called by the repository walk once the given artifact folder has been entirely visited.
+     * 
+	 * @param artifactFolder
+	 * @return the version folders removed from the artifact folder
+	 */
+	private List<Path> deleteAllSnapshots(final RepositoryFolder artifactFolder) {
+		
+		final Map<Path, Future<Boolean>> deletions = new LinkedHashMap<Path, Future<Boolean>>();
+		
+		final List<Path> versionFoldersList = listVersionFoldersOrdered(artifactFolder);
+		
+		final List<Path> snapshotFoldersList = MavenUtils.getSnapshots(versionFoldersList);
+		
+		if(deleteSupersededSnapshots){
+			
+			deleteArtifactOnRelease(snapshotFoldersList, versionFoldersList, artifactFolder, deletions);
+			
+			snapshotFoldersList.removeAll(deletions.keySet());
+		}
+
+		deleteArtifactOnVersionExpiration(snapshotFoldersList, snapshotVersionsRetention, Enumeres.MOJO_OPTION.DELETE_ALL_SNAPSHOTS, deletions);
+		
+		snapshotFoldersList.removeAll(deletions.keySet());
+			
+		deleteArtifactOnDelayExpiration(snapshotFoldersList, snapshotRetentionDelay, Enumeres.MOJO_OPTION.DELETE_ALL_SNAPSHOTS, artifactFolder, deletions);
+		
+		snapshotFoldersList.removeAll(deletions.keySet());
+		
+		deleteSnapshotBuildsOnVersionExpiration(snapshotFoldersList);
+		
+		// The walk state of the artifact is only updated with the versions actually removed, once it is left
+		
+		final List<Path> removedVersions = awaitVersionDeletions(deletions);
+		
+		markSubFoldersRemoved(artifactFolder, removedVersions);
+		
+		return removedVersions;
+	}
+	
+	
+	/**
+	 * Execute delete sub-routine according to the snapshotBuildsRetention option which controls the number of 
+	 * timestamped builds to keep, for each classifier and extension, inside each snapshot version.
+	 * 
+	 * @param snapshotFoldersList the snapshot versions left by the other snapshot rules
+	 */
+	private void deleteSnapshotBuildsOnVersionExpiration(final List<Path> snapshotFoldersList) {
+		
+		for (int i = 0; snapshotBuildsRetention >= 0 && i < snapshotFoldersList.size(); i++) {
+			
+			final Path snapshotFolder = snapshotFoldersList.get(i);
+			
+			if(protectedVersions.contains(snapshotFolder)){ continue; }
+			
+			try {
+				for (final Path build : SnapshotBuilds.getExpiredBuilds(snapshotFolder, snapshotBuildsRetention)) {
+					
+					logCandidate(isDeleteModeActivated() ? Enumeres.LOG.DELETE_BUILD : Enumeres.LOG.LIST_BUILD, 
+								 Enumeres.MOJO_OPTION.SNAPSHOT_BUILDS_RETENTION, build, true);
+					
+					// Only the expired builds are read, for the bytes freed
+					
+					if(isDeleteModeActivated()){ deleteFile(build, Files.size(build)); }
+					
+					addReclaimable(Enumeres.MOJO_OPTION.SNAPSHOT_BUILDS_RETENTION, build);
+				}
+			}
+			catch(IOException e)
+			{
+				metrics.addError();
+				
+				getLog().warn( Enumeres.EXCEPTION.SNAPSHOT_BUILDS_FAILURE + snapshotFolder, e );
+			}
+			finally {
+				deletionEngine.releaseFiles();
+			}
+		}
+	}
+
+	
+	/**
+	 * Wait for the completion of the deletions of version folders.
+	 * 
+	 * @param deletions the deletions started, by version folder
+	 * @return the version folders removed, or being removed by the trash or the deletion journal, from the local repository
+	 */
+	private List<Path> awaitVersionDeletions(final Map<Path, Future<Boolean>> deletions) {
+		
+		final List<Path> removedFolders = new ArrayList<Path>();
+		
+		for (final Map.Entry<Path, Future<Boolean>> deletion : deletions.entrySet()) {
+			
+			if(isRemoved(deletion.getKey(), deletion.getValue())){ removedFolders.add(deletion.getKey()); metrics.addVersionDeleted(); }
+		}
+		
+		return removedFolders;
+	}
+	
+	
+	/**
+	 * Wait for the completion of a deletion.
+	 * 
+	 * @param path
+	 * @param deletion
+	 * @return true if the path has been removed, or is being removed by the trash or the deletion journal, from the local repository, false otherwise.
+	 */
+	private boolean isRemoved(final Path path, final Future<Boolean> deletion) {
+		
+		try {
+			return deletion.get();
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			
+			return false;
+		}
+		catch(ExecutionException e)
+		{
+			metrics.addError();
+			
+			getLog().warn( Enumeres.EXCEPTION.FILE_DELETION_EXCEPTION + path, e.getCause() );
+			
+			return false;
+		}
+	}
+	
+	
+	/**
+	 * Report to the repository walk the version folders removed from an artifact folder.
+	 * 
+	 * @param artifactFolder
+	 * @param removedFolders
+	 */
+	private void markSubFoldersRemoved(final RepositoryFolder artifactFolder, final List<Path> removedFolders) {
+		
+		for (final Path removedFolder : removedFolders) {
+			
+			artifactFolder.markSubFolderRemoved(removedFolder);
+		}
+	}
+
+    
+	/**
+	 * Delete a file from the local repository if it matches with the given regular expression (@see Pattern definition).
+	 * The selection pattern is applied on the file system path from the root of the maven local repository.
+	 * 
+	 * @param pattern
+	 * @param file
+	 * @param attributes
+	 * @return true if the file has been removed from the local repository, false otherwise.
+	 */
+    private boolean deleteFromRegularExpression(final PathPatternSet pattern, final Path file, final BasicFileAttributes attributes) {
+
+        	final long matchStart = System.nanoTime();
+        	
+        	final boolean matches = pattern.matches(file);
+        	
+        	metrics.addPhaseTime(RunMetrics.MATCH, matchStart);
+        	
+        	if(matches && !protectedVersions.contains(file.getParent()))
+        	{
+        		logCandidate(isDeleteModeActivated() ? Enumeres.LOG.DELETE : Enumeres.LOG.LIST, Enumeres.MOJO_OPTION.DELETE_FROM_REGULAR_EXPRESSION, file, true);
+        		
+        		if(diskUsage != null){ diskUsage.addReclaimable(Enumeres.MOJO_OPTION.DELETE_FROM_REGULAR_EXPRESSION, file, attributes); }
+
+    			return isDeleteModeActivated() && deleteFile(file, attributes.size());
+        	}
+        	
+        	return false;
+    }
+    
+    
+	/**
+	 * Execute delete sub-routine according to the deleteEmptyFolders options which controls whether the plugin have to 
+	 * delete all the empty folders from the local maven repository.
+	 * It is called by the repository walk once the given folder has been entirely visited and found without any file.
+	 * 
+	 * @param emptyFolder
+	 */
+	private void deleteEmptyFolder(final RepositoryFolder emptyFolder) {
+
+		logCandidate(isDeleteModeActivated() ? Enumeres.LOG.DELETE_EMPTY : Enumeres.LOG.LIST_EMPTY, Enumeres.MOJO_OPTION.DELETE_EMPTY_FOLDERS, emptyFolder.getPath(), false);
+
+		if (isDeleteModeActivated() && isRemoved(emptyFolder.getPath(), deleteEmptyFolder(emptyFolder.getPath()))) { emptyFolder.markRemoved(); }
+	}
+    
+    
+    /**
+     * Execute delete sub-routine according to the deleteEmptyFolders options which controls whether the plugin
+     * have to purge the whole local maven repository.
      * 
-	 * @param filesList
+     * @param localMavenRepositoryDirectory
+     * @param isDeleteMode
+     */
+	private void deleteAll(final Path localMavenRepositoryDirectory) {
+
+    	if(project.isExecutionRoot()){
+    	
+			logCandidate(isDeleteModeActivated() ? Enumeres.LOG.DELETE_ALL : Enumeres.LOG.LIST_ALL, 
+						 Enumeres.MOJO_OPTION.DELETE_WHOLE_LOCAL_REPOSITORY, localMavenRepositoryDirectory, false);
+			
+			addReclaimable(Enumeres.MOJO_OPTION.DELETE_WHOLE_LOCAL_REPOSITORY, localMavenRepositoryDirectory);
+
+			if(isDeleteModeActivated() && useTrash){
+				
+				// Each sub tree of the repository is moved to the trash, the root folder holding the trash itself being kept
+				
+				for (final Path entry : listFolderContent(localMavenRepositoryDirectory)) {
+					
+					if(!DeletionJournal.isPluginFolder(entry)){
+						deleteFolder(entry);
+					}
+				}
+			}
+			
+			else if(isDeleteModeActivated() && isDeletionDeferred()){
+				
+				// Each sub tree of the repository is journaled, the root folder holding the journal itself being kept
+				
+				for (final Path entry : listFolderContent(localMavenRepositoryDirectory)) {
+					
+					if(!DeletionJournal.isPluginFolder(entry)){
+						journalDeletion(DeletionJournal.TREE, entry);
+					}
+				}
+			}
+			
+			else if(isDeleteModeActivated()){
+				
+				// Each sub tree of the repository is handed to the deletion engine, then the root folder once emptied, 
+				// unless it holds the plugin folder
+				
+				for (final Path entry : listFolderContent(localMavenRepositoryDirectory)) {
+					
+					if(!DeletionJournal.isPluginFolder(entry)){
+						deletionEngine.deleteTree(entry);
+					}
+				}
+				
+				deletionEngine.deleteEmptyFolder(localMavenRepositoryDirectory);
+			}
+    	}
+	}
+	
+	
+	/**
+	 * List the direct content of a folder.
+	 * 
+	 * @param folder
+	 * @return the files and folders contained by the given folder, nothing if it cannot be read.
+	 */
+	private List<Path> listFolderContent(final Path folder) {
+		
+		final List<Path> content = new ArrayList<Path>();
+		
+		throttle.acquireDirectoryRead();
+		
+		try (DirectoryStream<Path> entries = Files.newDirectoryStream(folder)) {
+			
+			for (final Path entry : entries) {
+				content.add(entry);
+			}
+		}
+		catch(IOException e)
+		{
+			getLog().warn( Enumeres.EXCEPTION.LOCAL_MAVEN_REPOSITORY_WALK_FAILURE + folder, e );
+		}
+		
+		return content;
+	}
+	
+	
+	/**
+	 * Delete a folder and its whole content, by moving it to the trash according to the useTrash option, 
+	 * otherwise through the deletion engine or the deletion journal according to the executeDeleteOnExit option.
+	 * A folder above the version folders is not moved to the trash when the artifact locks are used, since its 
+	 * versions in use could not be kept : its folders are deleted one by one under their locks.
+	 * 
+	 * @param folder
+	 * @return the deletion, completed with true if the folder has been removed, or is being removed by the trash or the 
+	 * deletion journal, from the local repository, false otherwise.
+	 */
+	private Future<Boolean> deleteFolder(final Path folder) {
+		
+		scanCache.invalidate(folder);
+		
+		if(useTrash && artifactLocks.coversTree(folder)){
+			
+			final ArtifactLocks.Lock lock = artifactLocks.tryLock(folder);
+			
+			if(lock == null){
+				
+				getLog().info( Enumeres.LOG.ARTIFACT_IN_USE + folder );
+				
+				return CompletableFuture.completedFuture(false);
+			}
+			
+			try {
+				throttle.acquireUnlink(0);
+				
+				if(moveToTrash(folder)){ return CompletableFuture.completedFuture(true); }
+			}
+			finally {
+				lock.release();
+			}
+		}
+		
+		if(isDeletionDeferred()){
+			return CompletableFuture.completedFuture(journalDeletion(DeletionJournal.TREE, folder));
+		}
+		
+		return deletionEngine.deleteTree(folder);
+	}
+	
+	
+	/**
+	 * Delete a folder whose content has been deleted, through the deletion engine or the deletion journal
+	 * according to the executeDeleteOnExit option.
+	 * 
+	 * @param folder
+	 * @return the deletion, completed with true if the folder has been removed, or is being removed by the deletion journal, 
+	 * from the local repository, false otherwise.
+	 */
+	private Future<Boolean> deleteEmptyFolder(final Path folder) {
+		
+		scanCache.invalidate(folder);
+		
+		if(isDeletionDeferred()){
+			return CompletableFuture.completedFuture(journalDeletion(DeletionJournal.EMPTY_FOLDER, folder));
+		}
+		
+		return deletionEngine.deleteEmptyFolder(folder);
+	}
+	
+	
+	/**
+	 * Delete a single file, through the deletion engine or the deletion journal
+	 * according to the executeDeleteOnExit option.
+	 * 
+	 * @param file
+	 * @param size
+	 * @return true if the file has been removed from the local repository, false otherwise.
+	 */
+	private boolean deleteFile(final Path file, final long size) {
+		
+		if(isDeletionDeferred()){
+			return journalDeletion(DeletionJournal.FILE, file);
+		}
+		
+		return deletionEngine.deleteFile(file, size);
+	}
+	
+
+	/**
+	 * Define if the deletions are deferred to the detached reaper, according to the executeDeleteOnExit option.
+	 * The watch mode deletes immediately, since its execution may last as long as the build is not interrupted, 
+	 * as well as a repository stored by another file system than the default one, which the reaper cannot reach.
+	 * 
+	 * @return true if the deletions are journaled, false otherwise.
+	 */
+	private boolean isDeletionDeferred() {
+		
+		return executeDeleteOnExit && !isWatchModeActivated() && isDefaultFileSystem();
+	}
+	
+	
+	/**
+	 * @return true if the local repository is stored by the default file system, which a detached process can reach.
+	 */
+	private boolean isDefaultFileSystem() {
+		
+		return fileSystem == FileSystems.getDefault();
+	}
+	
+
+	/**
+	 * Move a folder to the trash batch of the current execution, opening it on the first folder.
+	 * 
+	 * @param folder
+	 * @return true if the folder has been moved to the trash, false otherwise.
 	 */
-	private void deleteAllSnapshots(final List<File> filesList) {
+	private synchronized boolean moveToTrash(final Path folder) {
 		
-		Set<File> artifact = MavenUtils.getSnapshotArtifacts(filesList);
-
-		for (File artifactFoldersWithSnapshot : artifact) {
-						
-			deleteArtifactOnVersionExpiration(MavenUtils.getSnapshots(artifactFoldersWithSnapshot), snapshotVersionsRetention); 
+		try {
+			if(repositoryTrash == null){
+				repositoryTrash = RepositoryTrash.open(fileSystem.getPath(localMavenRepository.getBasedir()));
+			}
+			
+			repositoryTrash.moveToTrash(folder);
 			
-			deleteArtifactOnDelayExpiration(MavenUtils.getSnapshots(artifactFoldersWithSnapshot), snapshotRetentionDelay); 
+			trashedFolders++;
 			
+			return true;
+		}
+		catch(IOException e)
+		{
+			metrics.addError();
+			
+			getLog().warn( Enumeres.EXCEPTION.TRASH_FAILURE + folder, e );
+			
+			return false;
 		}
 	}
-
-    
-	/**
-	 * Delete all files  from the local repository which match with the given regular expression (@see Pattern definition).
-	 * The selection pattern is applied on the file system path from the root of the maven local repository.
-	 * 
-	 * @param deleteFromRegularExpression
-	 * @param repositoryPath
-	 */
-    private void deleteFromRegularExpression(final String deleteFromRegularExpression, final List<File> filesList) {
-
-    		final Pattern pattern = Pattern.compile(deleteFromRegularExpression);
-
-	    	for (final File file : filesList) {
 	
-	        	if(Tools.matchPatternIgnoreCase(pattern, file.getAbsolutePath()))
-	        	{
-	        		getLog().info( (isDeleteModeActivated() ? Enumeres.LOG.DELETE : Enumeres.LOG.LIST) + file.getAbsolutePath());	 
 	
-	    			if(isDeleteModeActivated()){ Tools.deleteQuietly(file, executeDeleteOnExit, getLog()); }
-	        	}
-			}
-    	
-    }
-    
-    
 	/**
-	 * Execute delete sub-routine according to the deleteEmptyFolders options which controls whether the plugin have to 
-	 * delete all the empty folders from the local maven repository
+	 * Append a deferred deletion to the journal of the current execution, opening it on the first deletion.
 	 * 
-	 * @param foldersList
-	 * @param snapshotVersionsRetention
-	 * @param isDeleteMode
-	 * @param repositoryPath 
+	 * @param type the deletion type (@see DeletionJournal)
+	 * @param path
+	 * @return true if the deletion has been journaled, false otherwise.
 	 */
-	private void deleteEmptyFolders(final File repositoryPath) {
-
-		final List<File> foldersList = Tools.listFolders(repositoryPath);
-				
-		Collections.reverse(foldersList);
+	private synchronized boolean journalDeletion(final char type, final Path path) {
 		
-		for (int i = 0; i < foldersList.size(); i++) {
-
-			final File folder = foldersList.get(i);
-
-			if (Tools.isNullOrEmpty(Tools.listFiles(folder))) {
-
-				getLog().info((isDeleteModeActivated() ? Enumeres.LOG.DELETE_EMPTY : Enumeres.LOG.LIST_EMPTY) + folder.getAbsolutePath());
-
-				if (isDeleteModeActivated()) { Tools.deleteQuietly(folder, executeDeleteOnExit, getLog()); }
+		try {
+			if(deletionJournal == null){
+				deletionJournal = DeletionJournal.open(fileSystem.getPath(localMavenRepository.getBasedir()));
 			}
+			
+			deletionJournal.append(type, path);
+			
+			return true;
+		}
+		catch(IOException e)
+		{
+			metrics.addError();
+			
+			getLog().error( Enumeres.EXCEPTION.DELETION_JOURNAL_FAILURE + path, e );
+			
+			return false;
 		}
-	}
-    
-    
-    /**
-     * Execute delete sub-routine according to the deleteEmptyFolders options which controls whether the plugin
-     * have to purge the whole local maven repository.
-     * 
-     * @param localMavenRepositoryDirectory
-     * @param isDeleteMode
-     */
-	private void deleteAll(final File localMavenRepositoryDirectory) {
-
-    	if(project.isExecutionRoot()){
-    	
-			getLog().info((isDeleteModeActivated() ? Enumeres.LOG.DELETE_ALL : Enumeres.LOG.LIST_ALL) 
-												   + localMavenRepositoryDirectory.getAbsolutePath());
-
-			if(isDeleteModeActivated()){ Tools.deleteFolderQuietly(localMavenRepositoryDirectory, executeDeleteOnExit, getLog()); }
-    	}
 	}
 	
 
 	/**
-	 * Get the elapsed days from the last modification date of a given artifact folder.
+	 * Get the elapsed days from the last modification date of a given artifact folder, 
+	 * which is the newest modification date of its content (as used to order the artifact versions).
+	 * The date is the one gathered by the repository walk when the folder has been listed, it is read from the file system otherwise.
 	 * 
 	 * @param artifactFolder
+	 * @param walkedArtifact the state of the parent folder gathered by the repository walk, null outside of the walk
 	 * @return the number of days elapsed from the last modification date of the artifact.
 	 */
-	private int getArtifactElapsedDays(final File artifactFolder) {
+	private int getArtifactElapsedDays(final Path artifactFolder, final RepositoryFolder walkedArtifact) {
 		
-		final File[] folderContent = artifactFolder.listFiles();
+		final RepositoryFolder walkedVersion = walkedArtifact != null ? walkedArtifact.getSubFolder(artifactFolder) : null;
 		
-		final long lastModified = !Tools.isNullOrEmpty(folderContent) ? folderContent[0].lastModified() : artifactFolder.lastModified();
+		final long lastModified = walkedVersion != null && walkedVersion.isListed() ? walkedVersion.getContentLastModified() 
+																				  : Tools.getNewestLastModified(artifactFolder);
 		
 		final int elapsedDays = Tools.compareDaysBetweenDates(new Date(lastModified), Calendar.getInstance().getTime()) ;
 		
@@ -413,24 +1955,141 @@ public abstract class AbstractLocalRepositoryMojo extends AbstractMojo
 	
 	
     /**
-     * Get the local repository path for a the current module according to the artifact groupId, artifactId and version.
+     * Get the local repository path for a module according to the artifact groupId and artifactId.
      * 
      * @param localRepositoryFolder
-     * @return the current artifact path in the local maven repository
+     * @param module
+     * @return the module artifact path in the local maven repository
      */
-	private String getLocalRepositoryPathForCurrentArtefact(final File localRepositoryFolder) {
-		
-		//TODO : @see and replace if possible by : new File(localRepository.getBasedir(), localRepository.pathOf(artifact)).getParentFile();
+	private Path getLocalRepositoryPathForArtefact(final Path localRepositoryFolder, final MavenProject module) {
 		
-		final StringBuilder artefactPath = new StringBuilder(localRepositoryFolder.getAbsolutePath());
+		Path artefactPath = localRepositoryFolder.toAbsolutePath();
 		
-		artefactPath.append(File.separator).append(project.getGroupId().replace(".", File.separator));
-		artefactPath.append(File.separator).append(project.getArtifactId());
+		for (final String groupIdPart : module.getGroupId().split("\\.")) {
+			artefactPath = artefactPath.resolve(groupIdPart);
+		}
 		
-		return artefactPath.toString();
+		return artefactPath.resolve(module.getArtifactId());
 	}
 
-	
+
+	/**
+	 * Get the versions protected by the dependency graph of the current reactor, resolved by the first execution
+	 * of the plugin in the Maven session and shared by the following ones.
+	 *
+	 * @return the protected versions
+	 */
+	private ProtectedVersions getReactorProtectedVersions() {
+
+		final List<MavenProject> reactor = reactorProjects != null ? reactorProjects : Collections.singletonList(project);
+
+		return ProtectedVersions.get(session, new Supplier<ProtectedVersions>() {
+
+			public ProtectedVersions get() {
+
+				return resolveProtectedVersions(reactor);
+			}
+		});
+	}
+
+
+	/**
+	 * Resolve the dependency graph of the dependencies and build plugins of all the reactor projects, by a single batched
+	 * collection, then locate the version folders of the resolved artifacts. The reactor projects themselves are not resolved,
+	 * since they may not be installed yet. If the graph cannot be resolved, only the direct dependencies and plugins are protected.
+	 *
+	 * @param reactor
+	 * @return the protected versions
+	 */
+	@SuppressWarnings("unchecked")
+	private ProtectedVersions resolveProtectedVersions(final List<MavenProject> reactor) {
+
+		final Set<String> reactorKeys = new HashSet<String>();
+
+		for (final MavenProject reactorProject : reactor) {
+
+			reactorKeys.add(ArtifactUtils.versionlessKey(reactorProject.getGroupId(), reactorProject.getArtifactId()));
+		}
+
+		final Set<Artifact> artifacts = new LinkedHashSet<Artifact>();
+
+		for (final MavenProject reactorProject : reactor) {
+
+			for (final Dependency dependency : (List<Dependency>) reactorProject.getDependencies()) {
+
+				addArtifact(artifacts, dependency.getGroupId(), dependency.getArtifactId(), dependency.getVersion(), dependency);
+			}
+
+			for (final Plugin plugin : (List<Plugin>) reactorProject.getBuildPlugins()) {
+
+				addArtifact(artifacts, plugin.getGroupId(), plugin.getArtifactId(), plugin.getVersion(), null);
+			}
+		}
+
+		final Set<Artifact> graph = new LinkedHashSet<Artifact>(artifacts);
+
+		try {
+			// The current project anchors the graph of the whole reactor
+			
+			final Artifact originatingArtifact = artifactFactory.createProjectArtifact(project.getGroupId(), project.getArtifactId(), project.getVersion());
+			
+			final ArtifactResolutionResult result = artifactCollector.collect(artifacts, originatingArtifact, localMavenRepository,
+					project.getRemoteArtifactRepositories(), artifactMetadataSource, new ArtifactFilter() {
+
+				public boolean include(final Artifact artifact) {
+
+					return !reactorKeys.contains(ArtifactUtils.versionlessKey(artifact));
+				}
+			}, Collections.EMPTY_LIST);
+
+			graph.addAll((Set<Artifact>) result.getArtifacts());
+		}
+		catch(ArtifactResolutionException e)
+		{
+			getLog().warn( Enumeres.EXCEPTION.DEPENDENCY_GRAPH_FAILURE + e.getMessage() );
+		}
+
+		final List<Path> versionFolders = new ArrayList<Path>(graph.size());
+
+		for (final Artifact artifact : graph) {
+
+			if(artifact.getVersion() != null){
+
+				versionFolders.add(fileSystem.getPath(localMavenRepository.getBasedir(), localMavenRepository.pathOf(artifact)).getParent());
+			}
+		}
+
+		return new ProtectedVersions(versionFolders);
+	}
+
+
+	/**
+	 * Add the artifact of a dependency or a plugin to the artifacts to resolve, if its version is valid.
+	 *
+	 * @param artifacts
+	 * @param groupId
+	 * @param artifactId
+	 * @param version the version or version range, null if it is not defined
+	 * @param dependency the dependency, null for a plugin
+	 */
+	private void addArtifact(final Set<Artifact> artifacts, final String groupId, final String artifactId, final String version, final Dependency dependency) {
+
+		if(version == null){ return; }
+
+		try {
+			final VersionRange versionRange = VersionRange.createFromVersionSpec(version);
+
+			artifacts.add(dependency == null ? artifactFactory.createPluginArtifact(groupId, artifactId, versionRange)
+					: artifactFactory.createDependencyArtifact(groupId, artifactId, versionRange, dependency.getType(),
+															   dependency.getClassifier(), dependency.getScope(), dependency.isOptional()));
+		}
+		catch(InvalidVersionSpecificationException e)
+		{
+			getLog().warn( Enumeres.EXCEPTION.DEPENDENCY_GRAPH_FAILURE + e.getMessage() );
+		}
+	}
+
+
 	/**
 	 * Initialize and check the execution context of the Mojo :
 	 * - read access to the local repository folder
@@ -441,16 +2100,16 @@ public abstract class AbstractLocalRepositoryMojo extends AbstractMojo
 	 * @throws MojoExecutionException
 	 * @throws MojoFailureException
 	 */
-	private File initializeAndCheckMojoContext() throws MojoExecutionException, MojoFailureException {
+	private Path initializeAndCheckMojoContext() throws MojoExecutionException, MojoFailureException {
 		
-		final File localRepositoryFolder = new File(localMavenRepository.getBasedir());
+		final Path localRepositoryFolder = fileSystem.getPath(localMavenRepository.getBasedir());
 		
-		if(!localRepositoryFolder.exists())
+		if(!Files.exists(localRepositoryFolder))
 		{
 			throw new MojoExecutionException( Enumeres.EXCEPTION.LOCAL_MAVEN_REPOSITORY_UNAVAILABLE + localRepositoryFolder );
 		}
 				
-		if(!localRepositoryFolder.canWrite())
+		if(!Files.isWritable(localRepositoryFolder))
 		{
 			throw new MojoFailureException( Enumeres.EXCEPTION.LOCAL_MAVEN_REPOSITORY_PERMISSION_DENIED + localRepositoryFolder );
 		}
@@ -474,11 +2133,95 @@ public abstract class AbstractLocalRepositoryMojo extends AbstractMojo
 										  + Enumeres.EXCEPTION.NEGATIVE_NUMBER + releaseRetentionDelay);
 		}
 		
+		if(snapshotBuildsRetention < -1)
+		{
+			throw new MojoFailureException( Enumeres.EXCEPTION.UNEXPECTED_PARAMETER + Enumeres.MOJO_OPTION.SNAPSHOT_BUILDS_RETENTION
+										  + Enumeres.EXCEPTION.NEGATIVE_NUMBER + snapshotBuildsRetention);
+		}
+		
 		if(releaseVersionsRetention < -1)
 		{
 			throw new MojoFailureException( Enumeres.EXCEPTION.UNEXPECTED_PARAMETER + Enumeres.MOJO_OPTION.SNAPSHOT_VERSIONS_RETENTION
 										  + Enumeres.EXCEPTION.NEGATIVE_NUMBER + releaseVersionsRetention);
 		}
+		
+		if(deleteThreads < 0)
+		{
+			throw new MojoFailureException( Enumeres.EXCEPTION.UNEXPECTED_PARAMETER + Enumeres.MOJO_OPTION.DELETE_THREADS
+										  + Enumeres.EXCEPTION.NEGATIVE_NUMBER + deleteThreads);
+		}
+		
+		if(maxRepositorySize < 0)
+		{
+			throw new MojoFailureException( Enumeres.EXCEPTION.UNEXPECTED_PARAMETER + Enumeres.MOJO_OPTION.MAX_REPOSITORY_SIZE
+										  + Enumeres.EXCEPTION.NEGATIVE_NUMBER + maxRepositorySize);
+		}
+		
+		if(freeSpaceLowWatermark < 0)
+		{
+			throw new MojoFailureException( Enumeres.EXCEPTION.UNEXPECTED_PARAMETER + Enumeres.MOJO_OPTION.FREE_SPACE_LOW_WATERMARK
+										  + Enumeres.EXCEPTION.NEGATIVE_NUMBER + freeSpaceLowWatermark);
+		}
+		
+		if(freeSpaceHighWatermark < 0)
+		{
+			throw new MojoFailureException( Enumeres.EXCEPTION.UNEXPECTED_PARAMETER + Enumeres.MOJO_OPTION.FREE_SPACE_HIGH_WATERMARK
+										  + Enumeres.EXCEPTION.NEGATIVE_NUMBER + freeSpaceHighWatermark);
+		}
+		
+		if(trashRetentionDelay < 0)
+		{
+			throw new MojoFailureException( Enumeres.EXCEPTION.UNEXPECTED_PARAMETER + Enumeres.MOJO_OPTION.TRASH_RETENTION_DELAY
+										  + Enumeres.EXCEPTION.NEGATIVE_NUMBER + trashRetentionDelay);
+		}
+		
+		if(watchDebounceDelay < 0)
+		{
+			throw new MojoFailureException( Enumeres.EXCEPTION.UNEXPECTED_PARAMETER + Enumeres.MOJO_OPTION.WATCH_DEBOUNCE_DELAY
+										  + Enumeres.EXCEPTION.NEGATIVE_NUMBER + watchDebounceDelay);
+		}
+		
+		if(artifactInUseDelay < 0)
+		{
+			throw new MojoFailureException( Enumeres.EXCEPTION.UNEXPECTED_PARAMETER + Enumeres.MOJO_OPTION.ARTIFACT_IN_USE_DELAY
+										  + Enumeres.EXCEPTION.NEGATIVE_NUMBER + artifactInUseDelay);
+		}
+		
+		if(watchDuration < 0)
+		{
+			throw new MojoFailureException( Enumeres.EXCEPTION.UNEXPECTED_PARAMETER + Enumeres.MOJO_OPTION.WATCH_DURATION
+										  + Enumeres.EXCEPTION.NEGATIVE_NUMBER + watchDuration);
+		}
+		
+		if(maxDuration < 0)
+		{
+			throw new MojoFailureException( Enumeres.EXCEPTION.UNEXPECTED_PARAMETER + Enumeres.MOJO_OPTION.MAX_DURATION
+										  + Enumeres.EXCEPTION.NEGATIVE_NUMBER + maxDuration);
+		}
+		
+		if(maxDirectoryReadsPerSecond < 0)
+		{
+			throw new MojoFailureException( Enumeres.EXCEPTION.UNEXPECTED_PARAMETER + Enumeres.MOJO_OPTION.MAX_DIRECTORY_READS_PER_SECOND
+										  + Enumeres.EXCEPTION.NEGATIVE_NUMBER + maxDirectoryReadsPerSecond);
+		}
+		
+		if(maxUnlinksPerSecond < 0)
+		{
+			throw new MojoFailureException( Enumeres.EXCEPTION.UNEXPECTED_PARAMETER + Enumeres.MOJO_OPTION.MAX_UNLINKS_PER_SECOND
+										  + Enumeres.EXCEPTION.NEGATIVE_NUMBER + maxUnlinksPerSecond);
+		}
+		
+		if(maxDeletedBytesPerSecond < 0)
+		{
+			throw new MojoFailureException( Enumeres.EXCEPTION.UNEXPECTED_PARAMETER + Enumeres.MOJO_OPTION.MAX_DELETED_BYTES_PER_SECOND
+										  + Enumeres.EXCEPTION.NEGATIVE_NUMBER + maxDeletedBytesPerSecond);
+		}
+		
+		if(scanThreads < 0)
+		{
+			throw new MojoFailureException( Enumeres.EXCEPTION.UNEXPECTED_PARAMETER + Enumeres.MOJO_OPTION.SCAN_THREADS
+										  + Enumeres.EXCEPTION.NEGATIVE_NUMBER + scanThreads);
+		}
 
 		try {
 			if(!Tools.isNullOrEmpty(deleteFromRegularExpression)){
@@ -491,10 +2234,14 @@ public abstract class AbstractLocalRepositoryMojo extends AbstractMojo
 					  					  + Enumeres.EXCEPTION.PATTERN_SYNTAX_EXCEPTION + deleteFromRegularExpression, e);
 		}
 		
-		// Initialization of a default plugin retention behavior if, and only if, all the retention options and the RegExp option are unvalued
+		checkPathPatterns(includePatterns, Enumeres.MOJO_OPTION.INCLUDE_PATTERNS, localRepositoryFolder);
+		checkPathPatterns(excludePatterns, Enumeres.MOJO_OPTION.EXCLUDE_PATTERNS, localRepositoryFolder);
+		
+		// Initialization of a default plugin retention behavior if, and only if, all the retention options, the RegExp option and the
+		// repository wide deletion options are unvalued
 		// So without any argument, the default behavior is to resolve the current project artifacts tree, then delete all version excepting current one from the local repository 
 		
-		if(deleteFromRegularExpression == null 
+		if(!hasPathPatterns() && !hasRepositoryWideDeletions()
 		&& snapshotRetentionDelay == -1 && snapshotVersionsRetention == -1  
 		&& releaseRetentionDelay  == -1 && releaseVersionsRetention  == -1)
 		{			
@@ -510,6 +2257,191 @@ public abstract class AbstractLocalRepositoryMojo extends AbstractMojo
 	
 	
 
+	/**
+	 * Check the syntax of the include or exclude patterns.
+	 * 
+	 * @param patterns
+	 * @param option the option name
+	 * @param localRepositoryFolder
+	 * @throws MojoFailureException
+	 */
+	private void checkPathPatterns(final String[] patterns, final String option, final Path localRepositoryFolder) throws MojoFailureException {
+		
+		for (int i = 0; patterns != null && i < patterns.length; i++) {
+			
+			try {
+				PathPattern.parse(patterns[i], localRepositoryFolder);
+			}
+			catch(IllegalArgumentException e) 
+			{
+				throw new MojoFailureException( Enumeres.EXCEPTION.UNEXPECTED_PARAMETER + option
+						  					  + Enumeres.EXCEPTION.PATTERN_SYNTAX_EXCEPTION + patterns[i], e);
+			}
+		}
+	}
+	
+	
+	/**
+	 * @return true if one of the snapshotBuildsRetention, deleteSupersededSnapshots, maxRepositorySize or
+	 *         freeSpaceLowWatermark options is valued, false otherwise.
+	 */
+	private boolean hasRepositoryWideDeletions() {
+		
+		return snapshotBuildsRetention != -1 || deleteSupersededSnapshots || maxRepositorySize > 0 || freeSpaceLowWatermark > 0;
+	}
+	
+	
+	/**
+	 * @return true if the deleteFromRegularExpression or includePatterns options are valued, false otherwise.
+	 */
+	private boolean hasPathPatterns() {
+		
+		return deleteFromRegularExpression != null || !Tools.isNullOrEmpty(includePatterns);
+	}
+	
+	
+	/**
+	 * Combine the deleteFromRegularExpression, includePatterns and excludePatterns options into a single matcher.
+	 * 
+	 * @param root
+	 * @return the combined patterns
+	 */
+	private PathPatternSet compilePathPatterns(final Path root) {
+		
+		final List<PathPattern> includes = new ArrayList<PathPattern>();
+		
+		final List<PathPattern> excludes = new ArrayList<PathPattern>();
+		
+		if(deleteFromRegularExpression != null){
+			includes.add(new PathPattern(deleteFromRegularExpression, root));
+		}
+		
+		for (int i = 0; includePatterns != null && i < includePatterns.length; i++) {
+			includes.add(PathPattern.parse(includePatterns[i], root));
+		}
+		
+		for (int i = 0; excludePatterns != null && i < excludePatterns.length; i++) {
+			excludes.add(PathPattern.parse(excludePatterns[i], root));
+		}
+		
+		return new PathPatternSet(includes, excludes, root);
+	}
+	
+	
+
+	/**
+	 * Repository visitor applying the repository wide rules of the plugin on each entry of the local repository walk.
+	 * It does not hold any walk state, so distinct folders can be visited concurrently.
+	 */
+	private class CleaningVisitor implements RepositoryVisitor {
+		
+		/**
+		 * Compiled deleteFromRegularExpression, includePatterns and excludePatterns options, null if no pattern is valued
+		 */
+		private final PathPatternSet pattern;
+		
+		/**
+		 * Versions collected for the disk budget options, null if the options are disabled
+		 */
+		private final LeastRecentlyUsedVersions versions;
+		
+		
+		/**
+		 * @param pattern
+		 * @param versions
+		 */
+		CleaningVisitor(final PathPatternSet pattern, final LeastRecentlyUsedVersions versions) {
+			
+			this.pattern = pattern;
+			this.versions = versions;
+		}
+		
+		
+		/**
+		 * Delete the file if it matches with the deleteFromRegularExpression and include patterns options, and flag its artifact folder
+		 * for the deleteAllSnapshots option.
+		 * 
+		 * @see org.apache.maven.plugins.engine.RepositoryVisitor#visitFile(RepositoryFolder, Path, BasicFileAttributes)
+		 */
+		public boolean visitFile(final RepositoryFolder folder, final Path file, final BasicFileAttributes attributes) {
+			
+			metrics.addFileVisited();
+			
+			if(diskUsage != null){
+				
+				folder.addDiskUsage(diskUsage.account(file, attributes));
+			}
+			
+			if(deleteAllSnapshots && folder.getParent() != null && folder.isSnapshotVersion()){
+				
+				folder.getParent().markSnapshotArtifact();
+			}
+			
+			return pattern != null && deleteFromRegularExpression(pattern, file, attributes);
+		}
+		
+		
+		/**
+		 * Release the lock of the folder taken for the deletion of its matching files.
+		 * 
+		 * @see org.apache.maven.plugins.engine.RepositoryVisitor#postVisitFiles(RepositoryFolder)
+		 */
+		public void postVisitFiles(final RepositoryFolder folder) {
+			
+			deletionEngine.releaseFiles();
+		}
+		
+		
+		/**
+		 * Skip the sub trees which cannot match with the deleteFromRegularExpression and include patterns options, unless the whole 
+		 * repository has to be walked for the deleteAllSnapshots or disk budget options.
+		 * 
+		 * @see org.apache.maven.plugins.engine.RepositoryVisitor#preVisitFolder(RepositoryFolder, Path)
+		 */
+		public boolean preVisitFolder(final RepositoryFolder parent, final Path folder) {
+			
+			metrics.addDirectoryVisited();
+			
+			return pattern == null || deleteAllSnapshots || versions != null || pattern.canMatchUnder(folder);
+		}
+		
+		
+		/**
+		 * Apply the deleteAllSnapshots option on the artifact folders, then the deleteEmptyFolders option.
+		 * 
+		 * @see org.apache.maven.plugins.engine.RepositoryVisitor#postVisitFolder(RepositoryFolder)
+		 */
+		public void postVisitFolder(final RepositoryFolder folder) {
+			
+			if(diskUsage != null){
+				
+				diskUsage.addFolder(folder);
+			}
+			
+			if(folder.isSnapshotArtifact()){
+				
+				final List<Path> removedVersions = deleteAllSnapshots(folder);
+				
+				if(versions != null){ versions.markRemoved(removedVersions); }
+			}
+			
+			if(deleteEmptyFolders){
+				
+				final long emptyFoldersStart = System.nanoTime();
+				
+				if(folder.isEmpty()){ deleteEmptyFolder(folder); }
+				
+				metrics.addPhaseTime(RunMetrics.EMPTY_FOLDERS, emptyFoldersStart);
+			}
+			
+			if(versions != null){
+				
+				versions.add(folder, !protectedVersions.contains(folder.getPath()));
+			}
+		}
+	}
+	
+
 	/**
 	 * Define if the current goal allows deletion or only list artifact to delete.
 	 * Implementation is delegated to the  sub classes representing "list" and "clean" goal, as defined by the Maven MOJO Specification.
@@ -517,5 +2449,17 @@ public abstract class AbstractLocalRepositoryMojo extends AbstractMojo
 	 * @return true if the current goal is "clean", false otherwise.
 	 */
 	protected abstract boolean isDeleteModeActivated();
+	
+	
+	/**
+	 * Define if the current goal watches the local repository, applying the retention rules on the artifacts as they change,
+	 * instead of a single cleanup pass. Overridden by the sub class representing the "watch" goal.
+	 * 
+	 * @return true if the current goal is "watch", false otherwise.
+	 */
+	protected boolean isWatchModeActivated()
+	{
+		return false;
+	}
 
 }
@@ -28,6 +28,8 @@ import org.apache.maven.plugin.MojoFailureException;
  * 
  * @requiresProject false
  * 
+ * @threadSafe
+ * 
  * @version $Id$
  * 
  * @author sgu, pef, lab ..
@@ -0,0 +1,77 @@
+package org.apache.maven.plugins;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+
+
+/**
+ * Implementation of the clean-local-repository:watch goal.
+ * 
+ * Standalone cleaner watching the local repository through file system change notifications : the retention rules 
+ * are applied on each artifact installed or downloaded during the watch, instead of a whole repository pass.
+ * 
+ * @goal watch
+ * 
+ * @requiresProject false
+ * 
+ * @threadSafe
+ * 
+ * @version $Id$
+ * 
+ * @author sgu, pef, lab...
+ */
+public class WatchLocalRepositoryMojo extends AbstractLocalRepositoryMojo
+{
+
+    /**
+     * Implementation of the execute() method for the clean-local-repository:watch goal.
+     * 
+     * @throws MojoExecutionException
+     * @throws MojoFailureException 
+     * 
+     * @see org.apache.maven.plugin.Mojo#execute()
+     */
+    public void execute() throws MojoExecutionException, MojoFailureException
+    {
+    	super.executeCleanLocalRepositoryGoals();
+    }
+
+    
+	/**
+	 * This abstract method implementation define the deletion mode associated with the current goal.
+	 * 
+	 * @return true in the current "watch" goal context
+	 */
+	protected boolean isDeleteModeActivated()
+	{
+		return true;
+	}
+
+    
+	/**
+	 * This method implementation define the watch mode associated with the current goal.
+	 * 
+	 * @return true in the current "watch" goal context
+	 */
+	protected boolean isWatchModeActivated()
+	{
+		return true;
+	}
+   
+}
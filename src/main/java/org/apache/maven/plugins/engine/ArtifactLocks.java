@@ -0,0 +1,475 @@
+package org.apache.maven.plugins.engine;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Advisory locks of the artifacts of a local repository, coordinating the deletions with the concurrent Maven
+ * processes sharing the repository.
+ *
+ * The artifacts are striped by groupId:artifactId over a fixed set of lock files stored in the plugin folder
+ * (@see DeletionJournal#FOLDER_NAME), so the number of lock files does not grow with the repository. A version folder
+ * is deleted under the exclusive lock of its artifact stripe, taken just for its deletion : a process holding the lock
+ * (shared or exclusive) marks the artifact as in use, and the deletion is skipped rather than waited for. The threads
+ * of a process wait for each other on the stripe, since a file lock is held by the whole process. The files of a version
+ * folder deleted one by one are deleted under a single lock, taken with the check of the version on the first file
+ * and held by the thread until the last one (@see #tryLockFiles). A tree above the version folders (the repository
+ * root, a groupId or an artifactId folder) is not covered by a single lock : its folders are locked one by one for the
+ * deletion of their files, the versions in use being kept with their parent folders (@see #coversTree).
+ *
+ * Since the Maven resolver does not take these locks, a version folder is also considered as in use by a build when :
+ * - its artifact lock file of the resolver named locks (.locks/artifact~groupId~artifactId~version.lock, the file-gav
+ *   name mapper) or its _remote.repositories tracking file is locked by another process or thread;
+ * - it holds a download in progress (*.part) or a resolution tracking file (*.lastUpdated), the version being then
+ *   kept until the tracking file is removed (e.g. by a successful download);
+ * - one of its files has been modified within the grace period.
+ * It is not detected when it is only read by a process which opened its files without locking them (e.g. a JVM having
+ * a jar on its classpath) once the grace period is over, when the resolver names its locks with hashes (the file-hgav
+ * name mapper) or stores them outside the repository, when the resolver locks are held in memory only (the rwlock-local
+ * and semaphore-local factories, as well as the resolvers older than 1.8 besides their tracking files), when the
+ * locks are not propagated between the hosts sharing the repository (e.g. NFS without lock manager), and when a build
+ * starts using the version between the check and the end of its deletion.
+ *
+ * This class only depends on the JDK, since it is loaded by the detached reaper process.
+ *
+ * @author sgu, pef, lab...
+ */
+public class ArtifactLocks {
+
+	/**
+	 * No lock : every deletion is allowed
+	 */
+	public static final ArtifactLocks NONE = new ArtifactLocks(null);
+
+	/**
+	 * Name of the folder of the lock files, stored in the plugin folder
+	 */
+	public static final String FOLDER_NAME = "locks";
+
+	/**
+	 * Number of lock files, a power of two
+	 */
+	static final int STRIPES = 64;
+
+	/**
+	 * Minimal depth of a version folder in the repository : groupId/artifactId/version
+	 */
+	private static final int VERSION_DEPTH = 3;
+
+	/**
+	 * Name of the folder of the resolver named locks, stored in the repository root
+	 */
+	static final String RESOLVER_FOLDER_NAME = ".locks";
+
+	/**
+	 * Tracking file of the remote repositories of the version files, locked by the resolver while updated
+	 */
+	static final String REMOTE_REPOSITORIES_FILE_NAME = "_remote.repositories";
+
+	/**
+	 * Suffixes of the files of a version being resolved
+	 */
+	private static final String[] IN_USE_SUFFIXES = { ".part", ".lastUpdated" };
+
+	/**
+	 * Lock of the paths which are not under a version folder, e.g. the top level folders of the repository
+	 */
+	private static final Lock NO_LOCK = new Lock(null, null);
+
+	/**
+	 * Root of the local repository, null for no lock
+	 */
+	private final Path root;
+
+	/**
+	 * Delay since the last modification of a version folder during which it is considered as in use, in milliseconds
+	 */
+	private final long gracePeriod;
+
+	/**
+	 * Lock of the version folder whose files are deleted by the current thread, held until releaseFiles
+	 */
+	private final ThreadLocal<HeldFolder> heldFolder = new ThreadLocal<HeldFolder>();
+
+	/**
+	 * Locks of the threads of the current process, by stripe
+	 */
+	private final ReentrantLock[] threadLocks = new ReentrantLock[STRIPES];
+
+	/**
+	 * Lock files, opened on their first lock, by stripe
+	 */
+	private final FileChannel[] channels = new FileChannel[STRIPES];
+
+
+	/**
+	 * @param root the root of the local repository, null for no lock
+	 */
+	public ArtifactLocks(final Path root) {
+
+		this(root, 0);
+	}
+
+
+	/**
+	 * @param root the root of the local repository, null for no lock
+	 * @param gracePeriod the delay since the last modification of a version folder during which it is considered as
+	 * in use, in milliseconds
+	 */
+	public ArtifactLocks(final Path root, final long gracePeriod) {
+
+		this.root = root;
+		this.gracePeriod = gracePeriod;
+
+		for (int i = 0; i < STRIPES; i++) {
+			threadLocks[i] = new ReentrantLock();
+		}
+	}
+
+
+	/**
+	 * Lock the artifact of a version folder for its deletion, unless it is in use by another process.
+	 *
+	 * @param versionFolder the version folder to delete
+	 * @return the lock to release once the folder is deleted, null if the artifact is in use
+	 */
+	public Lock tryLock(final Path versionFolder) {
+
+		// A thread holds a single stripe at a time, so the threads never wait for each other in a cycle
+
+		releaseFiles();
+
+		final Path relativePath = root != null ? root.relativize(versionFolder) : null;
+
+		final int count = relativePath != null ? relativePath.getNameCount() : 0;
+
+		if (count < VERSION_DEPTH) {
+			// Not deep enough to be a version folder
+			return NO_LOCK;
+		}
+
+		final String groupId = relativePath.subpath(0, count - 2).toString().replace(relativePath.getFileSystem().getSeparator(), ".");
+
+		final String artifactId = relativePath.getName(count - 2).toString();
+
+		final int stripe = (groupId + ':' + artifactId).hashCode() & (STRIPES - 1);
+
+		final ReentrantLock threadLock = threadLocks[stripe];
+
+		threadLock.lock();
+
+		try {
+			final FileLock fileLock = getChannel(stripe).tryLock();
+
+			if (fileLock != null) {
+
+				if (!isInUse(versionFolder, groupId + '~' + artifactId + '~' + relativePath.getFileName())) {
+					return new Lock(threadLock, fileLock);
+				}
+
+				fileLock.release();
+			}
+		}
+		catch (OverlappingFileLockException e) {
+			// The stripe is locked by another execution of the current process
+		}
+		catch (IOException e) {
+			// The lock files or the version folder cannot be read, the artifact is considered as in use
+		}
+
+		threadLock.unlock();
+
+		return null;
+	}
+
+
+	/**
+	 * Define if the lock of a path covers its whole tree, i.e. if the path is deep enough to be a version folder.
+	 * Otherwise the path may hold the versions of several artifacts, and its folders must be locked one by one for
+	 * the deletion of their files (@see #tryLockFiles).
+	 *
+	 * @param path a path of the local repository
+	 * @return true if the lock of the path covers its whole tree, false otherwise
+	 */
+	public boolean coversTree(final Path path) {
+
+		return root == null || root.relativize(path).getNameCount() >= VERSION_DEPTH;
+	}
+
+
+	/**
+	 * Lock the artifact of a version folder for the deletion of its files, unless it is in use by another process.
+	 * The lock, or the in use state, is kept by the current thread for the next files of the same version folder,
+	 * until releaseFiles is called or a file of another version folder is locked.
+	 *
+	 * @param versionFolder the version folder whose files are deleted
+	 * @return the lock held for the files of the version folder, null if the artifact is in use
+	 */
+	public Lock tryLockFiles(final Path versionFolder) {
+
+		final HeldFolder held = heldFolder.get();
+
+		if (held != null && held.folder.equals(versionFolder)) {
+			return held.lock;
+		}
+
+		final Lock lock = tryLock(versionFolder);
+
+		heldFolder.set(new HeldFolder(versionFolder, lock));
+
+		return lock;
+	}
+
+
+	/**
+	 * Release the lock held by the current thread for the deletion of the files of a version folder, if any.
+	 */
+	public void releaseFiles() {
+
+		final HeldFolder held = heldFolder.get();
+
+		if (held == null) {
+			return;
+		}
+
+		heldFolder.remove();
+
+		if (held.lock != null) {
+			held.lock.release();
+		}
+	}
+
+
+	/**
+	 * Close the lock files.
+	 */
+	public void close() {
+
+		releaseFiles();
+
+		for (int i = 0; i < STRIPES; i++) {
+
+			threadLocks[i].lock();
+
+			try {
+				if (channels[i] != null) {
+					channels[i].close();
+				}
+			}
+			catch (IOException e) {
+				// Nothing more can be done, the lock file is released with the process
+			}
+			finally {
+				channels[i] = null;
+
+				threadLocks[i].unlock();
+			}
+		}
+	}
+
+
+	/**
+	 * @param stripe
+	 * @return the lock file of the stripe, opened on its first lock
+	 * @throws IOException
+	 */
+	private FileChannel getChannel(final int stripe) throws IOException {
+
+		if (channels[stripe] == null) {
+
+			final Path folder = Files.createDirectories(DeletionJournal.getFolder(root).resolve(FOLDER_NAME));
+
+			channels[stripe] = FileChannel.open(folder.resolve("artifacts-" + stripe + ".lock"),
+												StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		}
+
+		return channels[stripe];
+	}
+
+
+	/**
+	 * @param versionFolder
+	 * @param coordinates the groupId~artifactId~version of the version folder
+	 * @return true if the version folder is in use by a build, false otherwise
+	 * @throws IOException if the version folder cannot be read
+	 */
+	private boolean isInUse(final Path versionFolder, final String coordinates) throws IOException {
+
+		if (isLocked(root.resolve(RESOLVER_FOLDER_NAME).resolve("artifact~" + coordinates + ".lock"))) {
+			return true;
+		}
+
+		final long modifiedSince = System.currentTimeMillis() - gracePeriod;
+
+		if (!Files.isDirectory(versionFolder)) {
+			return isInUse(versionFolder, modifiedSince);
+		}
+
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(versionFolder)) {
+
+			for (final Path file : stream) {
+
+				if (isInUse(file, modifiedSince)) {
+					return true;
+				}
+			}
+		}
+		catch (NoSuchFileException e) {
+			// Already deleted
+		}
+
+		return false;
+	}
+
+
+	/**
+	 * @param file a file of a version folder
+	 * @param modifiedSince the start of the grace period
+	 * @return true if the file marks its version folder as in use, false otherwise
+	 * @throws IOException if the file cannot be read
+	 */
+	private boolean isInUse(final Path file, final long modifiedSince) throws IOException {
+
+		final String name = file.getFileName().toString();
+
+		for (final String suffix : IN_USE_SUFFIXES) {
+
+			if (name.endsWith(suffix)) {
+				return true;
+			}
+		}
+
+		try {
+			if (gracePeriod > 0 && Files.getLastModifiedTime(file).toMillis() > modifiedSince) {
+				return true;
+			}
+		}
+		catch (NoSuchFileException e) {
+			return false;
+		}
+
+		return name.equals(REMOTE_REPOSITORIES_FILE_NAME) && isLocked(file);
+	}
+
+
+	/**
+	 * @param file a lock file of the resolver
+	 * @return true if the file is locked (shared or exclusive) by another process or thread, false if it does not exist
+	 * @throws IOException if the lock file cannot be used
+	 */
+	private static boolean isLocked(final Path file) throws IOException {
+
+		if (!Files.exists(file)) {
+			return false;
+		}
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+
+			final FileLock lock = channel.tryLock();
+
+			if (lock == null) {
+				return true;
+			}
+
+			lock.release();
+
+			return false;
+		}
+		catch (NoSuchFileException e) {
+			return false;
+		}
+		catch (OverlappingFileLockException e) {
+			// Locked by the resolver of the current process
+			return true;
+		}
+	}
+
+
+	/**
+	 * Version folder whose files are deleted by a thread, with its lock, null if its artifact is in use.
+	 */
+	private static final class HeldFolder {
+
+		private final Path folder;
+
+		private final Lock lock;
+
+
+		/**
+		 * @param folder
+		 * @param lock
+		 */
+		private HeldFolder(final Path folder, final Lock lock) {
+
+			this.folder = folder;
+			this.lock = lock;
+		}
+	}
+
+
+	/**
+	 * Lock of an artifact stripe, held for the deletion of a version folder.
+	 */
+	public static final class Lock {
+
+		private final ReentrantLock threadLock;
+
+		private final FileLock fileLock;
+
+
+		/**
+		 * @param threadLock
+		 * @param fileLock
+		 */
+		private Lock(final ReentrantLock threadLock, final FileLock fileLock) {
+
+			this.threadLock = threadLock;
+			this.fileLock = fileLock;
+		}
+
+
+		/**
+		 * Release the lock, once the version folder is deleted.
+		 */
+		public void release() {
+
+			if (fileLock == null) {
+				return;
+			}
+
+			try {
+				fileLock.release();
+			}
+			catch (IOException e) {
+				// The lock is released with the lock file
+			}
+			finally {
+				threadLock.unlock();
+			}
+		}
+	}
+}
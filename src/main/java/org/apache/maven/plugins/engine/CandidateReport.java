@@ -0,0 +1,270 @@
+package org.apache.maven.plugins.engine;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Report of the candidates selected by the cleaning rules, streamed as newline delimited JSON : one object per line,
+ * with the goal, the rule and the absolute path of the candidate.
+ *
+ * The lines are formatted by the callers and handed to a dedicated writer thread through a bounded queue, so the
+ * walk never waits for the disk but when the writer falls behind by a full queue. A write failure stops the report,
+ * the next lines being discarded, and is thrown on close.
+ *
+ * @author sgu, pef, lab...
+ */
+public class CandidateReport implements Closeable {
+
+	/**
+	 * Number of lines pending before the callers wait for the writer
+	 */
+	private static final int QUEUE_SIZE = 8192;
+
+	/**
+	 * Size of the write buffer, in chars
+	 */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Line marking the end of the report
+	 */
+	private static final String END_OF_REPORT = new String();
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final String goal;
+
+	private final BlockingQueue<String> lines = new ArrayBlockingQueue<String>(QUEUE_SIZE);
+
+	private final Thread writerThread;
+
+	/**
+	 * Failure of the writer thread, null if none
+	 */
+	private volatile IOException failure;
+
+
+	/**
+	 * @param goal
+	 * @param writer
+	 */
+	private CandidateReport(final String goal, final Writer writer) {
+
+		this.goal = goal;
+
+		writerThread = new Thread("clean-local-repository-report") {
+
+			@Override
+			public void run() {
+
+				write(writer);
+			}
+		};
+
+		writerThread.setDaemon(true);
+	}
+
+
+	/**
+	 * Create the report file, replacing an existing one, and start its writer thread.
+	 *
+	 * @param file
+	 * @param goal the goal of the execution
+	 * @return the report
+	 * @throws IOException if the file cannot be created
+	 */
+	public static CandidateReport open(final Path file, final String goal) throws IOException {
+
+		Files.createDirectories(file.toAbsolutePath().getParent());
+
+		final CandidateReport report = new CandidateReport(goal, new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file), UTF8), BUFFER_SIZE));
+
+		report.writerThread.start();
+
+		return report;
+	}
+
+
+	/**
+	 * Add a candidate to the report.
+	 *
+	 * @param rule the name of the option defining the rule
+	 * @param path
+	 */
+	public void add(final String rule, final Path path) {
+
+		if (failure != null) {
+			return;
+		}
+
+		final StringBuilder line = new StringBuilder(128);
+
+		line.append("{\"goal\":\"").append(goal).append("\",\"rule\":\"").append(rule).append("\",\"path\":\"");
+
+		appendEscaped(line, path.toAbsolutePath().toString());
+
+		line.append("\"}\n");
+
+		put(line.toString());
+	}
+
+
+	/**
+	 * Flush the pending lines and close the report file, waiting for the writer thread.
+	 *
+	 * @see java.io.Closeable#close()
+	 * @throws IOException the failure of the writer thread, if any
+	 */
+	public void close() throws IOException {
+
+		put(END_OF_REPORT);
+
+		boolean interrupted = false;
+
+		while (writerThread.isAlive()) {
+			try {
+				writerThread.join();
+			}
+			catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+
+	/**
+	 * Hand a line to the writer thread, waiting for room in the queue. The report is completed even if the calling
+	 * thread is interrupted (e.g. at the end of a watch), its interrupt status being restored.
+	 *
+	 * @param line
+	 */
+	private void put(final String line) {
+
+		boolean interrupted = false;
+
+		while (true) {
+			try {
+				lines.put(line);
+
+				break;
+			}
+			catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+
+	/**
+	 * Write the queued lines until the end of the report, by batches.
+	 *
+	 * @param writer
+	 */
+	private void write(final Writer writer) {
+
+		final List<String> batch = new ArrayList<String>();
+
+		try {
+			while (true) {
+
+				batch.add(lines.take());
+
+				lines.drainTo(batch);
+
+				for (final String line : batch) {
+
+					if (line == END_OF_REPORT) {
+						return;
+					}
+
+					writer.write(line);
+				}
+
+				batch.clear();
+			}
+		}
+		catch (IOException e) {
+			failure = e;
+		}
+		catch (InterruptedException e) {
+			failure = new IOException(e);
+		}
+		finally {
+			try {
+				writer.close();
+			}
+			catch (IOException e) {
+				if (failure == null) {
+					failure = e;
+				}
+			}
+
+			// Once failed, the pending lines are discarded so the callers never wait for the writer
+
+			lines.clear();
+		}
+	}
+
+
+	/**
+	 * Append a string escaped as the content of a JSON string.
+	 *
+	 * @param json
+	 * @param value
+	 */
+	private static void appendEscaped(final StringBuilder json, final String value) {
+
+		for (int i = 0; i < value.length(); i++) {
+
+			final char c = value.charAt(i);
+
+			if (c == '"' || c == '\\') {
+				json.append('\\').append(c);
+			}
+			else if (c < ' ') {
+				json.append(String.format("\\u%04x", (int) c));
+			}
+			else {
+				json.append(c);
+			}
+		}
+	}
+}
@@ -0,0 +1,178 @@
+package org.apache.maven.plugins.engine;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Summary of the candidates selected by the cleaning rules, logged once instead of a line per candidate : the number
+ * of candidates of each rule with a few examples, and the groups holding the most candidates.
+ *
+ * The groupId of a candidate is read from the location of its folder (the folder of a file) : the folders above the
+ * artifact and version folders. The candidates may be added concurrently by the walk threads.
+ *
+ * @author sgu, pef, lab...
+ */
+public class CandidateSummary {
+
+	/**
+	 * Order of the groups : the most candidates first
+	 */
+	private static final Comparator<Map.Entry<String, Long>> MOST_CANDIDATES_FIRST = new Comparator<Map.Entry<String, Long>>() {
+
+		public int compare(final Map.Entry<String, Long> entry0, final Map.Entry<String, Long> entry1) {
+
+			final int returnCode = Long.compare(entry1.getValue(), entry0.getValue());
+
+			return returnCode != 0 ? returnCode : entry0.getKey().compareTo(entry1.getKey());
+		}
+	};
+
+	private final Path root;
+
+	/**
+	 * Maximum number of examples kept by rule
+	 */
+	private final int examplesByRule;
+
+	/**
+	 * Number of candidates, by rule in the order the rules were applied
+	 */
+	private final Map<String, Long> candidatesByRule = new LinkedHashMap<String, Long>();
+
+	/**
+	 * First candidates, by rule
+	 */
+	private final Map<String, List<Path>> examples = new HashMap<String, List<Path>>();
+
+	/**
+	 * Number of candidates, by groupId
+	 */
+	private final Map<String, Long> candidatesByGroup = new HashMap<String, Long>();
+
+
+	/**
+	 * @param root the root of the local repository
+	 * @param examplesByRule the maximum number of examples kept by rule
+	 */
+	public CandidateSummary(final Path root, final int examplesByRule) {
+
+		this.root = root;
+		this.examplesByRule = examplesByRule;
+	}
+
+
+	/**
+	 * Add a candidate to the summary.
+	 *
+	 * @param rule the name of the option defining the rule
+	 * @param path the version folder, file or empty folder selected
+	 * @param isFile true if the candidate is a file, false if it is a folder
+	 */
+	public synchronized void add(final String rule, final Path path, final boolean isFile) {
+
+		increment(candidatesByRule, rule);
+		increment(candidatesByGroup, getGroupId(isFile ? path.getParent() : path));
+
+		List<Path> ruleExamples = examples.get(rule);
+
+		if (ruleExamples == null) {
+			ruleExamples = new ArrayList<Path>();
+			examples.put(rule, ruleExamples);
+		}
+
+		if (ruleExamples.size() < examplesByRule) {
+			ruleExamples.add(path);
+		}
+	}
+
+
+	/**
+	 * @return the number of candidates by rule, in the order the rules were applied
+	 */
+	public synchronized Map<String, Long> getCandidatesByRule() {
+
+		return new LinkedHashMap<String, Long>(candidatesByRule);
+	}
+
+
+	/**
+	 * @param rule
+	 * @return the first candidates of the rule
+	 */
+	public synchronized List<Path> getExamples(final String rule) {
+
+		final List<Path> ruleExamples = examples.get(rule);
+
+		return ruleExamples != null ? new ArrayList<Path>(ruleExamples) : Collections.<Path> emptyList();
+	}
+
+
+	/**
+	 * @param count
+	 * @return the groups holding the most candidates with their number of candidates, the most candidates first
+	 */
+	public synchronized List<Map.Entry<String, Long>> getTopGroups(final int count) {
+
+		final List<Map.Entry<String, Long>> entries = new ArrayList<Map.Entry<String, Long>>(candidatesByGroup.entrySet());
+
+		Collections.sort(entries, MOST_CANDIDATES_FIRST);
+
+		final Map<String, Long> topGroups = new LinkedHashMap<String, Long>();
+
+		for (int i = 0; i < count && i < entries.size(); i++) {
+			topGroups.put(entries.get(i).getKey(), entries.get(i).getValue());
+		}
+
+		return new ArrayList<Map.Entry<String, Long>>(topGroups.entrySet());
+	}
+
+
+	/**
+	 * @param folder
+	 * @return the groupId of a candidate folder, its relative location if it is above the version folders
+	 */
+	private String getGroupId(final Path folder) {
+
+		final Path relativePath = root.relativize(folder);
+
+		final int count = relativePath.getNameCount();
+
+		final Path groupPath = count >= 3 ? relativePath.subpath(0, count - 2) : relativePath;
+
+		return groupPath.toString().replace(relativePath.getFileSystem().getSeparator(), ".");
+	}
+
+
+	/**
+	 * @param counts
+	 * @param key
+	 */
+	private static void increment(final Map<String, Long> counts, final String key) {
+
+		final Long count = counts.get(key);
+
+		counts.put(key, (count != null ? count : 0) + 1);
+	}
+}
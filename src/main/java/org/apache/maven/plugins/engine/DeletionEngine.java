@@ -0,0 +1,530 @@
+package org.apache.maven.plugins.engine;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugins.utils.Enumeres;
+
+/**
+ * Deletion engine of the local repository.
+ *
+ * Each folder is deleted by a single post order walk : its files are unlinked as they are visited, then the folder
+ * itself once it is empty. With more than one thread, the folders are deleted in parallel on a bounded pool and the
+ * deletion of an empty parent folder is delayed until the deletions of its sub folders are completed. A folder deletion
+ * is returned as a future completed with its outcome, which the callers wait for before accounting the folder as removed.
+ * The engine reports the bytes and the inodes (files and folders) freed. Each directory read and unlink is rate
+ * limited by the given {@link IoThrottle}. A version folder (or a file of a version folder) is deleted under the lock of
+ * its artifact (@see ArtifactLocks), its deletion being skipped if the artifact is in use by a concurrent build. The
+ * files of a version folder share a single lock, held by the calling thread until {@link #releaseFiles()}.
+ *
+ * @author sgu, pef, lab...
+ */
+public class DeletionEngine {
+
+	/**
+	 * Number of pending deletions per thread accepted before the callers delete by themselves
+	 */
+	private static final int QUEUE_SIZE_PER_THREAD = 1024;
+
+	/**
+	 * Deletion pool, null when the deletions are executed by the caller
+	 */
+	private final ExecutorService executor;
+
+	private final Log log;
+
+	/**
+	 * Rate limits of the directory reads and unlinks
+	 */
+	private final IoThrottle throttle;
+
+	/**
+	 * Locks of the artifacts whose versions are deleted
+	 */
+	private final ArtifactLocks locks;
+
+	private final AtomicLong freedBytes = new AtomicLong();
+
+	private final AtomicLong freedInodes = new AtomicLong();
+
+	private final AtomicLong failures = new AtomicLong();
+
+	/**
+	 * Deletions skipped because their artifact is in use
+	 */
+	private final AtomicLong busySkips = new AtomicLong();
+
+	/**
+	 * Time spent unlinking, cumulated over the threads
+	 */
+	private final AtomicLong unlinkNanos = new AtomicLong();
+
+	/**
+	 * Pending deletions, by parent folder
+	 */
+	private final Map<Path, Set<CompletableFuture<Boolean>>> pendingByParent = new HashMap<Path, Set<CompletableFuture<Boolean>>>();
+
+	/**
+	 * Number of pending deletions
+	 */
+	private long pendingCount;
+
+
+	/**
+	 * Create a deletion engine.
+	 *
+	 * @param threads the number of deletion threads, the deletions are executed by the caller for 1 (or less)
+	 * @param log
+	 */
+	public DeletionEngine(final int threads, final Log log) {
+
+		this(threads, log, IoThrottle.NONE, ArtifactLocks.NONE);
+	}
+
+
+	/**
+	 * Create a rate limited deletion engine, coordinated with the concurrent builds.
+	 *
+	 * @param threads the number of deletion threads, the deletions are executed by the caller for 1 (or less)
+	 * @param log
+	 * @param throttle the rate limits of the directory reads and unlinks
+	 * @param locks the locks of the artifacts whose versions are deleted
+	 */
+	public DeletionEngine(final int threads, final Log log, final IoThrottle throttle, final ArtifactLocks locks) {
+
+		this.log = log;
+		this.throttle = throttle;
+		this.locks = locks;
+
+		this.executor = threads > 1 ? new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+												new ArrayBlockingQueue<Runnable>(threads * QUEUE_SIZE_PER_THREAD),
+												new ThreadPoolExecutor.CallerRunsPolicy()) : null;
+	}
+
+
+	/**
+	 * Delete a folder and its whole content, or a single file.
+	 *
+	 * @param path
+	 * @return the deletion, completed with true if the path has been deleted, false otherwise (e.g. if its artifact is in
+	 * use). It is already completed when the deletions are executed by the caller.
+	 */
+	public CompletableFuture<Boolean> deleteTree(final Path path) {
+
+		if (executor == null) {
+			return CompletableFuture.completedFuture(deleteTreeNow(path));
+		}
+
+		return schedule(path, Collections.<CompletableFuture<Boolean>>emptySet(), new Supplier<Boolean>() {
+
+			public Boolean get() {
+				return deleteTreeNow(path);
+			}
+		});
+	}
+
+
+	/**
+	 * Delete a folder whose content has been deleted. If deletions of its sub folders are pending, the folder
+	 * deletion is delayed until their completion.
+	 *
+	 * @param folder
+	 * @return the deletion, completed with true if the folder has been deleted, false otherwise.
+	 */
+	public CompletableFuture<Boolean> deleteEmptyFolder(final Path folder) {
+
+		final Set<CompletableFuture<Boolean>> subFolderDeletions;
+
+		synchronized (this) {
+			subFolderDeletions = pendingByParent.remove(folder);
+		}
+
+		if (subFolderDeletions == null || subFolderDeletions.isEmpty()) {
+			return CompletableFuture.completedFuture(delete(folder, 0));
+		}
+
+		return schedule(folder, subFolderDeletions, new Supplier<Boolean>() {
+
+			public Boolean get() {
+				return delete(folder, 0);
+			}
+		});
+	}
+
+
+	/**
+	 * Delete a single file. The lock of its version folder is taken, and the version checked, on the first file of
+	 * the folder, then held by the calling thread for its next files until {@link #releaseFiles()} is called.
+	 *
+	 * @param file
+	 * @param size the file size
+	 * @return true if the file has been deleted, false otherwise.
+	 */
+	public boolean deleteFile(final Path file, final long size) {
+
+		if (locks.tryLockFiles(file.getParent()) == null) {
+			return skip(file);
+		}
+
+		return delete(file, size);
+	}
+
+
+	/**
+	 * Release the lock held by the calling thread for the files of a version folder, once its last file is deleted.
+	 */
+	public void releaseFiles() {
+
+		locks.releaseFiles();
+	}
+
+
+	/**
+	 * Wait for the completion of all the pending deletions, then release the deletion pool.
+	 */
+	public void close() {
+
+		synchronized (this) {
+
+			while (pendingCount > 0) {
+
+				try {
+					wait();
+				}
+				catch (InterruptedException e) {
+
+					Thread.currentThread().interrupt();
+
+					break;
+				}
+			}
+		}
+
+		if (executor != null) {
+			executor.shutdown();
+		}
+	}
+
+
+	/**
+	 * @return the number of bytes freed by the deletions
+	 */
+	public long getFreedBytes() {
+
+		return freedBytes.get();
+	}
+
+
+	/**
+	 * @return the number of files and folders deleted
+	 */
+	public long getFreedInodes() {
+
+		return freedInodes.get();
+	}
+
+
+	/**
+	 * @return the number of files and folders which could not be deleted
+	 */
+	public long getFailures() {
+
+		return failures.get();
+	}
+
+
+	/**
+	 * @return the number of deletions skipped because their artifact is in use by a concurrent build
+	 */
+	public long getBusySkips() {
+
+		return busySkips.get();
+	}
+
+
+	/**
+	 * @return the time spent unlinking the files and folders, in nanoseconds cumulated over the threads
+	 */
+	public long getUnlinkNanos() {
+
+		return unlinkNanos.get();
+	}
+
+
+	/**
+	 * Execute a deletion on the pool once the given deletions are completed, and register it as a pending
+	 * deletion of its parent folder.
+	 *
+	 * @param path
+	 * @param dependencies
+	 * @param deletion
+	 * @return the pending deletion
+	 */
+	private CompletableFuture<Boolean> schedule(final Path path, final Set<CompletableFuture<Boolean>> dependencies, 
+												final Supplier<Boolean> deletion) {
+
+		final CompletableFuture<Boolean> future = CompletableFuture
+				.allOf(dependencies.toArray(new CompletableFuture<?>[dependencies.size()]))
+				.thenApplyAsync(new Function<Void, Boolean>() {
+
+					public Boolean apply(final Void completedDependencies) {
+						return deletion.get();
+					}
+				}, executor);
+
+		final Path parent = path.getParent();
+
+		synchronized (this) {
+
+			Set<CompletableFuture<Boolean>> siblings = pendingByParent.get(parent);
+
+			if (siblings == null) {
+				siblings = new HashSet<CompletableFuture<Boolean>>();
+				pendingByParent.put(parent, siblings);
+			}
+
+			siblings.add(future);
+
+			pendingCount++;
+		}
+
+		future.whenComplete(new BiConsumer<Boolean, Throwable>() {
+
+			public void accept(final Boolean deleted, final Throwable failure) {
+				complete(parent, future);
+			}
+		});
+
+		return future;
+	}
+
+
+	/**
+	 * Unregister a completed deletion.
+	 *
+	 * @param parent
+	 * @param future
+	 */
+	private synchronized void complete(final Path parent, final CompletableFuture<Boolean> future) {
+
+		final Set<CompletableFuture<Boolean>> siblings = pendingByParent.get(parent);
+
+		if (siblings != null) {
+
+			siblings.remove(future);
+
+			if (siblings.isEmpty()) {
+				pendingByParent.remove(parent);
+			}
+		}
+
+		pendingCount--;
+
+		notifyAll();
+	}
+
+
+	/**
+	 * Delete a folder and its whole content under the lock of its artifact, unless the artifact is in use. A folder
+	 * above the version folders is deleted under the locks of its folders, taken one by one.
+	 *
+	 * @param path
+	 * @return true if the path has been deleted, false otherwise.
+	 */
+	private boolean deleteTreeNow(final Path path) {
+
+		if (!locks.coversTree(path)) {
+			return walkAndDelete(path, locks);
+		}
+
+		final ArtifactLocks.Lock lock = locks.tryLock(path);
+
+		if (lock == null) {
+			return skip(path);
+		}
+
+		try {
+			return walkAndDelete(path, ArtifactLocks.NONE);
+		}
+		finally {
+			lock.release();
+		}
+	}
+
+
+	/**
+	 * Delete a folder and its whole content in a single post order walk. The files of each folder are deleted under
+	 * the given locks, the folders whose artifact is in use being kept with their parents.
+	 *
+	 * @param path
+	 * @param folderLocks the locks of the folders of the tree, none if the lock of the tree is already held
+	 * @return true if the path has been deleted, false otherwise.
+	 */
+	private boolean walkAndDelete(final Path path, final ArtifactLocks folderLocks) {
+
+		final boolean[] deleted = new boolean[1];
+
+		final Path[] skippedFolder = new Path[1];
+
+		try {
+			Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
+
+				@Override
+				public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) {
+
+					throttle.acquireDirectoryRead();
+
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+
+					if (folderLocks.tryLockFiles(file.getParent()) == null) {
+
+						if (!file.getParent().equals(skippedFolder[0])) {
+							skippedFolder[0] = file.getParent();
+							skip(skippedFolder[0]);
+						}
+
+						return FileVisitResult.CONTINUE;
+					}
+
+					deleted[0] = delete(file, attrs.size());
+
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFileFailed(final Path file, final IOException exc) {
+
+					fail(file, exc);
+
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult postVisitDirectory(final Path dir, final IOException exc) {
+
+					folderLocks.releaseFiles();
+
+					deleted[0] = delete(dir, 0);
+
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		}
+		catch (IOException e) {
+			fail(path, e);
+		}
+		finally {
+			folderLocks.releaseFiles();
+		}
+
+		return deleted[0];
+	}
+
+
+	/**
+	 * Unlink a single file or empty folder.
+	 *
+	 * @param path
+	 * @param size
+	 * @return true if the path has been deleted, false otherwise.
+	 */
+	private boolean delete(final Path path, final long size) {
+
+		throttle.acquireUnlink(size);
+
+		final long start = System.nanoTime();
+
+		try {
+			Files.delete(path);
+
+			unlinkNanos.addAndGet(System.nanoTime() - start);
+
+			freedBytes.addAndGet(size);
+			freedInodes.incrementAndGet();
+
+			return true;
+		}
+		catch (DirectoryNotEmptyException e) {
+
+			// The folder holds a version kept because its artifact is in use, or has been filled again
+
+			return false;
+		}
+		catch (IOException e) {
+
+			fail(path, e);
+
+			return false;
+		}
+	}
+
+
+	/**
+	 * Skip the deletion of a path whose artifact is in use by a concurrent build.
+	 *
+	 * @param path
+	 * @return false, the path being kept
+	 */
+	private boolean skip(final Path path) {
+
+		busySkips.incrementAndGet();
+
+		log.info( Enumeres.LOG.ARTIFACT_IN_USE + path );
+
+		return false;
+	}
+
+
+	/**
+	 * Report a deletion failure.
+	 *
+	 * @param path
+	 * @param e
+	 */
+	private void fail(final Path path, final IOException e) {
+
+		failures.incrementAndGet();
+
+		log.error( Enumeres.EXCEPTION.FILE_DELETION_EXCEPTION + path, e );
+	}
+}
@@ -0,0 +1,244 @@
+package org.apache.maven.plugins.engine;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.Charset;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append-only journal of the deferred deletions, drained by a {@link DeletionReaper}.
+ *
+ * Each execution appends its deletions to its own journal segment, stored in the plugin folder under the root of
+ * the local repository. A line of a segment is a deletion type followed by the absolute path to delete. The deletions
+ * are appended in post order (the content of a folder before the folder), which is the order the reaper follows.
+ * A segment stays locked while it is written, so a reaper never drains a segment being written.
+ *
+ * This class only depends on the JDK, since it is loaded by the detached reaper process.
+ *
+ * @author sgu, pef, lab...
+ */
+public class DeletionJournal {
+
+	/**
+	 * Name of the plugin folder, stored under the root of the local repository
+	 */
+	public static final String FOLDER_NAME = ".clean-local-repository";
+
+	/**
+	 * Extension of the journal segments
+	 */
+	static final String SEGMENT_EXTENSION = ".journal";
+
+	/**
+	 * Deletion of a folder and its whole content
+	 */
+	public static final char TREE = 'T';
+
+	/**
+	 * Deletion of a folder only if it is still empty
+	 */
+	public static final char EMPTY_FOLDER = 'E';
+
+	/**
+	 * Deletion of a single file
+	 */
+	public static final char FILE = 'F';
+
+	/**
+	 * Separator of the deletion type and the path
+	 */
+	static final char SEPARATOR = '\t';
+
+	/**
+	 * Encoding of the journal
+	 */
+	static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * Journal segment of the current execution
+	 */
+	private final Path segment;
+
+	/**
+	 * Channel of the journal segment
+	 */
+	private final FileChannel channel;
+
+	/**
+	 * Lock held on the segment while it is written
+	 */
+	private final FileLock lock;
+
+	/**
+	 * Buffered writer of the segment, the deletions being only written to disk on flush
+	 */
+	private final Writer writer;
+
+	/**
+	 * Number of deletions appended
+	 */
+	private long entries;
+
+
+	/**
+	 * @param segment
+	 * @throws IOException
+	 */
+	private DeletionJournal(final Path segment) throws IOException {
+
+		this.segment = segment;
+		this.channel = FileChannel.open(segment, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		this.lock = channel.lock();
+		this.writer = new BufferedWriter(Channels.newWriter(channel, UTF8.newEncoder(), -1));
+	}
+
+
+	/**
+	 * Create the journal segment of an execution.
+	 *
+	 * @param root the root of the local repository
+	 * @return the journal
+	 * @throws IOException if the journal segment cannot be created
+	 */
+	public static DeletionJournal open(final Path root) throws IOException {
+
+		final Path folder = Files.createDirectories(getFolder(root));
+
+		final Path segment = Files.createTempFile(folder, "deletions-" + System.currentTimeMillis() + "-", SEGMENT_EXTENSION);
+
+		return new DeletionJournal(segment);
+	}
+
+
+	/**
+	 * Append a deletion to the journal. Deletions can be appended concurrently.
+	 *
+	 * @param type one of {@link #TREE}, {@link #EMPTY_FOLDER} or {@link #FILE}
+	 * @param path
+	 * @throws IOException
+	 */
+	public synchronized void append(final char type, final Path path) throws IOException {
+
+		writer.write(type);
+		writer.write(SEPARATOR);
+		writer.write(path.toAbsolutePath().toString());
+		writer.write('\n');
+
+		entries++;
+	}
+
+
+	/**
+	 * Write the appended deletions to disk, the segment staying locked.
+	 *
+	 * @throws IOException
+	 */
+	synchronized void flush() throws IOException {
+
+		writer.flush();
+
+		channel.force(false);
+	}
+
+
+	/**
+	 * Flush the journal segment and release it for the reapers. A segment without deletion is deleted.
+	 *
+	 * @throws IOException
+	 */
+	public synchronized void close() throws IOException {
+
+		try {
+			flush();
+
+			lock.release();
+		}
+		finally {
+			writer.close();
+		}
+
+		if (entries == 0) {
+			Files.deleteIfExists(segment);
+		}
+	}
+
+
+	/**
+	 * @return the number of deletions appended
+	 */
+	public synchronized long getEntries() {
+
+		return entries;
+	}
+
+
+	/**
+	 * Get the plugin folder of a local repository.
+	 *
+	 * @param root the root of the local repository
+	 * @return the plugin folder, which may not exist
+	 */
+	public static Path getFolder(final Path root) {
+
+		return root.resolve(FOLDER_NAME);
+	}
+
+
+	/**
+	 * Define if journal segments remain to be drained in a local repository.
+	 *
+	 * @param root the root of the local repository
+	 * @return true if at least one journal segment exists, false otherwise.
+	 */
+	public static boolean hasSegments(final Path root) {
+
+		final Path folder = getFolder(root);
+
+		if (!Files.isDirectory(folder)) {
+			return false;
+		}
+
+		try (DirectoryStream<Path> segments = Files.newDirectoryStream(folder, "*" + SEGMENT_EXTENSION)) {
+
+			return segments.iterator().hasNext();
+		}
+		catch (IOException e) {
+			return false;
+		}
+	}
+
+
+	/**
+	 * Define if the given entry of the repository root is the plugin folder.
+	 *
+	 * @param entry
+	 * @return true if the entry is the plugin folder, false otherwise.
+	 */
+	public static boolean isPluginFolder(final Path entry) {
+
+		return FOLDER_NAME.equals(entry.getFileName().toString());
+	}
+}
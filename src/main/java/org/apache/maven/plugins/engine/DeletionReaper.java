@@ -0,0 +1,605 @@
+package org.apache.maven.plugins.engine;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Reaper draining the deletion journal segments of a local repository (@see DeletionJournal), then purging its
+ * expired trash batches (@see RepositoryTrash).
+ *
+ * The reaper runs as a small detached process started at the end of the plugin execution, so the deletions survive
+ * the Maven termination. Each segment is drained in its append order, by batches : the offset of the last completed
+ * batch is checkpointed beside the segment, so an interrupted drain is resumed from it by the next reaper.
+ * Replaying the deletions of an incomplete batch is harmless, since a missing path is ignored.
+ * A single reaper drains a local repository at a time, its directory reads and unlinks being rate limited as the
+ * ones of the plugin execution which started it (@see IoThrottle). With the artifact locks of this execution, the
+ * deletion of a version in use by a build is skipped (@see ArtifactLocks) and appended to a new journal segment, drained
+ * by the next reaper. The reaper reports its skipped and failed deletions on its error output, redirected to the
+ * reaper log of the plugin folder.
+ *
+ * This class only depends on the JDK, the reaper process class path being the plugin archive only.
+ *
+ * @author sgu, pef, lab...
+ */
+public final class DeletionReaper {
+
+	/**
+	 * Number of deletions between two checkpoints of a segment
+	 */
+	static final int BATCH_SIZE = 256;
+
+	/**
+	 * Extension of the checkpoint files, appended to the segment name
+	 */
+	static final String CHECKPOINT_EXTENSION = ".offset";
+
+	/**
+	 * Lock file held by the running reaper
+	 */
+	static final String LOCK_FILE_NAME = "reaper.lock";
+
+	/**
+	 * Output of the reaper processes
+	 */
+	static final String LOG_FILE_NAME = "reaper.log";
+
+
+	/**
+	 * Utility class
+	 */
+	private DeletionReaper() {
+	}
+
+
+	/**
+	 * Entry point of the reaper process.
+	 *
+	 * @param args the root of the local repository, the retention of the trash batches in milliseconds, then
+	 * optionally the maximum numbers of directory reads, unlinks and bytes deleted per second and the grace period of
+	 * the artifacts in use in milliseconds, -1 if the artifact locks are not used
+	 * @throws IOException
+	 */
+	public static void main(final String[] args) throws IOException {
+
+		if (args.length != 2 && args.length != 6) {
+			System.err.println("Usage : java " + DeletionReaper.class.getName() 
+							   + " <local repository> <trash retention> [<directory reads/s> <unlinks/s> <bytes/s> <in use grace period>]");
+			System.exit(1);
+		}
+
+		final Path root = Paths.get(args[0]);
+
+		final boolean extended = args.length == 6;
+
+		final IoThrottle throttle = extended ? new IoThrottle(Long.parseLong(args[2]), Long.parseLong(args[3]), Long.parseLong(args[4]))
+											 : IoThrottle.NONE;
+
+		final long gracePeriod = extended ? Long.parseLong(args[5]) : -1;
+
+		final ArtifactLocks locks = gracePeriod >= 0 ? new ArtifactLocks(root, gracePeriod) : ArtifactLocks.NONE;
+
+		try {
+			drain(root, Long.parseLong(args[1]), throttle, locks);
+		}
+		finally {
+			locks.close();
+		}
+	}
+
+
+	/**
+	 * Start a detached reaper process draining the journal and purging the trash of a local repository, which has to
+	 * be stored by the default file system to be reached by the process.
+	 *
+	 * @param root the root of the local repository
+	 * @param trashRetention the retention of the trash batches, in milliseconds
+	 * @param throttle the rate limits of the reaper directory reads and unlinks
+	 * @param gracePeriod the delay since the last modification of a version during which it is considered as in use, 
+	 * in milliseconds, -1 if the versions are not deleted under the lock of their artifact
+	 * @throws IOException if the process cannot be started
+	 */
+	public static void start(final Path root, final long trashRetention, final IoThrottle throttle, final long gracePeriod) throws IOException {
+
+		final Path folder = Files.createDirectories(DeletionJournal.getFolder(root));
+
+		final String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+
+		final ProcessBuilder builder = new ProcessBuilder(java, "-cp", getClassPath(),
+														  DeletionReaper.class.getName(), root.toAbsolutePath().toString(),
+														  String.valueOf(trashRetention), String.valueOf(throttle.getDirectoryReadsPerSecond()),
+														  String.valueOf(throttle.getUnlinksPerSecond()), String.valueOf(throttle.getBytesPerSecond()),
+														  String.valueOf(gracePeriod));
+
+		builder.redirectErrorStream(true);
+		builder.redirectOutput(ProcessBuilder.Redirect.appendTo(folder.resolve(LOG_FILE_NAME).toFile()));
+
+		builder.start().getOutputStream().close();
+	}
+
+
+	/**
+	 * Drain the journal segments of a local repository, then purge its expired trash batches, unless another reaper
+	 * is already draining them. The segments appended while draining are drained too, the segments still written
+	 * being skipped.
+	 *
+	 * @param root the root of the local repository
+	 * @param trashRetention the retention of the trash batches, in milliseconds
+	 * @return the number of deletions replayed, -1 if another reaper is running
+	 * @throws IOException
+	 */
+	public static long drain(final Path root, final long trashRetention) throws IOException {
+
+		return drain(root, trashRetention, IoThrottle.NONE, ArtifactLocks.NONE);
+	}
+
+
+	/**
+	 * Drain the journal segments of a local repository, then purge its expired trash batches, with rate limited I/O
+	 * and skipping the versions whose artifact is in use.
+	 *
+	 * @param root the root of the local repository
+	 * @param trashRetention the retention of the trash batches, in milliseconds
+	 * @param throttle the rate limits of the directory reads and unlinks
+	 * @param locks the locks of the artifacts whose versions are deleted
+	 * @return the number of deletions replayed, -1 if another reaper is running
+	 * @throws IOException
+	 */
+	public static long drain(final Path root, final long trashRetention, final IoThrottle throttle, final ArtifactLocks locks) throws IOException {
+
+		final Path folder = DeletionJournal.getFolder(root);
+
+		if (!Files.isDirectory(folder)) {
+			return 0;
+		}
+
+		try (FileChannel lockChannel = FileChannel.open(folder.resolve(LOCK_FILE_NAME),
+														StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+
+			final FileLock lock = tryLock(lockChannel);
+
+			if (lock == null) {
+				return -1;
+			}
+
+			long deletions = 0;
+
+			// The deletions of the versions in use are retained in a segment locked until the end of the drain
+
+			final DeletionJournal retained = DeletionJournal.open(root);
+
+			try {
+				for (boolean drained = true; drained;) {
+
+					drained = false;
+
+					for (final Path segment : listSegments(folder)) {
+
+						final long segmentDeletions = drainSegment(root, segment, throttle, locks, retained);
+
+						if (segmentDeletions >= 0) {
+							deletions += segmentDeletions;
+							drained = true;
+						}
+					}
+				}
+			}
+			finally {
+				retained.close();
+			}
+
+			if (retained.getEntries() > 0) {
+				report(retained.getEntries() + " deletions of artifacts in use retained for the next reaper");
+			}
+
+			RepositoryTrash.purge(root, trashRetention, throttle);
+
+			lock.release();
+
+			return deletions;
+		}
+	}
+
+
+	/**
+	 * Drain a journal segment from its last checkpoint, then delete it.
+	 *
+	 * @param root the root of the local repository
+	 * @param segment
+	 * @param throttle the rate limits of the directory reads and unlinks
+	 * @param locks the locks of the artifacts whose versions are deleted
+	 * @param retained the journal of the deletions skipped because their artifact is in use
+	 * @return the number of deletions replayed, -1 if the segment is still written
+	 * @throws IOException
+	 */
+	static long drainSegment(final Path root, final Path segment, final IoThrottle throttle, final ArtifactLocks locks, 
+							 final DeletionJournal retained) throws IOException {
+
+		final Path checkpoint = segment.resolveSibling(segment.getFileName() + CHECKPOINT_EXTENSION);
+
+		long deletions = 0;
+
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+
+			final FileLock lock = tryLock(channel);
+
+			if (lock == null) {
+				return -1;
+			}
+
+			long offset = readCheckpoint(checkpoint);
+
+			channel.position(offset);
+
+			final InputStream input = new BufferedInputStream(Channels.newInputStream(channel));
+
+			final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+			for (int b = input.read(); b >= 0; b = input.read()) {
+
+				if (b != '\n') {
+					line.write(b);
+
+					continue;
+				}
+
+				offset += line.size() + 1;
+
+				final String entry = new String(line.toByteArray(), DeletionJournal.UTF8);
+
+				if (!replay(root, entry, throttle, locks)) {
+					retained.append(entry.charAt(0), Paths.get(entry.substring(2)));
+				}
+
+				line.reset();
+
+				if (++deletions % BATCH_SIZE == 0) {
+					// The retained deletions are written before the checkpoint skips them
+					retained.flush();
+
+					writeCheckpoint(checkpoint, offset);
+				}
+			}
+
+			// An incomplete last line comes from an interrupted execution, it is dropped with the segment
+
+			lock.release();
+		}
+		finally {
+			locks.releaseFiles();
+		}
+
+		Files.delete(segment);
+		Files.deleteIfExists(checkpoint);
+
+		return deletions;
+	}
+
+
+	/**
+	 * Replay a single deletion of a journal segment, its failure being only reported. A deletion outside of the local
+	 * repository, of its root or of the plugin folder is reported and dropped.
+	 *
+	 * @param root the root of the local repository
+	 * @param entry
+	 * @param throttle the rate limits of the directory reads and unlinks
+	 * @param locks the locks of the artifacts whose versions are deleted
+	 * @return false if the deletion is skipped because its artifact is in use, true otherwise
+	 */
+	static boolean replay(final Path root, final String entry, final IoThrottle throttle, final ArtifactLocks locks) {
+
+		if (entry.length() < 3 || entry.charAt(1) != DeletionJournal.SEPARATOR) {
+
+			report("Unexpected journal entry : " + entry);
+
+			return true;
+		}
+
+		final Path path = Paths.get(entry.substring(2)).toAbsolutePath().normalize();
+
+		if (!isDeletable(root.toAbsolutePath().normalize(), path)) {
+
+			report("Journal entry outside of the local repository, deletion dropped : " + entry);
+
+			return true;
+		}
+
+		// An empty folder holds no artifact file, a file is locked through its version folder, the lock being held
+		// for the next files of the folder journaled after it
+
+		final boolean file = entry.charAt(0) == DeletionJournal.FILE;
+
+		if (!file) {
+			locks.releaseFiles();
+		}
+
+		final ArtifactLocks.Lock lock = entry.charAt(0) == DeletionJournal.EMPTY_FOLDER ? ArtifactLocks.NONE.tryLock(path)
+									  : file ? locks.tryLockFiles(path.getParent()) : locks.tryLock(path);
+
+		if (lock == null) {
+
+			report("Artifact in use, deletion retained : " + path);
+
+			return false;
+		}
+
+		try {
+			switch (entry.charAt(0)) {
+
+				case DeletionJournal.TREE:
+					// A tree above the version folders is locked folder by folder, the entry being retained if a
+					// version is kept
+					if (!deleteTree(path, throttle, locks.coversTree(path) ? ArtifactLocks.NONE : locks)) {
+						return false;
+					}
+					break;
+
+				case DeletionJournal.EMPTY_FOLDER:
+					throttle.acquireUnlink(0);
+					Files.deleteIfExists(path);
+					break;
+
+				case DeletionJournal.FILE:
+					throttle.acquireUnlink(throttle.isBytesLimited() && Files.exists(path) ? Files.size(path) : 0);
+					Files.deleteIfExists(path);
+					break;
+
+				default:
+					report("Unexpected journal entry : " + entry);
+			}
+		}
+		catch (DirectoryNotEmptyException e) {
+			// The folder has been filled again since it has been journaled, it is kept
+		}
+		catch (IOException e) {
+			report("Cannot delete " + path + " : " + e);
+		}
+		finally {
+			if (!file) {
+				lock.release();
+			}
+		}
+
+		return true;
+	}
+
+
+	/**
+	 * Define if a journaled path may be deleted : it must be inside the local repository, below its root and outside
+	 * of the plugin folder.
+	 *
+	 * @param root the normalized root of the local repository
+	 * @param path the normalized path
+	 * @return true if the path may be deleted, false otherwise.
+	 */
+	static boolean isDeletable(final Path root, final Path path) {
+
+		return path.startsWith(root) && !path.equals(root) && !path.startsWith(DeletionJournal.getFolder(root));
+	}
+
+
+	/**
+	 * Report a skipped or failed deletion on the error output, redirected to the reaper log.
+	 *
+	 * @param message
+	 */
+	static void report(final String message) {
+
+		System.err.println(new Date() + " " + message);
+	}
+
+
+	/**
+	 * Delete a folder and its whole content in a single post order walk, or a single file.
+	 *
+	 * @param path
+	 * @param throttle the rate limits of the directory reads and unlinks
+	 * @throws IOException
+	 */
+	static void deleteTree(final Path path, final IoThrottle throttle) throws IOException {
+
+		deleteTree(path, throttle, ArtifactLocks.NONE);
+	}
+
+
+	/**
+	 * Delete a folder and its whole content in a single post order walk, or a single file. The files of each folder
+	 * are deleted under the given locks, the folders whose artifact is in use being kept with their parents.
+	 *
+	 * @param path
+	 * @param throttle the rate limits of the directory reads and unlinks
+	 * @param folderLocks the locks of the folders of the tree, none if the lock of the tree is already held
+	 * @return false if a folder is kept because its artifact is in use, true otherwise
+	 * @throws IOException
+	 */
+	static boolean deleteTree(final Path path, final IoThrottle throttle, final ArtifactLocks folderLocks) throws IOException {
+
+		final Path[] skippedFolder = new Path[1];
+
+		try {
+			Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
+
+				@Override
+				public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) {
+
+					throttle.acquireDirectoryRead();
+
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+
+					if (folderLocks.tryLockFiles(file.getParent()) == null) {
+
+						if (!file.getParent().equals(skippedFolder[0])) {
+							skippedFolder[0] = file.getParent();
+							report("Artifact in use, deletion retained : " + skippedFolder[0]);
+						}
+
+						return FileVisitResult.CONTINUE;
+					}
+
+					throttle.acquireUnlink(attrs.size());
+
+					Files.deleteIfExists(file);
+
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult postVisitDirectory(final Path dir, final IOException exc) throws IOException {
+
+					folderLocks.releaseFiles();
+
+					throttle.acquireUnlink(0);
+
+					try {
+						Files.deleteIfExists(dir);
+					}
+					catch (DirectoryNotEmptyException e) {
+						// The folder holds a version kept because its artifact is in use
+					}
+
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		}
+		catch (NoSuchFileException e) {
+			// Already deleted, the deletion may be replayed after an interrupted drain
+		}
+		finally {
+			folderLocks.releaseFiles();
+		}
+
+		return skippedFolder[0] == null;
+	}
+
+
+	/**
+	 * List the journal segments of the plugin folder, in their creation order.
+	 *
+	 * @param folder
+	 * @return the journal segments
+	 * @throws IOException
+	 */
+	private static List<Path> listSegments(final Path folder) throws IOException {
+
+		final List<Path> segments = new ArrayList<Path>();
+
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder, "*" + DeletionJournal.SEGMENT_EXTENSION)) {
+
+			for (final Path segment : stream) {
+				segments.add(segment);
+			}
+		}
+
+		Collections.sort(segments);
+
+		return segments;
+	}
+
+
+	/**
+	 * @param checkpoint
+	 * @return the offset of the last completed batch, 0 if the segment has never been drained
+	 * @throws IOException
+	 */
+	private static long readCheckpoint(final Path checkpoint) throws IOException {
+
+		if (!Files.exists(checkpoint)) {
+			return 0;
+		}
+
+		final byte[] content = Files.readAllBytes(checkpoint);
+
+		return content.length == 8 ? ByteBuffer.wrap(content).getLong() : 0;
+	}
+
+
+	/**
+	 * Atomically replace the checkpoint of a segment.
+	 *
+	 * @param checkpoint
+	 * @param offset
+	 * @throws IOException
+	 */
+	private static void writeCheckpoint(final Path checkpoint, final long offset) throws IOException {
+
+		final Path temporary = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+
+		Files.write(temporary, ByteBuffer.allocate(8).putLong(offset).array());
+
+		Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+
+	/**
+	 * @param channel
+	 * @return the exclusive lock of the channel file, null if it is held by another process
+	 * @throws IOException
+	 */
+	private static FileLock tryLock(final FileChannel channel) throws IOException {
+
+		try {
+			return channel.tryLock();
+		}
+		catch (OverlappingFileLockException e) {
+			return null;
+		}
+	}
+
+
+	/**
+	 * @return the class path of the reaper process, which is the plugin archive (or classes folder)
+	 * @throws IOException
+	 */
+	private static String getClassPath() throws IOException {
+
+		try {
+			return new File(DeletionReaper.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getAbsolutePath();
+		}
+		catch (URISyntaxException e) {
+			throw new IOException(e);
+		}
+	}
+}
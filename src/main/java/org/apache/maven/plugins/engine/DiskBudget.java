@@ -0,0 +1,140 @@
+package org.apache.maven.plugins.engine;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugins.utils.Enumeres;
+
+/**
+ * Disk budget of the local repository : its maximal size, and the free space watermarks of its file store.
+ *
+ * The free space is read before the walk : the low watermark being crossed, the bytes to free reach the high
+ * watermark. The size of the repository is only known once the walk is completed, the versions to evict being then
+ * selected among the least recently used ones collected by the walk (@see LeastRecentlyUsedVersions).
+ *
+ * @author sgu, pef, lab...
+ */
+public class DiskBudget {
+
+	/**
+	 * Maximal size of the repository, in bytes, 0 for no maximal size
+	 */
+	private final long maxRepositorySize;
+
+	/**
+	 * Free space below which versions are evicted, in bytes, 0 for no watermark
+	 */
+	private final long freeSpaceLowWatermark;
+
+	/**
+	 * Free space to reach once the low watermark is crossed, in bytes
+	 */
+	private final long freeSpaceHighWatermark;
+
+	private final Log log;
+
+
+	/**
+	 * @param maxRepositorySize the maximal size of the repository, in megabytes, 0 for no maximal size
+	 * @param freeSpaceLowWatermark the free space below which versions are evicted, in megabytes, 0 for no watermark
+	 * @param freeSpaceHighWatermark the free space to reach once the low watermark is crossed, in megabytes, replaced
+	 * by the low watermark if lower
+	 * @param log
+	 */
+	public DiskBudget(final long maxRepositorySize, final long freeSpaceLowWatermark, final long freeSpaceHighWatermark, final Log log) {
+
+		this.maxRepositorySize = toBytes(maxRepositorySize);
+		this.freeSpaceLowWatermark = toBytes(freeSpaceLowWatermark);
+		this.freeSpaceHighWatermark = toBytes(Math.max(freeSpaceHighWatermark, freeSpaceLowWatermark));
+		this.log = log;
+	}
+
+
+	/**
+	 * Get the number of bytes to free before walking the local repository, according to the free space watermarks.
+	 *
+	 * @param root the root of the local repository
+	 * @return the number of bytes to free (0 if the size of the repository has to be measured for its maximal size),
+	 * -1 if the budget is disabled or if the free space is over the low watermark
+	 * @throws IOException if the free space cannot be read
+	 */
+	public long getBytesToFree(final Path root) throws IOException {
+
+		long bytesToFree = maxRepositorySize > 0 ? 0 : -1;
+
+		if (freeSpaceLowWatermark > 0) {
+
+			final long usableSpace = Files.getFileStore(root).getUsableSpace();
+
+			if (usableSpace < freeSpaceLowWatermark) {
+
+				bytesToFree = freeSpaceHighWatermark - usableSpace;
+			}
+			else {
+				log.info(Enumeres.LOG.FREE_SPACE_HEADROOM + usableSpace + Enumeres.LOG.FREE_BYTES);
+			}
+		}
+
+		return bytesToFree;
+	}
+
+
+	/**
+	 * Select the least recently used versions to evict, until the repository fits in its maximal size and the bytes
+	 * to free for the watermarks are freed.
+	 *
+	 * @param versions the versions collected by the walk
+	 * @param bytesToFree the number of bytes to free according to the free space watermarks
+	 * @param wholeRepository true if the walk has collected the whole repository, false if the size of the repository
+	 * is unknown
+	 * @return the version folders to evict, the least recently used first
+	 */
+	public List<Path> selectEvictions(final LeastRecentlyUsedVersions versions, final long bytesToFree, final boolean wholeRepository) {
+
+		final long repositorySize = versions.getRepositorySize();
+
+		final long bytesOverSize = maxRepositorySize > 0 && wholeRepository ? repositorySize - maxRepositorySize : 0;
+
+		log.info(Enumeres.LOG.REPOSITORY_SIZE + repositorySize + Enumeres.LOG.BYTES_TO_FREE + Math.max(bytesToFree, bytesOverSize));
+
+		return versions.selectEvictions(Math.max(bytesToFree, bytesOverSize));
+	}
+
+
+	/**
+	 * @return the option the evictions are reported under
+	 */
+	public String getRule() {
+
+		return maxRepositorySize > 0 ? Enumeres.MOJO_OPTION.MAX_REPOSITORY_SIZE : Enumeres.MOJO_OPTION.FREE_SPACE_LOW_WATERMARK;
+	}
+
+
+	/**
+	 * @param megabytes
+	 * @return the number of bytes
+	 */
+	private static long toBytes(final long megabytes) {
+
+		return megabytes * 1024 * 1024;
+	}
+}
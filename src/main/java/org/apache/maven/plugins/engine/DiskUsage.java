@@ -0,0 +1,582 @@
+package org.apache.maven.plugins.engine;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Disk usage of the local repository, accounted per groupId and artifact during a (parallel) walk, and bytes
+ * reclaimable by each cleaning rule.
+ *
+ * The usage is computed from the attributes already read by the walk. Only the files linked more than once (as
+ * reported by the unix:nlink attribute, or every file with a file key when the link count is not supported) are
+ * remembered, by file key : a hard link shared by several versions is accounted once, in the artifact and group of
+ * its first path in the name order, whatever the order of the walk.
+ * A version folder is a folder containing files but no sub folder, its parent being the artifact folder.
+ *
+ * A path is reclaimable once, by the rule selecting its outermost folder, whatever the order the rules select the
+ * folders and their content.
+ *
+ * @author sgu, pef, lab...
+ */
+public class DiskUsage {
+
+	/**
+	 * Order of the usage report : the heaviest first
+	 */
+	private static final Comparator<Map.Entry<String, LongAdder>> HEAVIEST_FIRST = new Comparator<Map.Entry<String, LongAdder>>() {
+
+		public int compare(final Map.Entry<String, LongAdder> entry0, final Map.Entry<String, LongAdder> entry1) {
+
+			final int returnCode = Long.compare(entry1.getValue().sum(), entry0.getValue().sum());
+
+			return returnCode != 0 ? returnCode : entry0.getKey().compareTo(entry1.getKey());
+		}
+	};
+
+	/**
+	 * Attribute giving the number of hard links of a file
+	 */
+	private static final String LINK_COUNT_ATTRIBUTE = "unix:nlink";
+
+	private final Path root;
+
+	/**
+	 * Separator of the repository file system
+	 */
+	private final char separator;
+
+	/**
+	 * True if the link count of the files can be read on the repository file system
+	 */
+	private final boolean linkCountSupported;
+
+	/**
+	 * Files linked more than once, by file key
+	 */
+	private final Map<Object, LinkedFile> linkedFiles = new HashMap<Object, LinkedFile>();
+
+	private final LongAdder totalBytes = new LongAdder();
+
+	private final LongAdder versionCount = new LongAdder();
+
+	/**
+	 * Bytes of each artifact, by groupId:artifactId
+	 */
+	private final ConcurrentHashMap<String, LongAdder> artifacts = new ConcurrentHashMap<String, LongAdder>();
+
+	/**
+	 * Bytes of each group, by groupId
+	 */
+	private final ConcurrentHashMap<String, LongAdder> groups = new ConcurrentHashMap<String, LongAdder>();
+
+	/**
+	 * Reclaimable bytes, by rule
+	 */
+	private final Map<String, Long> reclaimableByRule = new LinkedHashMap<String, Long>();
+
+	/**
+	 * Folders and files already accounted as reclaimable, by relative path separated by '/'
+	 */
+	private final TreeMap<String, Reclaimed> reclaimedPaths = new TreeMap<String, Reclaimed>();
+
+	private long reclaimableBytes;
+
+
+	/**
+	 * @param root the root of the local repository
+	 */
+	public DiskUsage(final Path root) {
+
+		this.root = root;
+		this.separator = root.getFileSystem().getSeparator().charAt(0);
+		this.linkCountSupported = root.getFileSystem().supportedFileAttributeViews().contains("unix");
+	}
+
+
+	/**
+	 * Account a file of the repository. A file linked more than once is accounted in the total usage when it is
+	 * first walked, and in its artifact and group usages once the walk is complete.
+	 *
+	 * @param file
+	 * @param attributes the file attributes
+	 * @return the file size to account in its folder, 0 if the file is linked more than once
+	 */
+	public long account(final Path file, final BasicFileAttributes attributes) {
+
+		if (isLinked(file, attributes)) {
+
+			if (addLinkedFile(attributes.fileKey(), toRelativePath(file), attributes.size())) {
+				totalBytes.add(attributes.size());
+			}
+
+			return 0;
+		}
+
+		totalBytes.add(attributes.size());
+
+		return attributes.size();
+	}
+
+
+	/**
+	 * Account a folder left by the walk in its artifact and group usages, if it is a version folder.
+	 *
+	 * @param folder
+	 */
+	public void addFolder(final RepositoryFolder folder) {
+
+		final Path relativePath = root.relativize(folder.getPath());
+
+		if (folder.hasSubFolders() || folder.isEmpty() || relativePath.getNameCount() < 3) {
+			return;
+		}
+
+		final int count = relativePath.getNameCount();
+
+		versionCount.increment();
+
+		addVersionUsage(relativePath.subpath(0, count - 2).toString().replace(relativePath.getFileSystem().getSeparator(), "."), 
+						relativePath.getName(count - 2).toString(), folder.getDiskUsage());
+	}
+
+
+	/**
+	 * Account a folder (or file) as reclaimable by a rule, measuring its bytes. A path is accounted once, even if
+	 * several rules select it or one of its folders.
+	 *
+	 * @param rule the rule name
+	 * @param path
+	 */
+	public void addReclaimable(final String rule, final Path path) {
+
+		final String relativePath = toRelativePath(path);
+
+		if (!isReclaimed(relativePath)) {
+
+			addReclaimed(rule, relativePath, measure(path));
+		}
+	}
+
+
+	/**
+	 * Account a file visited by the walk as reclaimable by a rule.
+	 *
+	 * @param rule the rule name
+	 * @param file
+	 * @param attributes the file attributes
+	 */
+	public void addReclaimable(final String rule, final Path file, final BasicFileAttributes attributes) {
+
+		addReclaimed(rule, toRelativePath(file), attributes.size());
+	}
+
+
+	/**
+	 * @return the bytes of the accounted files
+	 */
+	public long getTotalBytes() {
+
+		return totalBytes.sum();
+	}
+
+
+	/**
+	 * @return the number of version folders accounted
+	 */
+	public int getVersionCount() {
+
+		return versionCount.intValue();
+	}
+
+
+	/**
+	 * @return the number of artifacts accounted
+	 */
+	public int getArtifactCount() {
+
+		settleLinkedFiles();
+
+		return artifacts.size();
+	}
+
+
+	/**
+	 * @return the number of groups accounted
+	 */
+	public int getGroupCount() {
+
+		settleLinkedFiles();
+
+		return groups.size();
+	}
+
+
+	/**
+	 * @param count
+	 * @return the heaviest artifacts (groupId:artifactId) with their bytes, the heaviest first
+	 */
+	public List<Map.Entry<String, Long>> getHeaviestArtifacts(final int count) {
+
+		settleLinkedFiles();
+
+		return getHeaviest(artifacts, count);
+	}
+
+
+	/**
+	 * @param count
+	 * @return the heaviest groups with their bytes, the heaviest first
+	 */
+	public List<Map.Entry<String, Long>> getHeaviestGroups(final int count) {
+
+		settleLinkedFiles();
+
+		return getHeaviest(groups, count);
+	}
+
+
+	/**
+	 * @return the reclaimable bytes by rule, in the order the rules were applied
+	 */
+	public synchronized Map<String, Long> getReclaimableByRule() {
+
+		return new LinkedHashMap<String, Long>(reclaimableByRule);
+	}
+
+
+	/**
+	 * @return the reclaimable bytes of all the rules
+	 */
+	public synchronized long getReclaimableBytes() {
+
+		return reclaimableBytes;
+	}
+
+
+	/**
+	 * Measure the bytes of a folder (or file) not walked as a version folder, each inode being counted once.
+	 *
+	 * @param path
+	 * @return the bytes of the path, 0 if it cannot be read
+	 */
+	static long measure(final Path path) {
+
+		final Set<Object> measuredKeys = new HashSet<Object>();
+
+		final long[] bytes = new long[1];
+
+		try {
+			Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
+
+				@Override
+				public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+
+					if (attrs.fileKey() == null || measuredKeys.add(attrs.fileKey())) {
+						bytes[0] += attrs.size();
+					}
+
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFileFailed(final Path file, final IOException exc) {
+
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		}
+		catch (IOException e) {
+			// An unreadable path is not reclaimable
+		}
+
+		return bytes[0];
+	}
+
+
+	/**
+	 * @param file
+	 * @param attributes
+	 * @return true if the file is linked more than once, or may be when its link count cannot be read
+	 */
+	private boolean isLinked(final Path file, final BasicFileAttributes attributes) {
+
+		if (attributes.fileKey() == null) {
+			return false;
+		}
+
+		if (!linkCountSupported) {
+			return true;
+		}
+
+		try {
+			return ((Number) Files.getAttribute(file, LINK_COUNT_ATTRIBUTE, LinkOption.NOFOLLOW_LINKS)).intValue() > 1;
+		}
+		catch (IOException e) {
+			return true;
+		}
+	}
+
+
+	/**
+	 * Remember a path of a file linked more than once, keeping its first path in the name order.
+	 *
+	 * @param fileKey
+	 * @param relativePath
+	 * @param size
+	 * @return true if the file is walked for the first time, false if it is another link of an accounted file
+	 */
+	private synchronized boolean addLinkedFile(final Object fileKey, final String relativePath, final long size) {
+
+		final LinkedFile linkedFile = linkedFiles.get(fileKey);
+
+		if (linkedFile == null) {
+
+			linkedFiles.put(fileKey, new LinkedFile(relativePath, size));
+
+			return true;
+		}
+
+		if (relativePath.compareTo(linkedFile.relativePath) < 0) {
+			linkedFile.relativePath = relativePath;
+		}
+
+		return false;
+	}
+
+
+	/**
+	 * Account the files linked more than once in the artifact and group of their first path, once the walk is
+	 * complete. The linked files are then forgotten.
+	 */
+	private synchronized void settleLinkedFiles() {
+
+		for (final LinkedFile linkedFile : linkedFiles.values()) {
+
+			final String[] names = linkedFile.relativePath.split("/");
+
+			final int count = names.length;
+
+			if (count >= 4) {
+
+				final StringBuilder groupId = new StringBuilder(names[0]);
+
+				for (int i = 1; i < count - 3; i++) {
+					groupId.append('.').append(names[i]);
+				}
+
+				addVersionUsage(groupId.toString(), names[count - 3], linkedFile.size);
+			}
+		}
+
+		linkedFiles.clear();
+	}
+
+
+	/**
+	 * @param groupId
+	 * @param artifactId
+	 * @param bytes
+	 */
+	private void addVersionUsage(final String groupId, final String artifactId, final long bytes) {
+
+		add(artifacts, groupId + ':' + artifactId, bytes);
+		add(groups, groupId, bytes);
+	}
+
+
+	/**
+	 * @param path
+	 * @return the path relative to the repository root, its segments separated by a '/'
+	 */
+	private String toRelativePath(final Path path) {
+
+		final String relativePath = root.relativize(path).toString();
+
+		return separator == '/' ? relativePath : relativePath.replace(separator, '/');
+	}
+
+
+	/**
+	 * @param relativePath
+	 * @return true if the path or one of its parent folders was already accounted as reclaimable
+	 */
+	private synchronized boolean isReclaimed(final String relativePath) {
+
+		for (String ancestor = relativePath; !ancestor.isEmpty(); ancestor = ancestor.substring(0, Math.max(ancestor.lastIndexOf('/'), 0))) {
+
+			if (reclaimedPaths.containsKey(ancestor)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+
+	/**
+	 * Account a path as reclaimable by a rule, unless it or one of its parent folders already is. The paths under it
+	 * accounted before are replaced by this one.
+	 *
+	 * @param rule
+	 * @param relativePath
+	 * @param bytes
+	 */
+	private synchronized void addReclaimed(final String rule, final String relativePath, final long bytes) {
+
+		if (isReclaimed(relativePath)) {
+			return;
+		}
+
+		final SortedMap<String, Reclaimed> descendants = reclaimedPaths.subMap(relativePath + '/', relativePath + (char) ('/' + 1));
+
+		for (final Reclaimed descendant : descendants.values()) {
+			addReclaimableBytes(descendant.rule, -descendant.bytes);
+		}
+
+		descendants.clear();
+
+		reclaimedPaths.put(relativePath, new Reclaimed(rule, bytes));
+
+		addReclaimableBytes(rule, bytes);
+	}
+
+
+	/**
+	 * @param rule
+	 * @param bytes
+	 */
+	private synchronized void addReclaimableBytes(final String rule, final long bytes) {
+
+		final Long ruleBytes = reclaimableByRule.get(rule);
+
+		reclaimableByRule.put(rule, (ruleBytes != null ? ruleBytes : 0) + bytes);
+
+		reclaimableBytes += bytes;
+	}
+
+
+	/**
+	 * @param usages
+	 * @param key
+	 * @param bytes
+	 */
+	private static void add(final ConcurrentHashMap<String, LongAdder> usages, final String key, final long bytes) {
+
+		LongAdder usage = usages.get(key);
+
+		if (usage == null) {
+			final LongAdder newUsage = new LongAdder();
+
+			usage = usages.putIfAbsent(key, newUsage);
+
+			if (usage == null) {
+				usage = newUsage;
+			}
+		}
+
+		usage.add(bytes);
+	}
+
+
+	/**
+	 * @param usages
+	 * @param count
+	 * @return the heaviest usages, the heaviest first
+	 */
+	private static List<Map.Entry<String, Long>> getHeaviest(final Map<String, LongAdder> usages, final int count) {
+
+		final List<Map.Entry<String, LongAdder>> entries = new ArrayList<Map.Entry<String, LongAdder>>(usages.entrySet());
+
+		Collections.sort(entries, HEAVIEST_FIRST);
+
+		final Map<String, Long> heaviest = new LinkedHashMap<String, Long>();
+
+		for (int i = 0; i < count && i < entries.size(); i++) {
+			heaviest.put(entries.get(i).getKey(), entries.get(i).getValue().sum());
+		}
+
+		return new ArrayList<Map.Entry<String, Long>>(heaviest.entrySet());
+	}
+
+
+	/**
+	 * File linked more than once, accounted in the artifact and group of its first path.
+	 */
+	private static final class LinkedFile {
+
+		/**
+		 * First path of the file in the name order, relative to the repository root
+		 */
+		private String relativePath;
+
+		private final long size;
+
+		/**
+		 * @param relativePath
+		 * @param size
+		 */
+		LinkedFile(final String relativePath, final long size) {
+
+			this.relativePath = relativePath;
+			this.size = size;
+		}
+	}
+
+
+	/**
+	 * Path accounted as reclaimable.
+	 */
+	private static final class Reclaimed {
+
+		/**
+		 * Rule selecting the path
+		 */
+		private final String rule;
+
+		private final long bytes;
+
+		/**
+		 * @param rule
+		 * @param bytes
+		 */
+		Reclaimed(final String rule, final long bytes) {
+
+			this.rule = rule;
+			this.bytes = bytes;
+		}
+	}
+}
@@ -0,0 +1,312 @@
+package org.apache.maven.plugins.engine;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Record of a group, artifact or version folder in the {@link RepositoryIndex} : its own modification date,
+ * its direct files (size, modification and access dates) and sub folders, the newest modification date and the
+ * total size of its files.
+ *
+ * @author sgu, pef, lab...
+ */
+class IndexRecord {
+
+	/**
+	 * Path of the folder, relative to the root of the repository
+	 */
+	private final String relativePath;
+
+	/**
+	 * Modification date of the folder itself, changed by the file system on each entry creation, deletion or renaming
+	 */
+	private final long folderLastModified;
+
+	private final List<String> fileNames = new ArrayList<String>();
+
+	private long[] fileSizes = new long[4];
+
+	private long[] fileLastModified = new long[4];
+
+	private long[] fileLastAccess = new long[4];
+
+	private final List<String> subFolderNames = new ArrayList<String>();
+
+	/**
+	 * True if some entries of the folder could not be read, the folder being then listed again by the next walk
+	 */
+	private boolean incomplete;
+
+
+	/**
+	 * @param relativePath
+	 * @param folderLastModified
+	 */
+	IndexRecord(final String relativePath, final long folderLastModified) {
+
+		this.relativePath = relativePath;
+		this.folderLastModified = folderLastModified;
+	}
+
+
+	/**
+	 * Record a direct file of the folder.
+	 *
+	 * @param name
+	 * @param size
+	 * @param lastModified
+	 * @param lastAccess
+	 */
+	void addFile(final String name, final long size, final long lastModified, final long lastAccess) {
+
+		final int i = fileNames.size();
+
+		if (i == fileSizes.length) {
+			fileSizes = Arrays.copyOf(fileSizes, i * 2);
+			fileLastModified = Arrays.copyOf(fileLastModified, i * 2);
+			fileLastAccess = Arrays.copyOf(fileLastAccess, i * 2);
+		}
+
+		fileNames.add(name);
+		fileSizes[i] = size;
+		fileLastModified[i] = lastModified;
+		fileLastAccess[i] = lastAccess;
+	}
+
+
+	/**
+	 * Record a direct file of the folder.
+	 *
+	 * @param name
+	 * @param attributes
+	 */
+	void addFile(final String name, final BasicFileAttributes attributes) {
+
+		addFile(name, attributes.size(), attributes.lastModifiedTime().toMillis(), attributes.lastAccessTime().toMillis());
+	}
+
+
+	/**
+	 * Record a direct sub folder of the folder.
+	 *
+	 * @param name
+	 */
+	void addSubFolder(final String name) {
+
+		subFolderNames.add(name);
+	}
+
+
+	/**
+	 * Record that some entries of the folder could not be read : the record is not written in the index.
+	 */
+	void markIncomplete() {
+
+		incomplete = true;
+	}
+
+
+	/**
+	 * @return true if some entries of the folder could not be read
+	 */
+	boolean isIncomplete() {
+
+		return incomplete;
+	}
+
+
+	/**
+	 * @return the path of the folder, relative to the root of the repository
+	 */
+	String getRelativePath() {
+
+		return relativePath;
+	}
+
+
+	/**
+	 * @return the modification date of the folder itself
+	 */
+	long getFolderLastModified() {
+
+		return folderLastModified;
+	}
+
+
+	/**
+	 * @return the number of direct files of the folder
+	 */
+	int getFileCount() {
+
+		return fileNames.size();
+	}
+
+
+	/**
+	 * @param i
+	 * @return the name of the i-th file of the folder
+	 */
+	String getFileName(final int i) {
+
+		return fileNames.get(i);
+	}
+
+
+	/**
+	 * @param i
+	 * @return the size of the i-th file of the folder
+	 */
+	long getFileSize(final int i) {
+
+		return fileSizes[i];
+	}
+
+
+	/**
+	 * @param i
+	 * @return the modification date of the i-th file of the folder
+	 */
+	long getFileLastModified(final int i) {
+
+		return fileLastModified[i];
+	}
+
+
+	/**
+	 * @param i
+	 * @return the access date of the i-th file of the folder, as read by the walk which recorded it
+	 */
+	long getFileLastAccess(final int i) {
+
+		return fileLastAccess[i];
+	}
+
+
+	/**
+	 * @param i
+	 * @return the recorded attributes of the i-th file of the folder
+	 */
+	BasicFileAttributes getFileAttributes(final int i) {
+
+		return new RecordedAttributes(fileSizes[i], fileLastModified[i], fileLastAccess[i]);
+	}
+
+
+	/**
+	 * @return the names of the direct sub folders of the folder
+	 */
+	List<String> getSubFolderNames() {
+
+		return subFolderNames;
+	}
+
+
+	/**
+	 * @return the newest modification date of the direct files of the folder, 0 if it does not contain any file
+	 */
+	long getNewestLastModified() {
+
+		long newest = 0;
+
+		for (int i = 0; i < fileNames.size(); i++) {
+			newest = Math.max(newest, fileLastModified[i]);
+		}
+
+		return newest;
+	}
+
+
+	/**
+	 * @return the total size of the direct files of the folder
+	 */
+	long getSize() {
+
+		long size = 0;
+
+		for (int i = 0; i < fileNames.size(); i++) {
+			size += fileSizes[i];
+		}
+
+		return size;
+	}
+
+
+	/**
+	 * File attributes replayed from the index.
+	 */
+	private static final class RecordedAttributes implements BasicFileAttributes {
+
+		private final long size;
+
+		private final FileTime lastModified;
+
+		private final FileTime lastAccess;
+
+		/**
+		 * @param size
+		 * @param lastModified
+		 * @param lastAccess
+		 */
+		RecordedAttributes(final long size, final long lastModified, final long lastAccess) {
+
+			this.size = size;
+			this.lastModified = FileTime.fromMillis(lastModified);
+			this.lastAccess = FileTime.fromMillis(lastAccess);
+		}
+
+		public FileTime lastModifiedTime() {
+			return lastModified;
+		}
+
+		public FileTime lastAccessTime() {
+			return lastAccess;
+		}
+
+		public FileTime creationTime() {
+			return lastModified;
+		}
+
+		public boolean isRegularFile() {
+			return true;
+		}
+
+		public boolean isDirectory() {
+			return false;
+		}
+
+		public boolean isSymbolicLink() {
+			return false;
+		}
+
+		public boolean isOther() {
+			return false;
+		}
+
+		public long size() {
+			return size;
+		}
+
+		public Object fileKey() {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,195 @@
+package org.apache.maven.plugins.engine;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limits of the I/O operations of the plugin on the local repository : directory reads, unlinks and bytes
+ * deleted per second, so a large cleanup does not saturate the disk shared with the other builds of the host.
+ *
+ * Each limit is a token bucket refilled at its rate and holding at most one second of operations : a short burst
+ * is served at once, then the callers are slowed down to the rate. An operation takes its tokens as soon as it asks
+ * for them, the bucket going into debt if needed, then waits for the debt to be refilled outside of any lock : the
+ * concurrent callers are served in their arrival order and a single large deletion does not block forever.
+ * An interrupted wait gives up the throttling, the interruption being restored.
+ *
+ * This class only depends on the JDK, since it is loaded by the detached reaper process.
+ *
+ * @author sgu, pef, lab...
+ */
+public class IoThrottle {
+
+	/**
+	 * No limit
+	 */
+	public static final IoThrottle NONE = new IoThrottle(0, 0, 0);
+
+	private final TokenBucket directoryReads;
+
+	private final TokenBucket unlinks;
+
+	private final TokenBucket bytes;
+
+
+	/**
+	 * @param directoryReadsPerSecond the maximum number of directory listings per second, 0 for no limit
+	 * @param unlinksPerSecond the maximum number of files and folders deleted per second, 0 for no limit
+	 * @param bytesPerSecond the maximum number of bytes deleted per second, 0 for no limit
+	 */
+	public IoThrottle(final long directoryReadsPerSecond, final long unlinksPerSecond, final long bytesPerSecond) {
+
+		this.directoryReads = new TokenBucket(directoryReadsPerSecond);
+		this.unlinks = new TokenBucket(unlinksPerSecond);
+		this.bytes = new TokenBucket(bytesPerSecond);
+	}
+
+
+	/**
+	 * Wait for the permission to list a directory.
+	 */
+	public void acquireDirectoryRead() {
+
+		directoryReads.acquire(1);
+	}
+
+
+	/**
+	 * Wait for the permission to delete a file or a folder.
+	 *
+	 * @param size the size of the file, 0 for a folder
+	 */
+	public void acquireUnlink(final long size) {
+
+		unlinks.acquire(1);
+
+		if (size > 0) {
+			bytes.acquire(size);
+		}
+	}
+
+
+	/**
+	 * @return true if the deleted bytes are limited, the callers having then to read the size of the deleted files
+	 */
+	public boolean isBytesLimited() {
+
+		return bytes.rate > 0;
+	}
+
+
+	/**
+	 * @return the maximum number of directory listings per second, 0 for no limit
+	 */
+	public long getDirectoryReadsPerSecond() {
+
+		return directoryReads.rate;
+	}
+
+
+	/**
+	 * @return the maximum number of files and folders deleted per second, 0 for no limit
+	 */
+	public long getUnlinksPerSecond() {
+
+		return unlinks.rate;
+	}
+
+
+	/**
+	 * @return the maximum number of bytes deleted per second, 0 for no limit
+	 */
+	public long getBytesPerSecond() {
+
+		return bytes.rate;
+	}
+
+
+	/**
+	 * A token bucket holding at most one second of tokens.
+	 */
+	private static final class TokenBucket {
+
+		/**
+		 * Tokens added per second, 0 for no limit
+		 */
+		private final long rate;
+
+		/**
+		 * Available tokens, negative while the bucket is in debt
+		 */
+		private double tokens;
+
+		/**
+		 * Last refill, as a {@link System#nanoTime()} value
+		 */
+		private long lastRefill = System.nanoTime();
+
+
+		/**
+		 * @param rate
+		 */
+		private TokenBucket(final long rate) {
+
+			this.rate = rate;
+			this.tokens = rate;
+		}
+
+
+		/**
+		 * Take the given number of tokens, then wait until the bucket is out of debt.
+		 *
+		 * @param permits
+		 */
+		private void acquire(final long permits) {
+
+			if (rate <= 0) {
+				return;
+			}
+
+			final long waitNanos = reserve(permits);
+
+			if (waitNanos > 0) {
+
+				try {
+					TimeUnit.NANOSECONDS.sleep(waitNanos);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+
+
+		/**
+		 * @param permits
+		 * @return the time to wait for the debt of the bucket to be refilled, in nanoseconds
+		 */
+		private synchronized long reserve(final long permits) {
+
+			final long now = System.nanoTime();
+
+			tokens = Math.min(rate, tokens + (now - lastRefill) * (double) rate / TimeUnit.SECONDS.toNanos(1));
+
+			lastRefill = now;
+
+			tokens -= permits;
+
+			return tokens < 0 ? (long) (-tokens * TimeUnit.SECONDS.toNanos(1) / rate) : 0;
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package org.apache.maven.plugins.engine;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Version folders of the local repository collected during a walk, with the total size of the repository, to evict
+ * the least recently used ones once the walk is completed.
+ *
+ * A version folder is a folder containing files but no sub folder. Its last use is the newest access (or modification)
+ * date of its files. The versions are kept in a compact {@link RepositoryModel} rather than by their folder states,
+ * which are released as soon as the walk leaves them. Folders can be added concurrently by a parallel walk.
+ *
+ * @author sgu, pef, lab...
+ */
+public class LeastRecentlyUsedVersions {
+
+	/**
+	 * Version folders, which may be removed by the rules of their parent folders after being added
+	 */
+	private final RepositoryModel versions;
+
+	/**
+	 * Total size of the files of the folders not removed when they were left
+	 */
+	private long walkedSize;
+
+
+	/**
+	 * @param root the root of the local repository
+	 */
+	public LeastRecentlyUsedVersions(final Path root) {
+
+		versions = new RepositoryModel(root);
+	}
+
+
+	/**
+	 * Account a folder left by the walk : its size in the repository size, and the folder itself if it is
+	 * an evictable version folder.
+	 *
+	 * @param folder
+	 * @param evictable false if the folder must not be evicted, e.g. a protected version
+	 */
+	public synchronized void add(final RepositoryFolder folder, final boolean evictable) {
+
+		if (folder.isRemoved()) {
+			return;
+		}
+
+		walkedSize += folder.getSize();
+
+		if (evictable && !folder.hasSubFolders() && !folder.isEmpty()) {
+			versions.addVersion(folder.getPath(), folder.getNewestLastModified(), folder.getNewestLastAccess(), folder.getSize());
+		}
+	}
+
+
+	/**
+	 * Mark version folders added before as removed by the rules of their parent folder.
+	 *
+	 * @param removedFolders
+	 */
+	public synchronized void markRemoved(final List<Path> removedFolders) {
+
+		for (final Path removedFolder : removedFolders) {
+			versions.markRemoved(removedFolder);
+		}
+	}
+
+
+	/**
+	 * Select the least recently used version folders to remove to free the given number of bytes.
+	 *
+	 * @param bytesToFree
+	 * @return the version folders to remove, the least recently used first
+	 */
+	public synchronized List<Path> selectEvictions(final long bytesToFree) {
+
+		final List<Integer> remainingVersions = new ArrayList<Integer>(versions.getVersionCount());
+
+		for (int i = 0; i < versions.getVersionCount(); i++) {
+
+			if (!versions.isRemoved(versions.getVersion(i))) {
+				remainingVersions.add(versions.getVersion(i));
+			}
+		}
+
+		Collections.sort(remainingVersions, new Comparator<Integer>() {
+
+			public int compare(final Integer version0, final Integer version1) {
+
+				final int returnCode = Long.compare(getLastUse(version0), getLastUse(version1));
+
+				return returnCode != 0 ? returnCode : versions.getPath(version0).compareTo(versions.getPath(version1));
+			}
+		});
+
+		final List<Path> evictions = new ArrayList<Path>();
+
+		long freed = 0;
+
+		for (int i = 0; freed < bytesToFree && i < remainingVersions.size(); i++) {
+
+			evictions.add(versions.getPath(remainingVersions.get(i)));
+
+			freed += versions.getSize(remainingVersions.get(i));
+		}
+
+		return evictions;
+	}
+
+
+	/**
+	 * @return the total size of the files of the repository remaining after the walk
+	 */
+	public synchronized long getRepositorySize() {
+
+		long repositorySize = walkedSize;
+
+		for (int i = 0; i < versions.getVersionCount(); i++) {
+
+			if (versions.isRemoved(versions.getVersion(i))) {
+				repositorySize -= versions.getSize(versions.getVersion(i));
+			}
+		}
+
+		return repositorySize;
+	}
+
+
+	/**
+	 * @param version
+	 * @return the last use of a version node : the newest access or modification date of its files
+	 */
+	private long getLastUse(final int version) {
+
+		return Math.max(versions.getLastAccess(version), versions.getLastModified(version));
+	}
+}
@@ -0,0 +1,149 @@
+package org.apache.maven.plugins.engine;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.apache.maven.plugins.engine.RepositoryWalker.SubFolder;
+
+/**
+ * Parallel traversal of the local maven repository.
+ *
+ * The first levels of the repository (the leading segments of the groupIds) are split in fork/join tasks,
+ * then each groupId sub tree is walked serially by the given {@link RepositoryWalker} on a work-stealing pool.
+ * A folder is post visited only once all its sub trees have been walked, so the visitor sees the same
+ * folder states than with the serial walk. The visitor has to support concurrent calls on distinct folders.
+ *
+ * @author sgu, pef, lab...
+ */
+public final class ParallelRepositoryWalker {
+
+	/**
+	 * Depth of the folders under which the sub trees are walked serially
+	 */
+	private static final int SPLIT_DEPTH = 3;
+
+
+	/**
+	 * Private constructor prevent the class from being explicitly instantiated
+	 */
+	private ParallelRepositoryWalker()
+	{
+		super();
+	}
+
+
+	/**
+	 * Walk the whole tree of the root folder of the given walker on the given number of threads.
+	 *
+	 * @param walker
+	 * @param threads
+	 * @throws IOException if the root folder cannot be read
+	 */
+	public static void walk(final RepositoryWalker walker, final int threads) throws IOException {
+
+		final SubFolder root = walker.getRootFolder();
+
+		final ForkJoinPool pool = new ForkJoinPool(threads);
+
+		try {
+			pool.invoke(new FolderTask(walker, root, null, 0));
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+
+	/**
+	 * Fork/join task visiting a folder of the first levels of the repository.
+	 */
+	private static final class FolderTask extends RecursiveAction {
+
+		/**
+		 * Generated serial version UID
+		 */
+		private static final long serialVersionUID = -2710624716542327734L;
+
+		private final transient RepositoryWalker walker;
+
+		private final transient SubFolder subFolder;
+
+		private final transient RepositoryFolder parent;
+
+		private final int depth;
+
+
+		/**
+		 * @param walker
+		 * @param subFolder
+		 * @param parent
+		 * @param depth
+		 */
+		FolderTask(final RepositoryWalker walker, final SubFolder subFolder, final RepositoryFolder parent, final int depth) {
+
+			super();
+
+			this.walker = walker;
+			this.subFolder = subFolder;
+			this.parent = parent;
+			this.depth = depth;
+		}
+
+
+		/**
+		 * Visit the files of the folder, then fork a task for each of its sub folders.
+		 *
+		 * @see java.util.concurrent.RecursiveAction#compute()
+		 */
+		@Override
+		protected void compute() {
+
+			if (parent != null && walker.stopIfExpired(parent, subFolder)) {
+				return;
+			}
+
+			if (depth >= SPLIT_DEPTH) {
+
+				walker.walkFolder(parent, subFolder.path, subFolder.attributes);
+
+				return;
+			}
+
+			final RepositoryFolder folder = RepositoryFolder.enter(subFolder.path, parent);
+
+			final List<SubFolder> subFolders = new ArrayList<SubFolder>();
+
+			final IndexRecord record = walker.listFolder(folder, subFolder.attributes, subFolders);
+
+			final List<FolderTask> subTasks = new ArrayList<FolderTask>(subFolders.size());
+
+			for (final SubFolder entry : subFolders) {
+
+				subTasks.add(new FolderTask(walker, entry, folder, depth + 1));
+			}
+
+			invokeAll(subTasks);
+
+			walker.leaveFolder(folder, record);
+		}
+	}
+}
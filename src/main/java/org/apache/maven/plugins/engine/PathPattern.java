@@ -0,0 +1,413 @@
+package org.apache.maven.plugins.engine;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Regular expression applied, ignoring case, on the paths of the local repository relative to its root, whose
+ * segments are always separated by a '/' whatever the file system.
+ *
+ * The relative path is matched in place, as a region of the absolute path, so no copy of the path is built for each
+ * entry on a file system separating the segments by a '/'. On another file system, the separators of the path are
+ * replaced once per entry before matching.
+ *
+ * The literal prefix of each top level alternative of the expression (e.g. com/acme/ for ^com/acme/.*) is extracted
+ * once : a folder whose relative path cannot lead to any of these prefixes cannot contain any matching entry, and its
+ * sub tree can be skipped. An alternative starting by a wildcard or a group (e.g. ^.*&#47;com/acme/.* or ^(com|org)/.*)
+ * has an empty prefix : such a pattern does not prune the walk, every folder being walked.
+ *
+ * A pattern containing a colon is a GAV glob (groupId:artifactId[:version], e.g. com.acme:*:*-SNAPSHOT) matching all
+ * the files of the selected artifacts or versions : it is translated into the equivalent regular expression, where
+ * a * matches any sequence of sub groups in the groupId, any characters of a single folder otherwise.
+ *
+ * @author sgu, pef, lab...
+ */
+public class PathPattern {
+
+	/**
+	 * Characters of the regular expression syntax ending the literal prefix
+	 */
+	private static final String META_CHARACTERS = ".[]()*+?{}|^$";
+
+	/**
+	 * Quantifiers applied on the preceding character, which is then not part of the literal prefix
+	 */
+	private static final String QUANTIFIERS = "*+?{";
+
+	/**
+	 * Source of the regular expression
+	 */
+	private final String regularExpression;
+
+	private final Pattern pattern;
+
+	/**
+	 * Literal prefix of each top level alternative of the expression, empty for an alternative which does not start by
+	 * a literal
+	 */
+	private final List<String> prefixes;
+
+	/**
+	 * Literal prefix of every matching relative path, common to all the alternatives
+	 */
+	private final String prefix;
+
+	/**
+	 * Length of the root path and its trailing separator, which starts the relative path of each entry
+	 */
+	private final int rootLength;
+
+	/**
+	 * Separator of the repository file system
+	 */
+	private final char separator;
+
+
+	/**
+	 * Compile a regular expression for the entries of a local repository.
+	 *
+	 * @param regularExpression
+	 * @param root the root of the local repository
+	 */
+	public PathPattern(final String regularExpression, final Path root) {
+
+		this.regularExpression = regularExpression;
+		this.pattern = Pattern.compile(regularExpression, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+		this.prefixes = extractPrefixes(regularExpression);
+		this.prefix = getCommonPrefix(prefixes);
+		this.rootLength = getRootLength(root);
+		this.separator = root.getFileSystem().getSeparator().charAt(0);
+	}
+
+
+	/**
+	 * Compile a regular expression or a GAV glob for the entries of a local repository.
+	 *
+	 * @param pattern a regular expression, or a GAV glob if it contains a colon
+	 * @param root the root of the local repository
+	 * @return the compiled pattern
+	 * @throws IllegalArgumentException if the pattern is not a valid regular expression or GAV glob
+	 */
+	public static PathPattern parse(final String pattern, final Path root) {
+
+		return new PathPattern(pattern.indexOf(':') >= 0 ? toRegularExpression(pattern) : pattern, root);
+	}
+
+
+	/**
+	 * Define if an entry of the repository matches with the expression.
+	 *
+	 * @param path an entry of the repository, resolved from its root
+	 * @return true if the path relative to the repository root matches, false otherwise.
+	 */
+	public boolean matches(final Path path) {
+
+		final String absolutePath = toMatchedPath(path, separator);
+
+		return absolutePath.length() >= rootLength
+				&& pattern.matcher(absolutePath).region(rootLength, absolutePath.length()).matches();
+	}
+
+
+	/**
+	 * Define if the sub tree of a folder may contain entries matching with the expression, according to its literal
+	 * prefixes : the relative path of the folder has to be a start of a prefix, or to start by a prefix.
+	 *
+	 * @param folder a folder of the repository, resolved from its root
+	 * @return false if no entry of the folder sub tree can match, true otherwise.
+	 */
+	public boolean canMatchUnder(final Path folder) {
+
+		final String absolutePath = toMatchedPath(folder, separator);
+
+		final int length = absolutePath.length() - rootLength;
+
+		if (length < 0) {
+			return true;
+		}
+
+		for (final String alternativePrefix : prefixes) {
+
+			if (length >= alternativePrefix.length() ? absolutePath.regionMatches(true, rootLength, alternativePrefix, 0, alternativePrefix.length())
+													 : absolutePath.regionMatches(true, rootLength, alternativePrefix, 0, length)
+													   && alternativePrefix.charAt(length) == '/') {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+
+	/**
+	 * @return the literal prefix of every matching relative path, common to all the alternatives of the expression
+	 */
+	public String getPrefix() {
+
+		return prefix;
+	}
+
+
+	/**
+	 * @return the literal prefix of each top level alternative of the expression, empty for an alternative which
+	 * does not start by a literal
+	 */
+	public List<String> getPrefixes() {
+
+		return prefixes;
+	}
+
+
+	/**
+	 * Get the string of a path of the repository on which the expressions are matched : its segments separated by a '/'.
+	 * The path itself is returned on a file system separating the segments by a '/', so no copy is built.
+	 *
+	 * @param path
+	 * @param separator the separator of the repository file system
+	 * @return the path string, whose relative part starts at the length of the root (@see #getRootLength)
+	 */
+	static String toMatchedPath(final Path path, final char separator) {
+
+		final String absolutePath = path.toString();
+
+		return separator == '/' ? absolutePath : absolutePath.replace(separator, '/');
+	}
+
+
+	/**
+	 * @param root the root of the local repository
+	 * @return the length of the root path and its trailing separator, which starts the relative path of each entry
+	 */
+	static int getRootLength(final Path root) {
+
+		final String rootPath = root.toString();
+
+		return rootPath.endsWith(root.getFileSystem().getSeparator()) ? rootPath.length() : rootPath.length() + 1;
+	}
+
+
+	/**
+	 * @return the source of the regular expression, translated from the GAV glob if any
+	 */
+	public String getRegularExpression() {
+
+		return regularExpression;
+	}
+
+
+	/**
+	 * Translate a GAV glob into the regular expression matching the files of the selected artifacts or versions. The
+	 * folders are separated by a '/' in the expression, as in the matched paths whatever the file system.
+	 *
+	 * @param glob groupId:artifactId[:version]
+	 * @return the regular expression
+	 * @throws IllegalArgumentException if the glob does not have 2 or 3 non empty coordinates
+	 */
+	static String toRegularExpression(final String glob) {
+
+		final String[] coordinates = glob.split(":", -1);
+
+		if (coordinates.length < 2 || coordinates.length > 3) {
+			throw new IllegalArgumentException("groupId:artifactId[:version] expected : " + glob);
+		}
+
+		final StringBuilder regularExpression = new StringBuilder();
+
+		for (int i = 0; i < coordinates.length; i++) {
+
+			if (coordinates[i].isEmpty()) {
+				throw new IllegalArgumentException("groupId:artifactId[:version] expected : " + glob);
+			}
+
+			appendGlob(regularExpression, i == 0 ? coordinates[i].replace('.', '/') : coordinates[i], i == 0);
+
+			regularExpression.append('/');
+		}
+
+		return regularExpression.append(".*").toString();
+	}
+
+
+	/**
+	 * Append a glob coordinate to a regular expression, quoting its literal characters.
+	 *
+	 * @param regularExpression
+	 * @param glob
+	 * @param acrossFolders true if a * matches across folders (groupId), false otherwise
+	 */
+	private static void appendGlob(final StringBuilder regularExpression, final String glob, final boolean acrossFolders) {
+
+		for (int i = 0; i < glob.length(); i++) {
+
+			final char c = glob.charAt(i);
+
+			if (c == '*') {
+				regularExpression.append(acrossFolders ? ".*" : "[^/]*");
+			}
+			else if (c == '?') {
+				regularExpression.append("[^/]");
+			}
+			else if (Character.isLetterOrDigit(c) || c == '/') {
+				regularExpression.append(c);
+			}
+			else {
+				regularExpression.append('\\').append(c);
+			}
+		}
+	}
+
+
+	/**
+	 * Extract the literal prefix of each top level alternative of a regular expression.
+	 *
+	 * @param regularExpression
+	 * @return the literal prefixes, possibly empty
+	 */
+	static List<String> extractPrefixes(final String regularExpression) {
+
+		final List<String> alternativePrefixes = new ArrayList<String>();
+
+		for (final String alternative : splitAlternatives(regularExpression)) {
+			alternativePrefixes.add(extractPrefix(alternative));
+		}
+
+		return Collections.unmodifiableList(alternativePrefixes);
+	}
+
+
+	/**
+	 * Extract the literal prefix of a regular expression without top level alternation, which is conservative :
+	 * a group, a character class or a character escape class ends the analysis.
+	 *
+	 * @param regularExpression
+	 * @return the literal prefix, possibly empty
+	 */
+	static String extractPrefix(final String regularExpression) {
+
+		final StringBuilder literal = new StringBuilder();
+
+		int i = regularExpression.startsWith("^") ? 1 : 0;
+
+		while (i < regularExpression.length()) {
+
+			final char c = regularExpression.charAt(i);
+
+			if (c == '\\' && i + 1 < regularExpression.length() && !Character.isLetterOrDigit(regularExpression.charAt(i + 1))) {
+
+				literal.append(regularExpression.charAt(i + 1));
+
+				i += 2;
+			}
+			else if (c == '\\' || META_CHARACTERS.indexOf(c) >= 0) {
+
+				break;
+			}
+			else {
+				literal.append(c);
+
+				i++;
+			}
+		}
+
+		// A quantified last character may be absent or repeated
+
+		if (literal.length() > 0 && i < regularExpression.length() && QUANTIFIERS.indexOf(regularExpression.charAt(i)) >= 0) {
+
+			literal.setLength(literal.length() - 1);
+		}
+
+		return literal.toString();
+	}
+
+
+	/**
+	 * Split a regular expression on its top level alternations, i.e. the ones out of any group or character class.
+	 *
+	 * @param regularExpression
+	 * @return the alternatives, the expression itself if it has no top level alternation
+	 */
+	private static List<String> splitAlternatives(final String regularExpression) {
+
+		final List<String> alternatives = new ArrayList<String>();
+
+		int depth = 0;
+
+		boolean characterClass = false;
+
+		int start = 0;
+
+		for (int i = 0; i < regularExpression.length(); i++) {
+
+			final char c = regularExpression.charAt(i);
+
+			if (c == '\\') {
+				i++;
+			}
+			else if (characterClass) {
+				characterClass = c != ']';
+			}
+			else if (c == '[') {
+				characterClass = true;
+			}
+			else if (c == '(') {
+				depth++;
+			}
+			else if (c == ')') {
+				depth--;
+			}
+			else if (c == '|' && depth == 0) {
+
+				alternatives.add(regularExpression.substring(start, i));
+
+				start = i + 1;
+			}
+		}
+
+		alternatives.add(regularExpression.substring(start));
+
+		return alternatives;
+	}
+
+
+	/**
+	 * @param alternativePrefixes
+	 * @return the longest start common to all the prefixes
+	 */
+	private static String getCommonPrefix(final List<String> alternativePrefixes) {
+
+		String commonPrefix = alternativePrefixes.get(0);
+
+		for (final String alternativePrefix : alternativePrefixes) {
+
+			int length = 0;
+
+			while (length < commonPrefix.length() && length < alternativePrefix.length()
+				   && Character.toLowerCase(commonPrefix.charAt(length)) == Character.toLowerCase(alternativePrefix.charAt(length))) {
+				length++;
+			}
+
+			commonPrefix = commonPrefix.substring(0, length);
+		}
+
+		return commonPrefix;
+	}
+}
@@ -0,0 +1,229 @@
+package org.apache.maven.plugins.engine;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Include and exclude patterns (@see PathPattern) compiled into a single matcher, evaluated during a single walk of
+ * the local repository : an entry matches if it matches at least one include pattern and no exclude pattern.
+ *
+ * The include patterns are compiled into one alternation, and the exclude patterns into another one evaluated only on
+ * the included entries, so each entry is matched once whatever the number of patterns. The literal prefixes of the
+ * alternatives of the include patterns are stored in a trie of path segments : a folder is walked only if it leads to
+ * one of them. As for a single pattern, the paths are matched with their segments separated by a '/'.
+ *
+ * @author sgu, pef, lab...
+ */
+public class PathPatternSet {
+
+	/**
+	 * Combined include patterns
+	 */
+	private final Pattern includes;
+
+	/**
+	 * Combined exclude patterns, null if there is none
+	 */
+	private final Pattern excludes;
+
+	/**
+	 * Trie of the include literal prefixes
+	 */
+	private final PrefixNode prefixes = new PrefixNode();
+
+	private final Path root;
+
+	/**
+	 * Length of the root path and its trailing separator, which starts the relative path of each entry
+	 */
+	private final int rootLength;
+
+	/**
+	 * Separator of the repository file system
+	 */
+	private final char separator;
+
+
+	/**
+	 * Combine the include and exclude patterns of a local repository.
+	 *
+	 * @param includePatterns at least one pattern
+	 * @param excludePatterns
+	 * @param root the root of the local repository
+	 */
+	public PathPatternSet(final List<PathPattern> includePatterns, final List<PathPattern> excludePatterns, final Path root) {
+
+		if (includePatterns.isEmpty()) {
+			throw new IllegalArgumentException("At least one include pattern expected");
+		}
+
+		this.root = root;
+		this.rootLength = PathPattern.getRootLength(root);
+		this.separator = root.getFileSystem().getSeparator().charAt(0);
+
+		for (final PathPattern include : includePatterns) {
+
+			for (final String prefix : include.getPrefixes()) {
+				prefixes.add(prefix);
+			}
+		}
+
+		this.includes = combine(includePatterns);
+		this.excludes = excludePatterns.isEmpty() ? null : combine(excludePatterns);
+	}
+
+
+	/**
+	 * Define if an entry of the repository is included and not excluded.
+	 *
+	 * @param path an entry of the repository, resolved from its root
+	 * @return true if the path relative to the repository root matches, false otherwise.
+	 */
+	public boolean matches(final Path path) {
+
+		final String absolutePath = PathPattern.toMatchedPath(path, separator);
+
+		if (absolutePath.length() < rootLength
+			|| !includes.matcher(absolutePath).region(rootLength, absolutePath.length()).matches()) {
+			return false;
+		}
+
+		return excludes == null || !excludes.matcher(absolutePath).region(rootLength, absolutePath.length()).matches();
+	}
+
+
+	/**
+	 * Define if the sub tree of a folder may contain included entries, according to the include literal prefixes.
+	 *
+	 * @param folder a folder of the repository, resolved from its root
+	 * @return false if no entry of the folder sub tree can be included, true otherwise.
+	 */
+	public boolean canMatchUnder(final Path folder) {
+
+		if (folder.equals(root)) {
+			return true;
+		}
+
+		PrefixNode node = prefixes;
+
+		for (final Path segment : root.relativize(folder)) {
+
+			final String name = segment.toString().toLowerCase(Locale.ROOT);
+
+			if (node.isLeadingTo(name)) {
+				return true;
+			}
+
+			node = node.children.get(name);
+
+			if (node == null) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+
+	/**
+	 * @param patterns
+	 * @return the alternation of the patterns, ignoring case
+	 */
+	private static Pattern combine(final List<PathPattern> patterns) {
+
+		final StringBuilder alternation = new StringBuilder();
+
+		for (final PathPattern pattern : patterns) {
+
+			if (alternation.length() > 0) {
+				alternation.append('|');
+			}
+
+			alternation.append("(?:").append(pattern.getRegularExpression()).append(')');
+		}
+
+		return Pattern.compile(alternation.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+	}
+
+
+	/**
+	 * Node of the trie of literal prefixes, for a complete folder name.
+	 */
+	private static final class PrefixNode {
+
+		/**
+		 * Nodes of the following complete folder names, by lower case name
+		 */
+		final Map<String, PrefixNode> children = new HashMap<String, PrefixNode>();
+
+		/**
+		 * Lower case starts of the folder names ending a prefix, an empty start matching any name
+		 */
+		final List<String> leaves = new ArrayList<String>();
+
+
+		/**
+		 * Add a literal prefix below this node.
+		 *
+		 * @param prefix
+		 */
+		void add(final String prefix) {
+
+			final String[] segments = prefix.toLowerCase(Locale.ROOT).split("/", -1);
+
+			PrefixNode node = this;
+
+			for (int i = 0; i < segments.length - 1; i++) {
+
+				PrefixNode child = node.children.get(segments[i]);
+
+				if (child == null) {
+					child = new PrefixNode();
+					node.children.put(segments[i], child);
+				}
+
+				node = child;
+			}
+
+			node.leaves.add(segments[segments.length - 1]);
+		}
+
+
+		/**
+		 * @param name a lower case folder name
+		 * @return true if a prefix ends in this node with a start of the given name
+		 */
+		boolean isLeadingTo(final String name) {
+
+			for (final String leaf : leaves) {
+
+				if (name.startsWith(leaf)) {
+					return true;
+				}
+			}
+
+			return false;
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package org.apache.maven.plugins.engine;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Version folders of the local repository protected from any deletion rule, e.g. the versions of the dependency graph
+ * of the reactor projects.
+ *
+ * The set is built once, then only read : it can be consulted concurrently by a parallel walk, each lookup being a
+ * single hash of the folder path. The versions resolved for a Maven session are shared by all its plugin executions,
+ * and released with the session.
+ *
+ * @author sgu, pef, lab...
+ */
+public class ProtectedVersions {
+
+	/**
+	 * No protected version
+	 */
+	public static final ProtectedVersions NONE = new ProtectedVersions(new HashSet<Path>());
+
+	/**
+	 * Versions of the running sessions, released with their session
+	 */
+	private static final Map<Object, ProtectedVersions> SESSION_VERSIONS = new WeakHashMap<Object, ProtectedVersions>();
+
+	/**
+	 * Absolute paths of the protected version folders
+	 */
+	private final Set<Path> versionFolders;
+
+
+	/**
+	 * @param versionFolders the absolute paths of the protected version folders
+	 */
+	public ProtectedVersions(final Collection<Path> versionFolders) {
+
+		this.versionFolders = new HashSet<Path>(versionFolders);
+	}
+
+
+	/**
+	 * Get the protected versions of a Maven session, resolved by its first plugin execution. The following executions
+	 * of the session, e.g. the modules of a parallel build (-T), wait for the resolution rather than repeating it.
+	 *
+	 * @param session the Maven session, null for versions resolved for the caller only
+	 * @param resolver the resolution of the protected versions, called once per session
+	 * @return the protected versions of the session
+	 */
+	public static ProtectedVersions get(final Object session, final Supplier<ProtectedVersions> resolver) {
+
+		if (session == null) {
+			return resolver.get();
+		}
+
+		synchronized (SESSION_VERSIONS) {
+
+			ProtectedVersions versions = SESSION_VERSIONS.get(session);
+
+			if (versions == null) {
+				versions = resolver.get();
+				SESSION_VERSIONS.put(session, versions);
+			}
+
+			return versions;
+		}
+	}
+
+
+	/**
+	 * Define if a version folder is protected.
+	 *
+	 * @param versionFolder the absolute path of a version folder
+	 * @return true if the folder is protected, false otherwise.
+	 */
+	public boolean contains(final Path versionFolder) {
+
+		return versionFolders.contains(versionFolder);
+	}
+
+
+	/**
+	 * @return the number of protected version folders
+	 */
+	public int size() {
+
+		return versionFolders.size();
+	}
+}
@@ -0,0 +1,114 @@
+package org.apache.maven.plugins.engine;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Modules of a reactor build gathered by their plugin executions, to be processed in a single batch by the
+ * execution of the last one.
+ *
+ * The batches are scoped by the Maven session of the build, compared by identity, so a session reused by the same
+ * JVM never gets the batch of a previous build. A batch expects the modules executing the goal, and is released
+ * once all of them have been registered, or by the last of them in the reactor order, in case some of them are
+ * not executed. A module registered after the release is left to its own execution.
+ * The modules can be registered concurrently, e.g. by a parallel build (-T).
+ *
+ * @param <T> the type of the modules
+ * @author sgu, pef, lab...
+ */
+public class ReactorBatch<T> {
+
+	/**
+	 * Batches of the running sessions, released with their session
+	 */
+	private static final Map<Object, ReactorBatch<?>> SESSION_BATCHES = new WeakHashMap<Object, ReactorBatch<?>>();
+
+	/**
+	 * Modules executing the goal, in the reactor order
+	 */
+	private final List<T> expectedModules;
+
+	private final List<T> modules = new ArrayList<T>();
+
+	/**
+	 * True once the batch has been released to an execution
+	 */
+	private boolean released;
+
+
+	/**
+	 * @param expectedModules the modules executing the goal, in the reactor order
+	 */
+	private ReactorBatch(final List<T> expectedModules) {
+
+		this.expectedModules = new ArrayList<T>(expectedModules);
+	}
+
+
+	/**
+	 * Get the batch of a Maven session, created by its first plugin execution.
+	 *
+	 * @param session the Maven session of the reactor build
+	 * @param expectedModules the modules executing the goal, in the reactor order
+	 * @return the batch of the session
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> ReactorBatch<T> get(final Object session, final List<T> expectedModules) {
+
+		synchronized (SESSION_BATCHES) {
+
+			ReactorBatch<T> batch = (ReactorBatch<T>) SESSION_BATCHES.get(session);
+
+			if (batch == null) {
+				batch = new ReactorBatch<T>(expectedModules);
+				SESSION_BATCHES.put(session, batch);
+			}
+
+			return batch;
+		}
+	}
+
+
+	/**
+	 * Register a module in the batch.
+	 *
+	 * @param module one of the expected modules
+	 * @return the modules to process by the current execution : the whole batch once it is complete, nothing while the
+	 * batch is incomplete, null if the batch has already been released.
+	 */
+	public synchronized List<T> register(final T module) {
+
+		if (released) {
+			return null;
+		}
+
+		modules.add(module);
+
+		if (modules.size() < expectedModules.size() && module != expectedModules.get(expectedModules.size() - 1)) {
+			return Collections.emptyList();
+		}
+
+		released = true;
+
+		return new ArrayList<T>(modules);
+	}
+}
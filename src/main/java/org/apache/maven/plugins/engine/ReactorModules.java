@@ -0,0 +1,187 @@
+package org.apache.maven.plugins.engine;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
+import org.apache.maven.plugins.utils.Enumeres;
+import org.apache.maven.plugins.utils.Tools;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Modules processed by a plugin execution of a reactor build.
+ *
+ * Without aggregation, an execution processes its own module, the execution root also applying the repository wide
+ * rules. With aggregation, the modules executing the goal are gathered in the {@link ReactorBatch} of the session,
+ * then processed together by the last execution, which also applies the repository wide rules. A module which does
+ * not bind the goal, or registered once the batch is released, is left to its own execution.
+ *
+ * @author sgu, pef, lab...
+ */
+public class ReactorModules {
+
+	/**
+	 * Modules to process by the execution, empty if they are processed by a later execution
+	 */
+	private final List<MavenProject> modules;
+
+	/**
+	 * True if the execution applies the repository wide rules
+	 */
+	private final boolean repositoryWide;
+
+	/**
+	 * False if the module is not aggregated since it does not bind the goal
+	 */
+	private final boolean goalBound;
+
+
+	/**
+	 * @param modules
+	 * @param repositoryWide
+	 * @param goalBound
+	 */
+	private ReactorModules(final List<MavenProject> modules, final boolean repositoryWide, final boolean goalBound) {
+
+		this.modules = modules;
+		this.repositoryWide = repositoryWide;
+		this.goalBound = goalBound;
+	}
+
+
+	/**
+	 * Register the module of a plugin execution, aggregated with the other modules of the reactor executing the goal
+	 * if a session is given.
+	 *
+	 * @param session the Maven session of the reactor build, null for no aggregation
+	 * @param reactorProjects the modules of the reactor, in the reactor order
+	 * @param project the module of the execution
+	 * @param goal the goal of the execution
+	 * @return the modules to process by the execution
+	 */
+	public static ReactorModules register(final MavenSession session, final List<MavenProject> reactorProjects, final MavenProject project, final String goal) {
+
+		final List<MavenProject> ownModule = Collections.singletonList(project);
+
+		if (session == null || Tools.isNullOrEmpty(reactorProjects)) {
+			return new ReactorModules(ownModule, project.isExecutionRoot(), true);
+		}
+
+		final List<MavenProject> goalModules = getGoalModules(session, reactorProjects, goal);
+
+		if (!goalModules.contains(project)) {
+			return new ReactorModules(ownModule, project.isExecutionRoot(), false);
+		}
+
+		final List<MavenProject> batch = ReactorBatch.get(session, goalModules).register(project);
+
+		return batch != null ? new ReactorModules(batch, true, true) : new ReactorModules(ownModule, false, true);
+	}
+
+
+	/**
+	 * @return the modules to process by the execution, empty if they are processed by a later execution
+	 */
+	public List<MavenProject> getModules() {
+
+		return modules;
+	}
+
+
+	/**
+	 * @return true if the execution applies the repository wide rules, false otherwise
+	 */
+	public boolean isRepositoryWide() {
+
+		return repositoryWide;
+	}
+
+
+	/**
+	 * @return false if the module is not aggregated since it does not bind the goal, true otherwise
+	 */
+	public boolean isGoalBound() {
+
+		return goalBound;
+	}
+
+
+	/**
+	 * @param session
+	 * @param reactorProjects
+	 * @param goal
+	 * @return the reactor modules executing the goal of this plugin : all of them if the goal is invoked from the
+	 * command line, the ones binding it to their lifecycle otherwise
+	 */
+	@SuppressWarnings("unchecked")
+	private static List<MavenProject> getGoalModules(final MavenSession session, final List<MavenProject> reactorProjects, final String goal) {
+
+		for (final String sessionGoal : (List<String>) session.getGoals()) {
+
+			if (sessionGoal.startsWith(Enumeres.MVN_PLUGIN.PREFIX + ":") || sessionGoal.startsWith(Enumeres.MVN_PLUGIN.GROUP_ID + ":" + Enumeres.MVN_PLUGIN.ARTIFACT_ID + ":")) {
+
+				return reactorProjects;
+			}
+		}
+
+		final List<MavenProject> goalModules = new ArrayList<MavenProject>();
+
+		for (final MavenProject module : reactorProjects) {
+
+			if (isGoalBound(module, goal)) {
+				goalModules.add(module);
+			}
+		}
+
+		return goalModules;
+	}
+
+
+	/**
+	 * @param module
+	 * @param goal
+	 * @return true if the module binds the goal of this plugin to its lifecycle
+	 */
+	@SuppressWarnings("unchecked")
+	private static boolean isGoalBound(final MavenProject module, final String goal) {
+
+		if (module.getBuildPlugins() == null) {
+			return false;
+		}
+
+		for (final Plugin plugin : (List<Plugin>) module.getBuildPlugins()) {
+
+			if (!Enumeres.MVN_PLUGIN.ARTIFACT_ID.equals(plugin.getArtifactId())) {
+				continue;
+			}
+
+			for (final PluginExecution execution : (List<PluginExecution>) plugin.getExecutions()) {
+
+				if (execution.getGoals().contains(goal)) {
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+}
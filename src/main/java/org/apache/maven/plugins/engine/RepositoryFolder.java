@@ -0,0 +1,479 @@
+package org.apache.maven.plugins.engine;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.plugins.utils.MavenUtils;
+
+/**
+ * State of a folder currently opened by the {@link RepositoryWalker}.
+ *
+ * Only the folders of the current traversal path are alive at a given time : once a folder has been left,
+ * its sub folders states are released and only its own summary (emptiness, removal) is kept by its parent.
+ *
+ * The emptiness is computed in the same post order pass, by counting the live entries of each folder : its remaining
+ * files and its sub folders neither empty nor removed. A sub folder releases its entry from its parent count when it is
+ * left empty or removed, so a parent emptied by the removal of its content is found empty as soon as it is left.
+ *
+ * @author sgu, pef, lab...
+ */
+public class RepositoryFolder {
+
+	/**
+	 * Location of the folder
+	 */
+	private final Path path;
+
+	/**
+	 * Parent folder state, null for the root of the walk
+	 */
+	private final RepositoryFolder parent;
+
+	/**
+	 * Direct sub folders already visited, by location
+	 */
+	private Map<Path, RepositoryFolder> subFolders = new LinkedHashMap<Path, RepositoryFolder>();
+
+	/**
+	 * Number of files of the folder still present in the repository
+	 */
+	private int remainingFiles;
+
+	/**
+	 * Number of direct sub folders neither empty nor removed
+	 */
+	private int liveSubFolders;
+
+	/**
+	 * True once this folder entry has been released from its parent count
+	 */
+	private boolean released;
+
+	/**
+	 * Newest modification date of the remaining files of the folder, 0 if it does not contain any
+	 */
+	private long newestLastModified;
+
+	/**
+	 * Newest access date of the remaining files of the folder, 0 if it does not contain any
+	 */
+	private long newestLastAccess;
+
+	/**
+	 * Newest modification date of the listed direct sub folders, 0 if none has been listed
+	 */
+	private long newestSubFolderLastModified;
+
+	/**
+	 * Modification date of the folder itself, -1 while its content has not been listed by the walk
+	 */
+	private long lastModified = -1;
+
+	/**
+	 * Total size of the remaining files of the folder
+	 */
+	private long size;
+
+	/**
+	 * Bytes of the direct files of the folder accounted by a disk usage (@see DiskUsage)
+	 */
+	private long diskUsage;
+
+	/**
+	 * True if the folder has been removed from the repository during the walk
+	 */
+	private boolean removed;
+
+	/**
+	 * True if the folder is an artifact folder containing snapshot versions
+	 */
+	private boolean snapshotArtifact;
+
+	/**
+	 * True if the folder is named as a snapshot version, read once from its name
+	 */
+	private final boolean snapshotVersion;
+
+
+	/**
+	 * Create the state of a folder.
+	 *
+	 * @param path
+	 * @param parent
+	 */
+	private RepositoryFolder(final Path path, final RepositoryFolder parent) {
+
+		this.path = path;
+		this.parent = parent;
+		this.snapshotVersion = parent != null && MavenUtils.isSnapshotVersion(path.getFileName().toString());
+	}
+
+
+	/**
+	 * Create the state of a newly entered folder and register it in its parent folder state.
+	 *
+	 * @param path
+	 * @param parent the parent folder state, null for the root of the walk
+	 * @return the state of the entered folder
+	 */
+	static RepositoryFolder enter(final Path path, final RepositoryFolder parent) {
+
+		final RepositoryFolder folder = new RepositoryFolder(path, parent);
+
+		if (parent != null) {
+			parent.addSubFolder(folder);
+		}
+
+		return folder;
+	}
+
+
+	/**
+	 * Record a file of this folder which is still present after the rules evaluation.
+	 *
+	 * @param attributes the file attributes, null if the file could not be read
+	 */
+	void addRemainingFile(final BasicFileAttributes attributes) {
+
+		remainingFiles++;
+
+		if (attributes != null) {
+			newestLastModified = Math.max(newestLastModified, attributes.lastModifiedTime().toMillis());
+			newestLastAccess = Math.max(newestLastAccess, attributes.lastAccessTime().toMillis());
+			size += attributes.size();
+		}
+	}
+
+
+	/**
+	 * Record that the content of this folder is listed by the walk, with the folder own modification date.
+	 *
+	 * @param folderLastModified
+	 */
+	void markListed(final long folderLastModified) {
+
+		lastModified = folderLastModified;
+
+		if (parent != null) {
+			parent.addSubFolderDate(folderLastModified);
+		}
+	}
+
+
+	/**
+	 * Close the folder state : release its entry from its parent count if it is empty, then release the state of
+	 * its sub folders.
+	 */
+	void leave() {
+
+		if (isEmpty()) {
+			release();
+		}
+
+		synchronized (this) {
+			subFolders = null;
+		}
+	}
+
+
+	/**
+	 * Define if the folder does not contain any remaining file in its whole sub tree.
+	 * Can be called while the folder is still opened (from the post visit of a rule) or once it has been left.
+	 *
+	 * @return true if the folder is empty, false otherwise.
+	 */
+	public synchronized boolean isEmpty() {
+
+		return remainingFiles == 0 && liveSubFolders == 0;
+	}
+
+
+	/**
+	 * Mark a direct sub folder of this folder as removed from the repository.
+	 *
+	 * @param subFolderPath
+	 */
+	public void markSubFolderRemoved(final Path subFolderPath) {
+
+		final RepositoryFolder subFolder;
+
+		synchronized (this) {
+			subFolder = subFolders.get(subFolderPath);
+		}
+
+		if (subFolder != null) {
+			subFolder.markRemoved();
+		}
+	}
+
+
+	/**
+	 * Define if sub folders of this folder have been visited. Can be called while the folder is still opened.
+	 *
+	 * @return true if the folder contains at least one sub folder, false otherwise.
+	 */
+	public synchronized boolean hasSubFolders() {
+
+		return !subFolders.isEmpty();
+	}
+
+
+	/**
+	 * @return the direct sub folders of this folder which have not been removed
+	 */
+	public synchronized List<Path> getRemainingSubFolders() {
+
+		final List<Path> remainingSubFolders = new ArrayList<Path>(subFolders.size());
+
+		for (final RepositoryFolder subFolder : subFolders.values()) {
+
+			if (!subFolder.removed) {
+				remainingSubFolders.add(subFolder.path);
+			}
+		}
+
+		return remainingSubFolders;
+	}
+
+
+	/**
+	 * Get the sort keys of the direct sub folders of this folder, as gathered by the walk : the newest modification
+	 * date of their direct content, their own date if they are empty (@see ArtifactFolderComparator). The sub folders
+	 * skipped by the walk are missing, their key being read from the file system by the comparator.
+	 * Has to be called while the folder is still opened, e.g. from the post visit of a rule.
+	 *
+	 * @return the sort key of each listed sub folder which has not been removed, by location
+	 */
+	public synchronized Map<Path, Long> getSubFolderDates() {
+
+		final Map<Path, Long> dates = new HashMap<Path, Long>(subFolders.size() * 2);
+
+		for (final RepositoryFolder subFolder : subFolders.values()) {
+
+			if (!subFolder.removed && subFolder.lastModified >= 0) {
+				dates.put(subFolder.path, subFolder.getContentLastModified());
+			}
+		}
+
+		return dates;
+	}
+
+
+	/**
+	 * @param subFolderPath
+	 * @return the state of a direct sub folder, null if it has not been visited
+	 */
+	public synchronized RepositoryFolder getSubFolder(final Path subFolderPath) {
+
+		return subFolders.get(subFolderPath);
+	}
+
+
+	/**
+	 * @return true if the content of this folder has been listed by the walk, false if the folder has been skipped
+	 */
+	public boolean isListed() {
+
+		return lastModified >= 0;
+	}
+
+
+	/**
+	 * @return the newest modification date of the direct content of the folder, its own date if it is empty
+	 * (@see org.apache.maven.plugins.utils.Tools#getNewestLastModified), -1 if its content has not been listed
+	 */
+	public synchronized long getContentLastModified() {
+
+		final long contentLastModified = Math.max(newestLastModified, newestSubFolderLastModified);
+
+		return contentLastModified > 0 ? contentLastModified : lastModified;
+	}
+
+
+	/**
+	 * @return true if this folder has been removed from the repository
+	 */
+	public boolean isRemoved() {
+
+		return removed;
+	}
+
+
+	/**
+	 * @return the newest modification date of the remaining direct files of the folder, 0 if it does not contain any
+	 */
+	public long getNewestLastModified() {
+
+		return newestLastModified;
+	}
+
+
+	/**
+	 * @return the newest access date of the remaining direct files of the folder, 0 if it does not contain any
+	 */
+	public long getNewestLastAccess() {
+
+		return newestLastAccess;
+	}
+
+
+	/**
+	 * @return the total size of the remaining direct files of the folder
+	 */
+	public long getSize() {
+
+		return size;
+	}
+
+
+	/**
+	 * Account bytes of a direct file of this folder in its disk usage.
+	 *
+	 * @param bytes the bytes accounted by the disk usage
+	 */
+	public void addDiskUsage(final long bytes) {
+
+		diskUsage += bytes;
+	}
+
+
+	/**
+	 * @return the bytes of the direct files of the folder accounted by a disk usage
+	 */
+	public long getDiskUsage() {
+
+		return diskUsage;
+	}
+
+
+	/**
+	 * Mark this folder as removed from the repository.
+	 */
+	public void markRemoved() {
+
+		removed = true;
+
+		release();
+	}
+
+
+	/**
+	 * Mark this folder as an artifact folder containing snapshot versions.
+	 */
+	public void markSnapshotArtifact() {
+
+		snapshotArtifact = true;
+	}
+
+
+	/**
+	 * @return true if the folder is an artifact folder containing snapshot versions
+	 */
+	public boolean isSnapshotArtifact() {
+
+		return snapshotArtifact;
+	}
+
+
+	/**
+	 * @return true if the folder is named as a snapshot version
+	 */
+	public boolean isSnapshotVersion() {
+
+		return snapshotVersion;
+	}
+
+
+	/**
+	 * @return the location of the folder
+	 */
+	public Path getPath() {
+
+		return path;
+	}
+
+
+	/**
+	 * @return the parent folder state, null for the root of the walk
+	 */
+	public RepositoryFolder getParent() {
+
+		return parent;
+	}
+
+
+	/**
+	 * Register a newly entered sub folder.
+	 * Sub folders of a same folder may be entered concurrently by the {@link ParallelRepositoryWalker}.
+	 *
+	 * @param subFolder
+	 */
+	private synchronized void addSubFolder(final RepositoryFolder subFolder) {
+
+		subFolders.put(subFolder.path, subFolder);
+
+		liveSubFolders++;
+	}
+
+
+	/**
+	 * Count the modification date of a listed sub folder in the date of the folder content.
+	 *
+	 * @param subFolderLastModified
+	 */
+	private synchronized void addSubFolderDate(final long subFolderLastModified) {
+
+		newestSubFolderLastModified = Math.max(newestSubFolderLastModified, subFolderLastModified);
+	}
+
+
+	/**
+	 * Release the entry of this folder from its parent count, once only.
+	 */
+	private void release() {
+
+		synchronized (this) {
+
+			if (released) {
+				return;
+			}
+
+			released = true;
+		}
+
+		if (parent != null) {
+			parent.releaseSubFolder();
+		}
+	}
+
+
+	/**
+	 * Count a direct sub folder found empty or removed.
+	 * Sub folders of a same folder may be left concurrently by the {@link ParallelRepositoryWalker}.
+	 */
+	private synchronized void releaseSubFolder() {
+
+		liveSubFolders--;
+	}
+}
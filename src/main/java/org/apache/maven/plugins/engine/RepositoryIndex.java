@@ -0,0 +1,282 @@
+package org.apache.maven.plugins.engine;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Persistent index of the local repository folders, written by a walk (@see {@link RepositoryIndexWriter})
+ * and read by the next one through a memory mapped buffer.
+ *
+ * The index file is stored in the plugin folder (@see DeletionJournal#FOLDER_NAME), out of the repository content
+ * moved to the trash or deleted as a whole. It is a sequence of folder records :
+ * <pre>
+ *   relative path, folder last modified, newest file last modified, total files size, flags,
+ *   sub folders count, sub folder names,
+ *   files count, (file name, file size, file last modified, file last access) for each file
+ * </pre>
+ * A folder whose own modification date is unchanged has kept the same entries, so its record can replace
+ * the listing of its content. The files modified in place (without creation, deletion or renaming) are not
+ * detected : their recorded size and date are replayed. Neither are the files read since the record, the access
+ * dates being replayed as read by the walk which recorded them : a walk relying on the access dates has to read
+ * them again (@see RepositoryWalker).
+ *
+ * @author sgu, pef, lab...
+ */
+public class RepositoryIndex {
+
+	/**
+	 * Name of the index file, stored in the plugin folder of the local repository
+	 */
+	public static final String FILE_NAME = "repository.idx";
+
+	/**
+	 * Name of the index file while it is written
+	 */
+	static final String TEMPORARY_FILE_NAME = FILE_NAME + ".tmp";
+
+	/**
+	 * Leading bytes of an index file
+	 */
+	static final int MAGIC = 0x434C5249;
+
+	/**
+	 * Version of the index file format
+	 */
+	static final int VERSION = 2;
+
+	/**
+	 * Flag of the records of snapshot version folders
+	 */
+	static final byte SNAPSHOT_FLAG = 1;
+
+	/**
+	 * Encoding of the names
+	 */
+	static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * Index without any record
+	 */
+	public static final RepositoryIndex EMPTY = new RepositoryIndex(null, Collections.<String, Integer>emptyMap());
+
+	/**
+	 * Content of the index file
+	 */
+	private final ByteBuffer buffer;
+
+	/**
+	 * Offset of each folder record, by relative path
+	 */
+	private final Map<String, Integer> offsets;
+
+
+	/**
+	 * @param buffer
+	 * @param offsets
+	 */
+	private RepositoryIndex(final ByteBuffer buffer, final Map<String, Integer> offsets) {
+
+		this.buffer = buffer;
+		this.offsets = offsets;
+	}
+
+
+	/**
+	 * Load the index stored in the plugin folder of the given repository root.
+	 *
+	 * @param root
+	 * @return the index of the previous walk, or an empty index if it is missing or unreadable
+	 */
+	public static RepositoryIndex load(final Path root) {
+
+		final Path indexFile = getFile(root);
+
+		if (!Files.isRegularFile(indexFile)) {
+			return EMPTY;
+		}
+
+		try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+
+			final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				return EMPTY;
+			}
+
+			final Map<String, Integer> offsets = new HashMap<String, Integer>();
+
+			while (buffer.hasRemaining()) {
+
+				final int offset = buffer.position();
+
+				offsets.put(readString(buffer), offset);
+
+				skipRecord(buffer);
+			}
+
+			return new RepositoryIndex(buffer, offsets);
+		}
+		catch (IOException e) {
+			return EMPTY;
+		}
+		catch (RuntimeException e) {
+			// Truncated or corrupted index
+			return EMPTY;
+		}
+	}
+
+
+	/**
+	 * @param root the root of the local repository
+	 * @return the location of the index file, in the plugin folder
+	 */
+	public static Path getFile(final Path root) {
+
+		return DeletionJournal.getFolder(root).resolve(FILE_NAME);
+	}
+
+
+	/**
+	 * Find the record of a folder unchanged since the previous walk.
+	 *
+	 * @param relativePath
+	 * @param folderLastModified the current modification date of the folder
+	 * @return the record of the folder, null if it is not indexed or has changed since
+	 */
+	IndexRecord find(final String relativePath, final long folderLastModified) {
+
+		final Integer offset = offsets.get(relativePath);
+
+		if (offset == null) {
+			return null;
+		}
+
+		final ByteBuffer view = buffer.duplicate();
+
+		view.position(offset);
+
+		return readRecord(view, folderLastModified);
+	}
+
+
+	/**
+	 * @return the number of folders recorded in the index
+	 */
+	public int size() {
+
+		return offsets.size();
+	}
+
+
+	/**
+	 * Decode the record at the current position of the buffer.
+	 *
+	 * @param view
+	 * @param folderLastModified
+	 * @return the decoded record, null if the folder has changed since the record
+	 */
+	private static IndexRecord readRecord(final ByteBuffer view, final long folderLastModified) {
+
+		final String relativePath = readString(view);
+
+		if (view.getLong() != folderLastModified) {
+			return null;
+		}
+
+		final IndexRecord record = new IndexRecord(relativePath, folderLastModified);
+
+		// Newest last modified, total size and flags are summaries for the index readers, recomputed from the files
+		view.position(view.position() + 8 + 8 + 1);
+
+		final int subFolderCount = view.getInt();
+
+		for (int i = 0; i < subFolderCount; i++) {
+			record.addSubFolder(readString(view));
+		}
+
+		final int fileCount = view.getInt();
+
+		for (int i = 0; i < fileCount; i++) {
+			record.addFile(readString(view), view.getLong(), view.getLong(), view.getLong());
+		}
+
+		return record;
+	}
+
+
+	/**
+	 * Move the buffer position after the current record, its relative path being already read.
+	 *
+	 * @param view
+	 */
+	private static void skipRecord(final ByteBuffer view) {
+
+		view.position(view.position() + 8 + 8 + 8 + 1);
+
+		final int subFolderCount = view.getInt();
+
+		for (int i = 0; i < subFolderCount; i++) {
+			skipString(view);
+		}
+
+		final int fileCount = view.getInt();
+
+		for (int i = 0; i < fileCount; i++) {
+			skipString(view);
+			view.position(view.position() + 8 + 8 + 8);
+		}
+	}
+
+
+	/**
+	 * Read a length prefixed UTF-8 string.
+	 *
+	 * @param view
+	 * @return the decoded string
+	 */
+	private static String readString(final ByteBuffer view) {
+
+		final byte[] bytes = new byte[view.getShort() & 0xFFFF];
+
+		view.get(bytes);
+
+		return new String(bytes, UTF8);
+	}
+
+
+	/**
+	 * Skip a length prefixed UTF-8 string.
+	 *
+	 * @param view
+	 */
+	private static void skipString(final ByteBuffer view) {
+
+		final int length = view.getShort() & 0xFFFF;
+
+		view.position(view.position() + length);
+	}
+}
@@ -0,0 +1,188 @@
+package org.apache.maven.plugins.engine;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import org.apache.maven.plugins.utils.MavenUtils;
+
+/**
+ * Streaming writer of the {@link RepositoryIndex} : each folder is recorded as soon as it has been walked.
+ * The index is written in a temporary file, which replaces the previous index only once the walk is complete.
+ *
+ * @author sgu, pef, lab...
+ */
+public class RepositoryIndexWriter {
+
+	/**
+	 * Size of the output buffer
+	 */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Index file
+	 */
+	private final Path indexFile;
+
+	/**
+	 * Index file being written
+	 */
+	private final Path temporaryFile;
+
+	/**
+	 * Output of the temporary file
+	 */
+	private final DataOutputStream output;
+
+	/**
+	 * First write failure, reported when the index is committed
+	 */
+	private IOException failure;
+
+
+	/**
+	 * @param indexFile
+	 * @param temporaryFile
+	 * @throws IOException
+	 */
+	private RepositoryIndexWriter(final Path indexFile, final Path temporaryFile) throws IOException {
+
+		this.indexFile = indexFile;
+		this.temporaryFile = temporaryFile;
+		this.output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile), BUFFER_SIZE));
+
+		output.writeInt(RepositoryIndex.MAGIC);
+		output.writeInt(RepositoryIndex.VERSION);
+	}
+
+
+	/**
+	 * Start the index of a repository walk.
+	 *
+	 * @param root
+	 * @return the index writer
+	 * @throws IOException if the index file cannot be created
+	 */
+	public static RepositoryIndexWriter open(final Path root) throws IOException {
+
+		final Path folder = Files.createDirectories(DeletionJournal.getFolder(root));
+
+		return new RepositoryIndexWriter(folder.resolve(RepositoryIndex.FILE_NAME), folder.resolve(RepositoryIndex.TEMPORARY_FILE_NAME));
+	}
+
+
+	/**
+	 * Record a walked folder. Folders can be recorded concurrently by the {@link ParallelRepositoryWalker}.
+	 *
+	 * @param record the folder files and modification date
+	 * @param folder the folder state, giving its remaining sub folders
+	 */
+	synchronized void write(final IndexRecord record, final RepositoryFolder folder) {
+
+		if (failure != null) {
+			return;
+		}
+
+		final Path name = folder.getPath().getFileName();
+
+		try {
+			writeString(record.getRelativePath());
+
+			output.writeLong(record.getFolderLastModified());
+			output.writeLong(record.getNewestLastModified());
+			output.writeLong(record.getSize());
+			output.writeByte(name != null && MavenUtils.isSnapshotVersion(name.toString()) ? RepositoryIndex.SNAPSHOT_FLAG : 0);
+
+			final List<Path> subFolders = folder.getRemainingSubFolders();
+
+			output.writeInt(subFolders.size());
+
+			for (final Path subFolder : subFolders) {
+				writeString(subFolder.getFileName().toString());
+			}
+
+			output.writeInt(record.getFileCount());
+
+			for (int i = 0; i < record.getFileCount(); i++) {
+				writeString(record.getFileName(i));
+				output.writeLong(record.getFileSize(i));
+				output.writeLong(record.getFileLastModified(i));
+				output.writeLong(record.getFileLastAccess(i));
+			}
+		}
+		catch (IOException e) {
+			failure = e;
+		}
+	}
+
+
+	/**
+	 * Close the index of a complete walk and make it the index of the next walk.
+	 *
+	 * @throws IOException if a folder could not be recorded or the index could not be moved
+	 */
+	public void commit() throws IOException {
+
+		if (failure != null) {
+
+			abort();
+
+			throw failure;
+		}
+
+		output.close();
+
+		Files.move(temporaryFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+
+	/**
+	 * Discard the index of an incomplete walk, keeping the previous index.
+	 */
+	public void abort() {
+
+		try {
+			output.close();
+
+			Files.deleteIfExists(temporaryFile);
+		}
+		catch (IOException e) {
+			// Nothing more can be done, the temporary file is overwritten by the next walk
+		}
+	}
+
+
+	/**
+	 * Write a length prefixed UTF-8 string.
+	 *
+	 * @param string
+	 * @throws IOException
+	 */
+	private void writeString(final String string) throws IOException {
+
+		final byte[] bytes = string.getBytes(RepositoryIndex.UTF8);
+
+		output.writeShort(bytes.length);
+		output.write(bytes);
+	}
+}
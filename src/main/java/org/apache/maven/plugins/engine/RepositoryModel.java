@@ -0,0 +1,405 @@
+package org.apache.maven.plugins.engine;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact in-memory model of the version folders of a local repository : a trie of groupId, artifactId and version
+ * nodes, built from the relative paths of the version folders.
+ *
+ * Each node is an index in primitive arrays (parent, name, flags, dates and size) rather than an object, and each path
+ * segment is interned once in a name table : a node costs a few dozen bytes, whatever the depth of the groupId. The
+ * children of a node are found through an open addressing table keyed by (parent, name), so a lookup allocates
+ * nothing.
+ *
+ * The model is not thread safe : the callers synchronize its updates.
+ *
+ * @author sgu, pef, lab...
+ */
+public class RepositoryModel {
+
+	/**
+	 * Flag of the version folder nodes
+	 */
+	private static final byte VERSION_FLAG = 1;
+
+	/**
+	 * Flag of the version nodes removed from the repository
+	 */
+	private static final byte REMOVED_FLAG = 2;
+
+	/**
+	 * Parent of the root node
+	 */
+	private static final int NO_PARENT = -1;
+
+	/**
+	 * Initial capacity of the node arrays
+	 */
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private final Path root;
+
+	/**
+	 * Interned path segments, by index
+	 */
+	private final List<String> names = new ArrayList<String>();
+
+	/**
+	 * Index of the interned path segments, by segment
+	 */
+	private final Map<String, Integer> nameIndexes = new HashMap<String, Integer>();
+
+	private int[] parents = new int[INITIAL_CAPACITY];
+
+	private int[] nameIds = new int[INITIAL_CAPACITY];
+
+	private byte[] flags = new byte[INITIAL_CAPACITY];
+
+	private long[] lastModifiedDates = new long[INITIAL_CAPACITY];
+
+	private long[] lastAccessDates = new long[INITIAL_CAPACITY];
+
+	private long[] sizes = new long[INITIAL_CAPACITY];
+
+	private int nodeCount;
+
+	/**
+	 * Version nodes, in the order they were added
+	 */
+	private int[] versions = new int[INITIAL_CAPACITY];
+
+	private int versionCount;
+
+	/**
+	 * Children table : node + 1 by hash of (parent, name), 0 for an empty slot
+	 */
+	private int[] children = new int[INITIAL_CAPACITY * 2];
+
+
+	/**
+	 * @param root the root of the local repository, the root node of the model
+	 */
+	public RepositoryModel(final Path root) {
+
+		this.root = root;
+
+		addNode(NO_PARENT, intern(""));
+	}
+
+
+	/**
+	 * Add a version folder to the model, creating its group and artifact nodes.
+	 *
+	 * @param versionFolder the version folder, under the root
+	 * @param lastModified the newest modification date of the files of the folder
+	 * @param lastAccess the newest access date of the files of the folder
+	 * @param size the size of the files of the folder
+	 * @return the version node
+	 */
+	public int addVersion(final Path versionFolder, final long lastModified, final long lastAccess, final long size) {
+
+		final Path relativePath = root.relativize(versionFolder);
+
+		int node = 0;
+
+		for (int i = 0; i < relativePath.getNameCount(); i++) {
+
+			final int nameId = intern(relativePath.getName(i).toString());
+
+			final int child = findChild(node, nameId);
+
+			node = child >= 0 ? child : addNode(node, nameId);
+		}
+
+		if ((flags[node] & VERSION_FLAG) == 0) {
+
+			flags[node] |= VERSION_FLAG;
+
+			if (versionCount == versions.length) {
+				versions = Arrays.copyOf(versions, versionCount * 2);
+			}
+
+			versions[versionCount++] = node;
+		}
+
+		lastModifiedDates[node] = lastModified;
+		lastAccessDates[node] = lastAccess;
+		sizes[node] = size;
+
+		return node;
+	}
+
+
+	/**
+	 * Find the version node of a folder.
+	 *
+	 * @param versionFolder
+	 * @return the version node, -1 if the folder is not a version of the model
+	 */
+	private int findVersion(final Path versionFolder) {
+
+		if (!versionFolder.startsWith(root)) {
+			return -1;
+		}
+
+		final Path relativePath = root.relativize(versionFolder);
+
+		int node = 0;
+
+		for (int i = 0; node >= 0 && i < relativePath.getNameCount(); i++) {
+
+			final Integer nameId = nameIndexes.get(relativePath.getName(i).toString());
+
+			node = nameId != null ? findChild(node, nameId) : -1;
+		}
+
+		return node >= 0 && (flags[node] & VERSION_FLAG) != 0 ? node : -1;
+	}
+
+
+	/**
+	 * Mark a version folder as removed from the repository.
+	 *
+	 * @param versionFolder
+	 */
+	public void markRemoved(final Path versionFolder) {
+
+		final int node = findVersion(versionFolder);
+
+		if (node >= 0) {
+			flags[node] |= REMOVED_FLAG;
+		}
+	}
+
+
+	/**
+	 * @return the number of version nodes
+	 */
+	public int getVersionCount() {
+
+		return versionCount;
+	}
+
+
+	/**
+	 * @param index
+	 * @return the version node added at the given index
+	 */
+	public int getVersion(final int index) {
+
+		return versions[index];
+	}
+
+
+	/**
+	 * @param node a version node
+	 * @return true if the version has been removed from the repository
+	 */
+	public boolean isRemoved(final int node) {
+
+		return (flags[node] & REMOVED_FLAG) != 0;
+	}
+
+
+	/**
+	 * @param node a version node
+	 * @return the newest modification date of the files of the version
+	 */
+	public long getLastModified(final int node) {
+
+		return lastModifiedDates[node];
+	}
+
+
+	/**
+	 * @param node a version node
+	 * @return the newest access date of the files of the version
+	 */
+	public long getLastAccess(final int node) {
+
+		return lastAccessDates[node];
+	}
+
+
+	/**
+	 * @param node a version node
+	 * @return the size of the files of the version
+	 */
+	public long getSize(final int node) {
+
+		return sizes[node];
+	}
+
+
+	/**
+	 * @param node
+	 * @return the location of the node folder
+	 */
+	public Path getPath(final int node) {
+
+		Path path = root;
+
+		for (final String name : getNames(node)) {
+			path = path.resolve(name);
+		}
+
+		return path;
+	}
+
+
+	/**
+	 * @param node
+	 * @return the path segments of the node, from the root
+	 */
+	private List<String> getNames(final int node) {
+
+		final List<String> nodeNames = new ArrayList<String>();
+
+		for (int current = node; parents[current] != NO_PARENT; current = parents[current]) {
+			nodeNames.add(0, names.get(nameIds[current]));
+		}
+
+		return nodeNames;
+	}
+
+
+	/**
+	 * @param name
+	 * @return the index of the interned segment
+	 */
+	private int intern(final String name) {
+
+		Integer nameId = nameIndexes.get(name);
+
+		if (nameId == null) {
+
+			nameId = names.size();
+
+			names.add(name);
+			nameIndexes.put(name, nameId);
+		}
+
+		return nameId;
+	}
+
+
+	/**
+	 * @param parent
+	 * @param nameId
+	 * @return the child node of the given parent and name, -1 if none
+	 */
+	private int findChild(final int parent, final int nameId) {
+
+		for (int slot = slot(parent, nameId); children[slot] != 0; slot = (slot + 1) & (children.length - 1)) {
+
+			final int child = children[slot] - 1;
+
+			if (parents[child] == parent && nameIds[child] == nameId) {
+				return child;
+			}
+		}
+
+		return -1;
+	}
+
+
+	/**
+	 * @param parent
+	 * @param nameId
+	 * @return the new node
+	 */
+	private int addNode(final int parent, final int nameId) {
+
+		if (nodeCount == parents.length) {
+
+			final int capacity = nodeCount * 2;
+
+			parents = Arrays.copyOf(parents, capacity);
+			nameIds = Arrays.copyOf(nameIds, capacity);
+			flags = Arrays.copyOf(flags, capacity);
+			lastModifiedDates = Arrays.copyOf(lastModifiedDates, capacity);
+			lastAccessDates = Arrays.copyOf(lastAccessDates, capacity);
+			sizes = Arrays.copyOf(sizes, capacity);
+		}
+
+		final int node = nodeCount++;
+
+		parents[node] = parent;
+		nameIds[node] = nameId;
+
+		if (parent != NO_PARENT) {
+
+			// The children table is kept at most half full
+
+			if (nodeCount * 2 > children.length) {
+				rehash(children.length * 2);
+			}
+
+			insertChild(node);
+		}
+
+		return node;
+	}
+
+
+	/**
+	 * @param node
+	 */
+	private void insertChild(final int node) {
+
+		int slot = slot(parents[node], nameIds[node]);
+
+		while (children[slot] != 0) {
+			slot = (slot + 1) & (children.length - 1);
+		}
+
+		children[slot] = node + 1;
+	}
+
+
+	/**
+	 * @param capacity the new capacity of the children table, a power of two
+	 */
+	private void rehash(final int capacity) {
+
+		children = new int[capacity];
+
+		for (int node = 1; node < nodeCount - 1; node++) {
+			insertChild(node);
+		}
+	}
+
+
+	/**
+	 * @param parent
+	 * @param nameId
+	 * @return the first slot of the children table for the given parent and name
+	 */
+	private int slot(final int parent, final int nameId) {
+
+		final int hash = (parent * 0x9E3779B1) ^ (nameId * 0x85EBCA6B);
+
+		return (hash ^ (hash >>> 16)) & (children.length - 1);
+	}
+}
@@ -0,0 +1,364 @@
+package org.apache.maven.plugins.engine;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Trash of a local repository, stored in the plugin folder (@see DeletionJournal#FOLDER_NAME).
+ *
+ * A folder is removed from the repository by a single atomic rename into the trash, which is on the same file system.
+ * Each execution moves its folders into its own batch, named after its start time, under their path relative to the
+ * repository root : a folder can be restored by moving it back until its batch is purged by a {@link DeletionReaper}.
+ *
+ * While a batch is filled, its execution holds a lock on an open marker beside it (the batch name with the
+ * {@link #OPEN_EXTENSION} extension) : the purge skips the open batches, whatever their age, and the entries of
+ * the trash which are not named after a start time. The marker of an execution which did not close its batch is
+ * found unlocked, and removed by the next purge.
+ *
+ * This class only depends on the JDK, since it is loaded by the detached reaper process.
+ *
+ * @author sgu, pef, lab...
+ */
+public class RepositoryTrash {
+
+	/**
+	 * Name of the trash, stored in the plugin folder
+	 */
+	public static final String FOLDER_NAME = ".trash";
+
+	/**
+	 * Extension of the open markers of the batches being filled
+	 */
+	static final String OPEN_EXTENSION = ".open";
+
+	/**
+	 * Root of the local repository
+	 */
+	private final Path root;
+
+	/**
+	 * Trash batch of the current execution
+	 */
+	private final Path batch;
+
+	/**
+	 * Open marker of the batch, locked until the batch is closed
+	 */
+	private final Path marker;
+
+	private final FileChannel markerChannel;
+
+
+	/**
+	 * @param root
+	 * @param batch
+	 * @param marker
+	 * @param markerChannel
+	 */
+	private RepositoryTrash(final Path root, final Path batch, final Path marker, final FileChannel markerChannel) {
+
+		this.root = root;
+		this.batch = batch;
+		this.marker = marker;
+		this.markerChannel = markerChannel;
+	}
+
+
+	/**
+	 * Create the trash batch of an execution, marked as open until it is closed. The marker is created and locked
+	 * before the batch itself, so a concurrent purge never sees the batch without its marker.
+	 *
+	 * @param root the root of the local repository
+	 * @return the trash
+	 * @throws IOException if the trash batch cannot be created
+	 */
+	public static RepositoryTrash open(final Path root) throws IOException {
+
+		final Path folder = Files.createDirectories(getFolder(root));
+
+		for (long name = System.currentTimeMillis();; name++) {
+
+			final Path marker = folder.resolve(name + OPEN_EXTENSION);
+
+			final FileChannel markerChannel;
+
+			try {
+				markerChannel = FileChannel.open(marker, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+			}
+			catch (FileAlreadyExistsException e) {
+				// Batch of a concurrent execution started at the same time, the next name is tried
+				continue;
+			}
+
+			try {
+				lockMarker(markerChannel);
+
+				return new RepositoryTrash(root, Files.createDirectory(folder.resolve(String.valueOf(name))), marker, markerChannel);
+			}
+			catch (IOException e) {
+
+				markerChannel.close();
+
+				Files.deleteIfExists(marker);
+
+				throw e;
+			}
+		}
+	}
+
+
+	/**
+	 * Lock the open marker of a batch, the marker being kept unlocked on a file system without file locks.
+	 *
+	 * @param markerChannel
+	 * @throws IOException
+	 */
+	private static void lockMarker(final FileChannel markerChannel) throws IOException {
+
+		try {
+			markerChannel.lock();
+		}
+		catch (UnsupportedOperationException e) {
+			// The existence of the marker keeps the batch open
+		}
+	}
+
+
+	/**
+	 * Close the batch of the execution, which can then be purged once its retention is expired.
+	 *
+	 * @throws IOException if the open marker cannot be removed
+	 */
+	public void close() throws IOException {
+
+		markerChannel.close();
+
+		Files.deleteIfExists(marker);
+	}
+
+
+	/**
+	 * Move a folder of the local repository into the trash batch, by a single atomic rename.
+	 *
+	 * @param path a folder (or file) of the local repository
+	 * @throws IOException if the path cannot be renamed, e.g. if the trash is not on the same file system
+	 */
+	public void moveToTrash(final Path path) throws IOException {
+
+		final Path target = batch.resolve(root.relativize(path));
+
+		Files.createDirectories(target.getParent());
+
+		Files.move(path, target, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+
+	/**
+	 * Get the trash of a local repository.
+	 *
+	 * @param root the root of the local repository
+	 * @return the trash folder, which may not exist
+	 */
+	public static Path getFolder(final Path root) {
+
+		return DeletionJournal.getFolder(root).resolve(FOLDER_NAME);
+	}
+
+
+	/**
+	 * Define if trash batches remain to be purged in a local repository.
+	 *
+	 * @param root the root of the local repository
+	 * @return true if at least one trash batch exists, false otherwise.
+	 */
+	public static boolean hasBatches(final Path root) {
+
+		final Path folder = getFolder(root);
+
+		if (!Files.isDirectory(folder)) {
+			return false;
+		}
+
+		try (DirectoryStream<Path> batches = Files.newDirectoryStream(folder)) {
+
+			return batches.iterator().hasNext();
+		}
+		catch (IOException e) {
+			return false;
+		}
+	}
+
+
+	/**
+	 * Define if trash batches older than the given retention remain to be purged in a local repository.
+	 *
+	 * @param root the root of the local repository
+	 * @param retention the retention of the trash batches, in milliseconds
+	 * @return true if at least one trash batch is expired, false otherwise.
+	 */
+	public static boolean hasExpiredBatches(final Path root, final long retention) {
+
+		final Path folder = getFolder(root);
+
+		if (!Files.isDirectory(folder)) {
+			return false;
+		}
+
+		final long expiration = System.currentTimeMillis() - retention;
+
+		try (DirectoryStream<Path> batches = Files.newDirectoryStream(folder)) {
+
+			for (final Path batch : batches) {
+
+				if (isExpired(batch, expiration)) {
+					return true;
+				}
+			}
+
+			return false;
+		}
+		catch (IOException e) {
+			return false;
+		}
+	}
+
+
+	/**
+	 * Purge the trash batches of a local repository older than the given retention.
+	 * A batch whose purge fails is kept for the next purge.
+	 *
+	 * @param root the root of the local repository
+	 * @param retention the retention of the trash batches, in milliseconds
+	 * @param throttle the rate limits of the directory reads and unlinks
+	 * @return the number of trash batches purged
+	 * @throws IOException if the trash cannot be listed
+	 */
+	static int purge(final Path root, final long retention, final IoThrottle throttle) throws IOException {
+
+		final Path folder = getFolder(root);
+
+		if (!Files.isDirectory(folder)) {
+			return 0;
+		}
+
+		final long expiration = System.currentTimeMillis() - retention;
+
+		int purged = 0;
+
+		try (DirectoryStream<Path> batches = Files.newDirectoryStream(folder)) {
+
+			for (final Path batch : batches) {
+
+				if (isExpired(batch, expiration)) {
+
+					try {
+						DeletionReaper.deleteTree(batch, throttle);
+
+						purged++;
+					}
+					catch (IOException e) {
+						DeletionReaper.report("Cannot purge " + batch + " : " + e);
+					}
+				}
+			}
+		}
+
+		return purged;
+	}
+
+
+	/**
+	 * Define if an entry of the trash is a closed batch older than the expiration.
+	 *
+	 * @param batch
+	 * @param expiration
+	 * @return true if the batch can be purged, false otherwise or if the entry is not a batch.
+	 */
+	private static boolean isExpired(final Path batch, final long expiration) {
+
+		final long batchTime = getBatchTime(batch);
+
+		return batchTime >= 0 && batchTime <= expiration && Files.isDirectory(batch) && !isOpen(batch);
+	}
+
+
+	/**
+	 * Define if a batch is still filled by its execution, i.e. if its open marker is locked. An unlocked marker is
+	 * left by an execution which did not close its batch : it is removed.
+	 *
+	 * @param batch
+	 * @return true if the batch is open, false otherwise.
+	 */
+	private static boolean isOpen(final Path batch) {
+
+		final Path marker = batch.resolveSibling(batch.getFileName() + OPEN_EXTENSION);
+
+		if (!Files.exists(marker)) {
+			return false;
+		}
+
+		try (FileChannel markerChannel = FileChannel.open(marker, StandardOpenOption.WRITE)) {
+
+			final FileLock lock = markerChannel.tryLock();
+
+			if (lock == null) {
+				return true;
+			}
+
+			Files.deleteIfExists(marker);
+
+			return false;
+		}
+		catch (OverlappingFileLockException e) {
+			// Locked by an execution of the current process
+			return true;
+		}
+		catch (UnsupportedOperationException e) {
+			// No file lock on this file system, the existence of the marker keeps the batch open
+			return true;
+		}
+		catch (IOException e) {
+			// The marker cannot be checked, the batch is kept
+			return true;
+		}
+	}
+
+
+	/**
+	 * @param batch
+	 * @return the start time of the execution which created the batch, -1 for an entry which is not named as a batch
+	 */
+	private static long getBatchTime(final Path batch) {
+
+		try {
+			return Long.parseLong(batch.getFileName().toString());
+		}
+		catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+}
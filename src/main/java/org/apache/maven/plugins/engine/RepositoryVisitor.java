@@ -0,0 +1,68 @@
+package org.apache.maven.plugins.engine;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Callback of the {@link RepositoryWalker} : applies the cleaning rules on each entry of the local repository
+ * while it is visited.
+ *
+ * @author sgu, pef, lab...
+ */
+public interface RepositoryVisitor {
+
+	/**
+	 * Apply the rules on a file of the local repository.
+	 *
+	 * @param folder the state of the folder containing the file
+	 * @param file
+	 * @param attributes
+	 * @return true if the file has been removed from the repository, false otherwise.
+	 */
+	boolean visitFile(RepositoryFolder folder, Path file, BasicFileAttributes attributes);
+
+
+	/**
+	 * Called once all the files of a folder have been visited, before its sub folders are walked, from the thread
+	 * which visited them.
+	 *
+	 * @param folder
+	 */
+	void postVisitFiles(RepositoryFolder folder);
+
+
+	/**
+	 * Define if a sub folder has to be walked, before any of its content is read.
+	 * A skipped sub folder is kept in the repository, unvisited, and is considered as not empty.
+	 *
+	 * @param parent the state of the folder containing the sub folder
+	 * @param folder
+	 * @return true if the sub folder has to be walked, false to skip its whole sub tree.
+	 */
+	boolean preVisitFolder(RepositoryFolder parent, Path folder);
+
+
+	/**
+	 * Apply the rules on a folder of the local repository, once all its content has been visited.
+	 * The implementation has to mark the folder (or its sub folders) as removed if it deletes them.
+	 *
+	 * @param folder
+	 */
+	void postVisitFolder(RepositoryFolder folder);
+}
@@ -0,0 +1,542 @@
+package org.apache.maven.plugins.engine;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Streaming traversal of the local maven repository.
+ *
+ * The whole tree is walked once, in depth first order, and every entry is handed to a {@link RepositoryVisitor}
+ * as soon as it is read : no list of the repository content is ever built, only the direct sub folders of the
+ * folders of the current path are kept.
+ *
+ * The visitor may skip the sub tree of a folder before it is read, when none of its entries can be concerned by the
+ * rules.
+ *
+ * When a {@link RepositoryIndex} is given, the folders unchanged since the previous walk are not listed again : their
+ * content is replayed from the index. Reading a file does not change its folder, so the access dates of the replayed
+ * files can be older than the real ones, and the index does not record the file keys : a walk relying on them reads the
+ * attributes of the replayed files again, only their listing being saved. When a {@link RepositoryIndexWriter} is
+ * given, the walked folders are recorded in the index of the next walk.
+ *
+ * When a {@link WalkCursor} is given, the sub folders are walked in the order of their names, from the position saved
+ * by the previous walk, and the walk stops before its next folder once the time budget is spent. The folders listed
+ * from the file system are rate limited by the given {@link IoThrottle}.
+ *
+ * @author sgu, pef, lab...
+ */
+public class RepositoryWalker {
+
+	/**
+	 * Order of the sub folders of a time budgeted walk : on their names
+	 */
+	private static final Comparator<SubFolder> NAME_ORDER = new Comparator<SubFolder>() {
+
+		public int compare(final SubFolder subFolder0, final SubFolder subFolder1) {
+
+			return subFolder0.path.getFileName().toString().compareTo(subFolder1.path.getFileName().toString());
+		}
+	};
+
+	/**
+	 * Root of the walk
+	 */
+	private final Path root;
+
+	/**
+	 * Rules applied on each visited entry
+	 */
+	private final RepositoryVisitor visitor;
+
+	/**
+	 * Index of the previous walk, never null
+	 */
+	private final RepositoryIndex index;
+
+	/**
+	 * Index of the current walk, null if the walk is not recorded
+	 */
+	private final RepositoryIndexWriter indexWriter;
+
+	/**
+	 * Time budget and position of the walk, null if the walk is not time budgeted
+	 */
+	private final WalkCursor cursor;
+
+	/**
+	 * Rate limits of the directory reads
+	 */
+	private final IoThrottle throttle;
+
+	/**
+	 * True if the attributes of the files replayed from the index are read again, for their current access dates and
+	 * their file keys
+	 */
+	private final boolean attributesRead;
+
+
+	/**
+	 * Create a walker dispatching the visited entries to the given visitor.
+	 *
+	 * @param root
+	 * @param visitor
+	 */
+	public RepositoryWalker(final Path root, final RepositoryVisitor visitor) {
+
+		this(root, visitor, RepositoryIndex.EMPTY, null);
+	}
+
+
+	/**
+	 * Create a walker dispatching the visited entries to the given visitor, relying on the index of the previous walk
+	 * and recording the current one.
+	 *
+	 * @param root
+	 * @param visitor
+	 * @param index the index of the previous walk
+	 * @param indexWriter the index of the current walk, null if the walk is not recorded
+	 */
+	public RepositoryWalker(final Path root, final RepositoryVisitor visitor, final RepositoryIndex index, final RepositoryIndexWriter indexWriter) {
+
+		this(root, visitor, index, indexWriter, null, IoThrottle.NONE);
+	}
+
+
+	/**
+	 * Create a time budgeted and rate limited walker dispatching the visited entries to the given visitor, relying on
+	 * the index of the previous walk and recording the current one.
+	 *
+	 * @param root
+	 * @param visitor
+	 * @param index the index of the previous walk
+	 * @param indexWriter the index of the current walk, null if the walk is not recorded
+	 * @param cursor the time budget and position of the walk, null if the walk is not time budgeted
+	 * @param throttle the rate limits of the directory reads
+	 */
+	public RepositoryWalker(final Path root, final RepositoryVisitor visitor, final RepositoryIndex index, final RepositoryIndexWriter indexWriter,
+							final WalkCursor cursor, final IoThrottle throttle) {
+
+		this(root, visitor, index, indexWriter, cursor, throttle, false);
+	}
+
+
+	/**
+	 * Create a time budgeted and rate limited walker dispatching the visited entries to the given visitor, relying on
+	 * the index of the previous walk and recording the current one.
+	 *
+	 * @param root
+	 * @param visitor
+	 * @param index the index of the previous walk
+	 * @param indexWriter the index of the current walk, null if the walk is not recorded
+	 * @param cursor the time budget and position of the walk, null if the walk is not time budgeted
+	 * @param throttle the rate limits of the directory reads
+	 * @param attributesRead true if the visitor relies on the access dates or the file keys of the files, which are 
+	 * 		  then read again for the files replayed from the index
+	 */
+	public RepositoryWalker(final Path root, final RepositoryVisitor visitor, final RepositoryIndex index, final RepositoryIndexWriter indexWriter,
+							final WalkCursor cursor, final IoThrottle throttle, final boolean attributesRead) {
+
+		super();
+
+		this.root = root;
+		this.visitor = visitor;
+		this.index = index;
+		this.indexWriter = indexWriter;
+		this.cursor = cursor;
+		this.throttle = throttle;
+		this.attributesRead = attributesRead;
+	}
+
+
+	/**
+	 * Walk the whole tree of the given folder.
+	 *
+	 * @param root
+	 * @param visitor
+	 * @throws IOException
+	 */
+	public static void walk(final Path root, final RepositoryVisitor visitor) throws IOException {
+
+		new RepositoryWalker(root, visitor).walk();
+	}
+
+
+	/**
+	 * Walk the whole tree of the root folder.
+	 *
+	 * @throws IOException if the root folder cannot be read
+	 */
+	public void walk() throws IOException {
+
+		final SubFolder rootFolder = getRootFolder();
+
+		walkFolder(null, rootFolder.path, rootFolder.attributes);
+	}
+
+
+	/**
+	 * @return the root folder of the walk, with its attributes
+	 * @throws IOException if the root folder cannot be read
+	 */
+	SubFolder getRootFolder() throws IOException {
+
+		return new SubFolder(root, readAttributes(root));
+	}
+
+
+	/**
+	 * Walk serially the whole sub tree of a folder.
+	 *
+	 * @param parent the state of the parent folder, null for the root of the walk
+	 * @param path
+	 * @param attributes
+	 */
+	void walkFolder(final RepositoryFolder parent, final Path path, final BasicFileAttributes attributes) {
+
+		final RepositoryFolder folder = RepositoryFolder.enter(path, parent);
+
+		final List<SubFolder> subFolders = new ArrayList<SubFolder>();
+
+		final IndexRecord record = listFolder(folder, attributes, subFolders);
+
+		for (final SubFolder subFolder : subFolders) {
+
+			if (!stopIfExpired(folder, subFolder)) {
+				walkFolder(folder, subFolder.path, subFolder.attributes);
+			}
+		}
+
+		leaveFolder(folder, record);
+	}
+
+
+	/**
+	 * Visit the files of a folder, from the index if the folder is unchanged since the previous walk, from
+	 * the file system otherwise. The sub folders are not walked but returned to the caller.
+	 *
+	 * @param folder
+	 * @param attributes the attributes of the folder
+	 * @param subFolders receives the sub folders to walk
+	 * @return the index record of the folder, null if the walk is not recorded
+	 */
+	IndexRecord listFolder(final RepositoryFolder folder, final BasicFileAttributes attributes, final List<SubFolder> subFolders) {
+
+		final Path path = folder.getPath();
+
+		final String relativePath = root.relativize(path).toString();
+
+		final IndexRecord record = indexWriter != null ? new IndexRecord(relativePath, attributes.lastModifiedTime().toMillis()) : null;
+
+		final IndexRecord previous = index.find(relativePath, attributes.lastModifiedTime().toMillis());
+
+		folder.markListed(attributes.lastModifiedTime().toMillis());
+
+		if (previous != null) {
+
+			replayFolder(folder, previous, record, subFolders);
+		}
+		else {
+
+			readFolder(folder, record, subFolders);
+		}
+
+		visitor.postVisitFiles(folder);
+
+		skipSubFolders(folder, subFolders);
+
+		if (cursor != null) {
+			skipWalkedSubFolders(folder, subFolders);
+		}
+
+		return record;
+	}
+
+
+	/**
+	 * Stop the walk before a sub folder once the time budget is spent. The sub folder is then registered in the folder
+	 * state without being walked, as a skipped one.
+	 *
+	 * @param folder
+	 * @param subFolder
+	 * @return true if the sub folder must not be walked, false otherwise.
+	 */
+	boolean stopIfExpired(final RepositoryFolder folder, final SubFolder subFolder) {
+
+		if (cursor == null || !cursor.isExpired()) {
+			return false;
+		}
+
+		cursor.stopAt(subFolder.path);
+
+		RepositoryFolder.enter(subFolder.path, folder);
+
+		return true;
+	}
+
+
+	/**
+	 * Remove from the sub folders to walk the ones skipped by the visitor. They are registered in the folder state
+	 * without being left, so they remain in the index record and prevent the folder from being found empty.
+	 *
+	 * @param folder
+	 * @param subFolders
+	 */
+	private void skipSubFolders(final RepositoryFolder folder, final List<SubFolder> subFolders) {
+
+		for (final Iterator<SubFolder> iterator = subFolders.iterator(); iterator.hasNext();) {
+
+			final SubFolder subFolder = iterator.next();
+
+			if (!visitor.preVisitFolder(folder, subFolder.path)) {
+
+				RepositoryFolder.enter(subFolder.path, folder);
+
+				iterator.remove();
+			}
+		}
+	}
+
+
+	/**
+	 * Order the sub folders to walk on their names, then remove the ones walked by the previous time budgeted walks,
+	 * before the resume position. They are registered in the folder state as skipped ones.
+	 *
+	 * @param folder
+	 * @param subFolders
+	 */
+	private void skipWalkedSubFolders(final RepositoryFolder folder, final List<SubFolder> subFolders) {
+
+		Collections.sort(subFolders, NAME_ORDER);
+
+		for (final Iterator<SubFolder> iterator = subFolders.iterator(); iterator.hasNext();) {
+
+			final SubFolder subFolder = iterator.next();
+
+			if (cursor.isWalked(subFolder.path)) {
+
+				RepositoryFolder.enter(subFolder.path, folder);
+
+				iterator.remove();
+			}
+		}
+	}
+
+
+	/**
+	 * Apply the folder rules once all its content has been walked, then record it in the index.
+	 *
+	 * @param folder
+	 * @param record
+	 */
+	void leaveFolder(final RepositoryFolder folder, final IndexRecord record) {
+
+		visitor.postVisitFolder(folder);
+
+		if (record != null && !folder.isRemoved() && !record.isIncomplete()) {
+
+			indexWriter.write(record, folder);
+		}
+
+		folder.leave();
+	}
+
+
+	/**
+	 * Visit the content of an unchanged folder as recorded by the previous walk.
+	 *
+	 * @param folder
+	 * @param previous
+	 * @param record
+	 * @param subFolders
+	 */
+	private void replayFolder(final RepositoryFolder folder, final IndexRecord previous, final IndexRecord record, final List<SubFolder> subFolders) {
+
+		final Path path = folder.getPath();
+
+		for (int i = 0; i < previous.getFileCount(); i++) {
+
+			final Path file = path.resolve(previous.getFileName(i));
+
+			if (!attributesRead) {
+				visitFile(folder, file, previous.getFileAttributes(i), record);
+			}
+			else {
+				readEntry(folder, file, record, subFolders);
+			}
+		}
+
+		for (final String subFolderName : previous.getSubFolderNames()) {
+
+			final Path subFolderPath = path.resolve(subFolderName);
+
+			try {
+				subFolders.add(new SubFolder(subFolderPath, readAttributes(subFolderPath)));
+			}
+			catch (IOException e) {
+				folder.addRemainingFile(null);
+			}
+		}
+	}
+
+
+	/**
+	 * Visit the content of a folder from the file system.
+	 *
+	 * An entry whose attributes cannot be read is kept in the repository and the other entries are still visited.
+	 * A listing interrupted by an I/O error keeps the folder, with the entries read until the failure. In both cases
+	 * the folder is not recorded in the index, so the next walk lists it again.
+	 *
+	 * @param folder
+	 * @param record
+	 * @param subFolders
+	 */
+	private void readFolder(final RepositoryFolder folder, final IndexRecord record, final List<SubFolder> subFolders) {
+
+		throttle.acquireDirectoryRead();
+
+		try (DirectoryStream<Path> entries = Files.newDirectoryStream(folder.getPath())) {
+
+			for (final Path entry : entries) {
+
+				if (folder.getParent() == null && DeletionJournal.isPluginFolder(entry)) {
+					continue;
+				}
+
+				readEntry(folder, entry, record, subFolders);
+			}
+		}
+		catch (IOException | DirectoryIteratorException e) {
+
+			// An unreadable listing is kept in the repository and does not interrupt the walk
+			skipUnreadableEntry(folder, record);
+		}
+	}
+
+
+	/**
+	 * Visit a file of a folder, or add it to the sub folders to walk.
+	 *
+	 * @param folder
+	 * @param entry
+	 * @param record
+	 * @param subFolders
+	 */
+	private void readEntry(final RepositoryFolder folder, final Path entry, final IndexRecord record, final List<SubFolder> subFolders) {
+
+		final BasicFileAttributes attributes;
+
+		try {
+			attributes = readAttributes(entry);
+		}
+		catch (IOException e) {
+
+			skipUnreadableEntry(folder, record);
+
+			return;
+		}
+
+		if (attributes.isDirectory()) {
+			subFolders.add(new SubFolder(entry, attributes));
+		}
+		else {
+			visitFile(folder, entry, attributes, record);
+		}
+	}
+
+
+	/**
+	 * Keep an unreadable entry in the repository : the folder is not empty and its record is not written in the index.
+	 *
+	 * @param folder
+	 * @param record
+	 */
+	private static void skipUnreadableEntry(final RepositoryFolder folder, final IndexRecord record) {
+
+		folder.addRemainingFile(null);
+
+		if (record != null) {
+			record.markIncomplete();
+		}
+	}
+
+
+	/**
+	 * Apply the rules on a file and record it if it remains in the repository.
+	 *
+	 * @param folder
+	 * @param file
+	 * @param attributes
+	 * @param record
+	 */
+	private void visitFile(final RepositoryFolder folder, final Path file, final BasicFileAttributes attributes, final IndexRecord record) {
+
+		if (!visitor.visitFile(folder, file, attributes)) {
+
+			folder.addRemainingFile(attributes);
+
+			if (record != null) {
+				record.addFile(file.getFileName().toString(), attributes);
+			}
+		}
+	}
+
+
+	/**
+	 * Read the attributes of an entry, without following symbolic links.
+	 *
+	 * @param path
+	 * @return the entry attributes
+	 * @throws IOException
+	 */
+	private static BasicFileAttributes readAttributes(final Path path) throws IOException {
+
+		return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+	}
+
+
+	/**
+	 * A sub folder to walk, with its attributes.
+	 */
+	static final class SubFolder {
+
+		final Path path;
+
+		final BasicFileAttributes attributes;
+
+		/**
+		 * @param path
+		 * @param attributes
+		 */
+		SubFolder(final Path path, final BasicFileAttributes attributes) {
+
+			this.path = path;
+			this.attributes = attributes;
+		}
+	}
+}
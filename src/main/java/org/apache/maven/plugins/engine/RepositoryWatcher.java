@@ -0,0 +1,571 @@
+package org.apache.maven.plugins.engine;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watch of the local repository tree through file system change notifications, keeping an in-memory model of its
+ * version folders up to date as artifacts are installed, downloaded or deleted.
+ *
+ * The tree is walked once to register its folders and build the model. Then each file written in a version folder
+ * marks its artifact folder as changed : once the artifact has been quiet for the debounce delay, its version folders
+ * are handed to a {@link Listener}. So the cost of the watch is proportional to the churn of the repository rather
+ * than to its size.
+ *
+ * The change notifications need one registration per folder, bounded by the system (e.g. fs.inotify.max_user_watches
+ * on Linux). If a folder cannot be registered, the registrations are released and the watch falls back to periodic
+ * passes over the tree, each one marking as changed the artifacts whose files were modified since the previous pass.
+ * The same pass replaces the lost events when the notifications overflow.
+ *
+ * A version folder is a folder containing artifact files, its parent being the artifact folder. The metadata files
+ * written in the artifact folders themselves are ignored, as the plugin folder (@see DeletionJournal#FOLDER_NAME).
+ *
+ * @author sgu, pef, lab...
+ */
+public class RepositoryWatcher implements Closeable {
+
+	/**
+	 * Prefixes of the file names of the artifact folders, which are not version files
+	 */
+	private static final String[] METADATA_PREFIXES = { "maven-metadata", "resolver-status" };
+
+	/**
+	 * Depth of the version folders under the root (groupId, artifactId, version)
+	 */
+	private static final int VERSION_DEPTH = 3;
+
+	/**
+	 * Period of the passes over the tree once the watch falls back to polling, in milliseconds
+	 */
+	private static final long POLLING_PERIOD = TimeUnit.MINUTES.toMillis(1);
+
+	/**
+	 * Granularity of the modification dates of the file systems, in milliseconds
+	 */
+	private static final long MODIFICATION_DATE_GRANULARITY = TimeUnit.SECONDS.toMillis(2);
+
+	/**
+	 * Receiver of the version folders of the changed artifacts.
+	 */
+	public interface Listener {
+
+		/**
+		 * Notify that the content of an artifact folder has changed, and has been quiet for the debounce delay.
+		 *
+		 * @param artifactFolder
+		 * @param versionFolders the version folders of the artifact, according to the model
+		 */
+		void artifactChanged(Path artifactFolder, List<Path> versionFolders);
+
+		/**
+		 * Notify that the watch falls back to periodic passes over the tree.
+		 *
+		 * @param cause the registration failure of a folder
+		 */
+		void pollingStarted(IOException cause);
+	}
+
+	private final Path root;
+
+	/**
+	 * Change notifications of the file system, null if it does not support them
+	 */
+	private final WatchService watchService;
+
+	/**
+	 * Watched folders, by watch key
+	 */
+	private final Map<WatchKey, Path> watchedFolders = new HashMap<WatchKey, Path>();
+
+	/**
+	 * Version folders, by artifact folder
+	 */
+	private final Map<Path, Set<Path>> versionsByArtifact = new HashMap<Path, Set<Path>>();
+
+	/**
+	 * Date of the last change of the changed artifact folders, by artifact folder
+	 */
+	private final Map<Path, Long> changedArtifacts = new LinkedHashMap<Path, Long>();
+
+	/**
+	 * Registration failure of a folder, or lack of support of the file system, null while the change notifications
+	 * are used
+	 */
+	private IOException pollingCause;
+
+	/**
+	 * True once the listener has been notified of the fallback to polling
+	 */
+	private boolean pollingNotified;
+
+	/**
+	 * Date until which the changes of the tree are known, in milliseconds
+	 */
+	private long scanDate;
+
+
+	/**
+	 * @param root
+	 * @param watchService
+	 */
+	private RepositoryWatcher(final Path root, final WatchService watchService) {
+
+		this.root = root;
+		this.watchService = watchService;
+	}
+
+
+	/**
+	 * Register the whole tree of a local repository and build its model. A file system without change notifications
+	 * (e.g. a zip file system) is watched by periodic passes.
+	 *
+	 * @param root the root of the local repository
+	 * @return the watcher
+	 * @throws IOException if the tree cannot be walked
+	 */
+	public static RepositoryWatcher open(final Path root) throws IOException {
+
+		WatchService watchService = null;
+
+		IOException pollingCause = null;
+
+		try {
+			watchService = root.getFileSystem().newWatchService();
+		}
+		catch (UnsupportedOperationException e) {
+			pollingCause = new IOException(e);
+		}
+
+		final RepositoryWatcher watcher = new RepositoryWatcher(root, watchService);
+
+		watcher.pollingCause = pollingCause;
+
+		try {
+			watcher.scanDate = System.currentTimeMillis();
+
+			watcher.register(root, Long.MAX_VALUE);
+		}
+		catch (IOException e) {
+			watcher.close();
+
+			throw e;
+		}
+
+		return watcher;
+	}
+
+
+	/**
+	 * Watch the repository until the given deadline or until the current thread is interrupted, handing the changed
+	 * artifacts to the listener once they have been quiet for the debounce delay.
+	 *
+	 * @param listener
+	 * @param debounceDelay the quiet delay of a changed artifact before its notification, in milliseconds
+	 * @param deadline the end date of the watch, in milliseconds, Long.MAX_VALUE to watch until interrupted
+	 * @throws IOException if the tree cannot be walked
+	 */
+	public void watch(final Listener listener, final long debounceDelay, final long deadline) throws IOException {
+
+		for (long now = System.currentTimeMillis(); now < deadline; now = System.currentTimeMillis()) {
+
+			if (pollingCause != null && !pollingNotified) {
+
+				pollingNotified = true;
+
+				listener.pollingStarted(pollingCause);
+			}
+
+			try {
+				if (pollingCause != null) {
+
+					poll(debounceDelay, deadline, now);
+				}
+				else {
+
+					waitEvents(debounceDelay, deadline, now);
+				}
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+
+				return;
+			}
+
+			notifyQuietArtifacts(listener, debounceDelay);
+		}
+	}
+
+
+	/**
+	 * @return true if the watch has fallen back to periodic passes over the tree
+	 */
+	public boolean isPolling() {
+
+		return pollingCause != null;
+	}
+
+
+	/**
+	 * @return the number of version folders of the model
+	 */
+	public int getVersionCount() {
+
+		int count = 0;
+
+		for (final Set<Path> versions : versionsByArtifact.values()) {
+			count += versions.size();
+		}
+
+		return count;
+	}
+
+
+	/**
+	 * @see java.io.Closeable#close()
+	 */
+	public void close() throws IOException {
+
+		if (watchService != null) {
+			watchService.close();
+		}
+	}
+
+
+	/**
+	 * Wait for the change notifications, then update the model.
+	 *
+	 * @param debounceDelay
+	 * @param deadline
+	 * @param now
+	 * @throws InterruptedException
+	 * @throws IOException if the tree cannot be walked again after an overflow
+	 */
+	private void waitEvents(final long debounceDelay, final long deadline, final long now) throws InterruptedException, IOException {
+
+		// Without pending change, the watch blocks until the next event
+
+		final long timeout = changedArtifacts.isEmpty() ? deadline - now : Math.min(debounceDelay, deadline - now);
+
+		// The events of the changes until now are drained below
+
+		scanDate = now;
+
+		final WatchKey key = watchService.poll(Math.max(1, timeout), TimeUnit.MILLISECONDS);
+
+		for (WatchKey pendingKey = key; pendingKey != null && pollingCause == null; pendingKey = watchService.poll()) {
+
+			processEvents(pendingKey);
+		}
+	}
+
+
+	/**
+	 * Wait for the next pass over the tree, or for the end of the debounce delay of the changed artifacts, then pass
+	 * over the tree if its period is elapsed.
+	 *
+	 * @param debounceDelay
+	 * @param deadline
+	 * @param now
+	 * @throws InterruptedException
+	 * @throws IOException if the tree cannot be walked
+	 */
+	private void poll(final long debounceDelay, final long deadline, final long now) throws InterruptedException, IOException {
+
+		final long nextScan = scanDate + POLLING_PERIOD;
+
+		final long timeout = Math.min(changedArtifacts.isEmpty() ? nextScan - now : Math.min(debounceDelay, nextScan - now), deadline - now);
+
+		if (timeout > 0) {
+			Thread.sleep(timeout);
+		}
+
+		if (System.currentTimeMillis() >= nextScan) {
+			rescan();
+		}
+	}
+
+
+	/**
+	 * Walk the whole tree again to rebuild the model, marking as changed the artifacts modified since the previous
+	 * pass or the last drained events.
+	 *
+	 * @throws IOException if the tree cannot be walked
+	 */
+	private void rescan() throws IOException {
+
+		final long changedSince = scanDate - MODIFICATION_DATE_GRANULARITY;
+
+		scanDate = System.currentTimeMillis();
+
+		versionsByArtifact.clear();
+
+		register(root, changedSince);
+	}
+
+
+	/**
+	 * Fall back to periodic passes over the tree, releasing the registrations of the folders.
+	 *
+	 * @param cause the registration failure of a folder
+	 */
+	private void startPolling(final IOException cause) {
+
+		pollingCause = cause;
+
+		for (final WatchKey key : watchedFolders.keySet()) {
+			key.cancel();
+		}
+
+		watchedFolders.clear();
+	}
+
+
+	/**
+	 * Register a folder and its whole tree, adding its version folders to the model. The folders are not registered
+	 * once the watch has fallen back to polling.
+	 *
+	 * @param folder
+	 * @param changedSince the date since which the modified version files mark their artifact as changed, e.g. 0 for a
+	 * folder created during the watch, whose files may have been written before its registration, Long.MAX_VALUE when
+	 * the model is built
+	 * @throws IOException if the tree cannot be walked
+	 */
+	private void register(final Path folder, final long changedSince) throws IOException {
+
+		Files.walkFileTree(folder, new SimpleFileVisitor<Path>() {
+
+			@Override
+			public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) throws IOException {
+
+				if (DeletionJournal.isPluginFolder(dir) && root.equals(dir.getParent())) {
+					return FileVisitResult.SKIP_SUBTREE;
+				}
+
+				if (pollingCause == null) {
+
+					try {
+						watchedFolders.put(dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+								StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY), dir);
+					}
+					catch (IOException e) {
+						// Too many watched folders for the system, e.g. the inotify watches limit
+						startPolling(e);
+					}
+				}
+
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+
+				if (addVersionFile(file) && attrs.lastModifiedTime().toMillis() >= changedSince) {
+					markChanged(file.getParent().getParent());
+				}
+
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFileFailed(final Path file, final IOException exc) {
+
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+
+	/**
+	 * Update the model from the events of a watched folder.
+	 *
+	 * @param key
+	 * @throws IOException if a new folder cannot be walked
+	 */
+	private void processEvents(final WatchKey key) throws IOException {
+
+		final Path folder = watchedFolders.get(key);
+
+		for (final WatchEvent<?> event : key.pollEvents()) {
+
+			if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+
+				// Events have been lost, the tree is walked again for the artifacts changed since the last drained events
+
+				rescan();
+
+				continue;
+			}
+
+			if (folder == null) {
+				continue;
+			}
+
+			final Path entry = folder.resolve((Path) event.context());
+
+			if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+
+				removeVersion(entry);
+			}
+			else if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+
+				if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+					register(entry, 0);
+				}
+			}
+			else if (addVersionFile(entry)) {
+
+				markChanged(folder.getParent());
+			}
+		}
+
+		// A key cancelled by the fallback to polling does not stand for a deleted folder
+
+		if (!key.reset() && pollingCause == null) {
+
+			watchedFolders.remove(key);
+
+			if (folder != null) {
+				removeVersion(folder);
+			}
+		}
+	}
+
+
+	/**
+	 * Add the folder of a file to the model, if it is a version file.
+	 *
+	 * @param file
+	 * @return true if the file is a version file, false otherwise.
+	 */
+	private boolean addVersionFile(final Path file) {
+
+		final Path versionFolder = file.getParent();
+
+		if (root.relativize(versionFolder).getNameCount() < VERSION_DEPTH || isMetadataFile(file)) {
+			return false;
+		}
+
+		Set<Path> versions = versionsByArtifact.get(versionFolder.getParent());
+
+		if (versions == null) {
+			versions = new HashSet<Path>();
+			versionsByArtifact.put(versionFolder.getParent(), versions);
+		}
+
+		versions.add(versionFolder);
+
+		return true;
+	}
+
+
+	/**
+	 * Mark an artifact folder as changed now, postponing its notification to the end of the debounce delay.
+	 *
+	 * @param artifactFolder
+	 */
+	private void markChanged(final Path artifactFolder) {
+
+		changedArtifacts.remove(artifactFolder);
+		changedArtifacts.put(artifactFolder, System.currentTimeMillis());
+	}
+
+
+	/**
+	 * Remove a deleted folder from the model, if it is a version folder.
+	 *
+	 * @param folder
+	 */
+	private void removeVersion(final Path folder) {
+
+		final Set<Path> versions = versionsByArtifact.get(folder.getParent());
+
+		if (versions != null && versions.remove(folder) && versions.isEmpty()) {
+			versionsByArtifact.remove(folder.getParent());
+		}
+	}
+
+
+	/**
+	 * Hand the changed artifacts quiet for the debounce delay to the listener, the oldest change first.
+	 *
+	 * @param listener
+	 * @param debounceDelay
+	 */
+	private void notifyQuietArtifacts(final Listener listener, final long debounceDelay) {
+
+		final long quietDate = System.currentTimeMillis() - debounceDelay;
+
+		final Iterator<Map.Entry<Path, Long>> changes = changedArtifacts.entrySet().iterator();
+
+		while (changes.hasNext()) {
+
+			final Map.Entry<Path, Long> change = changes.next();
+
+			if (change.getValue() > quietDate) {
+				break;
+			}
+
+			changes.remove();
+
+			final Set<Path> versions = versionsByArtifact.get(change.getKey());
+
+			if (versions != null) {
+				listener.artifactChanged(change.getKey(), new ArrayList<Path>(versions));
+			}
+		}
+	}
+
+
+	/**
+	 * @param file
+	 * @return true if the file is a metadata file of an artifact folder, false otherwise.
+	 */
+	private static boolean isMetadataFile(final Path file) {
+
+		final String name = file.getFileName().toString();
+
+		for (final String prefix : METADATA_PREFIXES) {
+
+			if (name.startsWith(prefix)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+}
@@ -0,0 +1,446 @@
+package org.apache.maven.plugins.engine;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of a plugin execution : time spent in each phase, entries visited, versions evaluated and deleted, bytes
+ * freed and errors. They are exported as a JSON report and as a Prometheus textfile, read by the textfile collector
+ * of node_exporter.
+ *
+ * The phase times are cumulated over the threads : the match and empty folders phases run during the scan, and the
+ * delete phase is the time spent unlinking by the deletion threads. The counters can be updated concurrently.
+ *
+ * @author sgu, pef, lab...
+ */
+public class RunMetrics {
+
+	/**
+	 * Walk of the local repository
+	 */
+	public static final String SCAN = "scan";
+
+	/**
+	 * Listing and ordering of the version folders of the artifacts
+	 */
+	public static final String SORT = "sort";
+
+	/**
+	 * Matching of the files with the path patterns
+	 */
+	public static final String MATCH = "match";
+
+	/**
+	 * Unlinking of the deleted files and folders
+	 */
+	public static final String DELETE = "delete";
+
+	/**
+	 * Evaluation and deletion of the empty folders
+	 */
+	public static final String EMPTY_FOLDERS = "emptyFolders";
+
+	/**
+	 * Prefix of the Prometheus metric names
+	 */
+	private static final String METRIC_PREFIX = "clean_local_repository_";
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * Goal of the execution, exported as a label
+	 */
+	private final String goal;
+
+	private final long startMillis = System.currentTimeMillis();
+
+	private final long startNanos = System.nanoTime();
+
+	/**
+	 * Time spent in each phase, in nanoseconds, in the export order
+	 */
+	private final Map<String, LongAdder> phaseNanos = new LinkedHashMap<String, LongAdder>();
+
+	private final LongAdder directoriesVisited = new LongAdder();
+
+	private final LongAdder filesVisited = new LongAdder();
+
+	private final LongAdder versionsEvaluated = new LongAdder();
+
+	private final LongAdder versionsDeleted = new LongAdder();
+
+	private final LongAdder errors = new LongAdder();
+
+	private long freedBytes;
+
+	private long freedInodes;
+
+	private long durationNanos;
+
+
+	/**
+	 * @param goal the goal of the execution
+	 */
+	public RunMetrics(final String goal) {
+
+		this.goal = goal;
+
+		for (final String phase : new String[] { SCAN, SORT, MATCH, DELETE, EMPTY_FOLDERS }) {
+			phaseNanos.put(phase, new LongAdder());
+		}
+	}
+
+
+	/**
+	 * Add the time elapsed since the given start to a phase.
+	 *
+	 * @param phase
+	 * @param phaseStartNanos the start of the phase, read from System#nanoTime()
+	 */
+	public void addPhaseTime(final String phase, final long phaseStartNanos) {
+
+		phaseNanos.get(phase).add(System.nanoTime() - phaseStartNanos);
+	}
+
+
+	/**
+	 * Count a directory visited by the scan.
+	 */
+	public void addDirectoryVisited() {
+
+		directoriesVisited.increment();
+	}
+
+
+	/**
+	 * Count a file visited by the scan.
+	 */
+	public void addFileVisited() {
+
+		filesVisited.increment();
+	}
+
+
+	/**
+	 * Count a version evaluated by a retention rule.
+	 */
+	public void addVersionEvaluated() {
+
+		versionsEvaluated.increment();
+	}
+
+
+	/**
+	 * Count a version deleted, or being deleted.
+	 */
+	public void addVersionDeleted() {
+
+		versionsDeleted.increment();
+	}
+
+
+	/**
+	 * Count an error of the execution, besides the deletion failures.
+	 */
+	public void addError() {
+
+		errors.increment();
+	}
+
+
+	/**
+	 * Complete the metrics once the execution is over, with the deletions of the given engine.
+	 *
+	 * @param deletionEngine the closed deletion engine of the execution
+	 */
+	public void complete(final DeletionEngine deletionEngine) {
+
+		freedBytes = deletionEngine.getFreedBytes();
+		freedInodes = deletionEngine.getFreedInodes();
+
+		errors.add(deletionEngine.getFailures());
+
+		phaseNanos.get(DELETE).add(deletionEngine.getUnlinkNanos());
+
+		durationNanos = System.nanoTime() - startNanos;
+	}
+
+
+	/**
+	 * @param phase
+	 * @return the time spent in the phase, in seconds
+	 */
+	public double getPhaseSeconds(final String phase) {
+
+		return toSeconds(phaseNanos.get(phase).sum());
+	}
+
+
+	/**
+	 * @return the number of directories visited by the scan
+	 */
+	public long getDirectoriesVisited() {
+
+		return directoriesVisited.sum();
+	}
+
+
+	/**
+	 * @return the number of files visited by the scan
+	 */
+	public long getFilesVisited() {
+
+		return filesVisited.sum();
+	}
+
+
+	/**
+	 * @return the number of versions evaluated by the retention rules
+	 */
+	public long getVersionsEvaluated() {
+
+		return versionsEvaluated.sum();
+	}
+
+
+	/**
+	 * @return the number of versions deleted
+	 */
+	public long getVersionsDeleted() {
+
+		return versionsDeleted.sum();
+	}
+
+
+	/**
+	 * @return the number of errors, including the deletion failures once completed
+	 */
+	public long getErrors() {
+
+		return errors.sum();
+	}
+
+
+	/**
+	 * @return the number of bytes freed, once completed
+	 */
+	public long getFreedBytes() {
+
+		return freedBytes;
+	}
+
+
+	/**
+	 * @return the number of files and folders deleted, once completed
+	 */
+	public long getFreedInodes() {
+
+		return freedInodes;
+	}
+
+
+	/**
+	 * @return the directories and files visited per second of scan
+	 */
+	public double getScanThroughput() {
+
+		return rate(getDirectoriesVisited() + getFilesVisited(), phaseNanos.get(SCAN).sum());
+	}
+
+
+	/**
+	 * @return the files and folders unlinked per second of deletion
+	 */
+	public double getUnlinkThroughput() {
+
+		return rate(freedInodes, phaseNanos.get(DELETE).sum());
+	}
+
+
+	/**
+	 * Write the metrics as a JSON report, replacing the given file atomically.
+	 *
+	 * @param file
+	 * @throws IOException
+	 */
+	public void writeJson(final Path file) throws IOException {
+
+		final StringBuilder json = new StringBuilder(512);
+
+		json.append("{\n  \"goal\": \"").append(goal).append("\",\n");
+		json.append("  \"startTime\": ").append(startMillis).append(",\n");
+		json.append("  \"durationSeconds\": ").append(format(toSeconds(durationNanos))).append(",\n");
+		json.append("  \"phaseSeconds\": {");
+
+		String separator = "\n";
+
+		for (final String phase : phaseNanos.keySet()) {
+
+			json.append(separator).append("    \"").append(phase).append("\": ").append(format(getPhaseSeconds(phase)));
+
+			separator = ",\n";
+		}
+
+		json.append("\n  },\n");
+		json.append("  \"directoriesVisited\": ").append(getDirectoriesVisited()).append(",\n");
+		json.append("  \"filesVisited\": ").append(getFilesVisited()).append(",\n");
+		json.append("  \"versionsEvaluated\": ").append(getVersionsEvaluated()).append(",\n");
+		json.append("  \"versionsDeleted\": ").append(getVersionsDeleted()).append(",\n");
+		json.append("  \"freedBytes\": ").append(freedBytes).append(",\n");
+		json.append("  \"freedInodes\": ").append(freedInodes).append(",\n");
+		json.append("  \"errors\": ").append(getErrors()).append(",\n");
+		json.append("  \"scanEntriesPerSecond\": ").append(format(getScanThroughput())).append(",\n");
+		json.append("  \"unlinksPerSecond\": ").append(format(getUnlinkThroughput())).append("\n}\n");
+
+		replace(file, json);
+	}
+
+
+	/**
+	 * Write the metrics in the Prometheus text format, replacing the given file atomically as expected by the
+	 * textfile collector (the file name must end with .prom).
+	 *
+	 * @param file
+	 * @throws IOException
+	 */
+	public void writePrometheus(final Path file) throws IOException {
+
+		final String labels = "{goal=\"" + goal + "\"}";
+
+		final StringBuilder text = new StringBuilder(2048);
+
+		appendHeader(text, "phase_seconds", "Time spent in each phase of the last run, cumulated over the threads");
+
+		for (final String phase : phaseNanos.keySet()) {
+
+			text.append(METRIC_PREFIX).append("phase_seconds{goal=\"").append(goal).append("\",phase=\"").append(phase)
+				.append("\"} ").append(format(getPhaseSeconds(phase))).append('\n');
+		}
+
+		appendGauge(text, "duration_seconds", "Duration of the last run", labels, format(toSeconds(durationNanos)));
+		appendGauge(text, "last_run_timestamp_seconds", "End date of the last run", labels, format(toSeconds(TimeUnit.MILLISECONDS.toNanos(startMillis) + durationNanos)));
+		appendGauge(text, "directories_visited", "Directories visited by the last run", labels, String.valueOf(getDirectoriesVisited()));
+		appendGauge(text, "files_visited", "Files visited by the last run", labels, String.valueOf(getFilesVisited()));
+		appendGauge(text, "versions_evaluated", "Versions evaluated by the retention rules of the last run", labels, String.valueOf(getVersionsEvaluated()));
+		appendGauge(text, "versions_deleted", "Versions deleted by the last run", labels, String.valueOf(getVersionsDeleted()));
+		appendGauge(text, "freed_bytes", "Bytes freed by the last run", labels, String.valueOf(freedBytes));
+		appendGauge(text, "freed_inodes", "Files and folders deleted by the last run", labels, String.valueOf(freedInodes));
+		appendGauge(text, "errors", "Errors of the last run", labels, String.valueOf(getErrors()));
+		appendGauge(text, "scan_entries_per_second", "Directories and files visited per second of scan", labels, format(getScanThroughput()));
+		appendGauge(text, "unlinks_per_second", "Files and folders unlinked per second of deletion", labels, format(getUnlinkThroughput()));
+
+		replace(file, text);
+	}
+
+
+	/**
+	 * @param text
+	 * @param name the metric name, without the prefix
+	 * @param help
+	 * @param labels
+	 * @param value
+	 */
+	private static void appendGauge(final StringBuilder text, final String name, final String help, final String labels, final String value) {
+
+		appendHeader(text, name, help);
+
+		text.append(METRIC_PREFIX).append(name).append(labels).append(' ').append(value).append('\n');
+	}
+
+
+	/**
+	 * @param text
+	 * @param name the metric name, without the prefix
+	 * @param help
+	 */
+	private static void appendHeader(final StringBuilder text, final String name, final String help) {
+
+		text.append("# HELP ").append(METRIC_PREFIX).append(name).append(' ').append(help).append('\n');
+		text.append("# TYPE ").append(METRIC_PREFIX).append(name).append(" gauge\n");
+	}
+
+
+	/**
+	 * Replace a file by the given content, written to a temporary file of the same folder then moved, so a reader
+	 * never sees a partial content.
+	 *
+	 * @param file
+	 * @param content
+	 * @throws IOException
+	 */
+	private static void replace(final Path file, final CharSequence content) throws IOException {
+
+		final Path folder = file.toAbsolutePath().getParent();
+
+		Files.createDirectories(folder);
+
+		final Path temporaryFile = Files.createTempFile(folder, file.getFileName().toString(), ".tmp");
+
+		try {
+			try (Writer writer = Files.newBufferedWriter(temporaryFile, UTF8)) {
+				writer.append(content);
+			}
+
+			Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally {
+			Files.deleteIfExists(temporaryFile);
+		}
+	}
+
+
+	/**
+	 * @param nanos
+	 * @return the given duration in seconds
+	 */
+	private static double toSeconds(final long nanos) {
+
+		return nanos / 1e9;
+	}
+
+
+	/**
+	 * @param count
+	 * @param nanos
+	 * @return the count per second, 0 without elapsed time
+	 */
+	private static double rate(final long count, final long nanos) {
+
+		return nanos > 0 ? count / toSeconds(nanos) : 0;
+	}
+
+
+	/**
+	 * @param value
+	 * @return the value formatted independently of the default locale
+	 */
+	private static String format(final double value) {
+
+		return String.format(Locale.ROOT, "%.6f", value);
+	}
+}
@@ -0,0 +1,115 @@
+package org.apache.maven.plugins.engine;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.maven.plugins.utils.Tools;
+
+/**
+ * Listings of the artifact folders of the local repository, shared by all the plugin executions of a Maven session,
+ * so each artifact folder is listed once per build whatever the number of modules and rules reading it.
+ *
+ * A listing is invalidated when one of its version folders is removed. The cache can be read and updated
+ * concurrently, e.g. by the modules of a parallel build (-T).
+ *
+ * @author sgu, pef, lab...
+ */
+public class ScanCache {
+
+	/**
+	 * Caches of the running sessions, released with their session
+	 */
+	private static final Map<Object, ScanCache> SESSION_CACHES = new WeakHashMap<Object, ScanCache>();
+
+	/**
+	 * Ordered sub folders (@see Tools#listSubFoldersOrdered), by artifact folder
+	 */
+	private final ConcurrentHashMap<Path, List<Path>> subFolders = new ConcurrentHashMap<Path, List<Path>>();
+
+
+	/**
+	 * Get the cache of a Maven session, created by its first plugin execution.
+	 *
+	 * @param session the Maven session, null for a cache dedicated to the caller
+	 * @return the cache of the session
+	 */
+	public static ScanCache get(final Object session) {
+
+		if (session == null) {
+			return new ScanCache();
+		}
+
+		synchronized (SESSION_CACHES) {
+
+			ScanCache cache = SESSION_CACHES.get(session);
+
+			if (cache == null) {
+				cache = new ScanCache();
+				SESSION_CACHES.put(session, cache);
+			}
+
+			return cache;
+		}
+	}
+
+
+	/**
+	 * List the sub folders of an artifact folder, ordered on their modification date (the most recent first).
+	 *
+	 * @param artifactFolder
+	 * @param throttle the rate limits of the directory reads, applied when the folder is not cached yet
+	 * @return the ordered sub folders, which must not be modified
+	 */
+	public List<Path> listSubFoldersOrdered(final Path artifactFolder, final IoThrottle throttle) {
+
+		List<Path> listing = subFolders.get(artifactFolder);
+
+		if (listing == null) {
+
+			throttle.acquireDirectoryRead();
+
+			listing = Collections.unmodifiableList(Tools.listSubFoldersOrdered(artifactFolder));
+
+			final List<Path> concurrentListing = subFolders.putIfAbsent(artifactFolder, listing);
+
+			if (concurrentListing != null) {
+				listing = concurrentListing;
+			}
+		}
+
+		return listing;
+	}
+
+
+	/**
+	 * Invalidate the listings holding a removed folder, i.e. the ones of its parent folders since a listing is recursive.
+	 *
+	 * @param removedFolder
+	 */
+	public void invalidate(final Path removedFolder) {
+
+		for (Path parent = removedFolder.getParent(); parent != null; parent = parent.getParent()) {
+			subFolders.remove(parent);
+		}
+	}
+}
@@ -0,0 +1,240 @@
+package org.apache.maven.plugins.engine;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.maven.artifact.repository.metadata.Metadata;
+import org.apache.maven.artifact.repository.metadata.Snapshot;
+import org.apache.maven.artifact.repository.metadata.io.xpp3.MetadataXpp3Reader;
+import org.apache.maven.plugins.utils.MavenUtils;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+
+/**
+ * Timestamped builds of a snapshot version folder, e.g. artifact-1.0-20260101.120000-3-sources.jar in the folder
+ * 1.0-SNAPSHOT, deployed as unique snapshots and downloaded one after the other.
+ *
+ * The builds are read from the file names of a single listing of the folder, without reading the file attributes :
+ * the build timestamp and number give their order. The builds of each classifier and extension (checksums being an
+ * extension of their own) are ordered apart, the newest first. The builds referenced by the metadata files of the
+ * folder (maven-metadata-local.xml and the metadata of the remote repositories) are the ones resolved by Maven, so
+ * they are never expired : the snapshot version stays resolvable.
+ *
+ * @author sgu, pef, lab...
+ */
+public final class SnapshotBuilds {
+
+	/**
+	 * Suffix of the snapshot version folders, whatever its case (@see MavenUtils#isSnapshotVersion)
+	 */
+	private static final String SNAPSHOT_SUFFIX = "SNAPSHOT";
+
+	/**
+	 * End of a timestamped build file name, after the artifactId and the base version : timestamp, build number,
+	 * optional classifier and extension
+	 */
+	private static final Pattern BUILD_PATTERN = Pattern.compile("(\\d{8}\\.\\d{6})-(\\d+)(?:-([^.]+))?\\.(.+)");
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * Order of the builds : the newest first
+	 */
+	private static final Comparator<Build> NEWEST_FIRST = new Comparator<Build>() {
+
+		public int compare(final Build build0, final Build build1) {
+
+			final int returnCode = build1.timestamp.compareTo(build0.timestamp);
+
+			return returnCode != 0 ? returnCode : Integer.compare(build1.number, build0.number);
+		}
+	};
+
+	/**
+	 * A timestamped build file.
+	 */
+	private static final class Build {
+
+		private final Path file;
+
+		private final String timestamp;
+
+		private final int number;
+
+
+		/**
+		 * @param file
+		 * @param timestamp
+		 * @param number
+		 */
+		private Build(final Path file, final String timestamp, final int number) {
+
+			this.file = file;
+			this.timestamp = timestamp;
+			this.number = number;
+		}
+
+
+		/**
+		 * @return the build identifier, as referenced by the metadata : timestamp-buildNumber
+		 */
+		private String getId() {
+
+			return timestamp + '-' + number;
+		}
+	}
+
+
+	/**
+	 * Private constructor prevent the class from being explicitly instantiated
+	 */
+	private SnapshotBuilds() {
+
+		super();
+	}
+
+
+	/**
+	 * Select the expired build files of a snapshot version folder : the builds of each classifier and extension older
+	 * than the given number of newest builds, but the builds referenced by the metadata.
+	 *
+	 * @param snapshotFolder
+	 * @param buildsRetention the number of newest builds kept for each classifier and extension
+	 * @return the expired build files, none if the folder is not a snapshot version folder or if its metadata cannot
+	 * be read
+	 * @throws IOException if the folder cannot be listed
+	 */
+	public static List<Path> getExpiredBuilds(final Path snapshotFolder, final int buildsRetention) throws IOException {
+
+		final String version = snapshotFolder.getFileName().toString();
+
+		if (!MavenUtils.isSnapshotVersion(version) || snapshotFolder.getParent() == null) {
+			return Collections.<Path> emptyList();
+		}
+
+		final String prefix = snapshotFolder.getParent().getFileName() + "-" + version.substring(0, version.length() - SNAPSHOT_SUFFIX.length());
+
+		final Map<String, List<Build>> buildsByType = new HashMap<String, List<Build>>();
+
+		final Set<String> resolvedBuilds = new HashSet<String>();
+
+		final DirectoryStream<Path> stream = Files.newDirectoryStream(snapshotFolder);
+
+		try {
+			for (final Path file : stream) {
+
+				final String name = file.getFileName().toString();
+
+				if (name.startsWith("maven-metadata") && name.endsWith(".xml")) {
+
+					if (!addResolvedBuild(file, resolvedBuilds)) {
+						return Collections.<Path> emptyList();
+					}
+
+					continue;
+				}
+
+				final Matcher matcher = name.startsWith(prefix) ? BUILD_PATTERN.matcher(name.substring(prefix.length())) : null;
+
+				if (matcher == null || !matcher.matches()) {
+					continue;
+				}
+
+				final String type = matcher.group(3) + ':' + matcher.group(4);
+
+				List<Build> builds = buildsByType.get(type);
+
+				if (builds == null) {
+					builds = new ArrayList<Build>();
+					buildsByType.put(type, builds);
+				}
+
+				builds.add(new Build(file, matcher.group(1), Integer.parseInt(matcher.group(2))));
+			}
+		}
+		finally {
+			stream.close();
+		}
+
+		final List<Path> expiredBuilds = new ArrayList<Path>();
+
+		for (final List<Build> builds : buildsByType.values()) {
+
+			Collections.sort(builds, NEWEST_FIRST);
+
+			for (int i = buildsRetention; i < builds.size(); i++) {
+
+				if (!resolvedBuilds.contains(builds.get(i).getId())) {
+					expiredBuilds.add(builds.get(i).file);
+				}
+			}
+		}
+
+		return expiredBuilds;
+	}
+
+
+	/**
+	 * Read the build referenced by a metadata file.
+	 *
+	 * @param metadataFile
+	 * @param resolvedBuilds the builds referenced by the metadata, as timestamp-buildNumber
+	 * @return true if the metadata has been read, false otherwise.
+	 */
+	private static boolean addResolvedBuild(final Path metadataFile, final Set<String> resolvedBuilds) {
+
+		try {
+			final Reader reader = Files.newBufferedReader(metadataFile, UTF8);
+
+			try {
+				final Metadata metadata = new MetadataXpp3Reader().read(reader, false);
+
+				final Snapshot snapshot = metadata.getVersioning() != null ? metadata.getVersioning().getSnapshot() : null;
+
+				if (snapshot != null && snapshot.getTimestamp() != null) {
+					resolvedBuilds.add(snapshot.getTimestamp() + '-' + snapshot.getBuildNumber());
+				}
+			}
+			finally {
+				reader.close();
+			}
+
+			return true;
+		}
+		catch (IOException e) {
+			return false;
+		}
+		catch (XmlPullParserException e) {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,306 @@
+package org.apache.maven.plugins.engine;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Time budget of a walk of the local repository, with the position the walk resumes from, stored in the plugin folder
+ * (@see DeletionJournal#FOLDER_NAME).
+ *
+ * The sub folders are walked in the order of their names, so a walk position is the relative location of the first
+ * folder not walked. Once the deadline is passed, the walk stops before its next folder and the position is saved :
+ * the next walk skips the folders before it and continues from there. A walk reaching the end of the repository clears
+ * the position, the next one starting again from the beginning. Over several executions, the whole repository is
+ * covered and no execution pays for a full pass.
+ *
+ * Folders can be stopped concurrently by a parallel walk : the first one in the walk order is kept.
+ *
+ * @author sgu, pef, lab...
+ */
+public class WalkCursor {
+
+	/**
+	 * Extension of the cursor files, named after the goal
+	 */
+	public static final String FILE_EXTENSION = ".cursor";
+
+	/**
+	 * Separator of the segments of a saved position
+	 */
+	private static final String SEPARATOR = "/";
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * Root of the local repository
+	 */
+	private final Path root;
+
+	/**
+	 * Location of the cursor file
+	 */
+	private final Path file;
+
+	/**
+	 * Deadline of the walk, as a {@link System#nanoTime()} value
+	 */
+	private final long deadline;
+
+	/**
+	 * Position the walk resumes from, empty to walk from the beginning
+	 */
+	private final String[] resumePosition;
+
+	/**
+	 * First folder not walked once the deadline is passed, null while the walk goes on
+	 */
+	private String[] stopPosition;
+
+
+	/**
+	 * @param root
+	 * @param file
+	 * @param deadline
+	 * @param resumePosition
+	 */
+	private WalkCursor(final Path root, final Path file, final long deadline, final String[] resumePosition) {
+
+		this.root = root;
+		this.file = file;
+		this.deadline = deadline;
+		this.resumePosition = resumePosition;
+	}
+
+
+	/**
+	 * Start a time budgeted walk, from the position saved by the previous walk of the same goal.
+	 *
+	 * @param root the root of the local repository
+	 * @param goal the goal walking the repository, each goal having its own position
+	 * @param deadline the deadline of the walk, as a {@link System#nanoTime()} value
+	 * @return the cursor, positioned at the beginning if no position is saved or if it cannot be read
+	 */
+	public static WalkCursor open(final Path root, final String goal, final long deadline) {
+
+		final Path file = DeletionJournal.getFolder(root).resolve(goal + FILE_EXTENSION);
+
+		String[] resumePosition = new String[0];
+
+		try {
+			final List<String> lines = Files.exists(file) ? Files.readAllLines(file, UTF8) : Collections.<String> emptyList();
+
+			if (!lines.isEmpty() && !lines.get(0).isEmpty()) {
+				resumePosition = lines.get(0).split(SEPARATOR);
+			}
+		}
+		catch (IOException e) {
+			// An unreadable position restarts the walk from the beginning
+		}
+
+		return new WalkCursor(root, file, deadline, resumePosition);
+	}
+
+
+	/**
+	 * @return true if the walk resumes from a saved position, false if it starts from the beginning
+	 */
+	public boolean isResumed() {
+
+		return resumePosition.length > 0;
+	}
+
+
+	/**
+	 * @return true if the deadline of the walk is passed
+	 */
+	public boolean isExpired() {
+
+		return System.nanoTime() - deadline >= 0;
+	}
+
+
+	/**
+	 * Define if a folder has been walked by the previous walks, i.e. if it is before the resume position in the walk
+	 * order. The folders holding the resume position are not walked.
+	 *
+	 * @param folder
+	 * @return true if the folder has to be skipped, false if it has to be walked
+	 */
+	public boolean isWalked(final Path folder) {
+
+		final String[] position = toPosition(folder);
+
+		return compare(position, resumePosition) < 0 && !isAncestor(position, resumePosition);
+	}
+
+
+	/**
+	 * Stop the walk before a folder, once the deadline is passed.
+	 *
+	 * @param folder the folder not walked
+	 */
+	public synchronized void stopAt(final Path folder) {
+
+		// The content of a folder holding the resume position is walked up to this position only
+
+		final String[] position = isAncestor(toPosition(folder), resumePosition) ? resumePosition : toPosition(folder);
+
+		if (stopPosition == null || compare(position, stopPosition) < 0) {
+			stopPosition = position;
+		}
+	}
+
+
+	/**
+	 * @return true if the walk has been stopped before the end of the repository
+	 */
+	public synchronized boolean isStopped() {
+
+		return stopPosition != null;
+	}
+
+
+	/**
+	 * @return the position the next walk resumes from, an empty string for the beginning of the repository
+	 */
+	public synchronized String getPosition() {
+
+		return stopPosition != null ? join(stopPosition) : "";
+	}
+
+
+	/**
+	 * Save the position the next walk resumes from, or clear it if the walk has reached the end of the repository.
+	 *
+	 * @throws IOException if the position cannot be saved
+	 */
+	public synchronized void save() throws IOException {
+
+		if (stopPosition == null) {
+
+			Files.deleteIfExists(file);
+
+			return;
+		}
+
+		final Path folder = Files.createDirectories(file.getParent());
+
+		final Path temporaryFile = Files.createTempFile(folder, file.getFileName().toString(), ".tmp");
+
+		Files.write(temporaryFile, Collections.singletonList(join(stopPosition)), UTF8);
+
+		Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+
+	/**
+	 * @param folder
+	 * @return the position of a folder : the segments of its location relative to the root
+	 */
+	private String[] toPosition(final Path folder) {
+
+		final Path relativePath = root.relativize(folder);
+
+		if (relativePath.toString().isEmpty()) {
+			return new String[0];
+		}
+
+		final String[] position = new String[relativePath.getNameCount()];
+
+		for (int i = 0; i < position.length; i++) {
+			position[i] = relativePath.getName(i).toString();
+		}
+
+		return position;
+	}
+
+
+	/**
+	 * @param position0
+	 * @param position1
+	 * @return true if the first position is a folder holding the second one
+	 */
+	private static boolean isAncestor(final String[] position0, final String[] position1) {
+
+		return position0.length < position1.length && commonLength(position0, position1) == position0.length;
+	}
+
+
+	/**
+	 * Compare two positions in the walk order : segment by segment on the names, a folder being before its content.
+	 *
+	 * @param position0
+	 * @param position1
+	 * @return a negative integer, zero, or a positive integer as the first position is before, equal to, or after
+	 * the second one
+	 */
+	private static int compare(final String[] position0, final String[] position1) {
+
+		final int length = commonLength(position0, position1);
+
+		if (length < position0.length && length < position1.length) {
+			return position0[length].compareTo(position1[length]);
+		}
+
+		return position0.length - position1.length;
+	}
+
+
+	/**
+	 * @param position0
+	 * @param position1
+	 * @return the number of leading segments shared by the two positions
+	 */
+	private static int commonLength(final String[] position0, final String[] position1) {
+
+		int length = 0;
+
+		while (length < position0.length && length < position1.length && position0[length].equals(position1[length])) {
+			length++;
+		}
+
+		return length;
+	}
+
+
+	/**
+	 * @param position
+	 * @return the segments joined by the separator
+	 */
+	private static String join(final String[] position) {
+
+		final StringBuilder buffer = new StringBuilder();
+
+		for (final String segment : position) {
+
+			if (buffer.length() > 0) {
+				buffer.append(SEPARATOR);
+			}
+
+			buffer.append(segment);
+		}
+
+		return buffer.toString();
+	}
+}
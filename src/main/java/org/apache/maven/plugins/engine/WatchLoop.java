@@ -0,0 +1,126 @@
+package org.apache.maven.plugins.engine;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugins.utils.Enumeres;
+
+/**
+ * Watch of the local repository by the watch goal : the repository is watched (@see RepositoryWatcher) until the
+ * watch duration expires, or until the build is interrupted, and the version folders of each changed artifact are
+ * handed, ordered, to a {@link Cleaner} once the artifact has been quiet for the debounce delay.
+ *
+ * @author sgu, pef, lab...
+ */
+public class WatchLoop {
+
+	/**
+	 * Cleaner of the versions of a changed artifact.
+	 */
+	public interface Cleaner {
+
+		/**
+		 * Apply the retention rules on the versions of a changed artifact.
+		 *
+		 * @param versionFolders the version folders of the artifact, in the retention order (the most recent first)
+		 */
+		void clean(List<Path> versionFolders);
+	}
+
+	/**
+	 * Retention order of the version folders of an artifact
+	 */
+	private final Comparator<Path> versionOrder;
+
+	private final RunMetrics metrics;
+
+	private final Log log;
+
+
+	/**
+	 * @param versionOrder the retention order of the version folders of an artifact
+	 * @param metrics the metrics of the run, accounting the sort time of the version folders
+	 * @param log
+	 */
+	public WatchLoop(final Comparator<Path> versionOrder, final RunMetrics metrics, final Log log) {
+
+		this.versionOrder = versionOrder;
+		this.metrics = metrics;
+		this.log = log;
+	}
+
+
+	/**
+	 * Watch a local repository until the watch duration expires or until the current thread is interrupted.
+	 *
+	 * @param root the root of the local repository
+	 * @param debounceDelay the quiet delay of a changed artifact before its cleaning, in milliseconds
+	 * @param duration the duration of the watch, in milliseconds, 0 to watch until interrupted
+	 * @param cleaner
+	 * @return the number of artifacts cleaned
+	 * @throws IOException if the repository cannot be watched
+	 */
+	public int watch(final Path root, final long debounceDelay, final long duration, final Cleaner cleaner) throws IOException {
+
+		final long watchDeadline = duration > 0 ? System.currentTimeMillis() + duration : Long.MAX_VALUE;
+
+		final int[] cleanedArtifacts = { 0 };
+
+		final RepositoryWatcher watcher = RepositoryWatcher.open(root);
+
+		try {
+			log.info(Enumeres.LOG.WATCH_STARTED + watcher.getVersionCount());
+
+			watcher.watch(new RepositoryWatcher.Listener() {
+
+				public void artifactChanged(final Path artifactFolder, final List<Path> versionFolders) {
+
+					final long sortStart = System.nanoTime();
+
+					final List<Path> folderList = new ArrayList<Path>(versionFolders);
+
+					Collections.sort(folderList, versionOrder);
+
+					metrics.addPhaseTime(RunMetrics.SORT, sortStart);
+
+					cleaner.clean(folderList);
+
+					cleanedArtifacts[0]++;
+				}
+
+				public void pollingStarted(final IOException cause) {
+
+					log.warn(Enumeres.LOG.WATCH_POLLING + cause.getMessage());
+				}
+			}, debounceDelay, watchDeadline);
+		}
+		finally {
+			watcher.close();
+		}
+
+		log.info(Enumeres.LOG.WATCH_COMPLETED + cleanedArtifacts[0]);
+
+		return cleanedArtifacts[0];
+	}
+}
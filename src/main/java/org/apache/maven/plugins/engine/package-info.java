@@ -0,0 +1,6 @@
+/**
+ * Traversal and deletion engine of the clean local repository plugin
+ * 
+ * @author sgu, pef, lab...
+ */
+package org.apache.maven.plugins.engine;
@@ -16,16 +16,18 @@ package org.apache.maven.plugins.utils;
  * limitations under the License.
  */
 
-import java.io.File;
 import java.io.Serializable;
+import java.nio.file.Path;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Comparator implementation for a folder containing artifacts
- * 
+ *
  * @author sgu, pef, lab..
  */
-public class ArtifactFolderComparator implements Comparator<File>, Serializable {
+public class ArtifactFolderComparator implements Comparator<Path>, Serializable {
 
 	/**
 	 * Generated serial version UID
@@ -33,34 +35,63 @@ public class ArtifactFolderComparator implements Comparator<File>, Serializable
 	private static final long serialVersionUID = 7029110639678254352L;
 
 	/**
-	 * Order two artifact folders on there last modified date.
-	 * If possible, this implementation analyze first the content of the folder, the folder date otherwise.
+	 * Sort key of each compared folder, read once from the file system
+	 */
+	private final Map<Path, Long> lastModifiedKeys;
+
+
+	/**
+	 * Create a comparator reading the sort keys from the file system.
+	 */
+	public ArtifactFolderComparator() {
+
+		this(new HashMap<Path, Long>());
+	}
+
+
+	/**
+	 * Create a comparator whose sort keys have been read beforehand, e.g. by the listing of the folders.
+	 *
+	 * @param lastModifiedKeys the newest modification date of the content of each folder, completed from the
+	 * file system for the folders missing
+	 */
+	public ArtifactFolderComparator(final Map<Path, Long> lastModifiedKeys) {
+
+		this.lastModifiedKeys = lastModifiedKeys;
+	}
+
+
+	/**
+	 * Order two artifact folders on there last modified date, the most recent first.
+	 * The date of a folder is the newest modification date of its content, the folder date if it is empty (@see Tools#getNewestLastModified).
+	 * It is read only once per folder, then folders with the same date are ordered on their path.
 	 */
 	@Override
-	public int compare(File folder0, File folder1) {
-		
-		int returnCode = 1;
-		
-		File[] files0 = folder0.listFiles();
-		File[] files1 = folder1.listFiles();
-		
-		if (!Tools.isNullOrEmpty(files0) && !Tools.isNullOrEmpty(folder1.listFiles())) 
-		{
-			returnCode = files0[0].lastModified() < files1[0].lastModified() ? 1 : -1;
-		} 
-		else if (!Tools.isNullOrEmpty(files0)) 
-		{
-			returnCode = files0[0].lastModified() < folder1.lastModified() ? 1 : -1;
-		} 
-		else if (!Tools.isNullOrEmpty(files1)) 
-		{
-			returnCode = folder0.lastModified() < files1[0].lastModified() ? 1 : -1;
-		} 
-		else {
-			returnCode = folder0.lastModified() < folder1.lastModified() ? 1 : -1;
-		}
-			
-		return returnCode;
+	public int compare(final Path folder0, final Path folder1) {
+
+		final int returnCode = Long.compare(getLastModifiedKey(folder1), getLastModifiedKey(folder0));
+
+		return returnCode != 0 ? returnCode : folder0.compareTo(folder1);
 	}
 
+
+	/**
+	 * Get the sort key of a folder, reading it from the file system on its first comparison only.
+	 *
+	 * @param folder
+	 * @return the newest modification date of the folder content
+	 */
+	private long getLastModifiedKey(final Path folder) {
+
+		Long lastModified = lastModifiedKeys.get(folder);
+
+		if (lastModified == null) {
+
+			lastModified = Tools.getNewestLastModified(folder);
+
+			lastModifiedKeys.put(folder, lastModified);
+		}
+
+		return lastModified;
+	}
 }
@@ -37,6 +37,32 @@ public interface Enumeres {
 
 		String LOCAL_MAVEN_REPOSITORY_UNAVAILABLE = "Cannot access to local maven repository : ";
 
+		String LOCAL_MAVEN_REPOSITORY_WALK_FAILURE = "An exception occured while walking the local maven repository : ";
+
+		String REPOSITORY_INDEX_FAILURE = "Unable to record the index of the local maven repository : ";
+
+		String DELETION_JOURNAL_FAILURE = "Unable to journal the deletion of ";
+
+		String FREE_SPACE_UNAVAILABLE = "Cannot read the free space of the local maven repository : ";
+
+		String TRASH_FAILURE = "Unable to move to the trash, deleting instead : ";
+
+		String TRASH_CLOSE_FAILURE = "Unable to close the trash batch, purged once its open marker is found unlocked : ";
+
+		String DEPENDENCY_GRAPH_FAILURE = "Unable to resolve the dependency graph of the reactor, only its direct dependencies and plugins are protected : ";
+
+		String REPOSITORY_WATCH_FAILURE = "An exception occured while watching the local maven repository : ";
+
+		String METRICS_FAILURE = "Unable to write the run metrics : ";
+
+		String CANDIDATES_REPORT_FAILURE = "Unable to write the candidates report : ";
+
+		String SNAPSHOT_BUILDS_FAILURE = "Unable to list the timestamped builds of the snapshot version : ";
+
+		String WALK_CURSOR_FAILURE = "Unable to save the position of the local maven repository walk : ";
+
+		String DELETION_REAPER_FAILURE = "Unable to start the deletion reaper, the journaled deletions and the trash will be processed by the next execution : ";
+
 		String UNEXPECTED_PARAMETER = "Unable to parse configuration of mojo clean-local-repository-plugin for parameter ";
 		
 		String NEGATIVE_NUMBER = ", negative number not allowed : ";
@@ -63,6 +89,87 @@ public interface Enumeres {
 		String DELETE_EMPTY = "Deleting empty folder ";
 
 		String LIST_EMPTY   = "Empty folder could be deleted ";
+		
+		String DELETE_BUILD = "Deleting snapshot build ";
+
+		String LIST_BUILD   = "Snapshot build could be deleted ";
+		
+		String DELETION_SUMMARY = "Deletion completed : ";
+		
+		String FREED_BYTES = " bytes freed, ";
+		
+		String FREED_INODES = " files and folders deleted";
+		
+		String FREE_SPACE_HEADROOM = "Free space over the low watermark, no version evicted : ";
+		
+		String FREE_BYTES = " bytes free";
+		
+		String REPOSITORY_SIZE = "Local repository size : ";
+		
+		String BYTES_TO_FREE = " bytes, evicting the least recently used versions to free ";
+		
+		String FOLDERS_TRASHED = " folders moved to the trash ";
+		
+		String DELETIONS_JOURNALED = " deletions journaled, processed by a detached reaper once the build is completed";
+		
+		String DISK_USAGE = "Local repository usage : ";
+		
+		String USAGE_BYTES_IN = " bytes in ";
+		
+		String USAGE_VERSIONS_OF = " versions of ";
+		
+		String USAGE_ARTIFACTS = " artifacts of ";
+		
+		String USAGE_GROUPS = " groups";
+		
+		String HEAVY_GROUP = "Heavy group ";
+		
+		String HEAVY_ARTIFACT = "Heavy artifact ";
+		
+		String RECLAIMABLE_BY = "Reclaimable by ";
+		
+		String RECLAIMABLE_TOTAL = "Reclaimable by all the rules : ";
+		
+		String BYTES = " bytes";
+		
+		String MODULE_AGGREGATED = "Artifact aggregated, processed at the end of the reactor : ";
+		
+		String MODULE_NOT_AGGREGATED = "Goal not bound on this module, artifact processed by its own execution : ";
+		
+		String PROTECTED_VERSIONS = " versions of the reactor dependencies and plugins protected from deletion";
+		
+		String WATCH_STARTED = "Watching the local repository, versions modeled : ";
+		
+		String WATCH_COMPLETED = "Watch completed, artifacts cleaned : ";
+		
+		String WATCH_POLLING = "Too many folders to watch (on Linux, see fs.inotify.max_user_watches), falling back to a pass over the local repository every minute : ";
+		
+		String CANDIDATES_OF = "Candidates of ";
+		
+		String CANDIDATE_EXAMPLES = ", e.g. ";
+		
+		String CANDIDATES_IN_GROUP = "Candidates in group ";
+
+		String WALK_RESUMED = "Walk of the local repository resumed, the folders before the saved position are skipped";
+
+		String WALK_STOPPED = "Time budget spent, the next execution resumes the walk from ";
+
+		String ARTIFACT_IN_USE = "Artifact in use by a concurrent build, deletion skipped : ";
+
+		String ARTIFACTS_IN_USE = " deletions skipped, their artifacts being in use by concurrent builds";
+	}
+	
+	/**
+	 * Enumeration of the coordinates of this plugin
+	 */
+	
+	interface MVN_PLUGIN {
+		
+		String GROUP_ID = "org.apache.maven.plugins";
+		
+		String ARTIFACT_ID = "clean-local-repository-plugin";
+		
+		String PREFIX = "clean-local-repository";
 	}
 	
 	/**
@@ -74,6 +181,8 @@ public interface Enumeres {
 		String CLEAN = "clean";
 		
 		String LIST  = "list";
+		
+		String WATCH = "watch";
 	}	
 	
 	/**
@@ -86,10 +195,18 @@ public interface Enumeres {
 
 		String DELETE_RELEASE = "deleteRelease";
 
+		String DELETE_ALL_SNAPSHOTS = "deleteAllSnapshots";
+
 		String SNAPSHOT_RETENTION_DELAY = "snapshotRetentionDelay";
 
 		String SNAPSHOT_VERSIONS_RETENTION = "snapshotVersionsRetention";
 
+		String SNAPSHOT_BUILDS_RETENTION = "snapshotBuildsRetention";
+
+		String DELETE_SUPERSEDED_SNAPSHOTS = "deleteSupersededSnapshots";
+
+		String USE_VERSION_ORDER = "useVersionOrder";
+
 		String RELEASE_RETENTION_DELAY = "releaseRetentionDelay";
 
 		String RELEASE_VERSIONS_RETENTION = "releaseVersionsRetention";
@@ -102,6 +219,54 @@ public interface Enumeres {
 
 		String EXECUTE_DELETE_ON_EXIT = "executeDeleteOnExit";
 
+		String SCAN_THREADS = "scanThreads";
+
+		String USE_REPOSITORY_INDEX = "useRepositoryIndex";
+
+		String DELETE_THREADS = "deleteThreads";
+
+		String USE_TRASH = "useTrash";
+
+		String MAX_REPOSITORY_SIZE = "maxRepositorySize";
+
+		String FREE_SPACE_LOW_WATERMARK = "freeSpaceLowWatermark";
+
+		String FREE_SPACE_HIGH_WATERMARK = "freeSpaceHighWatermark";
+
+		String INCLUDE_PATTERNS = "includePatterns";
+
+		String EXCLUDE_PATTERNS = "excludePatterns";
+
+		String TRASH_RETENTION_DELAY = "trashRetentionDelay";
+
+		String PROTECT_REACTOR_DEPENDENCIES = "protectReactorDependencies";
+
+		String AGGREGATE_REACTOR = "aggregateReactor";
+
+		String WATCH_DEBOUNCE_DELAY = "watchDebounceDelay";
+
+		String WATCH_DURATION = "watchDuration";
+
+		String METRICS_REPORT_FILE = "metricsReportFile";
+
+		String METRICS_TEXTFILE = "metricsTextfile";
+
+		String SUMMARY_LOG = "summaryLog";
+
+		String CANDIDATES_REPORT_FILE = "candidatesReportFile";
+
+		String MAX_DURATION = "maxDuration";
+
+		String MAX_DIRECTORY_READS_PER_SECOND = "maxDirectoryReadsPerSecond";
+
+		String MAX_UNLINKS_PER_SECOND = "maxUnlinksPerSecond";
+
+		String MAX_DELETED_BYTES_PER_SECOND = "maxDeletedBytesPerSecond";
+
+		String USE_ARTIFACT_LOCKS = "useArtifactLocks";
+
+		String ARTIFACT_IN_USE_DELAY = "artifactInUseDelay";
+
 	}	
 	
 }
@@ -16,11 +16,9 @@ package org.apache.maven.plugins.utils;
  * limitations under the License.
  */
 
-import java.io.File;
-import java.util.HashSet;
-import java.util.LinkedList;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 
 /**
  * This utility class provides basic operations on maven artifacts
@@ -29,6 +27,10 @@ import java.util.Set;
  */
 public final class MavenUtils {
 
+	/**
+	 * Suffix of the snapshot versions
+	 */
+	private static final String SNAPSHOT_SUFFIX = "SNAPSHOT";
 	
 	/**
 	 * Private constructor prevent the class from being explicitly instantiated
@@ -39,33 +41,17 @@ public final class MavenUtils {
 	}
 	
 	
-	/**
-	 * In a standard Maven repository file system, get recursively all the snapshots folders from a given folder. 
-	 * 
-	 * @param artifactFoldersWithSnapshot
-	 * @return
-	 */
-	public static List<File> getSnapshots(File Artifactfolder) {
-		
-		final List<File> folderContent = Tools.listSubFoldersOrdered(Artifactfolder);
-		
-		final List<File> snapshotFoldersList = MavenUtils.getSnapshots(folderContent);
-		
-		return snapshotFoldersList;
-	}
-	
-	
 	/**
 	 * Get all the snapshot folders from a given list of artifact folders 
 	 * 
 	 * @param artifactFolders
 	 * @return the list of snapshot artifacts contained by the given directory
 	 */
-	public static List<File> getSnapshots(final List<File> artifactFolders) {
+	public static List<Path> getSnapshots(final List<Path> artifactFolders) {
 
-		final List<File> result = new LinkedList<File>();
+		final List<Path> result = new ArrayList<Path>(artifactFolders.size());
 		
-		for (final File file : artifactFolders) {
+		for (final Path file : artifactFolders) {
 			
 			if(isSnapshotFolder(file)){
 				result.add(file);
@@ -76,37 +62,17 @@ public final class MavenUtils {
 	}
 	
 	
-	/**
-	 * Get all the snapshot artifacts  from a given list of artifact folders
-	 * 
-	 * @param filesList
-	 * @return
-	 */
-	public static Set<File> getSnapshotArtifacts(final List<File> filesList) {
-		
-		List<File> snapshots = MavenUtils.getSnapshots(filesList);
-		
-		Set<File> artifact = new HashSet<File>();
-		
-		for (File snapshotFolders : snapshots) {
-			
-			artifact.add(snapshotFolders.getParentFile().getParentFile());
-		}
-		return artifact;
-	}	
-	
-	
 	/**
 	 * Get all the release artifact of a given directory
 	 * 
 	 * @param artifactFolders
 	 * @return the list of release artifacts contained by the given directory
 	 */
-	public static List<File> getReleases(final List<File> artifactFolders) {
+	public static List<Path> getReleases(final List<Path> artifactFolders) {
 
-		final List<File> result = new LinkedList<File>();
+		final List<Path> result = new ArrayList<Path>(artifactFolders.size());
 		
-		for (File file : artifactFolders) {
+		for (final Path file : artifactFolders) {
 			
 			if(!isSnapshotFolder(file)){
 				result.add(file);
@@ -123,11 +89,21 @@ public final class MavenUtils {
 	 * @param file
 	 * @return true if the given file is a snapshot artifact, false otherwise.
 	 */
-	private static boolean isSnapshotFolder(final File file) {
+	private static boolean isSnapshotFolder(final Path file) {
 		
-		final String path = file.getAbsolutePath();
-		
-		return path.contains("SNAPSHOT") || path.contains("snapshot");
+		return file.getFileName() != null && isSnapshotVersion(file.getFileName().toString());
+	}
+	
+	
+	/**
+	 * Define if the given version folder name is a snapshot version. Only the version is read, so a groupId or an 
+	 * artifactId containing "snapshot" does not make its releases snapshots.
+	 * 
+	 * @param version the name of a version folder
+	 * @return true if the given version is a snapshot version, false otherwise.
+	 */
+	public static boolean isSnapshotVersion(final String version) {
 		
+		return version.regionMatches(true, version.length() - SNAPSHOT_SUFFIX.length(), SNAPSHOT_SUFFIX, 0, SNAPSHOT_SUFFIX.length());
 	}
 }
@@ -0,0 +1,558 @@
+package org.apache.maven.plugins.utils;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Version of an artifact, ordered as by the ComparableVersion class of Maven 3 (missing from the Maven 2.0.9 API
+ * the plugin is built against) : 1.0-alpha-1 &lt; 1.0-beta &lt; 1.0-rc1 &lt; 1.0-SNAPSHOT &lt; 1.0 = 1.0.0 = 1.0-ga
+ * &lt; 1.0-sp &lt; 1.0.1 &lt; 1.1.
+ *
+ * The version is split in numeric and string items, separated by dots, dashes and the transitions between digits
+ * and characters, a dash starting a sub list. The numeric items are compared as numbers, the known qualifiers by
+ * their rank and the other ones alphabetically, after all the known qualifiers. The trailing null items (0, empty or
+ * release qualifiers) are removed, so 1.0 and 1 are equal.
+ *
+ * The parsed versions are cached by version string : sorting the version folders of the local repository parses
+ * each version once per JVM.
+ *
+ * @author sgu, pef, lab...
+ */
+public final class MavenVersion implements Comparable<MavenVersion> {
+
+	/**
+	 * Maximum number of parsed versions kept in the cache, which is cleared beyond
+	 */
+	private static final int CACHE_SIZE = 65536;
+
+	/**
+	 * Parsed versions, by version string
+	 */
+	private static final Map<String, MavenVersion> CACHE = new ConcurrentHashMap<String, MavenVersion>();
+
+	/**
+	 * Known qualifiers, in their order, the empty qualifier standing for the release
+	 */
+	private static final List<String> QUALIFIERS = Arrays.asList("alpha", "beta", "milestone", "rc", "snapshot", "", "sp");
+
+	/**
+	 * Rank of the release, as compared with the qualifiers ranks
+	 */
+	private static final String RELEASE_RANK = String.valueOf(QUALIFIERS.indexOf(""));
+
+	/**
+	 * Largest number of digits of a numeric item held in a long
+	 */
+	private static final int MAX_LONG_DIGITS = 18;
+
+	private final String value;
+
+	private final ListItem items;
+
+
+	/**
+	 * @param value
+	 */
+	private MavenVersion(final String value) {
+
+		this.value = value;
+		this.items = parse(value.toLowerCase(Locale.ENGLISH));
+	}
+
+
+	/**
+	 * Get the parsed version of a version string, from the cache once parsed.
+	 *
+	 * @param value the version string, e.g. a version folder name
+	 * @return the parsed version
+	 */
+	public static MavenVersion valueOf(final String value) {
+
+		MavenVersion version = CACHE.get(value);
+
+		if (version == null) {
+
+			if (CACHE.size() >= CACHE_SIZE) {
+				CACHE.clear();
+			}
+
+			version = new MavenVersion(value);
+
+			CACHE.put(value, version);
+		}
+
+		return version;
+	}
+
+
+	/**
+	 * @see java.lang.Comparable#compareTo(java.lang.Object)
+	 */
+	public int compareTo(final MavenVersion version) {
+
+		return items.compareTo(version.items);
+	}
+
+
+	/**
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(final Object object) {
+
+		return object instanceof MavenVersion && compareTo((MavenVersion) object) == 0;
+	}
+
+
+	/**
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+
+		return items.toString().hashCode();
+	}
+
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+
+		return value;
+	}
+
+
+	/**
+	 * Split a version string in its items.
+	 *
+	 * @param version the version string, in lower case
+	 * @return the items of the version
+	 */
+	private static ListItem parse(final String version) {
+
+		final ListItem items = new ListItem();
+
+		final List<ListItem> stack = new ArrayList<ListItem>();
+
+		ListItem list = items;
+
+		stack.add(list);
+
+		boolean isDigit = false;
+
+		int startIndex = 0;
+
+		for (int i = 0; i < version.length(); i++) {
+
+			final char c = version.charAt(i);
+
+			if (c == '.' || c == '-') {
+
+				list.add(i == startIndex ? NumberItem.ZERO : parseItem(isDigit, version.substring(startIndex, i)));
+
+				startIndex = i + 1;
+
+				if (c == '-') {
+					list = addSubList(list, stack);
+				}
+			}
+			else if (Character.isDigit(c)) {
+
+				if (!isDigit && i > startIndex) {
+
+					// A qualifier followed by a digit, e.g. rc1, starts a sub list
+
+					list.add(new StringItem(version.substring(startIndex, i), true));
+
+					startIndex = i;
+
+					list = addSubList(list, stack);
+				}
+
+				isDigit = true;
+			}
+			else {
+
+				if (isDigit && i > startIndex) {
+
+					// A number followed by a qualifier, e.g. 1final, starts a sub list
+
+					list.add(parseItem(true, version.substring(startIndex, i)));
+
+					startIndex = i;
+
+					list = addSubList(list, stack);
+				}
+
+				isDigit = false;
+			}
+		}
+
+		if (version.length() > startIndex) {
+			list.add(parseItem(isDigit, version.substring(startIndex)));
+		}
+
+		for (int i = stack.size() - 1; i >= 0; i--) {
+			stack.get(i).normalize();
+		}
+
+		return items;
+	}
+
+
+	/**
+	 * @param list
+	 * @param stack
+	 * @return a new sub list of the given list
+	 */
+	private static ListItem addSubList(final ListItem list, final List<ListItem> stack) {
+
+		final ListItem subList = new ListItem();
+
+		list.add(subList);
+
+		stack.add(subList);
+
+		return subList;
+	}
+
+
+	/**
+	 * @param isDigit
+	 * @param item
+	 * @return the numeric or string item
+	 */
+	private static Item parseItem(final boolean isDigit, final String item) {
+
+		return isDigit ? new NumberItem(item) : new StringItem(item, false);
+	}
+
+
+	/**
+	 * An item of a version : number, string or sub list.
+	 */
+	private interface Item {
+
+		/**
+		 * Compare with another item, null standing for a missing item.
+		 *
+		 * @param item
+		 * @return a negative integer, zero, or a positive integer as this item is less than, equal to, or greater
+		 * than the given item
+		 */
+		int compareTo(Item item);
+
+		/**
+		 * @return true if the item is equivalent to a missing item
+		 */
+		boolean isNull();
+	}
+
+
+	/**
+	 * A numeric item.
+	 */
+	private static final class NumberItem implements Item {
+
+		private static final NumberItem ZERO = new NumberItem("0");
+
+		/**
+		 * Value of the numbers held in a long, the other ones being compared as big integers
+		 */
+		private final long value;
+
+		private final BigInteger bigValue;
+
+
+		/**
+		 * @param digits
+		 */
+		private NumberItem(final String digits) {
+
+			if (digits.length() <= MAX_LONG_DIGITS) {
+				value = Long.parseLong(digits);
+				bigValue = null;
+			}
+			else {
+				value = -1;
+				bigValue = new BigInteger(digits);
+			}
+		}
+
+
+		/**
+		 * @see MavenVersion.Item#compareTo(MavenVersion.Item)
+		 */
+		public int compareTo(final Item item) {
+
+			if (item == null) {
+				return isNull() ? 0 : 1;
+			}
+
+			if (!(item instanceof NumberItem)) {
+				return 1;
+			}
+
+			final NumberItem number = (NumberItem) item;
+
+			if (bigValue == null && number.bigValue == null) {
+				return Long.compare(value, number.value);
+			}
+
+			return toBigInteger().compareTo(number.toBigInteger());
+		}
+
+
+		/**
+		 * @see MavenVersion.Item#isNull()
+		 */
+		public boolean isNull() {
+
+			return value == 0;
+		}
+
+
+		/**
+		 * @return the value as a big integer
+		 */
+		private BigInteger toBigInteger() {
+
+			return bigValue != null ? bigValue : BigInteger.valueOf(value);
+		}
+
+
+		/**
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+
+			return bigValue != null ? bigValue.toString() : String.valueOf(value);
+		}
+	}
+
+
+	/**
+	 * A string item : a qualifier.
+	 */
+	private static final class StringItem implements Item {
+
+		/**
+		 * Comparable form of the qualifier : its rank for a known qualifier, after all the ranks otherwise
+		 */
+		private final String comparableValue;
+
+		private final String value;
+
+
+		/**
+		 * @param qualifier
+		 * @param followedByDigit true if the qualifier is followed by a digit, its single letter abbreviations being
+		 * expanded (a1 is alpha-1)
+		 */
+		private StringItem(final String qualifier, final boolean followedByDigit) {
+
+			value = unalias(qualifier, followedByDigit);
+
+			final int rank = QUALIFIERS.indexOf(value);
+
+			comparableValue = rank >= 0 ? String.valueOf(rank) : QUALIFIERS.size() + "-" + value;
+		}
+
+
+		/**
+		 * @param qualifier
+		 * @param followedByDigit
+		 * @return the qualifier, its alias or abbreviation being replaced
+		 */
+		private static String unalias(final String qualifier, final boolean followedByDigit) {
+
+			if (followedByDigit && qualifier.length() == 1) {
+
+				switch (qualifier.charAt(0)) {
+					case 'a':
+						return "alpha";
+					case 'b':
+						return "beta";
+					case 'm':
+						return "milestone";
+					default:
+						return qualifier;
+				}
+			}
+
+			if ("ga".equals(qualifier) || "final".equals(qualifier) || "release".equals(qualifier)) {
+				return "";
+			}
+
+			return "cr".equals(qualifier) ? "rc" : qualifier;
+		}
+
+
+		/**
+		 * @see MavenVersion.Item#compareTo(MavenVersion.Item)
+		 */
+		public int compareTo(final Item item) {
+
+			if (item == null) {
+				return comparableValue.compareTo(RELEASE_RANK);
+			}
+
+			if (item instanceof StringItem) {
+				return comparableValue.compareTo(((StringItem) item).comparableValue);
+			}
+
+			return -1;
+		}
+
+
+		/**
+		 * @see MavenVersion.Item#isNull()
+		 */
+		public boolean isNull() {
+
+			return value.isEmpty();
+		}
+
+
+		/**
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+
+			return value;
+		}
+	}
+
+
+	/**
+	 * A sub list of items, started by a dash or by a transition between digits and characters.
+	 */
+	private static final class ListItem extends ArrayList<Item> implements Item {
+
+		/**
+		 * Generated serial version UID
+		 */
+		private static final long serialVersionUID = -4740226741001149657L;
+
+
+		/**
+		 * Remove the trailing null items, up to the last sub list.
+		 */
+		private void normalize() {
+
+			for (int i = size() - 1; i >= 0; i--) {
+
+				final Item item = get(i);
+
+				if (item.isNull()) {
+					remove(i);
+				}
+				else if (!(item instanceof ListItem)) {
+					break;
+				}
+			}
+		}
+
+
+		/**
+		 * @see MavenVersion.Item#compareTo(MavenVersion.Item)
+		 */
+		public int compareTo(final Item item) {
+
+			// Index loops rather than iterators : a comparison allocates nothing
+
+			if (item == null) {
+
+				for (int i = 0; i < size(); i++) {
+
+					final int returnCode = get(i).compareTo(null);
+
+					if (returnCode != 0) {
+						return returnCode;
+					}
+				}
+
+				return 0;
+			}
+
+			if (item instanceof NumberItem) {
+				return -1;
+			}
+
+			if (item instanceof StringItem) {
+				return 1;
+			}
+
+			final ListItem list = (ListItem) item;
+
+			for (int i = 0; i < size() || i < list.size(); i++) {
+
+				final Item leftItem = i < size() ? get(i) : null;
+				final Item rightItem = i < list.size() ? list.get(i) : null;
+
+				final int returnCode = leftItem == null ? -rightItem.compareTo(null) : leftItem.compareTo(rightItem);
+
+				if (returnCode != 0) {
+					return returnCode;
+				}
+			}
+
+			return 0;
+		}
+
+
+		/**
+		 * @see MavenVersion.Item#isNull()
+		 */
+		public boolean isNull() {
+
+			return isEmpty();
+		}
+
+
+		/**
+		 * @see java.util.AbstractCollection#toString()
+		 */
+		@Override
+		public String toString() {
+
+			final StringBuilder buffer = new StringBuilder();
+
+			for (final Item item : this) {
+
+				if (buffer.length() > 0) {
+					buffer.append(item instanceof ListItem ? '-' : '.');
+				}
+
+				buffer.append(item);
+			}
+
+			return buffer.toString();
+		}
+	}
+}
@@ -16,23 +16,23 @@ package org.apache.maven.plugins.utils;
  * limitations under the License.
  */
 
-import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
-import java.util.regex.Pattern;
-
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.filefilter.DirectoryFileFilter;
-import org.apache.commons.io.filefilter.NotFileFilter;
-import org.apache.commons.io.filefilter.TrueFileFilter;
-import org.apache.maven.plugin.logging.Log;
+import java.util.Map;
 
 /**
- * This utility class provides common operations on basic object types ( IO, String, List, Date, RegExp.. )
+ * This utility class provides common operations on basic object types ( IO, String, List, Date.. )
  * 
  * @author sgu, pef, lab...
  */
@@ -83,136 +83,180 @@ public final class Tools {
 
 	
 	/**
-	 * Deletes a directory and all sub-file or directories, never throwing an exception.
-	 * If deleteOnExistMode option is activated, the deletion will be attempted only for normal termination of the virtual machine.
-	 * A directory to be deleted does not have to be empty. No exceptions are thrown when a file or directory cannot be deleted.
+	 * List recursively all the files of a given directory.
 	 * 
-	 * @param file
-	 * @param deleteOnExistMode
-	 * @param log
+	 * @param folder
+	 * @return a list of the files and only files (folder are not listed) contained by the given directory
 	 */
-	public static void deleteFolderQuietly(final File file, final boolean deleteOnExistMode, final Log log) {
+	public static List<Path> listFiles(final Path folder) {
 		
-		try {
-
-			if(file.exists()){
-					
-				final Collection<File> files = listFilesAndFolders(file);
-	
-				deleteFileCollectionQuietly(files, deleteOnExistMode, log);
+		final List<Path> result = new ArrayList<Path>();
+		
+		walkQuietly(folder, new QuietFileVisitor() {
+			
+			@Override
+			public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+				
+				result.add(file);
+				
+				return FileVisitResult.CONTINUE;
 			}
-		}
-		catch(Exception e)
-		{
-			log.error( Enumeres.EXCEPTION.FILE_DELETION_EXCEPTION + file , e);
-		}
-	}
-
-	
-	/**
-	 * Deletes a file collection, never throwing an exception.
-	 * If deleteOnExistMode option is activated, the deletion will be attempted only for normal termination of the virtual machine.
-	 * A directory to be deleted does not have to be empty. No exceptions are thrown when a file or directory cannot be deleted.
-	 * 
-	 * @param files
-	 * @param deleteOnExistMode
-	 * @param log
-	 */
-	public static void deleteFileCollectionQuietly(final Collection<File> files, final boolean deleteOnExistMode, final Log log) {
+		});
 		
-		for (final File file : files) {
-
-			deleteQuietly(file, deleteOnExistMode, log);
-		}
+		return result;
 	}
 	
 	
 	/**
-	 * Deletes a file (or a directory), never throwing an exception.
-	 * If deleteOnExistMode option is activated, the deletion will be attempted only for normal termination of the virtual machine.
-	 * A directory to be deleted does not have to be empty. No exceptions are thrown when a file or directory cannot be deleted.
+	 * List recursively all folder of a given directory.
 	 * 
-	 * @param file
-	 * @param deleteOnExistMode
-	 * @param log
+	 * @param folder
+	 * @return file a list of the folders and only folders (files are not listed) contained by the given directory,
+	 * 		   including the given directory itself.
 	 */
-	public static void deleteQuietly(final File file, final boolean deleteOnExistMode, final Log log) {
+	public static List<Path> listFolders(final Path folder) {
 
-		try {
-			if(deleteOnExistMode)
-			{
-				file.deleteOnExit();
+		final List<Path> result = new ArrayList<Path>();
+		
+		walkQuietly(folder, new QuietFileVisitor() {
+			
+			@Override
+			public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) {
+				
+				result.add(dir);
+				
+				return FileVisitResult.CONTINUE;
 			}
-			else {
-				FileUtils.deleteQuietly(file);
-			}	
-		} 
-		catch (SecurityException e) 
-		{
-			log.error( Enumeres.EXCEPTION.FILE_DELETION_EXCEPTION + file, e );
-		}
-
+		});
+		
+		return result;
 	}
 	
 	
 	/**
-	 * List recursively all the files of a given directory.
+	 * List recursively all folder of a given directory, excluding the current directory.
+	 * The result list is ordered on artifact last modification date, computed from the attributes read by the listing 
+	 * itself : each entry is read once, by a single walk of the directory.
 	 * 
-	 * @param file
-	 * @return a list of the files and only files (folder are not listed) contained by the given directory
+	 * @param folder
+	 * @return a list of the folders and only folders (files are not listed) contained by the given directory,
+	 * 		   the result is ordered on the modification date (ascending, with the most recent first).
 	 */
-	public static List<File> listFiles(final File file) {
+	public static List<Path> listSubFoldersOrdered(final Path folder) {
+
+		// Newest modification date of the direct content of each sub folder, its own date while it is empty
+		
+		final Map<Path, long[]> lastModifiedKeys = new HashMap<Path, long[]>();
+		
+		walkQuietly(folder, new QuietFileVisitor() {
+			
+			@Override
+			public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) {
+				
+				if (!dir.equals(folder)) {
+					
+					addContentDate(dir.getParent(), attrs);
+					
+					lastModifiedKeys.put(dir, new long[] { attrs.lastModifiedTime().toMillis(), 0 });
+				}
+				
+				return FileVisitResult.CONTINUE;
+			}
+			
+			@Override
+			public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+				
+				addContentDate(file.getParent(), attrs);
+				
+				return FileVisitResult.CONTINUE;
+			}
+			
+			private void addContentDate(final Path parent, final BasicFileAttributes attrs) {
+				
+				final long[] key = lastModifiedKeys.get(parent);
+				
+				if (key != null) {
+					
+					// The date of the folder itself is replaced by the date of its first entry
+					
+					key[0] = key[1]++ == 0 ? attrs.lastModifiedTime().toMillis() : Math.max(key[0], attrs.lastModifiedTime().toMillis());
+				}
+			}
+		});
+		
+		final Map<Path, Long> keys = new HashMap<Path, Long>(lastModifiedKeys.size() * 2);
+		
+		for (final Map.Entry<Path, long[]> key : lastModifiedKeys.entrySet()) {
+			keys.put(key.getKey(), key.getValue()[0]);
+		}
 		
-		return (List<File>) FileUtils.listFiles(file, TrueFileFilter.INSTANCE, TrueFileFilter.INSTANCE);
+		final List<Path> result = new ArrayList<Path>(keys.keySet());
+		
+		Collections.sort(result, new ArtifactFolderComparator(keys));
+		
+		return result;
 	}
 	
 	
 	/**
-	 * List recursively all the files and folder of a given directory.
+	 * Get the newest modification date of the direct content of a folder, reading each entry date once.
 	 * 
-	 * @param file
-	 * @return a list of the files and folders contained by the given directory
+	 * @param folder
+	 * @return the newest modification date of the files and folders contained by the given folder,
+	 * 		   the modification date of the folder itself if it is empty, 0 if it cannot be read.
 	 */
-	public static List<File> listFilesAndFolders(final File file) {
+	public static long getNewestLastModified(final Path folder) {
 		
-		return (List<File>) FileUtils.listFilesAndDirs(file, TrueFileFilter.INSTANCE, DirectoryFileFilter.DIRECTORY);
+		long newestLastModified = -1;
+		
+		try (DirectoryStream<Path> folderContent = Files.newDirectoryStream(folder)) {
+			
+			for (final Path entry : folderContent) {
+				
+				newestLastModified = Math.max(newestLastModified, Files.getLastModifiedTime(entry, LinkOption.NOFOLLOW_LINKS).toMillis());
+			}
+			
+			return newestLastModified >= 0 ? newestLastModified : Files.getLastModifiedTime(folder).toMillis();
+		}
+		catch (IOException e)
+		{
+			return Math.max(newestLastModified, 0);
+		}
 	}
 	
 	
 	/**
-	 * List recursively all folder of a given directory.
+	 * Walk a directory tree, skipping a missing directory.
 	 * 
-	 * @param file
-	 * @return file a list of the folders and only folders (files are not listed) contained by the given directory
+	 * @param folder
+	 * @param visitor
 	 */
-	public static List<File> listFolders(final File file) {
-
-		return (List<File>) FileUtils.listFilesAndDirs(file, new NotFileFilter(TrueFileFilter.INSTANCE), DirectoryFileFilter.DIRECTORY);
+	private static void walkQuietly(final Path folder, final QuietFileVisitor visitor) {
+		
+		if (!Files.isDirectory(folder)) {
+			return;
+		}
+		
+		try {
+			Files.walkFileTree(folder, visitor);
+		}
+		catch (IOException e)
+		{
+			// The entries listed until the failure are kept, as the unreadable entries are skipped
+		}
 	}
 	
 	
 	/**
-	 * List recursively all folder of a given directory, excluding the current directory.
-	 * The result list is ordered on artifact last modification date.
-	 * 
-	 * @param file
-	 * @return a list of the folders and only folders (files are not listed) contained by the given directory,
-	 * 		   the result is ordered on the modification date (ascending, with the most recent first).
+	 * File visitor skipping the entries which cannot be read, as the java.io listings do.
 	 */
-	public static List<File> listSubFoldersOrdered(final File file) {
-
-		List<File> result = new ArrayList<File>();
-
-		if (file.exists() && file.isDirectory()) {
-
-			result = listFolders(file);
-
-			result.remove(file);
-
-			Collections.sort(result, new ArtifactFolderComparator());
+	private static class QuietFileVisitor extends SimpleFileVisitor<Path> {
+		
+		@Override
+		public FileVisitResult visitFileFailed(final Path file, final IOException exc) {
+			
+			return FileVisitResult.CONTINUE;
 		}
-
-		return result;
 	}
 	
 	
@@ -228,37 +272,4 @@ public final class Tools {
 		return (int)((date2.getTime() - date1.getTime()) / (1000 * 60 * 60 * 24));
 	}
 	
-	
-	/**
-	 * Return true if the input match the given pattern or if the pattern is null
-	 * 
-	 * @param pattern
-	 * @param input
-	 * @return true if the input match the given pattern or if the pattern is null; false otherwise.
-	 */
-	public static boolean matchPatternIgnoreCase(final Pattern pattern, final String input)
-	{
-		return pattern.matcher(input.toLowerCase(Locale.getDefault())).matches();
-	}
-	
-	/**
-	 * Return true if the input match the given pattern or if the pattern is null
-	 * 
-	 * @param pattern
-	 * @param input
-	 * @return true if the input match the given pattern or if the pattern is null; false otherwise.
-	 */
-	public static boolean testPattern(final String regExp)
-	{
-		try {
-			Pattern.compile(regExp);
-		}
-		catch(Exception e) 
-		{
-			return false;
-		}
-				
-		return true;
-	}
-	
 }
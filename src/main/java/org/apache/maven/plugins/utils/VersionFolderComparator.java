@@ -0,0 +1,76 @@
+package org.apache.maven.plugins.utils;
+
+/*
+ * Copyright 2013 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0,
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.Serializable;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Comparator implementation for the version folders of an artifact, on their version (@see MavenVersion) rather than
+ * on their last modified date : touching or downloading again an old version does not make it the newest.
+ *
+ * @author sgu, pef, lab...
+ */
+public class VersionFolderComparator implements Comparator<Path>, Serializable {
+
+	/**
+	 * Generated serial version UID
+	 */
+	private static final long serialVersionUID = -2406722370618524409L;
+
+	/**
+	 * Version of each compared folder, read once from its name
+	 */
+	private final Map<Path, MavenVersion> versionKeys = new HashMap<Path, MavenVersion>();
+
+
+	/**
+	 * Order two version folders on their version, the highest first.
+	 * Folders with the same version (e.g. 1.0 and 1.0.0) are ordered on their path.
+	 */
+	@Override
+	public int compare(final Path folder0, final Path folder1) {
+
+		final int returnCode = getVersionKey(folder1).compareTo(getVersionKey(folder0));
+
+		return returnCode != 0 ? returnCode : folder0.compareTo(folder1);
+	}
+
+
+	/**
+	 * Get the version of a folder, parsing its name on its first comparison only.
+	 *
+	 * @param folder
+	 * @return the version named by the folder
+	 */
+	private MavenVersion getVersionKey(final Path folder) {
+
+		MavenVersion version = versionKeys.get(folder);
+
+		if (version == null) {
+
+			version = MavenVersion.valueOf(folder.getFileName().toString());
+
+			versionKeys.put(folder, version);
+		}
+
+		return version;
+	}
+}
@@ -18,13 +18,73 @@ package org.apache.maven.plugins;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.net.MalformedURLException;
+import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.FileStore;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.UserPrincipalLookupService;
+import java.nio.file.spi.FileSystemProvider;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.factory.ArtifactFactory;
+import org.apache.maven.artifact.metadata.ArtifactMetadataSource;
+import org.apache.maven.artifact.metadata.ResolutionGroup;
+import org.apache.maven.artifact.repository.ArtifactRepository;
 import org.apache.maven.artifact.repository.DefaultArtifactRepository;
 import org.apache.maven.artifact.repository.layout.DefaultRepositoryLayout;
+import org.apache.maven.artifact.resolver.ArtifactCollector;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.artifact.versioning.ArtifactVersion;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
 import org.apache.maven.plugin.testing.AbstractMojoTestCase;
+import org.apache.maven.plugins.engine.ArtifactLocks;
+import org.apache.maven.plugins.engine.CandidateSummary;
+import org.apache.maven.plugins.engine.DeletionEngine;
+import org.apache.maven.plugins.engine.DeletionJournal;
+import org.apache.maven.plugins.engine.DeletionReaper;
+import org.apache.maven.plugins.engine.DiskUsage;
+import org.apache.maven.plugins.engine.IoThrottle;
+import org.apache.maven.plugins.engine.PathPattern;
+import org.apache.maven.plugins.engine.PathPatternSet;
+import org.apache.maven.plugins.engine.ProtectedVersions;
+import org.apache.maven.plugins.engine.RepositoryIndex;
+import org.apache.maven.plugins.engine.RepositoryTrash;
+import org.apache.maven.plugins.engine.RepositoryWatcher;
+import org.apache.maven.plugins.engine.RunMetrics;
+import org.apache.maven.plugins.engine.SnapshotBuilds;
+import org.apache.maven.plugins.engine.WalkCursor;
+import org.apache.maven.plugins.utils.Enumeres;
+import org.apache.maven.plugins.utils.MavenVersion;
 import org.apache.maven.project.MavenProject;
 
 /**
@@ -93,6 +153,68 @@ public class TestLocalRepositoryMojo extends AbstractMojoTestCase {
     }
     
     
+    /**
+     * Test the deleteWholeLocalRepository option with parallel deletions
+     *
+     * @throws Exception
+     */
+    public void testDeleteWholeLocalRepositoryWithDeleteThreads() throws Exception
+    {
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteWholeLocalRepository", true);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteThreads", 4);
+
+        cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+
+        assertFalse(testM2Repo.exists());
+    }
+
+    
+    /**
+     * Test the deleteWholeLocalRepository option on a repository holding the plugin folder : it is kept with the root
+     *
+     * @throws Exception
+     */
+    public void testDeleteWholeLocalRepositoryKeepsPluginFolder() throws Exception
+    {
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteWholeLocalRepository", true);
+
+        File pluginFile = new File(DeletionJournal.getFolder(testM2Repo.toPath()).toFile(), "repository.index");
+
+        FileUtils.touch(pluginFile);
+
+        cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+
+        assertTrue(pluginFile.exists()); // Kept, plugin folder
+        assertEquals(1, testM2Repo.listFiles().length); // Only the plugin folder is left
+    }
+
+
+    /**
+     * Test the maxUnlinksPerSecond option : the deletions are slowed down to the rate, after a burst of one second
+     *
+     * @throws Exception
+     */
+    public void testDeleteWholeLocalRepositoryWithMaxUnlinksPerSecond() throws Exception
+    {
+        long unlinksPerSecond = 10;
+
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteWholeLocalRepository", true);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "maxUnlinksPerSecond", unlinksPerSecond);
+
+        long start = System.currentTimeMillis();
+
+        cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+
+        long elapsed = System.currentTimeMillis() - start;
+
+        DeletionEngine deletionEngine = (DeletionEngine) getVariableValueFromObject(cleanLocalRepositoryMojo, "deletionEngine");
+
+        assertFalse(testM2Repo.exists());
+        assertTrue(deletionEngine.getFreedInodes() > unlinksPerSecond);
+        assertTrue(elapsed >= (deletionEngine.getFreedInodes() - unlinksPerSecond - 1) * 1000 / unlinksPerSecond);
+    }
+
+
     /**
      * Test the snapshotRetentionDelay option and delegated implementations of the plugin
      * 
@@ -144,6 +266,33 @@ public class TestLocalRepositoryMojo extends AbstractMojoTestCase {
     }
     
     
+    /**
+     * Test the snapshotVersionsRetention option when a version folder contains files of different dates :
+     * the versions are ordered on the newest date of their content
+     *
+     * @throws Exception
+     */
+    public void testSnapshotVersionsRetentionOnNewestContent() throws Exception
+    {
+    	File oldSnapshotFile = new File(snapshotArtifact1.getParentFile(), "test-example-1.0-SNAPSHOT.pom");
+
+    	createArtifact(oldSnapshotFile, -10);
+
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteCurrentSnapshot", true);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "snapshotRetentionDelay", 1);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "snapshotVersionsRetention", 1);
+
+        cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+
+		assertTrue(snapshotArtifact1.exists()); // Kept, this snapshot version contains a file of 1 day
+		assertTrue(oldSnapshotFile.exists());
+		assertFalse(snapshotArtifact2.exists()); // Deleted, keep only 1 snapshot version
+		assertFalse(snapshotArtifact3.exists()); // Deleted, keep only 1 snapshot version
+
+		oldSnapshotFile.delete();
+    }
+
+
     /**
      * Test the deleteWholeLocalRepository and delegated implementations of the plugin
      * 
@@ -197,6 +346,113 @@ public class TestLocalRepositoryMojo extends AbstractMojoTestCase {
     
     
     
+    /**
+     * Test the version order against the known Maven orderings : each row is lower than the next ones, the versions
+     * of a row being equal
+     *
+     * @throws Exception
+     */
+    public void testMavenVersionOrder() throws Exception
+    {
+        String[][] orderedVersions = {
+            { "1.0-alpha1", "1.0-alpha-1", "1.0-a1" },
+            { "1.0-beta", "1.0-beta-0" },
+            { "1.0-rc1", "1.0-cr1", "1.0-RC-1" },
+            { "1.0-SNAPSHOT", "1.0-snapshot" },
+            { "1.0", "1.0.0", "1", "1.0-ga", "1.0-final", "1.0.0-release" },
+            { "1.0-sp1" },
+            { "1-1" }, // A sub list is lower than a number : 1-1 < 1.0.1
+            { "1.0.1" },
+            { "1.1" },
+            { "1.10" }
+        };
+
+        for (int i = 0; i < orderedVersions.length; i++) {
+
+            for (int j = 0; j < orderedVersions.length; j++) {
+
+                for (String left : orderedVersions[i]) {
+
+                    for (String right : orderedVersions[j]) {
+
+                        int order = Integer.signum(MavenVersion.valueOf(left).compareTo(MavenVersion.valueOf(right)));
+
+                        assertEquals(left + " compared to " + right, Integer.signum(i - j), order);
+                        assertEquals(left + " equals " + right, i == j, MavenVersion.valueOf(left).equals(MavenVersion.valueOf(right)));
+
+                        if (i == j) {
+                            assertEquals(left + " hash of " + right, MavenVersion.valueOf(left).hashCode(), MavenVersion.valueOf(right).hashCode());
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Test the useVersionOrder option : the highest versions are kept rather than the most recently modified ones
+     * 
+     * @throws Exception
+     */
+    public void testReleaseVersionsRetentionOnVersionOrder() throws Exception
+    {
+        assertTrue(MavenVersion.valueOf("1.0-alpha-1").compareTo(MavenVersion.valueOf("1.0-rc1")) < 0);
+        assertTrue(MavenVersion.valueOf("1.0-rc1").compareTo(MavenVersion.valueOf("1.0-SNAPSHOT")) < 0);
+        assertTrue(MavenVersion.valueOf("1.0-SNAPSHOT").compareTo(MavenVersion.valueOf("1.0")) < 0);
+        assertTrue(MavenVersion.valueOf("1.0.1").compareTo(MavenVersion.valueOf("1.0.10")) < 0);
+        assertEquals(0, MavenVersion.valueOf("1.0.0-ga").compareTo(MavenVersion.valueOf("1")));
+
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteCurrentRelease", true);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "releaseRetentionDelay", DESACTIVATIVED);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "releaseVersionsRetention", 1);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "useVersionOrder", true);
+		
+        cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+        
+        assertFalse(releaseArtifact1.exists()); // Deleted, the most recently modified but the lowest version
+        assertFalse(releaseArtifact2.exists()); // Deleted, keep only the highest release version
+        assertTrue(releaseArtifact3.exists());
+		
+		assertTrue(snapshotArtifact1.exists());  
+		assertTrue(snapshotArtifact2.exists());		
+		assertTrue(snapshotArtifact3.exists()); 
+    }
+    
+    
+    /**
+     * Test the deleteSupersededSnapshots option : the snapshot versions whose release is in the local repository are
+     * deleted
+     * 
+     * @throws Exception
+     */
+    public void testDeleteSupersededSnapshots() throws Exception
+    {
+        File unreleasedSnapshot = new File(testM2Repo, "org/maven/test/test-example/4.0-SNAPSHOT/test-example-4.0-SNAPSHOT.jar");
+        File emptyRelease = new File(testM2Repo, "org/maven/test/test-example/3.0");
+
+        createArtifact(unreleasedSnapshot, 0);
+        FileUtils.cleanDirectory(emptyRelease);
+
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteCurrentSnapshot", true);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "snapshotRetentionDelay", DESACTIVATIVED);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "snapshotVersionsRetention", DESACTIVATIVED);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteSupersededSnapshots", true);
+		
+        cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+        
+        assertFalse(snapshotArtifact1.exists()); // Deleted, superseded by the 1.0 release
+        assertFalse(snapshotArtifact2.exists()); // Deleted, superseded by the 2.0 release
+        assertTrue(snapshotArtifact3.exists()); // The 3.0 release is empty
+        assertTrue(unreleasedSnapshot.exists());
+
+        assertTrue(releaseArtifact1.exists());
+        assertTrue(releaseArtifact2.exists());
+
+        FileUtils.deleteDirectory(unreleasedSnapshot.getParentFile());
+    }
+    
+    
     /**
      * Test the deleteFromRegularExpression and delegated implementations of the plugin
      * 
@@ -245,156 +501,1660 @@ public class TestLocalRepositoryMojo extends AbstractMojoTestCase {
     
     
     /**
-     * Test the deleteAllSnapshots and snapshotRetentionDelay option and delegated implementations of the plugin
+     * Test the deleteFromRegularExpression option with a literal prefix : the pattern is applied on the path 
+     * relative to the repository root, ignoring case, and only the sub tree of the prefix is walked
      * 
      * @throws Exception
      */
-    public void testDeleteAllSnapshotsRetentionDelay() throws Exception
+    public void testDeleteFromRegularExpressionPrefix() throws Exception
     {
-        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteAllSnapshots", true);
-        setVariableValueToObject(cleanLocalRepositoryMojo, "snapshotRetentionDelay", 2);
-        setVariableValueToObject(cleanLocalRepositoryMojo, "snapshotVersionsRetention", DESACTIVATIVED);
-		
+        assertEquals("org/maven/plugins/", new PathPattern("^org/maven/plugins/.*", testM2Repo.toPath()).getPrefix());
+        assertEquals("org/maven/test", new PathPattern("org/maven/test/?.*", testM2Repo.toPath()).getPrefix());
+        assertEquals("", new PathPattern("^org/.*|^com/.*", testM2Repo.toPath()).getPrefix());
+        assertEquals(Arrays.asList("org/", "com/"), new PathPattern("^org/.*|^com/.*", testM2Repo.toPath()).getPrefixes());
+        assertEquals(Collections.singletonList(""), new PathPattern("^.*/com/acme/.*", testM2Repo.toPath()).getPrefixes()); // Not pruned
+        assertTrue(new PathPattern("^org/.*|^com/.*", testM2Repo.toPath()).canMatchUnder(new File(testM2Repo, "com/acme").toPath()));
+        assertFalse(new PathPattern("^org/.*|^com/.*", testM2Repo.toPath()).canMatchUnder(new File(testM2Repo, "net").toPath()));
+
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteFromRegularExpression", "^org/Maven/plugins/.*\\.JAR");
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteEmptyFolders", true);
+
         cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
-        
-        assertTrue(pluginArtifact.exists());
-        
-		assertTrue(releaseArtifact1.exists());
-		assertTrue(releaseArtifact2.exists());
-		assertTrue(releaseArtifact3.exists());
-		
-		assertTrue(snapshotArtifact1.exists()); 
-		assertTrue(snapshotArtifact2.exists());
-		assertFalse(snapshotArtifact3.exists()); // Deleted, this snapshot file was older than 2 days
 
-    }
+        assertFalse(pluginArtifact.exists()); // Deleted, this artifact match with the given RegExp
+        assertFalse(pluginArtifact.getParentFile().exists()); // Empty folder was deleted
 
+        assertTrue(releaseArtifact1.exists());
+        assertTrue(snapshotArtifact1.exists());
+    }
+    
     
     /**
-     * Test the deleteAllSnapshots and snapshotVersionsRetention option and delegated implementations of the plugin
+     * Test the includePatterns and excludePatterns options, mixing GAV globs and regular expressions
      * 
      * @throws Exception
      */
-    public void testDeleteAllSnapshotsVersionsRetention() throws Exception
+    public void testIncludeExcludePatterns() throws Exception
     {
-        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteAllSnapshots", true);
-        setVariableValueToObject(cleanLocalRepositoryMojo, "snapshotRetentionDelay", DESACTIVATIVED);
-        setVariableValueToObject(cleanLocalRepositoryMojo, "snapshotVersionsRetention", 1);
-		
+        setVariableValueToObject(cleanLocalRepositoryMojo, "includePatterns", new String[] { "org.maven.test:test-example:*-SNAPSHOT", "^org/maven/plugins/.*" });
+        setVariableValueToObject(cleanLocalRepositoryMojo, "excludePatterns", new String[] { "org.maven.test:*:1.0-SNAPSHOT" });
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteEmptyFolders", true);
+
         cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
-        
-        assertTrue(pluginArtifact.exists());
-        
-		assertTrue(releaseArtifact1.exists());
-		assertTrue(releaseArtifact2.exists());
-		assertTrue(releaseArtifact3.exists());
-		
-		assertTrue(snapshotArtifact1.exists()); 
-		assertFalse(snapshotArtifact2.exists()); // Deleted, keep only 1 snapshot version
-		assertFalse(snapshotArtifact3.exists()); // Deleted, keep only 1 snapshot version
 
+        assertFalse(pluginArtifact.exists()); // Deleted, this artifact match with the given RegExp
+        assertFalse(snapshotArtifact2.exists()); // Deleted, this artifact match with the given GAV glob
+        assertFalse(snapshotArtifact3.exists()); // Deleted, this artifact match with the given GAV glob
+
+        assertTrue(snapshotArtifact1.exists()); // Excluded
+        assertTrue(releaseArtifact1.exists());
+        assertTrue(releaseArtifact2.exists());
+        assertTrue(releaseArtifact3.exists());
     }
     
     
     /**
-     * Test the deleteEmptyFolders and delegated implementations of the plugin
-     * In this test case, the option is enabled
+     * Test the GAV globs and the regular expressions on a file system separating the path segments by a backslash :
+     * the patterns are written and matched with '/' separators
      * 
      * @throws Exception
      */
-    public void testDeleteEmptyFoldersTrue() throws Exception
+    public void testPathPatternsOnBackslashFileSystem() throws Exception
     {
-        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteFromRegularExpression", ".*plugin-example.*");
-        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteEmptyFolders", true);
-        		
-        cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
-        
-        assertFalse(pluginArtifact.exists()); 
-        assertFalse(pluginArtifact.getParentFile().exists()); // Empty folder was deleted 
+        Path root = toBackslashPath(new File("/m2").toPath());
+        Path snapshotJar = root.resolve("org/maven/test/test-example/1.0-SNAPSHOT/test-example-1.0-SNAPSHOT.jar");
+        Path releaseJar = root.resolve("org/maven/test/test-example/1.0/test-example-1.0.jar");
+        Path pluginJar = root.resolve("org/maven/plugins/plugin-example/1.0/plugin-exemple-1.0.jar");
+
+        assertEquals("\\m2\\org", root.resolve("org").toString());
+
+        PathPattern glob = PathPattern.parse("org.maven.test:test-example:*-SNAPSHOT", root);
+
+        assertTrue(glob.matches(snapshotJar));
+        assertFalse(glob.matches(releaseJar));
+        assertTrue(glob.canMatchUnder(root.resolve("org/maven")));
+        assertFalse(glob.canMatchUnder(root.resolve("com")));
+
+        PathPatternSet patterns = new PathPatternSet(Arrays.asList(glob, PathPattern.parse("^org/maven/plugins/.*", root)), 
+        											 Collections.singletonList(PathPattern.parse("org.maven.test:*:1.0-SNAPSHOT", root)), root);
+
+        assertTrue(patterns.matches(pluginJar));
+        assertFalse(patterns.matches(snapshotJar)); // Excluded
+        assertTrue(patterns.canMatchUnder(root.resolve("org/maven/plugins")));
+        assertFalse(patterns.canMatchUnder(root.resolve("org/apache")));
     }
     
+    
     /**
-     * Test the deleteEmptyFolders and delegated implementations of the plugin
-     * In this test case, the option is disabled
+     * Test the maxRepositorySize option : the least recently used versions are evicted until the repository fits
      * 
      * @throws Exception
      */
-    public void testDeleteEmptyFoldersFalse() throws Exception
+    public void testMaxRepositorySize() throws Exception
     {
-        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteFromRegularExpression", ".*plugin-example.*");
+        File oldVersion = new File(testM2Repo, "org/maven/budget/budget-example/1.0/budget-example-1.0.jar");
+        File newVersion = new File(testM2Repo, "org/maven/budget/budget-example/2.0/budget-example-2.0.jar");
+
+        createUsedArtifact(oldVersion, 1024 * 1024, -5);
+        createUsedArtifact(newVersion, 1024 * 1024, -4);
+
+        setVariableValueToObject(cleanLocalRepositoryMojo, "maxRepositorySize", 1L);
         setVariableValueToObject(cleanLocalRepositoryMojo, "deleteEmptyFolders", false);
-        		
+
         cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
-        
-        assertFalse(pluginArtifact.exists()); 
-        assertTrue(pluginArtifact.getParentFile().exists()); // Empty folder was not deleted 
+
+        assertFalse(oldVersion.exists()); // Evicted, least recently used version
+        assertTrue(newVersion.exists());
+
+        assertTrue(pluginArtifact.exists());
+        assertTrue(releaseArtifact1.exists());
+        assertTrue(snapshotArtifact1.exists());
+
+        FileUtils.deleteDirectory(newVersion.getParentFile().getParentFile());
     }
-    
+
 
     /**
-     * Common initialization of the mojo parameter
-     *  
-     * @return
-     * @throws MalformedURLException
-     * @throws IllegalAccessException
+     * Test the repository wide deletion options valued alone : the default retention behavior, deleting all the versions
+     * but the current one, is not applied
+     * 
+     * @throws Exception
      */
-	private CleanLocalRepositoryMojo initializeCleanLocalRepositoryMojo() throws MalformedURLException, IllegalAccessException {
-		
-		CleanLocalRepositoryMojo cleanLocalRepositoryMojo = new CleanLocalRepositoryMojo();
+    public void testRepositoryWideOptionsWithoutDefaultRetention() throws Exception
+    {
+        setVariableValueToObject(cleanLocalRepositoryMojo, "snapshotRetentionDelay", DESACTIVATIVED);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "snapshotVersionsRetention", DESACTIVATIVED);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "releaseRetentionDelay", DESACTIVATIVED);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "releaseVersionsRetention", DESACTIVATIVED);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "snapshotBuildsRetention", DESACTIVATIVED);
 
-    	DefaultArtifactRepository localMavenRepository = new DefaultArtifactRepository("testLocalRepo", testM2Repo.toURI().toURL().toString(), new DefaultRepositoryLayout(), true);
-        
-    	setVariableValueToObject(cleanLocalRepositoryMojo, "executeDeleteOnExit", false);
-    	
-    	setVariableValueToObject(cleanLocalRepositoryMojo, "localMavenRepository", localMavenRepository);
-         
-    	MavenProject mavenProject =  new MavenProject();
-    	
-    	mavenProject.setGroupId("org.maven.test");
-    	
-    	mavenProject.setArtifactId("test-example");
-    	
-    	mavenProject.setVersion("3.0-SNAPSHOT");
-    	
-    	mavenProject.setExecutionRoot(true);
-    	
-    	setVariableValueToObject(cleanLocalRepositoryMojo, "project", mavenProject);
-    	
-		return cleanLocalRepositoryMojo;
-	}
-	
-	/**
-	 * Common initialization of the test local repository with empty artifact
-	 * 
-	 * @return 
-	 * @throws IOException
-	 */
-	private File initializeTestMavenRepository() throws IOException {
-		
-		File testM2Repo = new File(getBasedir() + TEST_M2_REPO_PATH);
-		 
-		testM2Repo.mkdirs();
-		
-		pluginArtifact    = new File(testM2Repo, "org/maven/plugins/plugin-example/1.0/plugin-exemple-1.0.jar");
-		releaseArtifact1  = new File(testM2Repo, "org/maven/test/test-example/1.0/test-example-1.0.jar");
-		releaseArtifact2  = new File(testM2Repo, "org/maven/test/test-example/2.0/test-example-2.0.jar");
-		releaseArtifact3  = new File(testM2Repo, "org/maven/test/test-example/3.0/test-example-3.0.jar");
-		snapshotArtifact1 = new File(testM2Repo, "org/maven/test/test-example/1.0-SNAPSHOT/test-example-1.0-SNAPSHOT.jar");
-		snapshotArtifact2 = new File(testM2Repo, "org/maven/test/test-example/2.0-SNAPSHOT/test-example-2.0-SNAPSHOT.jar");
-		snapshotArtifact3 = new File(testM2Repo, "org/maven/test/test-example/3.0-SNAPSHOT/test-example-3.0-SNAPSHOT.jar");
- 
-		createArtifact(pluginArtifact,    -7);
-		createArtifact(releaseArtifact1,  -1);
-		createArtifact(releaseArtifact2,  -2);
-		createArtifact(releaseArtifact3,  -3);
-		createArtifact(snapshotArtifact1, -1);
-		createArtifact(snapshotArtifact2, -2);
-		createArtifact(snapshotArtifact3, -3);
+        final Object[][] options = { { "maxRepositorySize", 1048576L }, 
+        							 { "freeSpaceLowWatermark", 1L }, 
+        							 { "snapshotBuildsRetention", 5 } };
+
+        for (Object[] option : options) {
+
+            setVariableValueToObject(cleanLocalRepositoryMojo, (String) option[0], option[1]);
+
+            cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+
+            assertTrue((String) option[0], pluginArtifact.exists());
+            assertTrue((String) option[0], releaseArtifact1.exists());
+            assertTrue((String) option[0], releaseArtifact2.exists());
+            assertTrue((String) option[0], releaseArtifact3.exists());
+            assertTrue((String) option[0], snapshotArtifact1.exists());
+            assertTrue((String) option[0], snapshotArtifact2.exists());
+            assertTrue((String) option[0], snapshotArtifact3.exists());
+
+            cleanLocalRepositoryMojo = initializeCleanLocalRepositoryMojo();
+
+            setVariableValueToObject(cleanLocalRepositoryMojo, "snapshotRetentionDelay", DESACTIVATIVED);
+            setVariableValueToObject(cleanLocalRepositoryMojo, "snapshotVersionsRetention", DESACTIVATIVED);
+            setVariableValueToObject(cleanLocalRepositoryMojo, "releaseRetentionDelay", DESACTIVATIVED);
+            setVariableValueToObject(cleanLocalRepositoryMojo, "releaseVersionsRetention", DESACTIVATIVED);
+            setVariableValueToObject(cleanLocalRepositoryMojo, "snapshotBuildsRetention", DESACTIVATIVED);
+        }
+    }
+
+
+    /**
+     * Test the maxRepositorySize option with the useRepositoryIndex option : the versions replayed from the index are
+     * evicted on their current access dates, not on the ones recorded by the previous walk
+     * 
+     * @throws Exception
+     */
+    public void testMaxRepositorySizeWithRepositoryIndex() throws Exception
+    {
+        File oldVersion = new File(testM2Repo, "org/maven/budget/budget-example/1.0/budget-example-1.0.jar");
+        File newVersion = new File(testM2Repo, "org/maven/budget/budget-example/2.0/budget-example-2.0.jar");
+
+        createUsedArtifact(oldVersion, 1024 * 1024, -5);
+        createUsedArtifact(newVersion, 1024 * 1024, -4);
+
+        setVariableValueToObject(cleanLocalRepositoryMojo, "useRepositoryIndex", true);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "maxRepositorySize", 3L);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteEmptyFolders", false);
+
+        cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+
+        assertTrue(oldVersion.exists()); // The repository fits, the index is recorded
+        assertTrue(newVersion.exists());
+
+        // The old version is read since : its folder is unchanged, its access date is not the recorded one
+        Files.getFileAttributeView(oldVersion.toPath(), BasicFileAttributeView.class).setTimes(null, FileTime.fromMillis(System.currentTimeMillis()), null);
+
+        setVariableValueToObject(cleanLocalRepositoryMojo, "maxRepositorySize", 1L);
+
+        cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+
+        assertTrue(oldVersion.exists()); // Most recently used version
+        assertFalse(newVersion.exists()); // Evicted, least recently used version
+
+        FileUtils.deleteDirectory(oldVersion.getParentFile().getParentFile());
+    }
+
+
+    /**
+     * Test the protectReactorDependencies option : the versions of the reactor dependencies and plugins are kept
+     * whatever the deletion rules
+     *
+     * @throws Exception
+     */
+    public void testProtectReactorDependencies() throws Exception
+    {
+        MavenProject mavenProject = (MavenProject) getVariableValueFromObject(cleanLocalRepositoryMojo, "project");
+
+        Dependency dependency = new Dependency();
+        dependency.setGroupId("org.maven.test");
+        dependency.setArtifactId("test-example");
+        dependency.setVersion("2.0");
+        mavenProject.getModel().addDependency(dependency);
+
+        Plugin plugin = new Plugin();
+        plugin.setGroupId("org.maven.plugins");
+        plugin.setArtifactId("plugin-example");
+        plugin.setVersion("1.0");
+        mavenProject.getModel().setBuild(new Build());
+        mavenProject.getModel().getBuild().addPlugin(plugin);
+
+        setVariableValueToObject(cleanLocalRepositoryMojo, "artifactFactory", lookup(ArtifactFactory.ROLE));
+        setVariableValueToObject(cleanLocalRepositoryMojo, "artifactCollector", lookup(ArtifactCollector.class.getName()));
+        setVariableValueToObject(cleanLocalRepositoryMojo, "artifactMetadataSource", new ArtifactMetadataSource() {
+
+            // The parameters of this pre generics interface cannot be parameterized in an overriding method
+            @SuppressWarnings("rawtypes")
+            public ResolutionGroup retrieve(Artifact artifact, ArtifactRepository localRepository, List remoteRepositories) {
+                return new ResolutionGroup(artifact, Collections.<Artifact>emptySet(), remoteRepositories);
+            }
+
+            @SuppressWarnings("rawtypes")
+            public List<ArtifactVersion> retrieveAvailableVersions(Artifact artifact, ArtifactRepository localRepository, List remoteRepositories) {
+                return Collections.<ArtifactVersion>emptyList();
+            }
+        });
+
+        setVariableValueToObject(cleanLocalRepositoryMojo, "protectReactorDependencies", true);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteFromRegularExpression", "^org/maven/.*");
+
+        cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+
+        assertTrue(pluginArtifact.exists()); // Protected, plugin of the reactor
+        assertTrue(releaseArtifact2.exists()); // Protected, dependency of the reactor
+        assertFalse(releaseArtifact1.exists());
+        assertFalse(releaseArtifact3.exists());
+        assertFalse(snapshotArtifact1.exists());
+    }
+
+
+    /**
+     * Test the protectReactorDependencies option across the executions : the versions are resolved once per Maven
+     * session, a new session resolving them again
+     *
+     * @throws Exception
+     */
+    public void testProtectReactorDependenciesPerSession() throws Exception
+    {
+        final int[] resolutions = { 0 };
+
+        Supplier<ProtectedVersions> resolver = new Supplier<ProtectedVersions>() {
+
+            public ProtectedVersions get() {
+
+                resolutions[0]++;
+
+                return new ProtectedVersions(Collections.singletonList(releaseArtifact2.getParentFile().toPath()));
+            }
+        };
+
+        MavenSession session = newMavenSession("clean-local-repository:clean");
+
+        ProtectedVersions versions = ProtectedVersions.get(session, resolver);
+
+        assertSame(versions, ProtectedVersions.get(session, resolver)); // Shared by the executions of the session
+        assertEquals(1, resolutions[0]);
+
+        assertNotSame(versions, ProtectedVersions.get(newMavenSession("clean-local-repository:clean"), resolver));
+        assertEquals(2, resolutions[0]); // Resolved again by a new session
+
+        ProtectedVersions.get(null, resolver);
+        ProtectedVersions.get(null, resolver);
+
+        assertEquals(4, resolutions[0]); // Resolved by each execution without session
+    }
+
+
+    /**
+     * Test the aggregateReactor option : the artifacts of the modules are processed together by the execution
+     * of the last module of the reactor
+     *
+     * @throws Exception
+     */
+    public void testAggregateReactor() throws Exception
+    {
+        File moduleSnapshot1 = new File(testM2Repo, "org/maven/module/module-example/1.0-SNAPSHOT/module-example-1.0-SNAPSHOT.jar");
+        File moduleSnapshot2 = new File(testM2Repo, "org/maven/module/module-example/2.0-SNAPSHOT/module-example-2.0-SNAPSHOT.jar");
+
+        createArtifact(moduleSnapshot1, -1);
+        createArtifact(moduleSnapshot2, -2);
+
+        MavenProject rootProject = (MavenProject) getVariableValueFromObject(cleanLocalRepositoryMojo, "project");
+
+        MavenProject moduleProject = new MavenProject();
+        moduleProject.setGroupId("org.maven.module");
+        moduleProject.setArtifactId("module-example");
+        moduleProject.setVersion("1.0-SNAPSHOT");
+
+        List<MavenProject> reactorProjects = new ArrayList<MavenProject>();
+        reactorProjects.add(rootProject);
+        reactorProjects.add(moduleProject);
+
+        CleanLocalRepositoryMojo moduleMojo = initializeCleanLocalRepositoryMojo();
+
+        MavenSession session = newMavenSession("clean-local-repository:clean");
+
+        for (CleanLocalRepositoryMojo mojo : new CleanLocalRepositoryMojo[] { cleanLocalRepositoryMojo, moduleMojo }) {
+            setVariableValueToObject(mojo, "session", session);
+            setVariableValueToObject(mojo, "reactorProjects", reactorProjects);
+            setVariableValueToObject(mojo, "aggregateReactor", true);
+            setVariableValueToObject(mojo, "deleteCurrentSnapshot", true);
+            setVariableValueToObject(mojo, "snapshotRetentionDelay", DESACTIVATIVED);
+            setVariableValueToObject(mojo, "snapshotVersionsRetention", 1);
+            setVariableValueToObject(mojo, "scanThreads", 2);
+        }
+        setVariableValueToObject(moduleMojo, "project", moduleProject);
+
+        cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+
+        assertTrue(snapshotArtifact3.exists()); // Aggregated, not processed yet
+
+        moduleMojo.executeCleanLocalRepositoryGoals();
+
+        assertTrue(snapshotArtifact1.exists());
+        assertFalse(snapshotArtifact2.exists()); // Deleted by the last execution, keep only 1 snapshot version
+        assertFalse(snapshotArtifact3.exists());
+        assertTrue(moduleSnapshot1.exists());
+        assertFalse(moduleSnapshot2.exists());
+
+        FileUtils.deleteDirectory(moduleSnapshot1.getParentFile().getParentFile().getParentFile());
+    }
+
+
+    /**
+     * Test the aggregateReactor option when the last module of the reactor does not bind the goal : the batch is
+     * released by the last module binding it, and a new session never gets the batch of a previous one
+     *
+     * @throws Exception
+     */
+    public void testAggregateReactorLastModuleNotBound() throws Exception
+    {
+        MavenProject rootProject = (MavenProject) getVariableValueFromObject(cleanLocalRepositoryMojo, "project");
+
+        PluginExecution execution = new PluginExecution();
+        execution.addGoal("clean");
+        Plugin plugin = new Plugin();
+        plugin.setGroupId("org.apache.maven.plugins");
+        plugin.setArtifactId("clean-local-repository-plugin");
+        plugin.addExecution(execution);
+        rootProject.getModel().setBuild(new Build());
+        rootProject.getModel().getBuild().addPlugin(plugin);
+
+        MavenProject moduleProject = new MavenProject();
+        moduleProject.setGroupId("org.maven.module");
+        moduleProject.setArtifactId("module-example");
+        moduleProject.setVersion("1.0-SNAPSHOT");
+
+        List<MavenProject> reactorProjects = new ArrayList<MavenProject>();
+        reactorProjects.add(rootProject);
+        reactorProjects.add(moduleProject);
+
+        for (int build = 0; build < 2; build++) {
+
+            CleanLocalRepositoryMojo rootMojo = initializeCleanLocalRepositoryMojo();
+
+            setVariableValueToObject(rootMojo, "project", rootProject);
+            setVariableValueToObject(rootMojo, "session", newMavenSession("install"));
+            setVariableValueToObject(rootMojo, "reactorProjects", reactorProjects);
+            setVariableValueToObject(rootMojo, "aggregateReactor", true);
+            setVariableValueToObject(rootMojo, "deleteCurrentSnapshot", true);
+            setVariableValueToObject(rootMojo, "snapshotRetentionDelay", DESACTIVATIVED);
+            setVariableValueToObject(rootMojo, "snapshotVersionsRetention", 2 - build);
+
+            rootMojo.executeCleanLocalRepositoryGoals();
+
+            assertTrue(snapshotArtifact1.exists());
+            assertEquals(build == 0, snapshotArtifact2.exists()); // Processed at once, the only module binding the goal
+            assertFalse(snapshotArtifact3.exists());
+        }
+    }
+
+
+    /**
+     * Test the disk usage of the list goal : a file hard linked by two artifacts is accounted once, in the artifact of
+     * its first path, and the files listed by a rule are reported as reclaimable once whatever the order of the rules
+     *
+     * @throws Exception
+     */
+    public void testListDiskUsage() throws Exception
+    {
+        File linkedVersion = new File(testM2Repo, "org/maven/usage/linked/1.0/linked-1.0.jar");
+        File copiedVersion = new File(testM2Repo, "org/maven/usage/copied/1.0/copied-1.0.jar");
+        File listedVersion = new File(testM2Repo, "org/maven/usage/listed/1.0/listed-1.0.jar");
+
+        createUsedArtifact(linkedVersion, 3000, 0);
+        copiedVersion.getParentFile().mkdirs();
+        Files.createLink(copiedVersion.toPath(), linkedVersion.toPath());
+        createUsedArtifact(listedVersion, 2000, 0);
+
+        ListLocalRepositoryMojo listLocalRepositoryMojo = new ListLocalRepositoryMojo();
+        setVariableValueToObject(listLocalRepositoryMojo, "localMavenRepository", getVariableValueFromObject(cleanLocalRepositoryMojo, "localMavenRepository"));
+        setVariableValueToObject(listLocalRepositoryMojo, "project", getVariableValueFromObject(cleanLocalRepositoryMojo, "project"));
+        setVariableValueToObject(listLocalRepositoryMojo, "deleteFromRegularExpression", "org/maven/usage/listed/.*");
+        setVariableValueToObject(listLocalRepositoryMojo, "maxRepositorySize", 1024L);
+        setVariableValueToObject(listLocalRepositoryMojo, "scanThreads", 4);
+
+        listLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+
+        DiskUsage diskUsage = (DiskUsage) getVariableValueFromObject(listLocalRepositoryMojo, "diskUsage");
+
+        assertTrue(copiedVersion.exists()); // Only reported by the list goal
+        assertTrue(listedVersion.exists());
+
+        Map<String, Long> artifacts = new HashMap<String, Long>();
+        for (Map.Entry<String, Long> artifact : diskUsage.getHeaviestArtifacts(Integer.MAX_VALUE)) {
+            artifacts.put(artifact.getKey(), artifact.getValue());
+        }
+        Map<String, Long> groups = new HashMap<String, Long>();
+        for (Map.Entry<String, Long> group : diskUsage.getHeaviestGroups(Integer.MAX_VALUE)) {
+            groups.put(group.getKey(), group.getValue());
+        }
+
+        assertEquals(Long.valueOf(3000), artifacts.get("org.maven.usage:copied")); // The first path of the hard link
+        assertEquals(Long.valueOf(0), artifacts.get("org.maven.usage:linked")); // The hard link is accounted once
+        assertEquals(Long.valueOf(2000), artifacts.get("org.maven.usage:listed"));
+        assertEquals(Long.valueOf(5000), groups.get("org.maven.usage"));
+        assertEquals(groups.size(), diskUsage.getGroupCount());
+
+        assertEquals(Long.valueOf(2000), diskUsage.getReclaimableByRule().get(Enumeres.MOJO_OPTION.DELETE_FROM_REGULAR_EXPRESSION));
+        assertEquals(2000L, diskUsage.getReclaimableBytes());
+
+        // A version reclaimed after one of its files replaces it
+        DiskUsage reclaimed = new DiskUsage(testM2Repo.toPath());
+
+        reclaimed.addReclaimable(Enumeres.MOJO_OPTION.DELETE_FROM_REGULAR_EXPRESSION, listedVersion.toPath(), 
+        						 Files.readAttributes(listedVersion.toPath(), BasicFileAttributes.class));
+        reclaimed.addReclaimable(Enumeres.MOJO_OPTION.DELETE_ALL_SNAPSHOTS, listedVersion.getParentFile().toPath());
+        reclaimed.addReclaimable(Enumeres.MOJO_OPTION.DELETE_FROM_REGULAR_EXPRESSION, listedVersion.toPath());
+
+        assertEquals(2000L, reclaimed.getReclaimableBytes());
+        assertEquals(Long.valueOf(0), reclaimed.getReclaimableByRule().get(Enumeres.MOJO_OPTION.DELETE_FROM_REGULAR_EXPRESSION));
+        assertEquals(Long.valueOf(2000), reclaimed.getReclaimableByRule().get(Enumeres.MOJO_OPTION.DELETE_ALL_SNAPSHOTS));
+
+        FileUtils.deleteDirectory(listedVersion.getParentFile().getParentFile().getParentFile());
+    }
+
+    
+    /**
+     * Test the deleteAllSnapshots and snapshotRetentionDelay option and delegated implementations of the plugin
+     * 
+     * @throws Exception
+     */
+    public void testDeleteAllSnapshotsRetentionDelay() throws Exception
+    {
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteAllSnapshots", true);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "snapshotRetentionDelay", 2);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "snapshotVersionsRetention", DESACTIVATIVED);
+		
+        cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+        
+        assertTrue(pluginArtifact.exists());
+        
+		assertTrue(releaseArtifact1.exists());
+		assertTrue(releaseArtifact2.exists());
+		assertTrue(releaseArtifact3.exists());
+		
+		assertTrue(snapshotArtifact1.exists()); 
+		assertTrue(snapshotArtifact2.exists());
+		assertFalse(snapshotArtifact3.exists()); // Deleted, this snapshot file was older than 2 days
+
+    }
+
+    
+    /**
+     * Test the deleteAllSnapshots and snapshotVersionsRetention option and delegated implementations of the plugin
+     * 
+     * @throws Exception
+     */
+    public void testDeleteAllSnapshotsVersionsRetention() throws Exception
+    {
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteAllSnapshots", true);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "snapshotRetentionDelay", DESACTIVATIVED);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "snapshotVersionsRetention", 1);
+		
+        cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+        
+        assertTrue(pluginArtifact.exists());
+        
+		assertTrue(releaseArtifact1.exists());
+		assertTrue(releaseArtifact2.exists());
+		assertTrue(releaseArtifact3.exists());
+		
+		assertTrue(snapshotArtifact1.exists()); 
+		assertFalse(snapshotArtifact2.exists()); // Deleted, keep only 1 snapshot version
+		assertFalse(snapshotArtifact3.exists()); // Deleted, keep only 1 snapshot version
+
+    }
+
+
+    /**
+     * Test the deleteAllSnapshots option on a groupId named like a snapshot : only the version folder name makes a snapshot
+     *
+     * @throws Exception
+     */
+    public void testDeleteAllSnapshotsOnSnapshotGroupId() throws Exception
+    {
+        File snapshotGroupRelease = new File(testM2Repo, "org/maven/snapshots/lib/1.0/lib-1.0.jar");
+        File snapshotGroupSnapshot = new File(testM2Repo, "org/maven/snapshots/lib/2.0-SNAPSHOT/lib-2.0-SNAPSHOT.jar");
+
+        createArtifact(snapshotGroupRelease, 0);
+        createArtifact(snapshotGroupSnapshot, 0);
+
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteAllSnapshots", true);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "snapshotRetentionDelay", DESACTIVATIVED);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "snapshotVersionsRetention", 0);
+
+        cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+
+        assertTrue(snapshotGroupRelease.exists()); // Kept, a release of a groupId containing "snapshots"
+        assertFalse(snapshotGroupSnapshot.exists());
+
+		assertTrue(releaseArtifact1.exists());
+		assertFalse(snapshotArtifact1.exists());
+
+        FileUtils.deleteDirectory(snapshotGroupRelease.getParentFile().getParentFile().getParentFile());
+    }
+
+
+
+    /**
+     * Test the useArtifactLocks option : the versions of an artifact locked by a concurrent build are skipped, then
+     * deleted by the next execution once the lock is released
+     *
+     * @throws Exception
+     */
+    public void testUseArtifactLocks() throws Exception
+    {
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteAllSnapshots", true);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "snapshotRetentionDelay", DESACTIVATIVED);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "snapshotVersionsRetention", 0);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "useArtifactLocks", true);
+
+        ArtifactLocks concurrentBuild = new ArtifactLocks(testM2Repo.toPath());
+
+        ArtifactLocks.Lock lock = concurrentBuild.tryLock(snapshotArtifact1.getParentFile().toPath());
+
+        assertNotNull(lock);
+
+        try {
+            cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+        }
+        finally {
+            lock.release();
+            concurrentBuild.close();
+        }
+
+        DeletionEngine deletionEngine = (DeletionEngine) getVariableValueFromObject(cleanLocalRepositoryMojo, "deletionEngine");
+
+        assertEquals(3, deletionEngine.getBusySkips());
+
+		assertTrue(snapshotArtifact1.exists()); // Kept, the artifact is in use
+		assertTrue(snapshotArtifact2.exists());
+		assertTrue(snapshotArtifact3.exists());
+
+        cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+
+		assertTrue(releaseArtifact1.exists());
+		assertFalse(snapshotArtifact1.exists()); // Deleted, the lock is released
+		assertFalse(snapshotArtifact2.exists());
+		assertFalse(snapshotArtifact3.exists());
+    }
+
+
+    /**
+     * Test the useArtifactLocks option on the files of a version folder : they are deleted under a single lock, taken
+     * once for the folder and released after its last file
+     *
+     * @throws Exception
+     */
+    public void testUseArtifactLocksFilesOfVersionFolder() throws Exception
+    {
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteFromRegularExpression", ".*test-example-2\\.0-SNAPSHOT.*");
+        setVariableValueToObject(cleanLocalRepositoryMojo, "useArtifactLocks", true);
+
+        File snapshotPom = new File(snapshotArtifact2.getParentFile(), "test-example-2.0-SNAPSHOT.pom");
+
+        FileUtils.touch(snapshotPom);
+
+        ArtifactLocks locks = new ArtifactLocks(testM2Repo.toPath());
+        ArtifactLocks concurrentBuild = new ArtifactLocks(testM2Repo.toPath());
+
+        ArtifactLocks.Lock filesLock = locks.tryLockFiles(snapshotArtifact2.getParentFile().toPath());
+
+        assertNotNull(filesLock);
+        assertSame(filesLock, locks.tryLockFiles(snapshotArtifact2.getParentFile().toPath())); // Held for the next files
+        assertNull(concurrentBuild.tryLock(snapshotArtifact2.getParentFile().toPath()));
+
+        try {
+            cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+        }
+        finally {
+            locks.releaseFiles();
+            locks.close();
+        }
+
+        DeletionEngine deletionEngine = (DeletionEngine) getVariableValueFromObject(cleanLocalRepositoryMojo, "deletionEngine");
+
+        assertEquals(2, deletionEngine.getBusySkips());
+
+		assertTrue(snapshotArtifact2.exists()); // Kept, the artifact is in use
+		assertTrue(snapshotPom.exists());
+
+        ArtifactLocks.Lock lock = concurrentBuild.tryLock(snapshotArtifact2.getParentFile().toPath());
+
+        assertNotNull(lock); // Released after the files of the folder
+
+        lock.release();
+        concurrentBuild.close();
+
+        cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+
+		assertFalse(snapshotArtifact2.exists()); // Deleted, the lock is released
+		assertFalse(snapshotPom.exists());
+		assertTrue(snapshotArtifact1.exists());
+		assertTrue(releaseArtifact1.exists());
+    }
+
+
+    /**
+     * Test the useArtifactLocks option against the builds not taking the plugin locks : the versions locked by the
+     * resolver, downloaded or recently modified are kept
+     * 
+     * @throws Exception
+     */
+    public void testUseArtifactLocksVersionsInUse() throws Exception
+    {
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteAllSnapshots", true);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "snapshotRetentionDelay", DESACTIVATIVED);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "snapshotVersionsRetention", 0);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "useArtifactLocks", true);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "artifactInUseDelay", 10);
+
+        File resolverLock = new File(testM2Repo, ".locks/artifact~org.maven.test~test-example~1.0-SNAPSHOT.lock");
+        File download = new File(snapshotArtifact2.getParentFile(), "test-example-2.0-SNAPSHOT.pom.part");
+        File metadata = new File(snapshotArtifact3.getParentFile(), "maven-metadata-local.xml");
+
+        FileUtils.touch(resolverLock);
+        FileUtils.touch(download);
+        FileUtils.touch(metadata); // Just modified
+
+        FileChannel resolverChannel = FileChannel.open(resolverLock.toPath(), StandardOpenOption.WRITE);
+
+        try {
+            FileLock lock = resolverChannel.lock();
+
+            assertNotNull(lock);
+
+            cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+        }
+        finally {
+            resolverChannel.close();
+        }
+
+        DeletionEngine deletionEngine = (DeletionEngine) getVariableValueFromObject(cleanLocalRepositoryMojo, "deletionEngine");
+
+        assertEquals(3, deletionEngine.getBusySkips());
+
+		assertTrue(snapshotArtifact1.exists()); // Kept, locked by the resolver
+		assertTrue(snapshotArtifact2.exists()); // Kept, downloaded
+		assertTrue(snapshotArtifact3.exists()); // Kept, recently modified
+
+        assertTrue(download.delete());
+        assertTrue(metadata.setLastModified(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(11)));
+
+        cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+
+		assertTrue(releaseArtifact1.exists());
+		assertFalse(snapshotArtifact1.exists()); // Deleted, the resolver lock is released
+		assertFalse(snapshotArtifact2.exists());
+		assertFalse(snapshotArtifact3.exists());
+    }
+
+
+    /**
+     * Test the deleteThreads option with the artifact locks : a version whose deletion is skipped on the pool is neither
+     * counted as deleted nor removed from the walk state
+     * 
+     * @throws Exception
+     */
+    public void testUseArtifactLocksParallelDeletions() throws Exception
+    {
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteAllSnapshots", true);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "snapshotRetentionDelay", DESACTIVATIVED);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "snapshotVersionsRetention", 0);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteEmptyFolders", true);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "useArtifactLocks", true);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteThreads", 4);
+
+        File download = new File(snapshotArtifact2.getParentFile(), "test-example-2.0-SNAPSHOT.pom.part");
+
+        FileUtils.touch(download);
+
+        cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+
+        RunMetrics metrics = (RunMetrics) getVariableValueFromObject(cleanLocalRepositoryMojo, "metrics");
+
+        assertEquals(2, metrics.getVersionsDeleted()); // The skipped version is not counted
+
+		assertFalse(snapshotArtifact1.exists());
+		assertTrue(snapshotArtifact2.exists()); // Kept, downloaded
+		assertFalse(snapshotArtifact3.exists());
+
+        assertTrue(download.delete());
+
+        cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+
+        metrics = (RunMetrics) getVariableValueFromObject(cleanLocalRepositoryMojo, "metrics");
+
+        assertEquals(1, metrics.getVersionsDeleted());
+
+		assertFalse(snapshotArtifact2.exists()); // Deleted, the download is completed
+		assertTrue(releaseArtifact1.exists());
+    }
+
+
+
+    /**
+     * Test the useArtifactLocks option on a deletion above the version folders (the whole repository) : the version in
+     * use by another build is kept with its parent folders, the other versions are deleted
+     *
+     * @throws Exception
+     */
+    public void testUseArtifactLocksGroupLevelDeletion() throws Exception
+    {
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteWholeLocalRepository", true);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "useArtifactLocks", true);
+
+        ArtifactLocks concurrentBuild = new ArtifactLocks(testM2Repo.toPath());
+
+        assertFalse(concurrentBuild.coversTree(new File(testM2Repo, "org/maven").toPath()));
+        assertTrue(concurrentBuild.coversTree(pluginArtifact.getParentFile().toPath()));
+
+        ArtifactLocks.Lock lock = concurrentBuild.tryLock(pluginArtifact.getParentFile().toPath());
+
+        assertNotNull(lock);
+
+        try {
+            cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+        }
+        finally {
+            lock.release();
+            concurrentBuild.close();
+        }
+
+        DeletionEngine deletionEngine = (DeletionEngine) getVariableValueFromObject(cleanLocalRepositoryMojo, "deletionEngine");
+
+        assertEquals(1, deletionEngine.getBusySkips());
+        assertEquals(0, deletionEngine.getFailures());
+
+		assertTrue(pluginArtifact.exists()); // Kept, the artifact is in use
+		assertFalse(snapshotArtifact1.exists());
+		assertFalse(releaseArtifact1.exists());
+    }
+
+
+    /**
+     * Test the reaper on a journaled deletion above the version folders : the version in use by another build is kept
+     * with its parent folders, and the deletion is retained until the version is released
+     *
+     * @throws Exception
+     */
+    public void testDeletionReaperGroupLevelArtifactInUse() throws Exception
+    {
+        File groupFolder = new File(testM2Repo, "org/maven");
+
+        ArtifactLocks concurrentBuild = new ArtifactLocks(testM2Repo.toPath());
+        ArtifactLocks reaperLocks = new ArtifactLocks(testM2Repo.toPath());
+
+        ArtifactLocks.Lock lock = concurrentBuild.tryLock(pluginArtifact.getParentFile().toPath());
+
+        assertNotNull(lock);
+
+        try {
+            DeletionJournal journal = DeletionJournal.open(testM2Repo.toPath());
+
+            journal.append(DeletionJournal.TREE, groupFolder.toPath());
+            journal.close();
+
+            for (int i = 0; i < 100 && DeletionReaper.drain(testM2Repo.toPath(), 0, IoThrottle.NONE, reaperLocks) < 0; i++) {
+
+            	Thread.sleep(100);
+            }
+
+            assertTrue(pluginArtifact.exists()); // Kept, the artifact is in use
+            assertFalse(snapshotArtifact1.exists());
+            assertFalse(releaseArtifact1.exists());
+            assertTrue(DeletionJournal.hasSegments(testM2Repo.toPath())); // The deletion is retained for the next reaper
+        }
+        finally {
+            lock.release();
+            concurrentBuild.close();
+        }
+
+        for (int i = 0; i < 100 && DeletionJournal.hasSegments(testM2Repo.toPath()); i++) {
+
+        	if (DeletionReaper.drain(testM2Repo.toPath(), 0, IoThrottle.NONE, reaperLocks) < 0) { Thread.sleep(100); }
+        }
+
+        reaperLocks.close();
+
+        assertFalse(DeletionJournal.hasSegments(testM2Repo.toPath())); // The whole journal was drained
+        assertFalse(groupFolder.exists()); // Deleted, the lock is released
+    }
+    
+    /**
+     * Test the deleteEmptyFolders and delegated implementations of the plugin
+     * In this test case, the option is enabled
+     * 
+     * @throws Exception
+     */
+    public void testDeleteEmptyFoldersTrue() throws Exception
+    {
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteFromRegularExpression", ".*plugin-example.*");
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteEmptyFolders", true);
+        		
+        cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+        
+        assertFalse(pluginArtifact.exists()); 
+        assertFalse(pluginArtifact.getParentFile().exists()); // Empty folder was deleted 
+    }
+    
+    /**
+     * Test the deleteEmptyFolders and delegated implementations of the plugin
+     * In this test case, the option is disabled
+     * 
+     * @throws Exception
+     */
+    public void testDeleteEmptyFoldersFalse() throws Exception
+    {
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteFromRegularExpression", ".*plugin-example.*");
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteEmptyFolders", false);
+        		
+        cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+        
+        assertFalse(pluginArtifact.exists()); 
+        assertTrue(pluginArtifact.getParentFile().exists()); // Empty folder was not deleted 
+    }
+    
+
+    /**
+     * Test the deleteEmptyFolders option on nested empty folders : the list goal only reports them,
+     * the clean goal deletes the whole empty chain in the same walk
+     * 
+     * @throws Exception
+     */
+    public void testDeleteEmptyFoldersNested() throws Exception
+    {
+        File emptyFolder = new File(testM2Repo, "org/maven/empty/a/b/c");
+        emptyFolder.mkdirs();
+
+        ListLocalRepositoryMojo listLocalRepositoryMojo = new ListLocalRepositoryMojo();
+        setVariableValueToObject(listLocalRepositoryMojo, "localMavenRepository", getVariableValueFromObject(cleanLocalRepositoryMojo, "localMavenRepository"));
+        setVariableValueToObject(listLocalRepositoryMojo, "project", getVariableValueFromObject(cleanLocalRepositoryMojo, "project"));
+        setVariableValueToObject(listLocalRepositoryMojo, "deleteEmptyFolders", true);
+
+        listLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+
+        assertTrue(emptyFolder.exists()); // Only reported by the list goal
+
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteEmptyFolders", true);
+
+        cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+
+        assertFalse(new File(testM2Repo, "org/maven/empty").exists()); // The whole empty chain was deleted
+        assertTrue(pluginArtifact.exists());
+        assertTrue(releaseArtifact1.exists());
+    }
+    
+
+    /**
+     * Test the deleteFromRegularExpression, deleteAllSnapshots and deleteEmptyFolders options applied together
+     * during the same walk of the local repository
+     *
+     * @throws Exception
+     */
+    public void testRepositoryWideOptionsCombined() throws Exception
+    {
+        executeRepositoryWideOptionsCombined();
+    }
+
+
+    /**
+     * Test the repository wide options applied together during a parallel walk of the local repository,
+     * with parallel deletions : the result has to be the same than the serial walk one
+     *
+     * @throws Exception
+     */
+    public void testRepositoryWideOptionsCombinedWithScanThreads() throws Exception
+    {
+        setVariableValueToObject(cleanLocalRepositoryMojo, "scanThreads", 4);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteThreads", 4);
+
+        executeRepositoryWideOptionsCombined();
+    }
+
+
+    /**
+     * Test the useRepositoryIndex option : the second walk replays the unchanged folders from the index
+     * recorded by the first one
+     *
+     * @throws Exception
+     */
+    public void testUseRepositoryIndex() throws Exception
+    {
+        setVariableValueToObject(cleanLocalRepositoryMojo, "useRepositoryIndex", true);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteEmptyFolders", true);
+
+        cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+
+        assertTrue(RepositoryIndex.getFile(testM2Repo.toPath()).toFile().exists());
+        assertFalse(new File(testM2Repo, RepositoryIndex.FILE_NAME).exists()); // Stored out of the repository content
+        assertTrue(RepositoryIndex.load(testM2Repo.toPath()).size() > 0);
+        assertTrue(pluginArtifact.exists());
+
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteFromRegularExpression", ".*plugin-example.*");
+
+        cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+
+        assertFalse(pluginArtifact.exists()); // Deleted, this artifact replayed from the index match with the given RegExp
+        assertFalse(pluginArtifact.getParentFile().exists()); // Empty folder was deleted
+
+		assertTrue(releaseArtifact1.exists());
+		assertTrue(snapshotArtifact1.exists());
+    }
+
+
+    /**
+     * Test the executeDeleteOnExit option : the deletions are journaled, then processed by the detached reaper
+     * (or by this test if the reaper is not started yet)
+     *
+     * @throws Exception
+     */
+    public void testExecuteDeleteOnExitJournal() throws Exception
+    {
+        setVariableValueToObject(cleanLocalRepositoryMojo, "executeDeleteOnExit", true);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteFromRegularExpression", ".*plugin-example.*");
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteEmptyFolders", true);
+
+        cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+
+        for (int i = 0; i < 100 && DeletionJournal.hasSegments(testM2Repo.toPath()); i++) {
+
+        	if (DeletionReaper.drain(testM2Repo.toPath(), 0) < 0) { Thread.sleep(100); }
+        }
+
+        assertFalse(DeletionJournal.hasSegments(testM2Repo.toPath())); // The whole journal was drained
+        assertFalse(pluginArtifact.exists());
+        assertFalse(pluginArtifact.getParentFile().getParentFile().getParentFile().exists()); // Empty group folder was deleted
+
+		assertTrue(releaseArtifact1.exists());
+		assertTrue(snapshotArtifact1.exists());
+		assertTrue(testM2Repo.exists());
+    }
+
+
+    /**
+     * Test the reaper on journal entries outside of the local repository, on its root or on the plugin folder : they
+     * are dropped without deletion
+     *
+     * @throws Exception
+     */
+    public void testDeletionReaperPathSafety() throws Exception
+    {
+        File outsideFolder = new File(testM2Repo.getParentFile(), "outside-repository");
+        File outsideFile = new File(outsideFolder, "keep.txt");
+
+        FileUtils.touch(outsideFile);
+
+        try {
+            DeletionJournal journal = DeletionJournal.open(testM2Repo.toPath());
+
+            journal.append(DeletionJournal.TREE, outsideFolder.toPath());
+            journal.append(DeletionJournal.TREE, new File(testM2Repo, "org/../../outside-repository").toPath());
+            journal.append(DeletionJournal.TREE, new File(testM2Repo, "org/..").toPath());
+            journal.append(DeletionJournal.TREE, DeletionJournal.getFolder(testM2Repo.toPath()));
+            journal.append(DeletionJournal.TREE, pluginArtifact.getParentFile().toPath());
+            journal.close();
+
+            for (int i = 0; i < 100 && DeletionJournal.hasSegments(testM2Repo.toPath()); i++) {
+
+            	if (DeletionReaper.drain(testM2Repo.toPath(), 0) < 0) { Thread.sleep(100); }
+            }
+
+            assertFalse(DeletionJournal.hasSegments(testM2Repo.toPath())); // The rejected entries were dropped
+            assertTrue(outsideFile.exists()); // Kept, outside of the local repository
+            assertTrue(DeletionJournal.getFolder(testM2Repo.toPath()).toFile().exists()); // Kept, plugin folder
+            assertFalse(pluginArtifact.exists()); // Deleted, inside the local repository
+
+            assertTrue(releaseArtifact1.exists());
+            assertTrue(snapshotArtifact1.exists());
+        }
+        finally {
+            FileUtils.deleteDirectory(outsideFolder);
+        }
+    }
+
+
+
+
+    /**
+     * Test the executeDeleteOnExit option with the artifact locks : the deletion of an artifact in use is kept in the
+     * journal until the reaper can process it
+     *
+     * @throws Exception
+     */
+    public void testExecuteDeleteOnExitArtifactInUse() throws Exception
+    {
+        setVariableValueToObject(cleanLocalRepositoryMojo, "executeDeleteOnExit", true);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteFromRegularExpression", ".*plugin-example.*");
+        setVariableValueToObject(cleanLocalRepositoryMojo, "useArtifactLocks", true);
+
+        ArtifactLocks concurrentBuild = new ArtifactLocks(testM2Repo.toPath());
+        ArtifactLocks reaperLocks = new ArtifactLocks(testM2Repo.toPath());
+
+        ArtifactLocks.Lock lock = concurrentBuild.tryLock(pluginArtifact.getParentFile().toPath());
+
+        assertNotNull(lock);
+
+        try {
+            cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+
+            for (int i = 0; i < 100 && DeletionReaper.drain(testM2Repo.toPath(), 0, IoThrottle.NONE, reaperLocks) < 0; i++) {
+
+            	Thread.sleep(100);
+            }
+
+            assertTrue(pluginArtifact.exists()); // Kept, the artifact is in use
+            assertTrue(DeletionJournal.hasSegments(testM2Repo.toPath())); // The deletion is retained for the next reaper
+        }
+        finally {
+            lock.release();
+            concurrentBuild.close();
+        }
+
+        for (int i = 0; i < 100 && DeletionJournal.hasSegments(testM2Repo.toPath()); i++) {
+
+        	if (DeletionReaper.drain(testM2Repo.toPath(), 0, IoThrottle.NONE, reaperLocks) < 0) { Thread.sleep(100); }
+        }
+
+        reaperLocks.close();
+
+        assertFalse(DeletionJournal.hasSegments(testM2Repo.toPath())); // The whole journal was drained
+        assertFalse(pluginArtifact.exists()); // Deleted, the lock is released
+		assertTrue(releaseArtifact1.exists());
+    }
+
+    /**
+     * Test the useTrash option : the expired versions are moved to the trash, under their repository path, 
+     * until the trash is purged
+     *
+     * @throws Exception
+     */
+    public void testUseTrash() throws Exception
+    {
+        setVariableValueToObject(cleanLocalRepositoryMojo, "useTrash", true);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "trashRetentionDelay", 1);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteAllSnapshots", true);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "snapshotRetentionDelay", DESACTIVATIVED);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "snapshotVersionsRetention", 1);
+
+        cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+
+        assertTrue(snapshotArtifact1.exists());
+        assertFalse(snapshotArtifact2.exists()); // Trashed, keep only 1 snapshot version
+        assertFalse(snapshotArtifact3.exists()); // Trashed, keep only 1 snapshot version
+
+        File[] batches = RepositoryTrash.getFolder(testM2Repo.toPath()).toFile().listFiles();
+
+        assertEquals(1, batches.length);
+        assertTrue(new File(batches[0], "org/maven/test/test-example/2.0-SNAPSHOT/test-example-2.0-SNAPSHOT.jar").exists());
+
+        File foreignFolder = new File(RepositoryTrash.getFolder(testM2Repo.toPath()).toFile(), "restored");
+        foreignFolder.mkdirs();
+
+        RepositoryTrash openTrash = RepositoryTrash.open(testM2Repo.toPath());
+        openTrash.moveToTrash(releaseArtifact3.getParentFile().toPath());
+
+        for (int i = 0; i < 100 && DeletionReaper.drain(testM2Repo.toPath(), 0) < 0; i++) {
+
+        	Thread.sleep(100);
+        }
+
+        assertFalse(batches[0].exists()); // The closed batch was purged
+        assertTrue(foreignFolder.exists()); // Not named as a batch
+        assertEquals(3, RepositoryTrash.getFolder(testM2Repo.toPath()).toFile().listFiles().length); // The open batch and its marker are kept
+
+        openTrash.close();
+
+        for (int i = 0; i < 100 && DeletionReaper.drain(testM2Repo.toPath(), 0) < 0; i++) {
+
+        	Thread.sleep(100);
+        }
+
+        FileUtils.deleteDirectory(foreignFolder);
+
+        assertFalse(RepositoryTrash.hasBatches(testM2Repo.toPath())); // The trash was purged
+		assertTrue(releaseArtifact1.exists());
+    }
+
+
+    /**
+     * Test the retention and empty folders rules on a repository stored by another file system provider than the
+     * default one (a zip file system, standing for an in memory one)
+     *
+     * @throws Exception
+     */
+    public void testNonDefaultFileSystem() throws Exception
+    {
+        File zipFile = new File(testM2Repo.getParentFile(), "testLocalMavenRepository.zip");
+        zipFile.delete();
+
+        FileSystem fileSystem = FileSystems.newFileSystem(URI.create("jar:" + zipFile.toURI()), Collections.singletonMap("create", "true"));
+
+        try {
+            Path root = Files.createDirectories(fileSystem.getPath("/m2"));
+            Path zipSnapshot1 = root.resolve("org/maven/test/test-example/1.0-SNAPSHOT/test-example-1.0-SNAPSHOT.jar");
+            Path zipSnapshot2 = root.resolve("org/maven/test/test-example/2.0-SNAPSHOT/test-example-2.0-SNAPSHOT.jar");
+            Path emptyFolder = Files.createDirectories(root.resolve("org/maven/empty/empty-example/1.0"));
+
+            for (Path zipSnapshot : new Path[] { zipSnapshot1, zipSnapshot2 }) {
+                Files.createDirectories(zipSnapshot.getParent());
+                Files.createFile(zipSnapshot);
+            }
+            Files.setLastModifiedTime(zipSnapshot2, FileTime.fromMillis(System.currentTimeMillis() - 86400000L));
+
+            setVariableValueToObject(cleanLocalRepositoryMojo, "fileSystem", fileSystem);
+            setVariableValueToObject(cleanLocalRepositoryMojo, "localMavenRepository", new DefaultArtifactRepository("zipLocalRepo", "file:///m2", new DefaultRepositoryLayout(), true));
+            setVariableValueToObject(cleanLocalRepositoryMojo, "deleteCurrentSnapshot", true);
+            setVariableValueToObject(cleanLocalRepositoryMojo, "snapshotRetentionDelay", DESACTIVATIVED);
+            setVariableValueToObject(cleanLocalRepositoryMojo, "snapshotVersionsRetention", 1);
+            setVariableValueToObject(cleanLocalRepositoryMojo, "deleteEmptyFolders", true);
+
+            cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+
+            assertTrue(Files.exists(zipSnapshot1));
+            assertFalse(Files.exists(zipSnapshot2)); // Deleted, keep only 1 snapshot version
+            assertFalse(Files.exists(emptyFolder));
+            assertTrue(snapshotArtifact2.exists()); // The default file system is left unchanged
+        }
+        finally {
+            fileSystem.close();
+            zipFile.delete();
+        }
+    }
+
+
+    /**
+     * Test the snapshotBuildsRetention option : the older timestamped builds of each classifier are deleted inside
+     * the snapshot version, but the build resolved by the metadata
+     *
+     * @throws Exception
+     */
+    public void testSnapshotBuildsRetention() throws Exception
+    {
+        File snapshotFolder = snapshotArtifact1.getParentFile();
+        List<File> builds = new ArrayList<File>();
+
+        for (int i = 1; i <= 4; i++) {
+            builds.add(new File(snapshotFolder, "test-example-1.0-20260101.12000" + i + "-" + i + ".jar"));
+            builds.add(new File(snapshotFolder, "test-example-1.0-20260101.12000" + i + "-" + i + "-sources.jar"));
+        }
+        for (File build : builds) {
+            createArtifact(build, 0);
+        }
+        FileUtils.writeStringToFile(new File(snapshotFolder, "maven-metadata-central.xml"), "<metadata><versioning><snapshot>"
+            + "<timestamp>20260101.120001</timestamp><buildNumber>1</buildNumber></snapshot></versioning></metadata>", "UTF-8");
+
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteCurrentSnapshot", true);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "snapshotRetentionDelay", DESACTIVATIVED);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "snapshotVersionsRetention", DESACTIVATIVED);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "snapshotBuildsRetention", 2);
+
+        cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+
+        assertTrue(builds.get(0).exists()); // Resolved by the metadata
+        assertTrue(builds.get(1).exists()); // Resolved by the metadata
+        assertFalse(builds.get(2).exists()); // Deleted, keep only the 2 newest builds of each classifier
+        assertFalse(builds.get(3).exists()); // Deleted, keep only the 2 newest builds of each classifier
+        assertTrue(builds.get(4).exists());
+        assertTrue(builds.get(5).exists());
+        assertTrue(builds.get(6).exists());
+        assertTrue(builds.get(7).exists());
+
+        assertTrue(snapshotArtifact1.exists()); // Not a timestamped build
+        assertTrue(snapshotArtifact2.exists());
+
+        for (File build : builds) {
+            build.delete();
+        }
+        new File(snapshotFolder, "maven-metadata-central.xml").delete();
+
+        // The snapshot suffix is matched whatever its case
+        File lowerCaseBuild1 = new File(testM2Repo, "org/maven/test/test-example/4.0-snapshot/test-example-4.0-20260101.120001-1.jar");
+        File lowerCaseBuild2 = new File(testM2Repo, "org/maven/test/test-example/4.0-snapshot/test-example-4.0-20260101.120002-2.jar");
+        createArtifact(lowerCaseBuild1, 0);
+        createArtifact(lowerCaseBuild2, 0);
+
+        assertEquals(Collections.singletonList(lowerCaseBuild1.toPath()), SnapshotBuilds.getExpiredBuilds(lowerCaseBuild1.getParentFile().toPath(), 1));
+
+        FileUtils.deleteDirectory(lowerCaseBuild1.getParentFile());
+    }
+
+
+    /**
+     * Test the metricsReportFile and metricsTextfile options : the counters of the run are written in both formats
+     *
+     * @throws Exception
+     */
+    public void testRunMetrics() throws Exception
+    {
+        File metricsReportFile = new File(testM2Repo.getParentFile(), "metrics/clean-local-repository.json");
+        File metricsTextfile = new File(testM2Repo.getParentFile(), "metrics/clean-local-repository.prom");
+
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteCurrentRelease", true);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "releaseRetentionDelay", DESACTIVATIVED);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "releaseVersionsRetention", 0);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "metricsReportFile", metricsReportFile);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "metricsTextfile", metricsTextfile);
+
+        cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+
+        assertFalse(releaseArtifact1.exists());
+
+        String report = FileUtils.readFileToString(metricsReportFile, "UTF-8");
+        String textfile = FileUtils.readFileToString(metricsTextfile, "UTF-8");
+
+        assertTrue(report.contains("\"goal\": \"clean\""));
+        assertTrue(report.contains("\"versionsDeleted\": 3,")); // The 3 release versions
+        assertTrue(report.contains("\"errors\": 0,"));
+        assertTrue(textfile.contains("# TYPE clean_local_repository_freed_inodes gauge"));
+        assertTrue(textfile.contains("clean_local_repository_versions_deleted{goal=\"clean\"} 3\n"));
+        assertTrue(textfile.contains("clean_local_repository_phase_seconds{goal=\"clean\",phase=\"scan\"}"));
+        assertEquals(2, metricsTextfile.getParentFile().list().length); // No temporary file left
+
+        FileUtils.deleteDirectory(metricsTextfile.getParentFile());
+    }
+
+
+    /**
+     * Test the summaryLog and candidatesReportFile options of the list goal : the candidates are summarized by rule
+     * and by group, and streamed to the report
+     *
+     * @throws Exception
+     */
+    public void testListSummaryAndCandidatesReport() throws Exception
+    {
+        File candidatesReportFile = new File(testM2Repo.getParentFile(), "reports/candidates.ndjson");
+
+        ListLocalRepositoryMojo listLocalRepositoryMojo = new ListLocalRepositoryMojo();
+        setVariableValueToObject(listLocalRepositoryMojo, "localMavenRepository", getVariableValueFromObject(cleanLocalRepositoryMojo, "localMavenRepository"));
+        setVariableValueToObject(listLocalRepositoryMojo, "project", getVariableValueFromObject(cleanLocalRepositoryMojo, "project"));
+        setVariableValueToObject(listLocalRepositoryMojo, "deleteCurrentRelease", true);
+        setVariableValueToObject(listLocalRepositoryMojo, "releaseRetentionDelay", DESACTIVATIVED);
+        setVariableValueToObject(listLocalRepositoryMojo, "releaseVersionsRetention", 1);
+        setVariableValueToObject(listLocalRepositoryMojo, "deleteFromRegularExpression", ".*plugin-example.*");
+        setVariableValueToObject(listLocalRepositoryMojo, "summaryLog", true);
+        setVariableValueToObject(listLocalRepositoryMojo, "candidatesReportFile", candidatesReportFile);
+
+        listLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+
+        CandidateSummary candidateSummary = (CandidateSummary) getVariableValueFromObject(listLocalRepositoryMojo, "candidateSummary");
+
+        assertTrue(pluginArtifact.exists()); // Only reported by the list goal
+        assertTrue(releaseArtifact2.exists());
+
+        assertEquals(Long.valueOf(1), candidateSummary.getCandidatesByRule().get(Enumeres.MOJO_OPTION.DELETE_FROM_REGULAR_EXPRESSION));
+        assertEquals(Long.valueOf(2), candidateSummary.getCandidatesByRule().get(Enumeres.MOJO_OPTION.DELETE_RELEASE));
+        assertEquals("org.maven.test", candidateSummary.getTopGroups(1).get(0).getKey());
+        assertEquals(Long.valueOf(2), candidateSummary.getTopGroups(1).get(0).getValue());
+
+        List<String> candidates = FileUtils.readLines(candidatesReportFile, "UTF-8");
+
+        assertEquals(3, candidates.size());
+        assertTrue(candidates.contains("{\"goal\":\"list\",\"rule\":\"" + Enumeres.MOJO_OPTION.DELETE_FROM_REGULAR_EXPRESSION 
+                                       + "\",\"path\":\"" + pluginArtifact.getAbsolutePath() + "\"}"));
+
+        FileUtils.deleteDirectory(candidatesReportFile.getParentFile());
+    }
+
+
+    /**
+     * Test the maxDuration option : the walk resumes from the position saved by the previous execution, then clears it
+     * once the end of the repository is reached
+     *
+     * @throws Exception
+     */
+    public void testMaxDuration() throws Exception
+    {
+        Path root = testM2Repo.toPath();
+        File cursorFile = new File(testM2Repo, DeletionJournal.FOLDER_NAME + "/" + Enumeres.MVN_GOAL.CLEAN + WalkCursor.FILE_EXTENSION);
+
+        WalkCursor expiredCursor = WalkCursor.open(root, Enumeres.MVN_GOAL.CLEAN, System.nanoTime());
+
+        assertFalse(expiredCursor.isResumed());
+        assertTrue(expiredCursor.isExpired());
+
+        expiredCursor.stopAt(root.resolve("org/maven/test/test-example"));
+        expiredCursor.stopAt(root.resolve("org/maven/test"));
+        expiredCursor.save();
+
+        assertEquals("org/maven/test", FileUtils.readFileToString(cursorFile, "UTF-8").trim());
+
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteFromRegularExpression", ".*plugin-example.*|.*test-example/1\\.0/.*");
+        setVariableValueToObject(cleanLocalRepositoryMojo, "maxDuration", 3600);
+
+        cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+
+        assertTrue(pluginArtifact.exists()); // Walked by the previous execution, before the saved position
+        assertFalse(releaseArtifact1.exists());
+        assertFalse(cursorFile.exists()); // The end of the repository is reached
+
+        cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+
+        assertFalse(pluginArtifact.exists()); // Walked from the beginning
+        assertTrue(releaseArtifact2.exists());
+    }
+
+
+    /**
+     * Test the watch goal : the retention rules are applied on the artifacts written during the watch only
+     *
+     * @throws Exception
+     */
+    public void testWatch() throws Exception
+    {
+        File watchedSnapshot1 = new File(testM2Repo, "org/maven/watch/watched/1.0-SNAPSHOT/watched-1.0-SNAPSHOT.jar");
+        File watchedSnapshot2 = new File(testM2Repo, "org/maven/watch/watched/2.0-SNAPSHOT/watched-2.0-SNAPSHOT.jar");
+
+        final WatchLocalRepositoryMojo watchLocalRepositoryMojo = new WatchLocalRepositoryMojo();
+        setVariableValueToObject(watchLocalRepositoryMojo, "localMavenRepository", getVariableValueFromObject(cleanLocalRepositoryMojo, "localMavenRepository"));
+        setVariableValueToObject(watchLocalRepositoryMojo, "project", getVariableValueFromObject(cleanLocalRepositoryMojo, "project"));
+        setVariableValueToObject(watchLocalRepositoryMojo, "deleteCurrentSnapshot", true);
+        setVariableValueToObject(watchLocalRepositoryMojo, "snapshotRetentionDelay", DESACTIVATIVED);
+        setVariableValueToObject(watchLocalRepositoryMojo, "snapshotVersionsRetention", 1);
+        setVariableValueToObject(watchLocalRepositoryMojo, "watchDebounceDelay", 1);
+
+        final Exception[] failure = new Exception[1];
+
+        Thread watch = new Thread() {
+
+            public void run() {
+                try {
+                    watchLocalRepositoryMojo.execute();
+                }
+                catch (Exception e) {
+                    failure[0] = e;
+                }
+            }
+        };
+        watch.start();
+
+        Thread.sleep(1000); // Registration of the repository tree
+
+        createArtifact(watchedSnapshot1, -1);
+        createArtifact(watchedSnapshot2, -2);
+
+        for (int i = 0; i < 100 && watchedSnapshot2.exists(); i++) {
+
+            Thread.sleep(100);
+        }
+
+        watch.interrupt();
+        watch.join();
+
+        assertNull(failure[0]);
+        assertTrue(watchedSnapshot1.exists());
+        assertFalse(watchedSnapshot2.exists()); // Deleted once quiet, keep only 1 snapshot version
+        assertTrue(snapshotArtifact3.exists()); // Not written during the watch
+
+        FileUtils.deleteDirectory(watchedSnapshot1.getParentFile().getParentFile().getParentFile());
+    }
+
+
+    /**
+     * Test the watch of a file system which cannot notify the changes (a zip file system, standing for a repository
+     * whose folders exceed the watches limit) : the watch falls back to periodic passes over the tree
+     *
+     * @throws Exception
+     */
+    public void testWatchPollingFallback() throws Exception
+    {
+        File zipFile = new File(testM2Repo.getParentFile(), "testWatchedRepository.zip");
+        zipFile.delete();
+
+        FileSystem fileSystem = FileSystems.newFileSystem(URI.create("jar:" + zipFile.toURI()), Collections.singletonMap("create", "true"));
+
+        try {
+            Path root = Files.createDirectories(fileSystem.getPath("/m2"));
+            Path snapshot = root.resolve("org/maven/watch/watched/1.0-SNAPSHOT/watched-1.0-SNAPSHOT.jar");
+            Files.createDirectories(snapshot.getParent());
+            Files.createFile(snapshot);
+
+            RepositoryWatcher watcher = RepositoryWatcher.open(root);
+
+            try {
+                assertTrue(watcher.isPolling());
+                assertEquals(1, watcher.getVersionCount()); // The model is built by the first pass
+
+                final List<IOException> causes = new ArrayList<IOException>();
+
+                watcher.watch(new RepositoryWatcher.Listener() {
+
+                    public void artifactChanged(Path artifactFolder, List<Path> versionFolders) {
+                        fail("Unchanged artifact " + artifactFolder);
+                    }
+
+                    public void pollingStarted(IOException cause) {
+                        causes.add(cause);
+                    }
+                }, 10, System.currentTimeMillis() + 100);
+
+                assertEquals(1, causes.size()); // Notified once
+            }
+            finally {
+                watcher.close();
+            }
+        }
+        finally {
+            fileSystem.close();
+            zipFile.delete();
+        }
+    }
+
+
+    /**
+     * Common execution and checks of the repository wide options applied together
+     *
+     * @throws Exception
+     */
+    private void executeRepositoryWideOptionsCombined() throws Exception
+    {
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteFromRegularExpression", ".*plugin-example.*");
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteAllSnapshots", true);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "snapshotRetentionDelay", DESACTIVATIVED);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "snapshotVersionsRetention", 1);
+        setVariableValueToObject(cleanLocalRepositoryMojo, "deleteEmptyFolders", true);
+
+        cleanLocalRepositoryMojo.executeCleanLocalRepositoryGoals();
+
+        assertFalse(pluginArtifact.exists());
+        assertFalse(pluginArtifact.getParentFile().getParentFile().getParentFile().exists()); // Empty group folder was deleted
+
+		assertTrue(releaseArtifact1.exists());
+		assertTrue(releaseArtifact2.exists());
+		assertTrue(releaseArtifact3.exists());
+
+		assertTrue(snapshotArtifact1.exists());
+		assertFalse(snapshotArtifact2.getParentFile().exists()); // Deleted, keep only 1 snapshot version
+		assertFalse(snapshotArtifact3.getParentFile().exists()); // Deleted, keep only 1 snapshot version
+
+		assertTrue(testM2Repo.exists());
+    }
+
+
+    /**
+     * Common initialization of the mojo parameter
+     *  
+     * @return
+     * @throws MalformedURLException
+     * @throws IllegalAccessException
+     */
+	private CleanLocalRepositoryMojo initializeCleanLocalRepositoryMojo() throws MalformedURLException, IllegalAccessException {
+		
+		CleanLocalRepositoryMojo cleanLocalRepositoryMojo = new CleanLocalRepositoryMojo();
+
+    	DefaultArtifactRepository localMavenRepository = new DefaultArtifactRepository("testLocalRepo", testM2Repo.toURI().toURL().toString(), new DefaultRepositoryLayout(), true);
+        
+    	setVariableValueToObject(cleanLocalRepositoryMojo, "executeDeleteOnExit", false);
+    	
+    	setVariableValueToObject(cleanLocalRepositoryMojo, "localMavenRepository", localMavenRepository);
+         
+    	MavenProject mavenProject =  new MavenProject();
+    	
+    	mavenProject.setGroupId("org.maven.test");
+    	
+    	mavenProject.setArtifactId("test-example");
+    	
+    	mavenProject.setVersion("3.0-SNAPSHOT");
+    	
+    	mavenProject.setExecutionRoot(true);
+    	
+    	setVariableValueToObject(cleanLocalRepositoryMojo, "project", mavenProject);
+    	
+		return cleanLocalRepositoryMojo;
+	}
+	
+	/**
+	 * Common initialization of the test local repository with empty artifact
+	 * 
+	 * @return 
+	 * @throws IOException
+	 */
+	private File initializeTestMavenRepository() throws IOException {
+		
+		File testM2Repo = new File(getBasedir() + TEST_M2_REPO_PATH);
+		 
+		testM2Repo.mkdirs();
+		
+		// Each test starts without the plugin folder (index, journal, trash and locks) left by the previous ones
+		
+		FileUtils.deleteDirectory(DeletionJournal.getFolder(testM2Repo.toPath()).toFile());
+		
+		pluginArtifact    = new File(testM2Repo, "org/maven/plugins/plugin-example/1.0/plugin-exemple-1.0.jar");
+		releaseArtifact1  = new File(testM2Repo, "org/maven/test/test-example/1.0/test-example-1.0.jar");
+		releaseArtifact2  = new File(testM2Repo, "org/maven/test/test-example/2.0/test-example-2.0.jar");
+		releaseArtifact3  = new File(testM2Repo, "org/maven/test/test-example/3.0/test-example-3.0.jar");
+		snapshotArtifact1 = new File(testM2Repo, "org/maven/test/test-example/1.0-SNAPSHOT/test-example-1.0-SNAPSHOT.jar");
+		snapshotArtifact2 = new File(testM2Repo, "org/maven/test/test-example/2.0-SNAPSHOT/test-example-2.0-SNAPSHOT.jar");
+		snapshotArtifact3 = new File(testM2Repo, "org/maven/test/test-example/3.0-SNAPSHOT/test-example-3.0-SNAPSHOT.jar");
+ 
+		createArtifact(pluginArtifact,    -7);
+		createArtifact(releaseArtifact1,  -1);
+		createArtifact(releaseArtifact2,  -2);
+		createArtifact(releaseArtifact3,  -3);
+		createArtifact(snapshotArtifact1, -1);
+		createArtifact(snapshotArtifact2, -2);
+		createArtifact(snapshotArtifact3, -3);
 		
 		return testM2Repo;
 		
 	}
 
+	/**
+	 * Create an artifact of the given size, last modified and accessed the given day (for disk budget testing purpose)
+	 * @param file
+	 * @param size
+	 * @param usageDateSinceToday
+	 * @throws IOException
+	 */
+	private void createUsedArtifact(File file, int size, int usageDateSinceToday) throws IOException {
+
+		FileUtils.writeByteArrayToFile(file, new byte[size]);
+		
+		Calendar calendar = Calendar.getInstance();
+		calendar.add(Calendar.DATE, usageDateSinceToday);
+		FileTime usageDate = FileTime.fromMillis(calendar.getTimeInMillis());
+		Files.getFileAttributeView(file.toPath(), BasicFileAttributeView.class).setTimes(usageDate, usageDate, null);
+	}
+
+	/**
+	 * Create a Maven session of a build invoking the given goals
+	 * @param goals
+	 * @return the Maven session
+	 */
+	private static MavenSession newMavenSession(final String... goals) {
+
+		return new MavenSession(null, null, null, null, null, Arrays.asList(goals), null, null, new Date());
+	}
+
+		/**
+	 * Wrap a path of the default file system into a path of a file system separating its segments by a backslash, 
+	 * as the Windows file systems do (for path patterns testing purpose)
+	 * @param path
+	 * @return the backslash separated path
+	 */
+	private static Path toBackslashPath(final Path path) {
+
+		final FileSystem backslashFileSystem = new FileSystem() {
+
+			public String getSeparator() { return "\\"; }
+
+			public Path getPath(String first, String... more) { return toBackslashPath(path.getFileSystem().getPath(first, more)); }
+
+			public FileSystemProvider provider() { throw new UnsupportedOperationException(); }
+
+			public void close() { throw new UnsupportedOperationException(); }
+
+			public boolean isOpen() { return true; }
+
+			public boolean isReadOnly() { return true; }
+
+			public Iterable<Path> getRootDirectories() { throw new UnsupportedOperationException(); }
+
+			public Iterable<FileStore> getFileStores() { throw new UnsupportedOperationException(); }
+
+			public Set<String> supportedFileAttributeViews() { throw new UnsupportedOperationException(); }
+
+			public PathMatcher getPathMatcher(String syntaxAndPattern) { throw new UnsupportedOperationException(); }
+
+			public UserPrincipalLookupService getUserPrincipalLookupService() { throw new UnsupportedOperationException(); }
+
+			public WatchService newWatchService() { throw new UnsupportedOperationException(); }
+		};
+
+		return (Path) Proxy.newProxyInstance(Path.class.getClassLoader(), new Class<?>[] { Path.class }, new BackslashPath(path, backslashFileSystem));
+	}
+
+	/**
+	 * Delegate of the backslash separated paths : the default file system path is printed with backslashes
+	 */
+	private static final class BackslashPath implements InvocationHandler {
+
+		/**
+		 * Wrapped default file system path
+		 */
+		private final Path path;
+
+		/**
+		 * File system returned by the wrapping path
+		 */
+		private final FileSystem fileSystem;
+
+		/**
+		 * @param path
+		 * @param fileSystem
+		 */
+		private BackslashPath(final Path path, final FileSystem fileSystem) {
+			this.path = path;
+			this.fileSystem = fileSystem;
+		}
+
+		public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+
+			if (method.getName().equals("toString")) {
+				return path.toString().replace('/', '\\');
+			}
+
+			if (method.getName().equals("getFileSystem")) {
+				return fileSystem;
+			}
+
+			for (int i = 0; args != null && i < args.length; i++) {
+
+				if (args[i] instanceof Path && Proxy.isProxyClass(args[i].getClass())) {
+					args[i] = ((BackslashPath) Proxy.getInvocationHandler(args[i])).path;
+				}
+			}
+
+			try {
+				final Object result = method.invoke(path, args);
+
+				return result instanceof Path ? toBackslashPath((Path) result) : result;
+			}
+			catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+	}
+
 	/**
 	 * Create an empty artifact with creation date modification (for delay testing purpose)
 	 * @param file